@@ -73,6 +73,7 @@ public class DBConnectController {
         try {
             JSONObject jsonObject = getRequestBodyJSON(request);
             Pair<ZonedDateTime, ZonedDateTime> timeRange = getTimeFromAndTo(jsonObject);
+            int maxDataPoints = jsonObject.optInt("maxDataPoints", 0);
             JSONArray array = (JSONArray)jsonObject.get("targets"); //[]
             JSONArray result = new JSONArray();
             for (int i=0; i<array.length(); i++) {
@@ -85,7 +86,7 @@ public class DBConnectController {
                 if (type.equals("table")) {
                     setJSONTable(obj, target, timeRange);
                 } else if (type.equals("timeserie")) {
-                    setJSONTimeseries(obj, target, timeRange);
+                    setJSONTimeseries(obj, target, timeRange, maxDataPoints);
                 }
                 result.put(i, obj);
             }
@@ -105,7 +106,8 @@ public class DBConnectController {
     }
 
     private void setJSONTable(JSONObject obj, String target, Pair<ZonedDateTime, ZonedDateTime> timeRange) throws JSONException {
-        List<TimeValues> timeValues = DBConnectService.querySeries(target, timeRange);
+        // a table shows all the raw points
+        List<TimeValues> timeValues = DBConnectService.querySeries(target, timeRange, 0);
         JSONArray columns = new JSONArray();
         JSONObject column = new JSONObject();
         column.put("text", "Time");
@@ -126,8 +128,9 @@ public class DBConnectController {
         obj.put("values", values);
     }
 
-    private void setJSONTimeseries(JSONObject obj, String target, Pair<ZonedDateTime, ZonedDateTime> timeRange) throws JSONException {
-        List<TimeValues> timeValues = DBConnectService.querySeries(target, timeRange);
+    private void setJSONTimeseries(JSONObject obj, String target, Pair<ZonedDateTime, ZonedDateTime> timeRange,
+                                   int maxDataPoints) throws JSONException {
+        List<TimeValues> timeValues = DBConnectService.querySeries(target, timeRange, maxDataPoints);
         logger.info("query size: {}", timeValues.size());
         JSONArray dataPoints = new JSONArray();
         for (TimeValues tv : timeValues) {
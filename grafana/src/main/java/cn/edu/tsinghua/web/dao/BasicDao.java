@@ -11,7 +11,11 @@ import java.util.List;
  */
 public interface BasicDao {
 
-    List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange);
+    /**
+     * @param maxDataPoints the number of points the chart could show, the series is downsampled if it has more points
+     *                      than that, 0 means the raw points
+     */
+    List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange, int maxDataPoints);
 
     List<String> getMetaData();
 
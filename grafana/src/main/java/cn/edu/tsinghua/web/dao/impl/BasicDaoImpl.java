@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
@@ -28,6 +29,11 @@ public class BasicDaoImpl implements BasicDao {
 
     private static final Logger logger = LoggerFactory.getLogger(BasicDaoImpl.class);
 
+    private static final int M4_POINT_NUM = 4;
+    private static final String TRUE_STR = "true";
+    private static final String FALSE_STR = "false";
+    private static final String NULL_STR = "null";
+
     private final JdbcTemplate jdbcTemplate;
 
     @Autowired
@@ -54,17 +60,37 @@ public class BasicDaoImpl implements BasicDao {
     }
 
     @Override
-    public List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange) {
+    public List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange, int maxDataPoints) {
         Long from = zonedCovertToLong(timeRange.left);
         Long to = zonedCovertToLong(timeRange.right);
-        String sql = "SELECT " + s.substring(s.lastIndexOf('.')+1) + " FROM root." + s.substring(0, s.lastIndexOf('.')) + " WHERE time > " + from + " and time < " + to;
+        String measurement = s.substring(s.lastIndexOf('.')+1);
+        String deltaObject = "root." + s.substring(0, s.lastIndexOf('.'));
+        // every group gives at most 4 points, the series is downsampled only if it may have more points than asked
+        long groupNum = maxDataPoints / M4_POINT_NUM;
+        long rangeLength = to - from - 1;
+        if (groupNum == 0 || rangeLength <= maxDataPoints) {
+            String sql = "SELECT " + measurement + " FROM " + deltaObject + " WHERE time > " + from + " and time < " + to;
+            logger.info(sql);
+            List<TimeValues> rows = null;
+            try {
+                rows = jdbcTemplate.query(sql, new TimeValuesRowMapper("root." + s));
+            } catch (Exception e) {
+                logger.error(e.getMessage());
+            }
+            return rows;
+        }
+
+        long unit = (rangeLength + groupNum - 1) / groupNum;
+        String sql = String.format("SELECT first(%1$s),last(%1$s),min_value(%1$s),max_value(%1$s),min_time(%1$s),max_time(%1$s)"
+                + " FROM %2$s GROUP BY(%3$dms, %4$d, [%4$d,%5$d])", measurement, deltaObject, unit, from + 1, to - 1);
         logger.info(sql);
-        List<TimeValues> rows = null;
-		try {
-			rows = jdbcTemplate.query(sql, new TimeValuesRowMapper("root." + s));
-		} catch (Exception e) {
-			logger.error(e.getMessage());
-		}
+        List<TimeValues> rows = new ArrayList<>();
+        try {
+            jdbcTemplate.query(sql, new M4RowCallbackHandler("root." + s, rows));
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            rows = null;
+        }
         return rows;
     }
 
@@ -72,10 +98,24 @@ public class BasicDaoImpl implements BasicDao {
         return time.toInstant().toEpochMilli();
     }
 
+	static float parseValue(String vString) {
+		if (vString == null) {
+			return 0;
+		}
+		if (TRUE_STR.equals(vString.toLowerCase())) {
+			return 1;
+		} else if (FALSE_STR.equals(vString.toLowerCase())) {
+			return 0;
+		}
+		try {
+			return Float.parseFloat(vString);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
 	static class TimeValuesRowMapper implements RowMapper<TimeValues> {
 		String columnName;
-		final String TRUE_STR = "true";
-		final String FALSE_STR = "false";
 
 		TimeValuesRowMapper(String columnName) {
 			this.columnName = columnName;
@@ -85,21 +125,60 @@ public class BasicDaoImpl implements BasicDao {
 		public TimeValues mapRow(ResultSet resultSet, int i) throws SQLException {
 			TimeValues tv = new TimeValues();
 			tv.setTime(resultSet.getLong("Time"));
-			String vString = resultSet.getString(columnName);
-			if (vString != null) {
-				if (TRUE_STR.equals(vString.toLowerCase())) {
-					tv.setValue(1);
-				} else if (FALSE_STR.equals(vString.toLowerCase())) {
-					tv.setValue(0);
+			tv.setValue(parseValue(resultSet.getString(columnName)));
+			return tv;
+		}
+	}
+
+	/**
+	 * Turns every group of the M4 query into its first, minimum, maximum and last points, which draw the same line
+	 * as all the points of the group in a pixel column. The real timestamps of the minimum and maximum are unknown,
+	 * so they are put inside the group in the order going from the first value to the last one.
+	 */
+	static class M4RowCallbackHandler implements RowCallbackHandler {
+		String columnName;
+		List<TimeValues> rows;
+
+		M4RowCallbackHandler(String columnName, List<TimeValues> rows) {
+			this.columnName = columnName;
+			this.rows = rows;
+		}
+
+		@Override
+		public void processRow(ResultSet resultSet) throws SQLException {
+			String minTime = resultSet.getString("min_time(" + columnName + ")");
+			if (minTime == null || NULL_STR.equals(minTime)) {
+				// no point in this group
+				return;
+			}
+			long firstTime = Long.parseLong(minTime);
+			long lastTime = Long.parseLong(resultSet.getString("max_time(" + columnName + ")"));
+			float first = parseValue(resultSet.getString("first(" + columnName + ")"));
+			float last = parseValue(resultSet.getString("last(" + columnName + ")"));
+			float min = parseValue(resultSet.getString("min_value(" + columnName + ")"));
+			float max = parseValue(resultSet.getString("max_value(" + columnName + ")"));
+
+			add(firstTime, first);
+			if (lastTime > firstTime) {
+				long step = Math.max(1, (lastTime - firstTime) / 3);
+				boolean hasMin = min < Math.min(first, last);
+				boolean hasMax = max > Math.max(first, last);
+				if (first <= last) {
+					if (hasMin) add(firstTime + step, min);
+					if (hasMax) add(lastTime - step, max);
 				} else {
-					try {
-						tv.setValue(resultSet.getFloat(columnName));
-					} catch (Exception e) {
-						tv.setValue(0);
-					}
+					if (hasMax) add(firstTime + step, max);
+					if (hasMin) add(lastTime - step, min);
 				}
+				add(lastTime, last);
 			}
-			return tv;
+		}
+
+		private void add(long time, float value) {
+			TimeValues tv = new TimeValues();
+			tv.setTime(time);
+			tv.setValue(value);
+			rows.add(tv);
 		}
 	}
 
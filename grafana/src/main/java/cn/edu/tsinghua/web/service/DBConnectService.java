@@ -13,7 +13,11 @@ public interface DBConnectService {
 
     int testConnection();
 
-    List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange);
+    /**
+     * @param maxDataPoints the number of points the chart could show, the series is downsampled if it has more points
+     *                      than that, 0 means the raw points
+     */
+    List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange, int maxDataPoints);
 
     List<String> getMetaData();
 
@@ -26,8 +26,8 @@ public class DBConnectServiceImpl implements DBConnectService {
     }
 
     @Override
-    public List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange) {
-        return basicDao.querySeries(s, timeRange);
+    public List<TimeValues> querySeries(String s, Pair<ZonedDateTime, ZonedDateTime> timeRange, int maxDataPoints) {
+        return basicDao.querySeries(s, timeRange, maxDataPoints);
     }
 
     @Override
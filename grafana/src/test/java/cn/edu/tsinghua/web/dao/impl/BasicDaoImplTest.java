@@ -0,0 +1,95 @@
+package cn.edu.tsinghua.web.dao.impl;
+
+import cn.edu.tsinghua.web.bean.TimeValues;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BasicDaoImplTest {
+
+    private static final String COLUMN = "root.vehicle.d0.s0";
+
+    private List<TimeValues> rows;
+    private BasicDaoImpl.M4RowCallbackHandler handler;
+
+    @Before
+    public void setUp() {
+        rows = new ArrayList<>();
+        handler = new BasicDaoImpl.M4RowCallbackHandler(COLUMN, rows);
+    }
+
+    @Test
+    public void testMinAndMaxInsideGroup() throws SQLException {
+        // rising from the first to the last value, so the minimum comes before the maximum
+        handler.processRow(mockRow("2", "5", "1", "9", "100", "160"));
+        assertRows(new long[]{100, 120, 140, 160}, new float[]{2, 1, 9, 5});
+
+        // falling, so the maximum comes before the minimum
+        rows.clear();
+        handler.processRow(mockRow("5", "2", "1", "9", "100", "160"));
+        assertRows(new long[]{100, 120, 140, 160}, new float[]{5, 9, 1, 2});
+    }
+
+    @Test
+    public void testMinOrMaxOnFirstOrLast() throws SQLException {
+        // the minimum is the first point and the maximum the last one
+        handler.processRow(mockRow("1", "9", "1", "9", "100", "160"));
+        assertRows(new long[]{100, 160}, new float[]{1, 9});
+
+        // the maximum is the first point, the minimum is inside the group
+        rows.clear();
+        handler.processRow(mockRow("9", "3", "1", "9", "100", "160"));
+        assertRows(new long[]{100, 140, 160}, new float[]{9, 1, 3});
+
+        // the minimum is the last point, the maximum is inside the group
+        rows.clear();
+        handler.processRow(mockRow("3", "1", "1", "9", "100", "160"));
+        assertRows(new long[]{100, 120, 160}, new float[]{3, 9, 1});
+
+        // one point only
+        rows.clear();
+        handler.processRow(mockRow("4", "4", "4", "4", "100", "100"));
+        assertRows(new long[]{100}, new float[]{4});
+    }
+
+    @Test
+    public void testEmptyGroups() throws SQLException {
+        handler.processRow(mockRow(null, null, null, null, null, null));
+        handler.processRow(mockRow("null", "null", "null", "null", "null", "null"));
+        assertEquals(0, rows.size());
+
+        // the points of the groups around an empty one are kept in order
+        handler.processRow(mockRow("1", "2", "1", "2", "100", "110"));
+        handler.processRow(mockRow("null", "null", "null", "null", "null", "null"));
+        handler.processRow(mockRow("true", "false", "false", "true", "300", "300"));
+        assertRows(new long[]{100, 110, 300}, new float[]{1, 2, 1});
+    }
+
+    private ResultSet mockRow(String first, String last, String min, String max, String minTime, String maxTime)
+            throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString("first(" + COLUMN + ")")).thenReturn(first);
+        when(resultSet.getString("last(" + COLUMN + ")")).thenReturn(last);
+        when(resultSet.getString("min_value(" + COLUMN + ")")).thenReturn(min);
+        when(resultSet.getString("max_value(" + COLUMN + ")")).thenReturn(max);
+        when(resultSet.getString("min_time(" + COLUMN + ")")).thenReturn(minTime);
+        when(resultSet.getString("max_time(" + COLUMN + ")")).thenReturn(maxTime);
+        return resultSet;
+    }
+
+    private void assertRows(long[] times, float[] values) {
+        assertEquals(times.length, rows.size());
+        for (int i = 0; i < times.length; i++) {
+            assertEquals(times[i], rows.get(i).getTime());
+            assertEquals(values[i], rows.get(i).getValue(), 0);
+        }
+    }
+}
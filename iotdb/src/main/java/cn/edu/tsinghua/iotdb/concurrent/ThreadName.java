@@ -4,6 +4,7 @@ public enum ThreadName {
     JDBC_SERVICE("JDBC-ServerServiceImpl"),
     JDBC_CLIENT("JDBC-Client"),
     MERGE_SERVICE("Merge-ServerServiceImpl"),
+    MERGE_SERIES("IoTDB-Merge-Series-Thread"),
     CLOSE_MERGE_SERVICE("Close-Merge-ServerServiceImpl"),
     CLOSE_MERGE_DAEMON("Close-Merge-Daemon-Thread"),
     CLOSE_DAEMON("Close-Daemon-Thread"),
@@ -14,7 +15,10 @@ public enum ThreadName {
     FORCE_FLUSH_ALL_POLICY("IoTDB-ForceFlushAllPolicy-Thread"),
     STAT_MONITOR("StatMonitor-ServerServiceImpl"),
     FLUSH_SERVICE("Flush-ServerServiceImpl"),
+    FLUSH_ENCODE("IoTDB-Flush-Encode-Thread"),
+    QUERY_SERIES("IoTDB-Query-Series-Thread"),
     WAL_DAEMON("IoTDB-MultiFileLogNodeManager-Sync-Thread"),
+    WAL_RECOVER("IoTDB-MultiFileLogNodeManager-Recover-Thread"),
     INDEX_SERVICE("Index-ServerServiceImpl");
     
     private String name;
@@ -37,6 +37,29 @@ public class TsfileDBConfig {
 	 * operations
 	 */
 	public long flushWalPeriodInMs = 10000;
+
+	/**
+	 * When write ahead logs are forced to disk, one of sync, periodic or async.
+	 * sync: an insertion returns after its log is on disk, concurrent insertions share one fsync.
+	 * periodic: logs are forced every flush_wal_threshold logs or flush_wal_period_in_ms.
+	 * async: logs are written at the same points as periodic but only forced when the FileNode flushes or closes.
+	 */
+	public String walDurability = "periodic";
+
+	/**
+	 * Storage groups that use another durability than walDurability, e.g. "root.a:sync,root.b:async"
+	 */
+	public String walDurabilityOverrides = "";
+
+	/**
+	 * Size in byte of a WAL segment file. Segments are preallocated and reused after the FileNode is flushed.
+	 * A segment is at least large enough to hold one log of maxLogEntrySize.
+	 */
+	public int walSegmentSize = 8 * 1024 * 1024;
+	/**
+	 * How many storage groups can replay their write ahead logs concurrently at startup. When <= 0, use CPU core number.
+	 */
+	public int concurrentRecoverThread = Runtime.getRuntime().availableProcessors();
 	/**
 	 * Data directory
 	 */
@@ -100,6 +123,36 @@ public class TsfileDBConfig {
 	 */
 	public int mergeConcurrentThreads = Runtime.getRuntime().availableProcessors();
 
+	/**
+	 * How many threads can concurrently read, merge and encode the series of merging files. When <= 0, use CPU core
+	 * number.
+	 */
+	public int mergeConcurrentSeriesThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The maximum bytes per second read from tsfiles and overflow files by all the merges, in MB. When <= 0, the reads
+	 * are not limited. It can be changed at runtime by JMX.
+	 */
+	public int mergeReadThroughputInMB = 0;
+
+	/**
+	 * The maximum bytes per second written into new tsfiles by all the merges, in MB. When <= 0, the writes are not
+	 * limited. It can be changed at runtime by JMX.
+	 */
+	public int mergeWriteThroughputInMB = 0;
+
+	/**
+	 * How many adjacent closed tsfiles of the same size tier are compacted into one tsfile in the background. The
+	 * files smaller than bufferwriteFileSizeThreshold are in the lowest tier, and every higher tier holds files
+	 * compactionFanIn times bigger. When < 2, the tsfiles are not compacted.
+	 */
+	public int compactionFanIn = 4;
+
+	/**
+	 * The tsfiles of at least this size (in byte) are not compacted any more.
+	 */
+	public long compactionMaxFileSizeThreshold = 8 * 1024 * 1024 * 1024L;
+
 	/**
 	 * Maximum number of folders open at the same time
 	 */
@@ -138,6 +191,35 @@ public class TsfileDBConfig {
 	 */
 	public int concurrentFlushThread = Runtime.getRuntime().availableProcessors();
 
+	/**
+	 * How many memtables of a bufferwrite processor can wait for flush or be flushed at the same time. Writes only
+	 * wait for flushes when this is reached or the memory usage is dangerous. At least 1.
+	 */
+	public int maxFlushingMemTableNum = 4;
+
+	/**
+	 * How many threads can concurrently encode the series of flushing memtables. When <= 0, use CPU core number.
+	 */
+	public int concurrentEncodeThread = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * How many threads are shared by the queries to create and prefetch the readers of their series. When <= 0, use
+	 * CPU core number.
+	 */
+	public int concurrentQueryThread = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * How many threads, including the one running the query, can create the series readers of one query at the same
+	 * time, so that a large query cannot take the whole query pool. 1 means the readers are created one by one.
+	 */
+	public int queryParallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+	/**
+	 * How many queries can use the query pool at the same time. The queries beyond it create their series readers in
+	 * their own thread instead of waiting. At least 1.
+	 */
+	public int maxConcurrentParallelQuery = Runtime.getRuntime().availableProcessors();
+
 	public DateTimeZone timeZone = DateTimeZone.getDefault();
 	
 	/**
@@ -156,6 +238,31 @@ public class TsfileDBConfig {
 	 */
 	public long memMonitorInterval = 1000;  // in ms
 
+	/**
+	 * When the memory usage is dangerous, a write waits at most such time for the flushes to free memory before it
+	 * goes on anyway, so the writers are slowed down instead of running out of memory. Only works with the
+	 * RecordMemController. 0 means never wait.
+	 */
+	public long memWaitTimeout = 1000;  // in ms
+
+	/**
+	 * The TsFileMetaData and TsRowGroupBlockMetaData of tsfiles share a cache of this size in byte, which is
+	 * estimated from the structure of the metadata. The least recently used metadata is evicted first.
+	 */
+	public long metadataCacheSize = (long) (0.05 * Runtime.getRuntime().maxMemory());
+
+	/**
+	 * The series chunks read by queries from tsfiles are shared by all queries in a cache of this size in byte. 0
+	 * means the chunks are not cached.
+	 */
+	public long chunkCacheSize = (long) (0.1 * Runtime.getRuntime().maxMemory());
+
+	/**
+	 * If true, the pages of a cached chunk are kept decompressed, which saves the decompression on every hit but takes
+	 * more of {@link #chunkCacheSize}.
+	 */
+	public boolean cacheDecompressedPage = false;
+
 	/**
 	 * Decide how to control memory used by inserting data.
 	 * 0 is RecordMemController, which count the size of every record (tuple).
@@ -232,6 +339,12 @@ public class TsfileDBConfig {
 	 */
 	public int mManagerCacheSize = 400000;
 
+	/**
+	 * When the metadata operation log of {@link cn.edu.tsinghua.iotdb.metadata.MManager} has this many lines, the
+	 * metadata is written to a binary snapshot and the log is restarted. If it is <= 0, the log is never checkpointed.
+	 */
+	public int metadataCheckpointThreshold = 1000000;
+
 	/**
 	 * The maximum size of a single log in byte. If a log exceeds this size, it cannot be written to WAL file.
 	 */
@@ -90,6 +90,8 @@ public class TsfileDBDescriptor {
 
 			conf.flushWalThreshold = Integer.parseInt(properties.getProperty("flush_wal_threshold", conf.flushWalThreshold+""));
 			conf.flushWalPeriodInMs = Integer.parseInt(properties.getProperty("flush_wal_period_in_ms", conf.flushWalPeriodInMs+""));
+			conf.walDurability = properties.getProperty("wal_durability", conf.walDurability).trim();
+			conf.walDurabilityOverrides = properties.getProperty("wal_durability_overrides", conf.walDurabilityOverrides).trim();
 			
 			conf.dataDir = properties.getProperty("data_dir", conf.dataDir);
 			conf.bufferWriteDirs = properties.getProperty("tsfile_dir", conf.default_tsfile_dir).split(",");
@@ -103,6 +105,18 @@ public class TsfileDBDescriptor {
 			if (conf.mergeConcurrentThreads <= 0
 					|| conf.mergeConcurrentThreads > Runtime.getRuntime().availableProcessors())
 				conf.mergeConcurrentThreads = Runtime.getRuntime().availableProcessors();
+			conf.mergeConcurrentSeriesThreads = Integer.parseInt(properties
+					.getProperty("merge_concurrent_series_threads", conf.mergeConcurrentSeriesThreads + "").trim());
+			if (conf.mergeConcurrentSeriesThreads <= 0)
+				conf.mergeConcurrentSeriesThreads = Runtime.getRuntime().availableProcessors();
+			conf.mergeReadThroughputInMB = Integer.parseInt(
+					properties.getProperty("merge_read_throughput_in_mb", conf.mergeReadThroughputInMB + "").trim());
+			conf.mergeWriteThroughputInMB = Integer.parseInt(
+					properties.getProperty("merge_write_throughput_in_mb", conf.mergeWriteThroughputInMB + "").trim());
+			conf.compactionFanIn = Integer
+					.parseInt(properties.getProperty("compaction_fan_in", conf.compactionFanIn + "").trim());
+			conf.compactionMaxFileSizeThreshold = Long.parseLong(properties
+					.getProperty("compaction_max_file_size_threshold", conf.compactionMaxFileSizeThreshold + "").trim());
 			
 			conf.fetchSize = Integer.parseInt(properties.getProperty("fetch_size", conf.fetchSize + ""));
 			
@@ -114,6 +128,12 @@ public class TsfileDBDescriptor {
 			conf.memThresholdDangerous = (long) (Runtime.getRuntime().maxMemory() * Double.parseDouble(properties.getProperty("mem_threshold_dangerous", conf.memThresholdDangerous+"").trim()));
 
 			conf.memMonitorInterval = Long.parseLong(properties.getProperty("mem_monitor_interval", conf.memMonitorInterval+"").trim());
+			conf.memWaitTimeout = Long.parseLong(properties.getProperty("mem_wait_timeout", conf.memWaitTimeout+"").trim());
+			conf.metadataCacheSize = (long) (Runtime.getRuntime().maxMemory() * Double.parseDouble(properties
+					.getProperty("metadata_cache_size", (double) conf.metadataCacheSize / Runtime.getRuntime().maxMemory() + "").trim()));
+			conf.chunkCacheSize = (long) (Runtime.getRuntime().maxMemory() * Double.parseDouble(properties
+					.getProperty("chunk_cache_size", (double) conf.chunkCacheSize / Runtime.getRuntime().maxMemory() + "").trim()));
+			conf.cacheDecompressedPage = Boolean.parseBoolean(properties.getProperty("cache_decompressed_page", conf.cacheDecompressedPage + "").trim());
 
 			conf.memControllerType = Integer.parseInt(properties.getProperty("mem_controller_type", conf.memControllerType+"").trim());
 			conf.memControllerType = conf.memControllerType >= BasicMemController.CONTROLLER_TYPE.values().length ? 0 : conf.memControllerType;
@@ -140,14 +160,43 @@ public class TsfileDBDescriptor {
 			if (conf.concurrentFlushThread <= 0)
 				conf.concurrentFlushThread = Runtime.getRuntime().availableProcessors();
 
+			conf.maxFlushingMemTableNum = Integer
+					.parseInt(properties.getProperty("max_flushing_memtable_num", conf.maxFlushingMemTableNum + "").trim());
+			if (conf.maxFlushingMemTableNum <= 0)
+				conf.maxFlushingMemTableNum = 1;
+
+			conf.concurrentEncodeThread = Integer
+					.parseInt(properties.getProperty("concurrent_encode_thread", conf.concurrentEncodeThread + "").trim());
+			if (conf.concurrentEncodeThread <= 0)
+				conf.concurrentEncodeThread = Runtime.getRuntime().availableProcessors();
+
+			conf.concurrentQueryThread = Integer
+					.parseInt(properties.getProperty("concurrent_query_thread", conf.concurrentQueryThread + "").trim());
+			if (conf.concurrentQueryThread <= 0)
+				conf.concurrentQueryThread = Runtime.getRuntime().availableProcessors();
+			conf.queryParallelism = Integer
+					.parseInt(properties.getProperty("query_parallelism", conf.queryParallelism + "").trim());
+			if (conf.queryParallelism <= 0)
+				conf.queryParallelism = 1;
+			conf.maxConcurrentParallelQuery = Integer.parseInt(properties
+					.getProperty("max_concurrent_parallel_query", conf.maxConcurrentParallelQuery + "").trim());
+			if (conf.maxConcurrentParallelQuery <= 0)
+				conf.maxConcurrentParallelQuery = 1;
+
 			conf.enableMemMonitor = Boolean.parseBoolean(properties.getProperty("enable_mem_monitor", conf.enableMemMonitor + "").trim());
 			conf.enableSmallFlush = Boolean.parseBoolean(properties.getProperty("enable_small_flush", conf.enableSmallFlush + "").trim());
 			conf.smallFlushInterval = Long.parseLong(properties.getProperty("small_flush_interval", conf.smallFlushInterval + "").trim());
 			conf.externalSortThreshold = Integer.parseInt(properties.getProperty("external_sort_threshold", conf.externalSortThreshold + "").trim());
 			conf.mManagerCacheSize = Integer.parseInt(properties.getProperty("schema_manager_cache_size", conf.mManagerCacheSize + "").trim());
+			conf.metadataCheckpointThreshold = Integer.parseInt(properties.getProperty("metadata_checkpoint_threshold", conf.metadataCheckpointThreshold + "").trim());
 
 			int maxLogEntrySize = Integer.parseInt(properties.getProperty("max_log_entry_size", conf.maxLogEntrySize + "").trim());
 			conf.maxLogEntrySize = maxLogEntrySize > 0 ? maxLogEntrySize : conf.maxLogEntrySize;
+			int walSegmentSize = Integer.parseInt(properties.getProperty("wal_segment_size", conf.walSegmentSize + "").trim());
+			conf.walSegmentSize = walSegmentSize > 0 ? walSegmentSize : conf.walSegmentSize;
+			conf.concurrentRecoverThread = Integer.parseInt(properties.getProperty("concurrent_recover_thread", conf.concurrentRecoverThread + "").trim());
+			if (conf.concurrentRecoverThread <= 0)
+				conf.concurrentRecoverThread = Runtime.getRuntime().availableProcessors();
 
 			conf.languageVersion = properties.getProperty("language_version", conf.languageVersion).trim();
 
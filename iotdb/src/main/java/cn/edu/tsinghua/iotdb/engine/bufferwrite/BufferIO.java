@@ -32,6 +32,16 @@ public class BufferIO extends TsFileIOWriter {
 		return append;
 	}
 
+	/**
+	 * Forget the row groups after the first rowGroupNum ones, so the data of a failed flush is not referenced by the
+	 * file when it is flushed again.
+	 */
+	public void truncateRowGroupMetadata(int rowGroupNum) {
+		List<RowGroupMetaData> all = getRowGroups();
+		all.subList(rowGroupNum, all.size()).clear();
+		lastRowGroupIndex = Math.min(lastRowGroupIndex, rowGroupNum);
+	}
+
 	public long getPos() throws IOException {
 		return super.getPos();
 	}
@@ -2,6 +2,8 @@ package cn.edu.tsinghua.iotdb.engine.bufferwrite;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
@@ -28,6 +30,7 @@ import cn.edu.tsinghua.iotdb.engine.querycontext.RawSeriesChunk;
 import cn.edu.tsinghua.iotdb.engine.querycontext.RawSeriesChunkLazyLoadImpl;
 import cn.edu.tsinghua.iotdb.engine.utils.FlushStatus;
 import cn.edu.tsinghua.iotdb.exception.BufferWriteProcessorException;
+import cn.edu.tsinghua.iotdb.qp.physical.crud.BatchInsertPlan;
 import cn.edu.tsinghua.iotdb.utils.MemUtils;
 import cn.edu.tsinghua.tsfile.common.conf.TSFileDescriptor;
 import cn.edu.tsinghua.tsfile.common.utils.Pair;
@@ -44,15 +47,22 @@ public class BufferWriteProcessor extends Processor {
     private BufferWriteRestoreManager bufferWriteRestoreManager;
 
     private volatile FlushStatus flushStatus = new FlushStatus();
-    private volatile boolean isFlush;
     private ReentrantLock flushQueryLock = new ReentrantLock();
     private AtomicLong memSize = new AtomicLong();
     private long memThreshold = TSFileDescriptor.getInstance().getConfig().groupSizeInByte;
+    private int maxFlushingMemTableNum = TsfileDBDescriptor.getInstance().getConfig().maxFlushingMemTableNum;
 
     private IMemTable workMemTable;
-    private IMemTable flushMemTable;
+    // memtables waiting for flush or being flushed, the oldest first, each with the memory it reported.
+    // it is changed while holding both flushStatus and flushQueryLock, so holding either is enough to read it.
+    private Deque<Pair<IMemTable, Long>> flushMemTables = new ArrayDeque<>();
+
+    // the error of the last failed flush not reported yet. A memtable whose data failed to be written is kept in
+    // flushMemTables to be flushed again.
+    private volatile Exception flushFailure;
 
     private Action bufferwriteFlushAction = null;
+    private Action bufferwriteFlushEndAction = null;
     private Action bufferwriteCloseAction = null;
     private Action filenodeFlushAction = null;
 
@@ -93,6 +103,7 @@ public class BufferWriteProcessor extends Processor {
 
 
         bufferwriteFlushAction = (Action) parameters.get(FileNodeConstants.BUFFERWRITE_FLUSH_ACTION);
+        bufferwriteFlushEndAction = (Action) parameters.get(FileNodeConstants.BUFFERWRITE_FLUSH_END_ACTION);
         bufferwriteCloseAction = (Action) parameters.get(FileNodeConstants.BUFFERWRITE_CLOSE_ACTION);
         filenodeFlushAction = (Action) parameters.get(FileNodeConstants.FILENODE_PROCESSOR_FLUSH_ACTION);
         workMemTable = new PrimitiveMemTable();
@@ -129,61 +140,70 @@ public class BufferWriteProcessor extends Processor {
     }
 
     public boolean write(TSRecord tsRecord) throws BufferWriteProcessorException {
-        long memUsage = MemUtils.getRecordSize(tsRecord);
-        BasicMemController.UsageLevel level = BasicMemController.getInstance().reportUse(this, memUsage);
+        // the memory used is what the memtable grows by, including the slack of its arrays
+        long memUsage = workMemTable.getMemSize();
         for (DataPoint dataPoint : tsRecord.dataPointList) {
-            workMemTable.write(tsRecord.deltaObjectId, dataPoint.getMeasurementId(), dataPoint.getType(), tsRecord.time,
-                    dataPoint.getValue().toString());
+            workMemTable.write(tsRecord.deltaObjectId, tsRecord.time, dataPoint);
         }
         valueCount++;
-        switch (level) {
-            case SAFE:
-                // memUsed += newMemUsage;
-                // memtable
-                memUsage = memSize.addAndGet(memUsage);
-                if (memUsage > memThreshold) {
-                    LOGGER.info("The usage of memory {} in bufferwrite processor {} reaches the threshold {}",
-                            MemUtils.bytesCntToStr(memUsage), getProcessorName(), MemUtils.bytesCntToStr(memThreshold));
-                    try {
-                        flush();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                        throw new BufferWriteProcessorException(e);
-                    }
-                }
-                return false;
-            case WARNING:
-                LOGGER.warn("Memory usage will exceed warning threshold, current : {}.",
-                        MemUtils.bytesCntToStr(BasicMemController.getInstance().getTotalUsage()));
-                // memUsed += newMemUsage;
-                // memtable
-                memUsage = memSize.addAndGet(memUsage);
-                if (memUsage > memThreshold) {
-                    LOGGER.info("The usage of memory {} in bufferwrite processor {} reaches the threshold {}",
-                            MemUtils.bytesCntToStr(memUsage), getProcessorName(), MemUtils.bytesCntToStr(memThreshold));
-                    try {
-                        flush();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                        throw new BufferWriteProcessorException(e);
-                    }
-                }
-                return false;
-            case DANGEROUS:
-            default:
-                LOGGER.warn("Memory usage will exceed dangerous threshold, current : {}.",
-                        MemUtils.bytesCntToStr(BasicMemController.getInstance().getTotalUsage()));
-                return false;
+        memUsage = workMemTable.getMemSize() - memUsage;
+        BasicMemController.UsageLevel level = BasicMemController.getInstance().reportUse(this, memUsage);
+        return checkMemSize(level, memUsage);
+    }
+
+    /**
+     * write the given rows of a batch to the bufferwrite. The memory is reported once for the whole batch, and the
+     * memtable is only flushed after all rows are written, so that the batch is never split across a flush and the
+     * rows are in memory even if the flush fails.
+     *
+     * @return same as {@link #write(TSRecord)}
+     * @throws BufferWriteProcessorException
+     */
+    public boolean write(BatchInsertPlan plan, int[] rows) throws BufferWriteProcessorException {
+        long memUsage = workMemTable.getMemSize();
+        String[] measurements = plan.getMeasurements();
+        TSDataType[] dataTypes = plan.getDataTypes();
+        Object[] columns = plan.getColumns();
+        for (int i = 0; i < measurements.length; i++) {
+            workMemTable.write(plan.getDeltaObject(), measurements[i], dataTypes[i], plan.getTimes(), columns[i],
+                    rows);
         }
+        valueCount += rows.length;
+        memUsage = workMemTable.getMemSize() - memUsage;
+        BasicMemController.UsageLevel level = BasicMemController.getInstance().reportUse(this, memUsage);
+        return checkMemSize(level, memUsage);
+    }
+
+    private boolean checkMemSize(BasicMemController.UsageLevel level, long memUsage)
+            throws BufferWriteProcessorException {
+        // the data is in the memtable whatever the level is, so it is always counted until the memtable is flushed
+        if (level == BasicMemController.UsageLevel.WARNING) {
+            LOGGER.warn("Memory usage will exceed warning threshold, current : {}.",
+                    MemUtils.bytesCntToStr(BasicMemController.getInstance().getTotalUsage()));
+        } else if (level == BasicMemController.UsageLevel.DANGEROUS) {
+            LOGGER.warn("Memory usage will exceed dangerous threshold, current : {}.",
+                    MemUtils.bytesCntToStr(BasicMemController.getInstance().getTotalUsage()));
+        }
+        memUsage = memSize.addAndGet(memUsage);
+        if (memUsage > memThreshold) {
+            LOGGER.info("The usage of memory {} in bufferwrite processor {} reaches the threshold {}",
+                    MemUtils.bytesCntToStr(memUsage), getProcessorName(), MemUtils.bytesCntToStr(memThreshold));
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new BufferWriteProcessorException(e);
+            }
+        }
+        return false;
     }
 
     public Pair<RawSeriesChunk, List<TimeSeriesChunkMetaData>> queryBufferWriteData(String deltaObjectId,
                                                                                     String measurementId, TSDataType dataType) {
         flushQueryLock.lock();
         try {
-            MemSeriesLazyMerger memSeriesLazyMerger = new MemSeriesLazyMerger();
-            if (isFlush) {
-                memSeriesLazyMerger.addMemSeries(flushMemTable.query(deltaObjectId, measurementId, dataType));
+            MemSeriesLazyMerger memSeriesLazyMerger = new MemSeriesLazyMerger(dataType);
+            for (Pair<IMemTable, Long> flushMemTable : flushMemTables) {
+                memSeriesLazyMerger.addMemSeries(flushMemTable.left.query(deltaObjectId, measurementId, dataType));
             }
             memSeriesLazyMerger.addMemSeries(workMemTable.query(deltaObjectId, measurementId, dataType));
             RawSeriesChunk rawSeriesChunk = new RawSeriesChunkLazyLoadImpl(dataType, memSeriesLazyMerger);
@@ -194,52 +214,95 @@ public class BufferWriteProcessor extends Processor {
         }
     }
 
-    private void switchWorkToFlush() {
+    /**
+     * Caller must hold flushStatus.
+     */
+    private void switchWorkToFlush(long memUsage) {
         flushQueryLock.lock();
         try {
-            if (flushMemTable == null) {
-                flushMemTable = workMemTable;
-                workMemTable = new PrimitiveMemTable();
-            }
+            flushMemTables.add(new Pair<>(workMemTable, memUsage));
+            workMemTable = new PrimitiveMemTable();
         } finally {
-            isFlush = true;
             flushQueryLock.unlock();
         }
     }
 
-    private void switchFlushToWork() {
+    /**
+     * Caller must hold flushStatus.
+     *
+     * @return the memory reported by the flushed memtable
+     */
+    private long switchFlushToWork() {
         flushQueryLock.lock();
         try {
-            flushMemTable.clear();
-            flushMemTable = null;
+            Pair<IMemTable, Long> flushMemTable = flushMemTables.poll();
+            flushMemTable.left.clear();
             bufferWriteRestoreManager.appendMetadata();
+            return flushMemTable.right;
         } finally {
-            isFlush = false;
             flushQueryLock.unlock();
         }
     }
 
+    /**
+     * Flush the pending memtables one after another, the oldest first, until none is left or one fails. A memtable
+     * failed to flush stays in flushMemTables, so its data can still be queried, and is flushed again by the next
+     * flush.
+     */
     private void flushOperation(String flushFunction) {
+        while (true) {
+            IMemTable flushMemTable;
+            synchronized (flushStatus) {
+                if (flushMemTables.isEmpty()) {
+                    flushStatus.setUnFlushing();
+                    flushStatus.notifyAll();
+                    return;
+                }
+                flushMemTable = flushMemTables.peek().left;
+            }
+            if (!flushOneMemTable(flushMemTable, flushFunction)) {
+                synchronized (flushStatus) {
+                    flushStatus.setUnFlushing();
+                    flushStatus.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false if the data of the memtable failed to be written, the error is kept in flushFailure
+     */
+    private boolean flushOneMemTable(IMemTable flushMemTable, String flushFunction) {
         long flushStartTime = System.currentTimeMillis();
         LOGGER.info("The bufferwrite processor {} starts flushing {}.", getProcessorName(), flushFunction);
         try {
             bufferWriteRestoreManager.flush(fileSchema, flushMemTable);
-            filenodeFlushAction.act();
+        } catch (Exception e) {
+            LOGGER.error("The bufferwrite processor {} failed to flush {}, the memtable is kept to be flushed again.",
+                    getProcessorName(), flushFunction, e);
+            flushFailure = e;
+            return false;
+        }
+        // the data is in the file now, so the memtable is released even if the flush can't be recorded
+        try {
+            if (bufferwriteFlushEndAction != null) {
+                bufferwriteFlushEndAction.act();
+            } else {
+                filenodeFlushAction.act();
+            }
             if (TsfileDBDescriptor.getInstance().getConfig().enableWal) {
                 logNode.notifyEndFlush(null);
             }
-        } catch (IOException e) {
-            LOGGER.error("The bufferwrite processor {} failed to flush {}.", getProcessorName(), flushFunction, e);
         } catch (Exception e) {
             LOGGER.error("The bufferwrite processor {} failed to flush {}, when calling the filenodeFlushAction.",
                     getProcessorName(), flushFunction, e);
-        } finally {
-            synchronized (flushStatus) {
-                flushStatus.setUnFlushing();
-                switchFlushToWork();
-                flushStatus.notify();
-                LOGGER.info("The bufferwrite processor {} ends flushing {}.", getProcessorName(), flushFunction);
-            }
+            flushFailure = e;
+        }
+        synchronized (flushStatus) {
+            BasicMemController.getInstance().reportFree(this, switchFlushToWork());
+            flushStatus.notifyAll();
+            LOGGER.info("The bufferwrite processor {} ends flushing {}.", getProcessorName(), flushFunction);
         }
         long flushEndTime = System.currentTimeMillis();
         long flushInterval = flushEndTime - flushStartTime;
@@ -248,6 +311,38 @@ public class BufferWriteProcessor extends Processor {
         LOGGER.info(
                 "The bufferwrite processor {} flush {}, start time is {}, flush end time is {}, flush time consumption is {}ms",
                 getProcessorName(), flushFunction, startDateTime, endDateTime, flushInterval);
+        return true;
+    }
+
+    /**
+     * Start flushing the pending memtables if no flush is running. Caller must hold flushStatus.
+     *
+     * @return true if the caller should run the flush itself, which is only the case for a synchronous one
+     */
+    private boolean startFlush(boolean synchronization) {
+        if (flushStatus.isFlushing() || flushMemTables.isEmpty()) {
+            return false;
+        }
+        flushStatus.setFlushing();
+        if (synchronization) {
+            return true;
+        }
+        FlushManager.getInstance().submit(new Runnable() {
+            public void run() {
+                flushOperation("asynchronously");
+            }
+        });
+        return false;
+    }
+
+    /**
+     * Report the last failed flush. Caller must hold flushStatus.
+     */
+    private IOException flushFailedException() {
+        IOException e = new IOException(String.format("The bufferwrite processor %s failed to flush, %d memtables "
+                + "are waiting for flush.", getProcessorName(), flushMemTables.size()), flushFailure);
+        flushFailure = null;
+        return e;
     }
 
     private Future<?> flush(boolean synchronization) throws IOException {
@@ -262,18 +357,25 @@ public class BufferWriteProcessor extends Processor {
                     getProcessorName(), lastDateTime, thisDateTime, flushTimeInterval / 1000);
         }
         lastFlushTime = System.currentTimeMillis();
+        // whether the pending memtables are flushed, by this thread or the running flush, in this call
+        boolean flushStarted = false;
         // check value count
         if (valueCount > 0) {
-            // waiting for the end of last flush operation.
+            // the memtables waiting for flush keep their memory until flushed, so only wait for the earlier flushes
+            // when there are too many of them or the memory is used up.
             synchronized (flushStatus) {
-                while (flushStatus.isFlushing()) {
-                    try {
-                        flushStatus.wait();
-                    } catch (InterruptedException e) {
-                        LOGGER.error(
-                                "Encounter an interrupt error when waitting for the flushing, the bufferwrite processor is {}.",
-                                getProcessorName(), e);
+                boolean retried = false;
+                while (flushMemTables.size() >= maxFlushingMemTableNum || (!flushMemTables.isEmpty()
+                        && BasicMemController.getInstance().getCurrLevel() == BasicMemController.UsageLevel.DANGEROUS)) {
+                    if (!flushStatus.isFlushing()) {
+                        // the earlier memtables failed to flush, try once more before giving up
+                        if (retried) {
+                            throw flushFailedException();
+                        }
+                        startFlush(false);
+                        retried = true;
                     }
+                    waitForFlush();
                 }
             }
             // update the lastUpdatetime, prepare for flush
@@ -287,24 +389,53 @@ public class BufferWriteProcessor extends Processor {
                 logNode.notifyStartFlush();
             }
             valueCount = 0;
-            flushStatus.setFlushing();
-            switchWorkToFlush();
-            BasicMemController.getInstance().reportFree(this, memSize.get());
-            memSize.set(0);
-            // switch
-            if (synchronization) {
+            boolean flushInThisThread;
+            synchronized (flushStatus) {
+                switchWorkToFlush(memSize.get());
+                memSize.set(0);
+                // a running flush also flushes the memtable just switched
+                flushInThisThread = startFlush(synchronization);
+            }
+            if (flushInThisThread) {
                 flushOperation("synchronously");
-            } else {
-                FlushManager.getInstance().submit(new Runnable() {
-                    public void run() {
-                        flushOperation("asynchronously");
-                    }
-                });
+            }
+            flushStarted = true;
+        }
+        if (!flushStarted) {
+            boolean flushInThisThread;
+            synchronized (flushStatus) {
+                // the memtables failed to flush before are flushed again
+                flushInThisThread = startFlush(synchronization);
+            }
+            if (flushInThisThread) {
+                flushOperation("synchronously");
+            }
+        }
+        if (synchronization) {
+            synchronized (flushStatus) {
+                while (flushStatus.isFlushing()) {
+                    waitForFlush();
+                }
+                if (!flushMemTables.isEmpty() || flushFailure != null) {
+                    throw flushFailedException();
+                }
             }
         }
         return null;
     }
 
+    /**
+     * Caller must hold flushStatus.
+     */
+    private void waitForFlush() {
+        try {
+            flushStatus.wait();
+        } catch (InterruptedException e) {
+            LOGGER.error("Encounter an interrupt error when waitting for the flushing, the bufferwrite processor is {}.",
+                    getProcessorName(), e);
+        }
+    }
+
     public boolean isFlush() {
         synchronized (flushStatus) {
             return flushStatus.isFlushing();
@@ -366,13 +497,23 @@ public class BufferWriteProcessor extends Processor {
     }
 
     /**
-     * @return The file size of the TsFile corresponding to this processor.
+     * @return The file size of the TsFile corresponding to this processor, with the working memtable and the
+     *         memtables waiting for flush which are not in the file yet.
      * @throws IOException
      */
     public long getFileSize() {
         // TODO : save this variable to avoid object creation?
         File file = new File(insertFilePath);
-        return file.length() + memoryUsage();
+        long unflushedSize = memoryUsage();
+        flushQueryLock.lock();
+        try {
+            for (Pair<IMemTable, Long> flushMemTable : flushMemTables) {
+                unflushedSize += flushMemTable.right;
+            }
+        } finally {
+            flushQueryLock.unlock();
+        }
+        return file.length() + unflushedSize;
     }
 
     /**
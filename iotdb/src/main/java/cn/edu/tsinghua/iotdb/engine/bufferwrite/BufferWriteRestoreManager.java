@@ -200,10 +200,17 @@ public class BufferWriteRestoreManager {
         if (iMemTable != null && !iMemTable.isEmpty()) {
             long startPos = bufferWriteIO.getPos();
             long startTime = System.currentTimeMillis();
-            // flush data
-            MemTableFlushUtil.flushMemTable(fileSchema, bufferWriteIO, iMemTable);
-            // write restore information
-            writeRestoreInfo();
+            int rowGroupNum = bufferWriteIO.getRowGroups().size();
+            try {
+                // flush data
+                MemTableFlushUtil.flushMemTable(fileSchema, bufferWriteIO, iMemTable);
+                // write restore information
+                writeRestoreInfo();
+            } catch (IOException e) {
+                // the memtable is flushed again, so the row groups written this time are dropped
+                bufferWriteIO.truncateRowGroupMetadata(rowGroupNum);
+                throw e;
+            }
             long timeInterval = System.currentTimeMillis() - startTime;
             timeInterval = timeInterval == 0 ? 1 : timeInterval;
             long insertSize = bufferWriteIO.getPos() - startPos;
@@ -15,6 +15,7 @@ public class FileNodeConstants {
 
 	public static final String OVERFLOW_FLUSH_ACTION = "OVERFLOW_FLUSH_ACTION";
 	public static final String BUFFERWRITE_FLUSH_ACTION = "BUFFERWRITE_FLUSH_ACTION";
+	public static final String BUFFERWRITE_FLUSH_END_ACTION = "BUFFERWRITE_FLUSH_END_ACTION";
 	public static final String BUFFERWRITE_CLOSE_ACTION = "BUFFERWRITE_CLOSE_ACTION";
 	public static final String FILENODE_PROCESSOR_FLUSH_ACTION = "FILENODE_PROCESSOR_FLUSH_ACTION";
 	
@@ -0,0 +1,116 @@
+package cn.edu.tsinghua.iotdb.engine.cache;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
+import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
+import cn.edu.tsinghua.iotdb.monitor.MonitorConstants;
+import cn.edu.tsinghua.iotdb.monitor.MonitorConstants.CacheStatConstants;
+import cn.edu.tsinghua.iotdb.utils.MemUtils;
+
+/**
+ * The series chunks read from tsfiles, shared by all queries. A chunk is identified by its file and its offset in the
+ * file, which never change once the chunk is flushed, so a cached chunk is valid until its file is deleted by a merge
+ * or a compaction. The chunks are kept in a {@link MonitoredLRUCache} of several segments, which weighs them in byte.
+ * <p>
+ * If {@link TsfileDBConfig#cacheDecompressedPage} is set, the pages of a chunk are cached decompressed, which takes
+ * more memory but saves decompressing them on every hit.
+ */
+public class ChunkCacheManager {
+
+	private static final int SEGMENT_NUM = 16;
+	// the entry of the cache, the key and the entry of the value besides the path and the bytes
+	private static final long ENTRY_SIZE = MemUtils.HASH_MAP_ENTRY_SIZE + MemUtils.OBJECT_HEADER_SIZE * 2
+			+ MemUtils.REFERENCE_SIZE * 2 + 8 * 2;
+
+	private final MonitoredLRUCache<ChunkKey, byte[]> cache;
+	private final boolean cacheDecompressedPage;
+
+	private static class ChunkCacheManagerHolder {
+		private static final ChunkCacheManager INSTANCE = createInstance();
+
+		private static ChunkCacheManager createInstance() {
+			TsfileDBConfig config = TsfileDBDescriptor.getInstance().getConfig();
+			ChunkCacheManager manager = new ChunkCacheManager(config.chunkCacheSize, SEGMENT_NUM,
+					config.cacheDecompressedPage);
+			if (config.enableStatMonitor) {
+				manager.cache.registerToStatMonitor();
+			}
+			return manager;
+		}
+	}
+
+	public static ChunkCacheManager getInstance() {
+		return ChunkCacheManagerHolder.INSTANCE;
+	}
+
+	/**
+	 * @param capacity
+	 *            the budget of all the cached chunks in byte, shared equally by the segments
+	 */
+	ChunkCacheManager(long capacity, int segmentNum, boolean cacheDecompressedPage) {
+		this.cache = new MonitoredLRUCache<>(capacity, segmentNum, MonitorConstants.chunkCachePath);
+		this.cacheDecompressedPage = cacheDecompressedPage;
+	}
+
+	/**
+	 * Whether the loaders should give the chunks with decompressed pages.
+	 */
+	public boolean isCacheDecompressedPage() {
+		return cacheDecompressedPage;
+	}
+
+	/**
+	 * @param offsetInFile
+	 *            the offset of the chunk in the file
+	 * @param loader
+	 *            reads the chunk from the file
+	 */
+	public byte[] get(String filePath, long offsetInFile, Callable<byte[]> loader) throws IOException {
+		return cache.getOrLoad(new ChunkKey(filePath, offsetInFile), loader,
+				bytes -> ENTRY_SIZE + MemUtils.getStringMem(filePath) + MemUtils.getArraySize(bytes.length, 1));
+	}
+
+	/**
+	 * Remove all the chunks of the file, e.g. when it is deleted after a merge.
+	 */
+	public void removeFile(String filePath) {
+		cache.invalidateIf(key -> key.filePath.equals(filePath));
+	}
+
+	public void clear() {
+		cache.clear();
+	}
+
+	public long getStatValue(CacheStatConstants statConstant) {
+		return cache.getStatValue(statConstant);
+	}
+
+	private static class ChunkKey {
+		private final String filePath;
+		private final long offsetInFile;
+
+		private ChunkKey(String filePath, long offsetInFile) {
+			this.filePath = filePath;
+			this.offsetInFile = offsetInFile;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof ChunkKey)) {
+				return false;
+			}
+			ChunkKey other = (ChunkKey) o;
+			return offsetInFile == other.offsetInFile && filePath.equals(other.filePath);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * filePath.hashCode() + Long.hashCode(offsetInFile);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package cn.edu.tsinghua.iotdb.engine.cache;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.function.ToLongFunction;
+
+import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
+import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
+import cn.edu.tsinghua.iotdb.monitor.MonitorConstants;
+import cn.edu.tsinghua.iotdb.monitor.MonitorConstants.CacheStatConstants;
+import cn.edu.tsinghua.iotdb.utils.MemUtils;
+
+/**
+ * The store behind {@link TsFileMetaDataCache} and {@link RowGroupBlockMetaDataCache}. Both kinds of metadata share one
+ * LRU list and one budget in byte, and every entry weighs its estimated heap size, so the metadata of a file with
+ * many row groups takes more of the budget than a small one. The metadata are kept in a {@link MonitoredLRUCache} of
+ * one segment.
+ */
+public class MetaDataCacheManager {
+
+	// the entry of the cache, the key and the entry of the value besides the path and the value
+	private static final long ENTRY_SIZE = MemUtils.HASH_MAP_ENTRY_SIZE + MemUtils.OBJECT_HEADER_SIZE * 2
+			+ MemUtils.REFERENCE_SIZE * 3 + 8;
+
+	private final MonitoredLRUCache<CacheKey, Object> cache;
+
+	private static class MetaDataCacheManagerHolder {
+		private static final MetaDataCacheManager INSTANCE = createInstance();
+
+		private static MetaDataCacheManager createInstance() {
+			TsfileDBConfig config = TsfileDBDescriptor.getInstance().getConfig();
+			MetaDataCacheManager manager = new MetaDataCacheManager(config.metadataCacheSize);
+			if (config.enableStatMonitor) {
+				manager.cache.registerToStatMonitor();
+			}
+			return manager;
+		}
+	}
+
+	public static MetaDataCacheManager getInstance() {
+		return MetaDataCacheManagerHolder.INSTANCE;
+	}
+
+	/**
+	 * @param capacity
+	 *            the budget of all the cached metadata in byte
+	 */
+	MetaDataCacheManager(long capacity) {
+		this.cache = new MonitoredLRUCache<>(capacity, 1, MonitorConstants.metadataCachePath);
+	}
+
+	/**
+	 * @param deltaObjectId
+	 *            null for the <code>TsFileMetaData</code> of the file
+	 * @param loader
+	 *            reads the metadata from the file, may return null
+	 * @param weigher
+	 *            estimates the heap size of a non-null metadata
+	 */
+	@SuppressWarnings("unchecked")
+	<T> T get(String filePath, String deltaObjectId, Callable<T> loader, ToLongFunction<T> weigher)
+			throws IOException {
+		return (T) cache.getOrLoad(new CacheKey(filePath, deltaObjectId), loader, value -> ENTRY_SIZE
+				+ MemUtils.getStringMem(filePath) + (value == null ? 0 : weigher.applyAsLong((T) value)));
+	}
+
+	/**
+	 * Remove all the metadata of the file, e.g. when it is deleted.
+	 */
+	public void removeFile(String filePath) {
+		cache.invalidateIf(key -> key.filePath.equals(filePath));
+	}
+
+	/**
+	 * Remove the <code>TsRowGroupBlockMetaData</code> of all files, and keep the <code>TsFileMetaData</code>.
+	 */
+	public void clearRowGroupBlockMetaData() {
+		cache.invalidateIf(key -> key.deltaObjectId != null);
+	}
+
+	public void clear() {
+		cache.clear();
+	}
+
+	public long getStatValue(CacheStatConstants statConstant) {
+		return cache.getStatValue(statConstant);
+	}
+
+	private static class CacheKey {
+		private final String filePath;
+		private final String deltaObjectId;
+
+		private CacheKey(String filePath, String deltaObjectId) {
+			this.filePath = filePath;
+			this.deltaObjectId = deltaObjectId;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) o;
+			return filePath.equals(other.filePath) && (deltaObjectId == null ? other.deltaObjectId == null
+					: deltaObjectId.equals(other.deltaObjectId));
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * filePath.hashCode() + (deltaObjectId == null ? 0 : deltaObjectId.hashCode());
+		}
+	}
+}
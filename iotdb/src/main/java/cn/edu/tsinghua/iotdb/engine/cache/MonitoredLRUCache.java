@@ -0,0 +1,138 @@
+package cn.edu.tsinghua.iotdb.engine.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cn.edu.tsinghua.iotdb.monitor.IStatistic;
+import cn.edu.tsinghua.iotdb.monitor.MonitorConstants;
+import cn.edu.tsinghua.iotdb.monitor.MonitorConstants.CacheStatConstants;
+import cn.edu.tsinghua.iotdb.monitor.StatMonitor;
+import cn.edu.tsinghua.iotdb.utils.ConcurrentLRUCache;
+import cn.edu.tsinghua.tsfile.common.exception.cache.CacheException;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.TSRecord;
+
+/**
+ * A {@link ConcurrentLRUCache} weighted in byte, whose values are read from files by its callers. Its hits, misses,
+ * evictions, loading time and size are counted in the {@link CacheStatConstants} statistics of the monitor.
+ */
+class MonitoredLRUCache<K, V> extends ConcurrentLRUCache<K, V> implements IStatistic {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MonitoredLRUCache.class);
+
+	private final String statStorageDeltaName;
+	private final HashMap<String, AtomicLong> statParamsHashMap = MonitorConstants
+			.initValues(MonitorConstants.CACHE_CONST);
+
+	/**
+	 * @param capacity
+	 *            the budget of all the cached values in byte, shared equally by the segments
+	 * @param statPath
+	 *            the path of the statistics under the storage group of the monitor
+	 */
+	MonitoredLRUCache(long capacity, int segmentNum, String statPath) {
+		super(capacity, segmentNum, value -> 1);
+		this.statStorageDeltaName = MonitorConstants.statStorageGroupPrefix + MonitorConstants.MONITOR_PATH_SEPERATOR
+				+ statPath;
+	}
+
+	/**
+	 * @param loader
+	 *            reads the value from a file
+	 * @param weigher
+	 *            estimates the heap size of the entry of the value
+	 * @throws IOException
+	 *             the failure of the loader
+	 */
+	V getOrLoad(K key, Callable<? extends V> loader, ToLongFunction<? super V> weigher) throws IOException {
+		try {
+			return get(key, loader, weigher);
+		} catch (CacheException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause() == null ? e : e.getCause());
+		}
+	}
+
+	void registerToStatMonitor() {
+		registStatMetadata();
+		StatMonitor.getInstance().registStatistics(statStorageDeltaName, this);
+	}
+
+	@Override
+	protected void onHit() {
+		getStat(CacheStatConstants.TOTAL_HITS).incrementAndGet();
+	}
+
+	@Override
+	protected void onMiss() {
+		getStat(CacheStatConstants.TOTAL_MISSES).incrementAndGet();
+	}
+
+	@Override
+	protected void onLoad(long elapsedNanos) {
+		getStat(CacheStatConstants.TOTAL_LOAD_TIME_IN_MS).addAndGet(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+	}
+
+	@Override
+	protected void onSizeChange(long deltaWeight, long deltaEntries) {
+		getStat(CacheStatConstants.CACHED_BYTES).addAndGet(deltaWeight);
+		getStat(CacheStatConstants.CACHED_ENTRIES).addAndGet(deltaEntries);
+	}
+
+	@Override
+	protected void onEviction(int evictionNum) {
+		long evictions = getStat(CacheStatConstants.TOTAL_EVICTIONS).addAndGet(evictionNum);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} entries are evicted from {}, {} in total", evictionNum, statStorageDeltaName, evictions);
+		}
+	}
+
+	private AtomicLong getStat(CacheStatConstants statConstant) {
+		return statParamsHashMap.get(statConstant.name());
+	}
+
+	long getStatValue(CacheStatConstants statConstant) {
+		return getStat(statConstant).get();
+	}
+
+	@Override
+	public HashMap<String, AtomicLong> getStatParamsHashMap() {
+		return statParamsHashMap;
+	}
+
+	@Override
+	public List<String> getAllPathForStatistic() {
+		List<String> list = new ArrayList<>();
+		for (CacheStatConstants statConstant : CacheStatConstants.values()) {
+			list.add(statStorageDeltaName + MonitorConstants.MONITOR_PATH_SEPERATOR + statConstant.name());
+		}
+		return list;
+	}
+
+	@Override
+	public HashMap<String, TSRecord> getAllStatisticsValue() {
+		HashMap<String, TSRecord> hashMap = new HashMap<>();
+		hashMap.put(statStorageDeltaName,
+				StatMonitor.convertToTSRecord(statParamsHashMap, statStorageDeltaName, System.currentTimeMillis()));
+		return hashMap;
+	}
+
+	@Override
+	public void registStatMetadata() {
+		HashMap<String, String> hashMap = new HashMap<>();
+		for (String path : getAllPathForStatistic()) {
+			hashMap.put(path, MonitorConstants.DataType);
+		}
+		StatMonitor.getInstance().registStatStorageGroup(hashMap);
+	}
+}
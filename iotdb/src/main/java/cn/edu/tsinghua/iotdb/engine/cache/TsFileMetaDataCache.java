@@ -1,30 +1,19 @@
 package cn.edu.tsinghua.iotdb.engine.cache;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import cn.edu.tsinghua.tsfile.file.metadata.TsFileMetaData;
 
 /**
- * This class is used to cache <code>TsFileMetaData</code> of tsfile in IoTDB.
+ * This class is used to cache <code>TsFileMetaData</code> of tsfile in IoTDB. The metadata shares the bounded
+ * {@link MetaDataCacheManager} with the <code>TsRowGroupBlockMetaData</code>.
  * 
  * @author liukun
  *
  */
 public class TsFileMetaDataCache {
 
-	private static final Logger LOGGER = LoggerFactory.getLogger(TsFileMetaDataCache.class);
-	/** key: The file path of tsfile */
-	private ConcurrentHashMap<String, TsFileMetaData> cache;
-	private AtomicLong cacheHintNum = new AtomicLong();
-	private AtomicLong cacheRequestNum = new AtomicLong();
-
 	private TsFileMetaDataCache() {
-		cache = new ConcurrentHashMap<>();
 	}
 
 	/*
@@ -39,35 +28,18 @@ public class TsFileMetaDataCache {
 	}
 
 	public TsFileMetaData get(String path) throws IOException {
-
-		path = path.intern();
-		synchronized (path) {
-			cacheRequestNum.incrementAndGet();
-			if (!cache.containsKey(path)) {
-				// read value from tsfile
-				TsFileMetaData fileMetaData = TsFileMetadataUtils.getTsFileMetaData(path);
-				cache.put(path, fileMetaData);
-				if (LOGGER.isDebugEnabled()) {
-					LOGGER.debug("Cache didn't hint: the number of requests for cache is {}", cacheRequestNum.get());
-				}
-				return cache.get(path);
-			} else {
-				cacheHintNum.incrementAndGet();
-				if (LOGGER.isDebugEnabled()) {
-					LOGGER.debug(
-							"Cache hint: the number of requests for cache is {}, the number of hints for cache is {}",
-							cacheRequestNum.get(), cacheHintNum.get());
-				}
-				return cache.get(path);
-			}
-		}
+		return MetaDataCacheManager.getInstance().get(path, null, () -> TsFileMetadataUtils.getTsFileMetaData(path),
+				TsFileMetadataUtils::estimateSize);
 	}
 
+	/**
+	 * Remove the metadata of the file, including its <code>TsRowGroupBlockMetaData</code>.
+	 */
 	public void remove(String path) {
-		cache.remove(path);
+		MetaDataCacheManager.getInstance().removeFile(path);
 	}
 
 	public void clear() {
-		cache.clear();
+		MetaDataCacheManager.getInstance().clear();
 	}
 }
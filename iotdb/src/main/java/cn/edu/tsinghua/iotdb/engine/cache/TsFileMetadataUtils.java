@@ -3,11 +3,20 @@ package cn.edu.tsinghua.iotdb.engine.cache;
 import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import cn.edu.tsinghua.iotdb.utils.MemUtils;
 import cn.edu.tsinghua.tsfile.common.utils.ITsRandomAccessFileReader;
+import cn.edu.tsinghua.tsfile.file.metadata.RowGroupMetaData;
+import cn.edu.tsinghua.tsfile.file.metadata.TimeSeriesChunkMetaData;
+import cn.edu.tsinghua.tsfile.file.metadata.TimeSeriesMetadata;
+import cn.edu.tsinghua.tsfile.file.metadata.TsDeltaObject;
+import cn.edu.tsinghua.tsfile.file.metadata.TsDigest;
 import cn.edu.tsinghua.tsfile.file.metadata.TsFileMetaData;
 import cn.edu.tsinghua.tsfile.file.metadata.TsRowGroupBlockMetaData;
 import cn.edu.tsinghua.tsfile.file.metadata.converter.TsFileMetaDataConverter;
@@ -17,7 +26,7 @@ import cn.edu.tsinghua.tsfile.timeseries.write.io.TsFileIOWriter;
 
 /**
  * This class is used to read metadata(<code>TsFileMetaData</code> and
- * <code>TsRowGroupBlockMetaData</code>).
+ * <code>TsRowGroupBlockMetaData</code>), and to estimate their heap size.
  * 
  * @author liukun
  *
@@ -90,4 +99,112 @@ public class TsFileMetadataUtils {
 			}
 		}
 	}
+
+	/**
+	 * @return the estimated heap size of fileMetaData in byte
+	 */
+	public static long estimateSize(TsFileMetaData fileMetaData) {
+		long size = MemUtils.OBJECT_HEADER_SIZE + 6 * MemUtils.REFERENCE_SIZE;
+		Map<String, TsDeltaObject> deltaObjectMap = fileMetaData.getDeltaObjectMap();
+		if (deltaObjectMap != null) {
+			size += MemUtils.HASH_MAP_SIZE;
+			for (String deltaObjectId : deltaObjectMap.keySet()) {
+				// offset, metadataBlockSize, startTime and endTime
+				size += MemUtils.HASH_MAP_ENTRY_SIZE + MemUtils.getStringMem(deltaObjectId)
+						+ MemUtils.OBJECT_HEADER_SIZE + 32;
+			}
+		}
+		List<TimeSeriesMetadata> timeSeriesList = fileMetaData.getTimeSeriesList();
+		if (timeSeriesList != null) {
+			size += getListSize(timeSeriesList);
+			for (TimeSeriesMetadata timeSeries : timeSeriesList) {
+				size += MemUtils.OBJECT_HEADER_SIZE + 6 * MemUtils.REFERENCE_SIZE
+						+ getStringSize(timeSeries.getMeasurementUID());
+			}
+		}
+		size += getStringsSize(fileMetaData.getJsonMetaData());
+		size += getStringSize(fileMetaData.getCreatedBy());
+		Map<String, String> props = fileMetaData.getProps();
+		if (props != null) {
+			size += MemUtils.HASH_MAP_SIZE;
+			for (Map.Entry<String, String> prop : props.entrySet()) {
+				size += MemUtils.HASH_MAP_ENTRY_SIZE + getStringSize(prop.getKey()) + getStringSize(prop.getValue());
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return the estimated heap size of blockMetaData in byte
+	 */
+	public static long estimateSize(TsRowGroupBlockMetaData blockMetaData) {
+		long size = MemUtils.OBJECT_HEADER_SIZE + 2 * MemUtils.REFERENCE_SIZE
+				+ getStringSize(blockMetaData.getDeltaObjectID());
+		List<RowGroupMetaData> rowGroups = blockMetaData.getRowGroups();
+		if (rowGroups == null) {
+			return size;
+		}
+		size += getListSize(rowGroups);
+		for (RowGroupMetaData rowGroup : rowGroups) {
+			// 3 longs and 4 references
+			size += MemUtils.OBJECT_HEADER_SIZE + 56 + getStringSize(rowGroup.getDeltaObjectID())
+					+ getStringSize(rowGroup.getPath()) + getStringSize(rowGroup.getDeltaObjectType());
+			List<TimeSeriesChunkMetaData> chunks = rowGroup.getTimeSeriesChunkMetaDataList();
+			if (chunks == null) {
+				continue;
+			}
+			size += getListSize(chunks);
+			for (TimeSeriesChunkMetaData chunk : chunks) {
+				size += estimateSize(chunk);
+			}
+		}
+		return size;
+	}
+
+	private static long estimateSize(TimeSeriesChunkMetaData chunk) {
+		// 7 longs and 5 references
+		long size = MemUtils.OBJECT_HEADER_SIZE + 96 + getStringsSize(chunk.getJsonMetaData());
+		if (chunk.getProperties() != null) {
+			size += MemUtils.OBJECT_HEADER_SIZE + 32 + getStringSize(chunk.getProperties().getMeasurementUID());
+		}
+		if (chunk.getTInTimeSeriesChunkMetaData() != null) {
+			size += MemUtils.OBJECT_HEADER_SIZE + 48 + getStringsSize(chunk.getTInTimeSeriesChunkMetaData().getEnumValues());
+		}
+		if (chunk.getVInTimeSeriesChunkMetaData() != null) {
+			size += MemUtils.OBJECT_HEADER_SIZE + 32 + getStringsSize(chunk.getVInTimeSeriesChunkMetaData().getEnumValues());
+			TsDigest digest = chunk.getVInTimeSeriesChunkMetaData().getDigest();
+			if (digest != null) {
+				size += MemUtils.OBJECT_HEADER_SIZE + MemUtils.REFERENCE_SIZE;
+				Map<String, ByteBuffer> statistics = digest.getStatistics();
+				if (statistics != null) {
+					size += MemUtils.HASH_MAP_SIZE;
+					for (Map.Entry<String, ByteBuffer> statistic : statistics.entrySet()) {
+						// a HeapByteBuffer and its array
+						size += MemUtils.HASH_MAP_ENTRY_SIZE + getStringSize(statistic.getKey()) + 64
+								+ MemUtils.getArraySize(statistic.getValue().capacity(), 1);
+					}
+				}
+			}
+		}
+		return size;
+	}
+
+	private static long getListSize(List<?> list) {
+		return MemUtils.OBJECT_HEADER_SIZE + 8 + MemUtils.getArraySize(list.size(), MemUtils.REFERENCE_SIZE);
+	}
+
+	private static long getStringsSize(List<String> strings) {
+		if (strings == null) {
+			return 0;
+		}
+		long size = getListSize(strings);
+		for (String string : strings) {
+			size += getStringSize(string);
+		}
+		return size;
+	}
+
+	private static long getStringSize(String string) {
+		return string == null ? 0 : MemUtils.getStringMem(string);
+	}
 }
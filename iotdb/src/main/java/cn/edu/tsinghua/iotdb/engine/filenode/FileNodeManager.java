@@ -10,15 +10,18 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import cn.edu.tsinghua.iotdb.conf.directories.Directories;
 import cn.edu.tsinghua.iotdb.conf.TsFileDBConstant;
+import cn.edu.tsinghua.iotdb.qp.physical.crud.BatchInsertPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.InsertPlan;
+import cn.edu.tsinghua.iotdb.writelog.LogPosition;
 import cn.edu.tsinghua.iotdb.writelog.manager.MultiFileLogNodeManager;
-import cn.edu.tsinghua.tsfile.timeseries.write.record.DataPoint;
+import cn.edu.tsinghua.iotdb.writelog.node.WriteLogNode;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -90,9 +93,13 @@ public class FileNodeManager implements IStatistic, IService {
 	};
 
 	private void updateStatHashMapWhenFail(TSRecord tsRecord) {
+		updateStatHashMapWhenFail(tsRecord.dataPointList.size());
+	}
+
+	private void updateStatHashMapWhenFail(int pointNum) {
 		statParamsHashMap.get(MonitorConstants.FileNodeManagerStatConstants.TOTAL_REQ_FAIL.name()).incrementAndGet();
 		statParamsHashMap.get(MonitorConstants.FileNodeManagerStatConstants.TOTAL_POINTS_FAIL.name())
-				.addAndGet(tsRecord.dataPointList.size());
+				.addAndGet(pointNum);
 	}
 
 	/**
@@ -263,10 +270,13 @@ public class FileNodeManager implements IStatistic, IService {
 		if (!isMonitor) {
 			statParamsHashMap.get(MonitorConstants.FileNodeManagerStatConstants.TOTAL_POINTS.name())
 					.addAndGet(tsRecord.dataPointList.size());
+			waitForMemory();
 		}
 
 		FileNodeProcessor fileNodeProcessor = getProcessor(deltaObjectId, true);
 		int insertType = 0;
+		WriteLogNode logNode = null;
+		LogPosition logPosition = null;
 
 		try {
 			long lastUpdateTime = fileNodeProcessor.getFlushLastUpdateTime(deltaObjectId);
@@ -287,14 +297,8 @@ public class FileNodeManager implements IStatistic, IService {
 				// write wal
 				try {
 					if (TsfileDBDescriptor.getInstance().getConfig().enableWal) {
-						List<String> measurementList = new ArrayList<>();
-						List<String> insertValues = new ArrayList<>();
-						for (DataPoint dp : tsRecord.dataPointList) {
-							measurementList.add(dp.getMeasurementId());
-							insertValues.add(dp.getValue().toString());
-						}
-						overflowProcessor.getLogNode().write(new InsertPlan(2, tsRecord.deltaObjectId, tsRecord.time,
-								measurementList, insertValues));
+						logNode = overflowProcessor.getLogNode();
+						logPosition = logNode.write(new InsertPlan(2, tsRecord));
 					}
 				} catch (IOException e) {
 					if (!isMonitor) {
@@ -354,14 +358,8 @@ public class FileNodeManager implements IStatistic, IService {
 				// write wal
 				try {
 					if (TsfileDBDescriptor.getInstance().getConfig().enableWal) {
-						List<String> measurementList = new ArrayList<>();
-						List<String> insertValues = new ArrayList<>();
-						for (DataPoint dp : tsRecord.dataPointList) {
-							measurementList.add(dp.getMeasurementId());
-							insertValues.add(dp.getValue().toString());
-						}
-						bufferWriteProcessor.getLogNode().write(new InsertPlan(2, tsRecord.deltaObjectId, tsRecord.time,
-								measurementList, insertValues));
+						logNode = bufferWriteProcessor.getLogNode();
+						logPosition = logNode.write(new InsertPlan(2, tsRecord));
 					}
 				} catch (IOException e) {
 					if (!isMonitor) {
@@ -389,6 +387,7 @@ public class FileNodeManager implements IStatistic, IService {
 							bufferWriteProcessor.getFileName(), MemUtils.bytesCntToStr(
 									TsfileDBDescriptor.getInstance().getConfig().bufferwriteFileSizeThreshold));
 					fileNodeProcessor.closeBufferWrite();
+					fileNodeProcessor.submitToCompact();
 				}
 			}
 		} catch (FileNodeProcessorException e) {
@@ -398,6 +397,14 @@ public class FileNodeManager implements IStatistic, IService {
 		} finally {
 			fileNodeProcessor.writeUnlock();
 		}
+		try {
+			waitForLogSync(logNode, logPosition);
+		} catch (FileNodeManagerException e) {
+			if (!isMonitor) {
+				updateStatHashMapWhenFail(tsRecord);
+			}
+			throw e;
+		}
 		// Modify the insert
 		if (!isMonitor) {
 			fileNodeProcessor.getStatParamsHashMap()
@@ -413,10 +420,199 @@ public class FileNodeManager implements IStatistic, IService {
 		return insertType;
 	}
 
+	/**
+	 * Slow down the writer while the memory usage is dangerous. It must not hold any processor lock, or the flushes
+	 * it waits for could not start.
+	 */
+	private void waitForMemory() {
+		if (TsFileDBConf.memWaitTimeout <= 0) {
+			return;
+		}
+		try {
+			if (!BasicMemController.getInstance().waitForMemory(TsFileDBConf.memWaitTimeout)) {
+				LOGGER.warn("The memory usage {} is still dangerous after waiting {}ms, go on writing.",
+						MemUtils.bytesCntToStr(BasicMemController.getInstance().getTotalUsage()),
+						TsFileDBConf.memWaitTimeout);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * insert all rows of a BatchInsertPlan into storage group. The storage group
+	 * is locked once for the whole batch, and the rows are written to WAL as one
+	 * log for overflow and one log for bufferwrite, according to where they go.
+	 * <p>
+	 * Everything that can reject the batch, i.e. the timestamps, the processors,
+	 * the new interval file and the WAL, is done before any row is written into
+	 * memory, so a rejected batch writes no row. Once the rows are written into
+	 * memory they are all kept: a failure of the flushes or of closing the file
+	 * afterwards is still reported, but no row is lost.
+	 * </p>
+	 * 
+	 * @param plan:
+	 *            rows of one deltaObject
+	 * @param isMonitor:
+	 *            same as {@link #insert(TSRecord, boolean)}
+	 * @throws FileNodeManagerException
+	 */
+	public void insertBatch(BatchInsertPlan plan, boolean isMonitor) throws FileNodeManagerException {
+		String deltaObjectId = plan.getDeltaObject();
+		long[] times = plan.getTimes();
+		int pointNum = times.length * plan.getMeasurements().length;
+		for (long timestamp : times) {
+			if (timestamp < 0) {
+				LOGGER.error("The insert time lt 0, {}.", plan);
+				throw new FileNodeManagerException("The insert time lt 0, the plan is " + plan);
+			}
+		}
+
+		if (!isMonitor) {
+			statParamsHashMap.get(MonitorConstants.FileNodeManagerStatConstants.TOTAL_POINTS.name())
+					.addAndGet(pointNum);
+			waitForMemory();
+		}
+
+		FileNodeProcessor fileNodeProcessor = getProcessor(deltaObjectId, true);
+		WriteLogNode overflowLogNode = null;
+		LogPosition overflowLogPosition = null;
+		WriteLogNode bufferwriteLogNode = null;
+		LogPosition bufferwriteLogPosition = null;
+
+		try {
+			long lastUpdateTime = fileNodeProcessor.getFlushLastUpdateTime(deltaObjectId);
+			String filenodeName = fileNodeProcessor.getProcessorName();
+			boolean enableWal = TsfileDBDescriptor.getInstance().getConfig().enableWal;
+
+			// rows earlier than the flushed data go to overflow, the others go to bufferwrite
+			int overflowNum = 0;
+			for (long timestamp : times) {
+				if (timestamp < lastUpdateTime) {
+					overflowNum++;
+				}
+			}
+			int[] overflowRows = new int[overflowNum];
+			int[] bufferwriteRows = new int[times.length - overflowNum];
+			long overflowStartTime = Long.MAX_VALUE, overflowEndTime = Long.MIN_VALUE;
+			long bufferwriteStartTime = Long.MAX_VALUE, bufferwriteEndTime = Long.MIN_VALUE;
+			for (int i = 0, o = 0, b = 0; i < times.length; i++) {
+				if (times[i] < lastUpdateTime) {
+					overflowRows[o++] = i;
+					overflowStartTime = Math.min(overflowStartTime, times[i]);
+					overflowEndTime = Math.max(overflowEndTime, times[i]);
+				} else {
+					bufferwriteRows[b++] = i;
+					bufferwriteStartTime = Math.min(bufferwriteStartTime, times[i]);
+					bufferwriteEndTime = Math.max(bufferwriteEndTime, times[i]);
+				}
+			}
+
+			// get the processors and write the logs before writing any row
+			OverflowProcessor overflowProcessor = null;
+			if (overflowRows.length > 0) {
+				overflowProcessor = fileNodeProcessor.getOverflowProcessor(filenodeName);
+			}
+			BufferWriteProcessor bufferWriteProcessor = null;
+			if (bufferwriteRows.length > 0) {
+				bufferWriteProcessor = fileNodeProcessor.getBufferWriteProcessor(filenodeName, bufferwriteStartTime);
+				// Add a new interval file to newfilelist
+				if (bufferWriteProcessor.isNewProcessor()) {
+					bufferWriteProcessor.setNewProcessor(false);
+					try {
+						fileNodeProcessor.addIntervalFileNode(bufferwriteStartTime, bufferWriteProcessor.getBaseDir(),
+								bufferWriteProcessor.getFileRelativePath());
+					} catch (Exception e) {
+						throw new FileNodeManagerException(e);
+					}
+				}
+			}
+			if (enableWal && overflowProcessor != null) {
+				overflowLogNode = overflowProcessor.getLogNode();
+				overflowLogPosition = overflowLogNode
+						.write(bufferwriteRows.length == 0 ? plan : plan.selectRows(overflowRows));
+			}
+			if (enableWal && bufferWriteProcessor != null) {
+				bufferwriteLogNode = bufferWriteProcessor.getLogNode();
+				bufferwriteLogPosition = bufferwriteLogNode
+						.write(overflowRows.length == 0 ? plan : plan.selectRows(bufferwriteRows));
+			}
+
+			// the rows are in memory even if a flush fails, so both sides are written before reporting it
+			Exception writeFailure = null;
+			if (overflowProcessor != null) {
+				try {
+					overflowProcessor.insert(plan, overflowRows);
+				} catch (IOException e) {
+					writeFailure = e;
+				}
+				fileNodeProcessor.changeTypeToChanged(deltaObjectId, overflowStartTime, overflowEndTime);
+				fileNodeProcessor.setOverflowed(true);
+			}
+			if (bufferWriteProcessor != null) {
+				fileNodeProcessor.setIntervalFileNodeStartTime(deltaObjectId);
+				fileNodeProcessor.setLastUpdateTime(deltaObjectId, bufferwriteEndTime);
+				try {
+					bufferWriteProcessor.write(plan, bufferwriteRows);
+				} catch (BufferWriteProcessorException e) {
+					if (writeFailure == null) {
+						writeFailure = e;
+					}
+				}
+			}
+			if (writeFailure != null) {
+				throw new FileNodeManagerException(writeFailure);
+			}
+
+			if (bufferWriteProcessor != null && bufferWriteProcessor
+					.getFileSize() > TsfileDBDescriptor.getInstance().getConfig().bufferwriteFileSizeThreshold) {
+				LOGGER.info(
+						"The filenode processor {} will close the bufferwrite processor, because the size[{}] of tsfile {} reaches the threshold {}",
+						filenodeName, MemUtils.bytesCntToStr(bufferWriteProcessor.getFileSize()),
+						bufferWriteProcessor.getFileName(), MemUtils.bytesCntToStr(
+								TsfileDBDescriptor.getInstance().getConfig().bufferwriteFileSizeThreshold));
+				fileNodeProcessor.closeBufferWrite();
+				fileNodeProcessor.submitToCompact();
+			}
+		} catch (IOException | FileNodeProcessorException | FileNodeManagerException e) {
+			LOGGER.error("Insert a batch of {} rows into the filenode processor {} failed.", times.length,
+					fileNodeProcessor.getProcessorName(), e);
+			if (!isMonitor) {
+				updateStatHashMapWhenFail(pointNum);
+			}
+			throw e instanceof FileNodeManagerException ? (FileNodeManagerException) e
+					: new FileNodeManagerException(e);
+		} finally {
+			fileNodeProcessor.writeUnlock();
+		}
+		try {
+			waitForLogSync(overflowLogNode, overflowLogPosition);
+			waitForLogSync(bufferwriteLogNode, bufferwriteLogPosition);
+		} catch (FileNodeManagerException e) {
+			if (!isMonitor) {
+				updateStatHashMapWhenFail(pointNum);
+			}
+			throw e;
+		}
+		if (!isMonitor) {
+			fileNodeProcessor.getStatParamsHashMap()
+					.get(MonitorConstants.FileNodeProcessorStatConstants.TOTAL_POINTS_SUCCESS.name())
+					.addAndGet(pointNum);
+			fileNodeProcessor.getStatParamsHashMap()
+					.get(MonitorConstants.FileNodeProcessorStatConstants.TOTAL_REQ_SUCCESS.name()).incrementAndGet();
+			statParamsHashMap.get(MonitorConstants.FileNodeManagerStatConstants.TOTAL_REQ_SUCCESS.name())
+					.incrementAndGet();
+			statParamsHashMap.get(MonitorConstants.FileNodeManagerStatConstants.TOTAL_POINTS_SUCCESS.name())
+					.addAndGet(pointNum);
+		}
+	}
+
 	public void update(String deltaObjectId, String measurementId, long startTime, long endTime, TSDataType type,
 			String v) throws FileNodeManagerException {
 
 		FileNodeProcessor fileNodeProcessor = getProcessor(deltaObjectId, true);
+		WriteLogNode logNode = null;
+		LogPosition logPosition = null;
 		try {
 
 			long lastUpdateTime = fileNodeProcessor.getLastUpdateTime(deltaObjectId);
@@ -447,7 +643,8 @@ public class FileNodeManager implements IStatistic, IService {
 			// write wal
 			try {
 				if (TsfileDBDescriptor.getInstance().getConfig().enableWal) {
-					overflowProcessor.getLogNode().write(
+					logNode = overflowProcessor.getLogNode();
+					logPosition = logNode.write(
 							new UpdatePlan(startTime, endTime, v, new Path(deltaObjectId + "." + measurementId)));
 				}
 			} catch (IOException e) {
@@ -462,12 +659,15 @@ public class FileNodeManager implements IStatistic, IService {
 		} finally {
 			fileNodeProcessor.writeUnlock();
 		}
+		waitForLogSync(logNode, logPosition);
 	}
 
 	public void delete(String deltaObjectId, String measurementId, long timestamp, TSDataType type)
 			throws FileNodeManagerException {
 
 		FileNodeProcessor fileNodeProcessor = getProcessor(deltaObjectId, true);
+		WriteLogNode logNode = null;
+		LogPosition logPosition = null;
 		try {
 			long lastUpdateTime = fileNodeProcessor.getLastUpdateTime(deltaObjectId);
 			// no tsfile data, the delete operation is invalid
@@ -505,7 +705,8 @@ public class FileNodeManager implements IStatistic, IService {
 				// write wal
 				try {
 					if (TsfileDBDescriptor.getInstance().getConfig().enableWal) {
-						overflowProcessor.getLogNode()
+						logNode = overflowProcessor.getLogNode();
+						logPosition = logNode
 								.write(new DeletePlan(timestamp, new Path(deltaObjectId + "." + measurementId)));
 					}
 				} catch (IOException e) {
@@ -515,6 +716,22 @@ public class FileNodeManager implements IStatistic, IService {
 		} finally {
 			fileNodeProcessor.writeUnlock();
 		}
+		waitForLogSync(logNode, logPosition);
+	}
+
+	/**
+	 * Wait until the log is on disk if the log node requires it. This is called after the FileNode lock is released,
+	 * so that the logs of concurrent writers are synced together.
+	 */
+	private void waitForLogSync(WriteLogNode logNode, LogPosition logPosition) throws FileNodeManagerException {
+		if (logNode == null) {
+			return;
+		}
+		try {
+			logNode.waitForSync(logPosition);
+		} catch (IOException e) {
+			throw new FileNodeManagerException(e);
+		}
 	}
 
 	public int beginQuery(String deltaObjectId) throws FileNodeManagerException {
@@ -706,6 +923,44 @@ public class FileNodeManager implements IStatistic, IService {
 		}
 	}
 
+	/**
+	 * Compact the adjacent small tsfiles of all the storage groups, and wait
+	 * for the compactions to end.
+	 * 
+	 * @throws FileNodeManagerException
+	 */
+	public void compactAll() throws FileNodeManagerException {
+		List<String> allFileNodeNames;
+		try {
+			allFileNodeNames = MManager.getInstance().getAllFileNames();
+		} catch (PathErrorException e) {
+			LOGGER.error("Get all storage group path error,", e);
+			throw new FileNodeManagerException(e);
+		}
+		List<Future<?>> futureTasks = new ArrayList<>();
+		for (String fileNodeName : allFileNodeNames) {
+			FileNodeProcessor fileNodeProcessor = getProcessor(fileNodeName, true);
+			try {
+				Future<?> task = fileNodeProcessor.submitToCompact();
+				if (task != null) {
+					futureTasks.add(task);
+				}
+			} finally {
+				fileNodeProcessor.writeUnlock();
+			}
+		}
+		for (Future<?> task : futureTasks) {
+			try {
+				task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new FileNodeManagerException(e);
+			} catch (ExecutionException e) {
+				throw new FileNodeManagerException(e);
+			}
+		}
+	}
+
 	/**
 	 * try to close the filenode processor. The name of filenode processor is
 	 * processorName
@@ -848,6 +1103,27 @@ public class FileNodeManager implements IStatistic, IService {
 		}
 	}
 
+	/**
+	 * Close one filenode processor after its write ahead logs are replayed. Unlike {@link #closeOneFileNode(String)}
+	 * the manager status is left untouched, so that filenodes recovered concurrently can be closed at the same time.
+	 * Only used during startup recovery, when no merge or close of all filenodes can run.
+	 *
+	 * @param processorName
+	 * @throws FileNodeManagerException
+	 */
+	public void closeOneFileNodeAfterRecovery(String processorName) throws FileNodeManagerException {
+		LOGGER.info("Close the filenode processor {} after recovery.", processorName);
+		while (!closeOneProcessor(processorName)) {
+			try {
+				LOGGER.info("Can't close the filenode processor {} after recovery, wait 100ms to retry", processorName);
+				TimeUnit.MILLISECONDS.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new FileNodeManagerException(e);
+			}
+		}
+	}
+
 	/**
 	 * try to close the filenode processor.
 	 * 
@@ -4,18 +4,25 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import cn.edu.tsinghua.iotdb.queryV2.engine.control.OverflowFileStreamManager;
@@ -32,9 +39,12 @@ import cn.edu.tsinghua.iotdb.engine.Processor;
 import cn.edu.tsinghua.iotdb.engine.bufferwrite.Action;
 import cn.edu.tsinghua.iotdb.engine.bufferwrite.BufferWriteProcessor;
 import cn.edu.tsinghua.iotdb.engine.bufferwrite.FileNodeConstants;
+import cn.edu.tsinghua.iotdb.engine.cache.ChunkCacheManager;
+import cn.edu.tsinghua.iotdb.engine.cache.TsFileMetaDataCache;
 import cn.edu.tsinghua.iotdb.engine.overflow.ioV2.OverflowProcessor;
 import cn.edu.tsinghua.iotdb.engine.pool.MergeManager;
 import cn.edu.tsinghua.iotdb.engine.querycontext.GlobalSortedSeriesDataSource;
+import cn.edu.tsinghua.iotdb.engine.querycontext.OverflowInsertFile;
 import cn.edu.tsinghua.iotdb.engine.querycontext.OverflowSeriesDataSource;
 import cn.edu.tsinghua.iotdb.engine.querycontext.QueryDataSource;
 import cn.edu.tsinghua.iotdb.engine.querycontext.RawSeriesChunk;
@@ -53,13 +63,19 @@ import cn.edu.tsinghua.iotdb.metadata.MManager;
 import cn.edu.tsinghua.iotdb.monitor.IStatistic;
 import cn.edu.tsinghua.iotdb.monitor.MonitorConstants;
 import cn.edu.tsinghua.iotdb.monitor.StatMonitor;
+import cn.edu.tsinghua.iotdb.queryV2.engine.overflow.OverflowOperation;
+import cn.edu.tsinghua.iotdb.queryV2.engine.overflow.OverflowOperationReader;
 import cn.edu.tsinghua.iotdb.queryV2.factory.SeriesReaderFactory;
+import cn.edu.tsinghua.iotdb.queryV2.factory.SimpleMetadataQuerierForMerge;
 import cn.edu.tsinghua.iotdb.utils.MemUtils;
 import cn.edu.tsinghua.tsfile.common.conf.TSFileConfig;
 import cn.edu.tsinghua.tsfile.common.conf.TSFileDescriptor;
 import cn.edu.tsinghua.tsfile.common.constant.JsonFormatConstant;
 import cn.edu.tsinghua.tsfile.common.exception.ProcessorException;
+import cn.edu.tsinghua.tsfile.common.utils.ITsRandomAccessFileReader;
 import cn.edu.tsinghua.tsfile.common.utils.Pair;
+import cn.edu.tsinghua.tsfile.file.metadata.RowGroupMetaData;
+import cn.edu.tsinghua.tsfile.file.metadata.TInTimeSeriesChunkMetaData;
 import cn.edu.tsinghua.tsfile.file.metadata.TimeSeriesChunkMetaData;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSEncoding;
@@ -67,7 +83,9 @@ import cn.edu.tsinghua.tsfile.timeseries.filterV2.TimeFilter;
 import cn.edu.tsinghua.tsfile.timeseries.filterV2.basic.Filter;
 import cn.edu.tsinghua.tsfile.timeseries.filterV2.expression.impl.SeriesFilter;
 import cn.edu.tsinghua.tsfile.timeseries.filterV2.factory.FilterFactory;
+import cn.edu.tsinghua.tsfile.timeseries.read.TsRandomAccessLocalFileReader;
 import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.common.EncodedSeriesChunkDescriptor;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.SeriesReader;
 import cn.edu.tsinghua.tsfile.timeseries.write.desc.MeasurementDescriptor;
@@ -97,6 +115,9 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 	private volatile boolean isOverflowed;
 	private Map<String, Long> lastUpdateTimeMap;
 	private Map<String, Long> flushLastUpdateTimeMap;
+	// the lastUpdateTimeMap when each memtable waiting for flush was switched, the oldest first. Guarded by
+	// fileNodeProcessorStore.
+	private Deque<Map<String, Long>> flushingLastUpdateTimeMaps = new ArrayDeque<>();
 	private Map<String, List<IntervalFileNode>> InvertedindexOfFiles;
 	private IntervalFileNode emptyIntervalFileNode;
 	private IntervalFileNode currentIntervalFileNode;
@@ -104,6 +125,9 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 	private FileNodeProcessorStatus isMerging;
 	// this is used when work->merge operation
 	private int numOfMergeFile = 0;
+	// serializes the merges and the compactions of this filenode processor
+	private final ReentrantLock compactionLock = new ReentrantLock();
+	private volatile boolean isCompacting = false;
 	private FileNodeProcessorStore fileNodeProcessorStore = null;
 
 	public static final String RESTORE_FILE_SUFFIX = ".restore";
@@ -115,10 +139,11 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 	private BufferWriteProcessor bufferWriteProcessor = null;
 	private OverflowProcessor overflowProcessor = null;
 
-	private Set<Integer> oldMultiPassTokenSet = null;
-	private Set<Integer> newMultiPassTokenSet = new HashSet<>();
-	private ReadWriteLock oldMultiPassLock = null;
-	private ReadWriteLock newMultiPassLock = new ReentrantReadWriteLock(false);
+	// swapped under the write lock of the processor by merge and compaction, read by the queries without it
+	private volatile Set<Integer> oldMultiPassTokenSet = null;
+	private volatile Set<Integer> newMultiPassTokenSet = new HashSet<>();
+	private volatile ReadWriteLock oldMultiPassLock = null;
+	private volatile ReadWriteLock newMultiPassLock = new ReentrantReadWriteLock(false);
 	// system recovery
 	private boolean shouldRecovery = false;
 	// statistic monitor parameters
@@ -197,13 +222,30 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 		public void act() throws Exception {
 			// update the lastUpdateTime Notice: Thread safe
 			synchronized (fileNodeProcessorStore) {
-				// deep copy
-				Map<String, Long> tempLastUpdateMap = new HashMap<>(lastUpdateTimeMap);
+				// deep copy, it is persisted when the memtable switched now is flushed
+				flushingLastUpdateTimeMaps.add(new HashMap<>(lastUpdateTimeMap));
 				// update flushLastUpdateTimeMap
 				for (Entry<String, Long> entry : lastUpdateTimeMap.entrySet()) {
 					flushLastUpdateTimeMap.put(entry.getKey(), entry.getValue() + 1);
 				}
-				fileNodeProcessorStore.setLastUpdateTimeMap(tempLastUpdateMap);
+			}
+		}
+	};
+
+	/**
+	 * Persist the end time of the data flushed by the oldest memtable, so that the stored end time never covers
+	 * the memtables still waiting for flush.
+	 */
+	private Action bufferwriteFlushEndAction = new Action() {
+
+		@Override
+		public void act() throws Exception {
+			synchronized (fileNodeProcessorStore) {
+				Map<String, Long> flushedLastUpdateTimeMap = flushingLastUpdateTimeMaps.poll();
+				if (flushedLastUpdateTimeMap != null) {
+					fileNodeProcessorStore.setLastUpdateTimeMap(flushedLastUpdateTimeMap);
+				}
+				writeStoreToDisk(fileNodeProcessorStore);
 			}
 		}
 	};
@@ -313,6 +355,7 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 		newFileNodes = fileNodeProcessorStore.getNewFileNodes();
 		isMerging = fileNodeProcessorStore.getFileNodeProcessorStatus();
 		numOfMergeFile = fileNodeProcessorStore.getNumOfMergeFile();
+		deleteCompactionFiles();
 		InvertedindexOfFiles = new HashMap<>();
 		// deep clone
 		flushLastUpdateTimeMap = new HashMap<>();
@@ -393,6 +436,7 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 			// all information to recovery the damaged file.
 			// contains file path, action parameters and processorName
 			parameters.put(FileNodeConstants.BUFFERWRITE_FLUSH_ACTION, bufferwriteFlushAction);
+			parameters.put(FileNodeConstants.BUFFERWRITE_FLUSH_END_ACTION, bufferwriteFlushEndAction);
 			parameters.put(FileNodeConstants.BUFFERWRITE_CLOSE_ACTION, bufferwriteCloseAction);
 			parameters.put(FileNodeConstants.FILENODE_PROCESSOR_FLUSH_ACTION, flushFileNodeProcessorAction);
 			String baseDir = directories.getTsFileFolder(newFileNodes.get(newFileNodes.size() - 1).getBaseDirIndex());
@@ -448,6 +492,7 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 		if (bufferWriteProcessor == null) {
 			Map<String, Object> parameters = new HashMap<>();
 			parameters.put(FileNodeConstants.BUFFERWRITE_FLUSH_ACTION, bufferwriteFlushAction);
+			parameters.put(FileNodeConstants.BUFFERWRITE_FLUSH_END_ACTION, bufferwriteFlushEndAction);
 			parameters.put(FileNodeConstants.BUFFERWRITE_CLOSE_ACTION, bufferwriteCloseAction);
 			parameters.put(FileNodeConstants.FILENODE_PROCESSOR_FLUSH_ACTION, flushFileNodeProcessorAction);
 			String baseDir = directories.getNextFolderForTsfile();
@@ -866,6 +911,8 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 		if (isOverflowed && isMerging == FileNodeProcessorStatus.NONE) {
 			Runnable MergeThread;
 			MergeThread = () -> {
+				// wait for the running compaction
+				compactionLock.lock();
 				try {
 					long mergeStartTime = System.currentTimeMillis();
 					writeLock();
@@ -882,6 +929,8 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 				} catch (FileNodeProcessorException e) {
 					LOGGER.error("The filenode processor {} encountered an error when merging.", getProcessorName(), e);
 					throw new ErrorDebugException(e);
+				} finally {
+					compactionLock.unlock();
 				}
 			};
 			LOGGER.info("Submit the merge task, the merge filenode is {}", getProcessorName());
@@ -899,6 +948,74 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 		return null;
 	}
 
+	/**
+	 * Submit the compaction task to the <code>MergePool</code>, if there are enough adjacent closed tsfiles of the same
+	 * size tier.
+	 *
+	 * @return null - can't submit the compaction task, because no files need to be compacted, or this filenode is
+	 *         merging or compacting now. Future<?> - submit the compaction task successfully.
+	 */
+	public Future<?> submitToCompact() {
+		if (isMerging != FileNodeProcessorStatus.NONE || isCompacting || selectFilesToCompact().isEmpty()) {
+			return null;
+		}
+		isCompacting = true;
+		Runnable compactionThread = () -> {
+			try {
+				compact();
+			} catch (FileNodeProcessorException e) {
+				LOGGER.error("The filenode processor {} encountered an error when compacting.", getProcessorName(), e);
+			} finally {
+				isCompacting = false;
+			}
+		};
+		LOGGER.info("Submit the compaction task, the compaction filenode is {}", getProcessorName());
+		return MergeManager.getInstance().submit(compactionThread);
+	}
+
+	/**
+	 * Select the first run of adjacent closed tsfiles of the same size tier, which is as long as the fan-in of
+	 * compaction.
+	 *
+	 * @return the files in <code>newFileNodes</code> to be compacted, or an empty list
+	 */
+	private List<IntervalFileNode> selectFilesToCompact() {
+		int fanIn = TsFileDBConf.compactionFanIn;
+		List<IntervalFileNode> run = new ArrayList<>();
+		if (fanIn < 2) {
+			return run;
+		}
+		int runTier = -1;
+		for (IntervalFileNode intervalFileNode : newFileNodes) {
+			if (!intervalFileNode.isClosed()) {
+				break;
+			}
+			long fileSize = new File(intervalFileNode.getFilePath()).length();
+			int tier = fileSize >= TsFileDBConf.compactionMaxFileSizeThreshold ? -1 : getSizeTier(fileSize, fanIn);
+			if (tier != runTier) {
+				run.clear();
+				runTier = tier;
+			}
+			if (tier >= 0) {
+				run.add(intervalFileNode);
+				if (run.size() == fanIn) {
+					return run;
+				}
+			}
+		}
+		run.clear();
+		return run;
+	}
+
+	private int getSizeTier(long fileSize, int fanIn) {
+		int tier = 0;
+		for (long bound = TsFileDBConf.bufferwriteFileSizeThreshold; fileSize >= bound
+				&& bound < Long.MAX_VALUE / fanIn; bound *= fanIn) {
+			tier++;
+		}
+		return tier;
+	}
+
 	/**
 	 * Prepare for merge, close the bufferwrite and overflow
 	 */
@@ -1031,42 +1148,57 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 		// query tsfile data and overflow data, and merge them
 		int numOfMergeFiles = 0;
 		int allNeedMergeFiles = backupIntervalFiles.size();
+		int pendingFiles = 0;
 		for (IntervalFileNode backupIntervalFile : backupIntervalFiles) {
-			numOfMergeFiles++;
 			if (backupIntervalFile.overflowChangeType == OverflowChangeType.CHANGED) {
-				// query data and merge
-				String filePathBeforeMerge = backupIntervalFile.getRelativePath();
-				try {
-					LOGGER.info(
-							"The filenode processor {} begins merging the {}/{} tsfile[{}] with overflow file, the process is {}%",
-							getProcessorName(), numOfMergeFiles, allNeedMergeFiles, filePathBeforeMerge,
-							(int) (((numOfMergeFiles - 1) / (float) allNeedMergeFiles) * 100));
-					long startTime = System.currentTimeMillis();
-					String newFile = queryAndWriteDataForMerge(backupIntervalFile);
-					long endTime = System.currentTimeMillis();
-					long timeConsume = endTime - startTime;
-					DateTime startDateTime = new DateTime(startTime,
-							TsfileDBDescriptor.getInstance().getConfig().timeZone);
-					DateTime endDateTime = new DateTime(endTime, TsfileDBDescriptor.getInstance().getConfig().timeZone);
-					LOGGER.info(
-							"The fileNode processor {} has merged the {}/{} tsfile[{}->{}] over, start time of merge is {}, end time of merge is {}, time consumption is {}ms, the process is {}%",
-							getProcessorName(), numOfMergeFiles, allNeedMergeFiles, filePathBeforeMerge, newFile,
-							startDateTime, endDateTime, timeConsume,
-							(int) (numOfMergeFiles) / (float) allNeedMergeFiles * 100);
-				} catch (IOException | WriteProcessException | PathErrorException e) {
-					LOGGER.error("Merge: query and write data error.", e);
-					throw new FileNodeProcessorException(e);
+				pendingFiles++;
+			}
+		}
+		MergeManager mergeManager = MergeManager.getInstance();
+		mergeManager.addPendingFiles(pendingFiles);
+		try {
+			for (IntervalFileNode backupIntervalFile : backupIntervalFiles) {
+				numOfMergeFiles++;
+				if (backupIntervalFile.overflowChangeType == OverflowChangeType.CHANGED) {
+					// query data and merge
+					String filePathBeforeMerge = backupIntervalFile.getRelativePath();
+					try {
+						LOGGER.info(
+								"The filenode processor {} begins merging the {}/{} tsfile[{}] with overflow file, the process is {}%",
+								getProcessorName(), numOfMergeFiles, allNeedMergeFiles, filePathBeforeMerge,
+								(int) (((numOfMergeFiles - 1) / (float) allNeedMergeFiles) * 100));
+						long startTime = System.currentTimeMillis();
+						String newFile = queryAndWriteDataForMerge(backupIntervalFile);
+						mergeManager.finishFile();
+						pendingFiles--;
+						long endTime = System.currentTimeMillis();
+						long timeConsume = endTime - startTime;
+						DateTime startDateTime = new DateTime(startTime,
+								TsfileDBDescriptor.getInstance().getConfig().timeZone);
+						DateTime endDateTime = new DateTime(endTime, TsfileDBDescriptor.getInstance().getConfig().timeZone);
+						LOGGER.info(
+								"The fileNode processor {} has merged the {}/{} tsfile[{}->{}] over, start time of merge is {}, end time of merge is {}, time consumption is {}ms, the process is {}%",
+								getProcessorName(), numOfMergeFiles, allNeedMergeFiles, filePathBeforeMerge, newFile,
+								startDateTime, endDateTime, timeConsume,
+								(int) (numOfMergeFiles) / (float) allNeedMergeFiles * 100);
+					} catch (IOException | WriteProcessException | PathErrorException e) {
+						LOGGER.error("Merge: query and write data error.", e);
+						throw new FileNodeProcessorException(e);
+					}
+				} else if (backupIntervalFile.overflowChangeType == OverflowChangeType.MERGING_CHANGE) {
+					LOGGER.error("The overflowChangeType of backupIntervalFile must not be {}",
+							OverflowChangeType.MERGING_CHANGE);
+					// handle this error, throw one runtime exception
+					throw new FileNodeProcessorException("The overflowChangeType of backupIntervalFile must not be "
+							+ OverflowChangeType.MERGING_CHANGE);
+				} else {
+					LOGGER.debug("The filenode processor {} is merging, the interval file {} doesn't need to be merged.",
+							getProcessorName(), backupIntervalFile.getRelativePath());
 				}
-			} else if (backupIntervalFile.overflowChangeType == OverflowChangeType.MERGING_CHANGE) {
-				LOGGER.error("The overflowChangeType of backupIntervalFile must not be {}",
-						OverflowChangeType.MERGING_CHANGE);
-				// handle this error, throw one runtime exception
-				throw new FileNodeProcessorException("The overflowChangeType of backupIntervalFile must not be "
-						+ OverflowChangeType.MERGING_CHANGE);
-			} else {
-				LOGGER.debug("The filenode processor {} is merging, the interval file {} doesn't need to be merged.",
-						getProcessorName(), backupIntervalFile.getRelativePath());
 			}
+		} finally {
+			// the files left by a failed merge are not pending any more
+			mergeManager.addPendingFiles(-pendingFiles);
 		}
 
 		OverflowFileStreamManager.getInstance()
@@ -1344,6 +1476,8 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 				for (File bufferwriteDir : bufferwriteDirList) {
 					for (File file : bufferwriteDir.listFiles()) {
 						if (!bufferFiles.contains(file.getPath())) {
+							TsFileMetaDataCache.getInstance().remove(file.getPath());
+							ChunkCacheManager.getInstance().removeFile(file.getPath());
 							file.delete();
 						}
 					}
@@ -1384,6 +1518,228 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 
 	}
 
+	/**
+	 * Compact adjacent closed tsfiles into one tsfile. The row groups of the files are copied into the new file
+	 * without decoding, and the new file replaces them in <code>newFileNodes</code>. Queries started before the
+	 * replacement still read the old files, which are deleted when these queries end.
+	 * <p>
+	 * The new file is recorded in the restore file while it is written, and the old files after they are replaced, so
+	 * the files left by a crash are deleted when the filenode processor is restored.
+	 *
+	 * @throws FileNodeProcessorException
+	 */
+	private void compact() throws FileNodeProcessorException {
+		compactionLock.lock();
+		try {
+			List<IntervalFileNode> sourceFiles;
+			writeLock();
+			try {
+				if (isMerging != FileNodeProcessorStatus.NONE) {
+					return;
+				}
+				sourceFiles = selectFilesToCompact();
+				if (sourceFiles.isEmpty()) {
+					return;
+				}
+				sourceFiles = new ArrayList<>(sourceFiles);
+			} finally {
+				writeUnlock();
+			}
+			long startTime = System.currentTimeMillis();
+			long firstTimestamp = Long.MAX_VALUE;
+			for (IntervalFileNode sourceFile : sourceFiles) {
+				for (long timestamp : sourceFile.getStartTimeMap().values()) {
+					firstTimestamp = Math.min(firstTimestamp, timestamp);
+				}
+			}
+			String baseDir = directories.getNextFolderForTsfile();
+			String fileName = getProcessorName() + File.separatorChar + firstTimestamp
+					+ FileNodeConstants.BUFFERWRITE_FILE_SEPARATOR + System.currentTimeMillis();
+			IntervalFileNode targetFile = new IntervalFileNode(OverflowChangeType.NO_CHANGE, baseDir, fileName);
+			LOGGER.info("The filenode processor {} begins compacting the tsfiles {} into {}.", getProcessorName(),
+					sourceFiles, fileName);
+			setFilesToDelete(Collections.singletonList(targetFile));
+			try {
+				writeCompactedFile(sourceFiles, targetFile);
+			} catch (IOException e) {
+				new File(targetFile.getFilePath()).delete();
+				setFilesToDelete(new ArrayList<>());
+				throw new FileNodeProcessorException(e);
+			}
+			if (!switchCompactedFile(sourceFiles, targetFile)) {
+				LOGGER.warn("The tsfiles {} of the filenode processor {} were changed when compacting, drop {}.",
+						sourceFiles, getProcessorName(), fileName);
+				new File(targetFile.getFilePath()).delete();
+				setFilesToDelete(new ArrayList<>());
+				return;
+			}
+			// wait for the queries which may read the old files, merge can't swap the locks while compacting
+			ReadWriteLock compactedFilesLock;
+			readLock();
+			try {
+				compactedFilesLock = oldMultiPassLock;
+			} finally {
+				readUnlock();
+			}
+			compactedFilesLock.writeLock().lock();
+			try {
+				for (IntervalFileNode sourceFile : sourceFiles) {
+					TsFileMetaDataCache.getInstance().remove(sourceFile.getFilePath());
+					ChunkCacheManager.getInstance().removeFile(sourceFile.getFilePath());
+					new File(sourceFile.getFilePath()).delete();
+				}
+			} finally {
+				compactedFilesLock.writeLock().unlock();
+				writeLock();
+				try {
+					oldMultiPassTokenSet = null;
+					oldMultiPassLock = null;
+				} finally {
+					writeUnlock();
+				}
+			}
+			setFilesToDelete(new ArrayList<>());
+			MergeManager.getInstance().finishCompaction(sourceFiles.size());
+			LOGGER.info("The filenode processor {} has compacted {} tsfiles into {}, time consumption is {}ms.",
+					getProcessorName(), sourceFiles.size(), fileName, System.currentTimeMillis() - startTime);
+		} finally {
+			compactionLock.unlock();
+		}
+	}
+
+	private void writeCompactedFile(List<IntervalFileNode> sourceFiles, IntervalFileNode targetFile)
+			throws IOException {
+		MergeManager mergeManager = MergeManager.getInstance();
+		// the delta objects in the order they appear in the files
+		Set<String> deltaObjectIds = new LinkedHashSet<>();
+		List<SimpleMetadataQuerierForMerge> metadataQueriers = new ArrayList<>();
+		for (IntervalFileNode sourceFile : sourceFiles) {
+			deltaObjectIds.addAll(sourceFile.getStartTimeMap().keySet());
+			metadataQueriers.add(new SimpleMetadataQuerierForMerge(sourceFile.getFilePath()));
+		}
+		File file = new File(targetFile.getFilePath());
+		if (!file.getParentFile().exists()) {
+			file.getParentFile().mkdirs();
+		}
+		TsFileIOWriter fileIOWriter = new TsFileIOWriter(file);
+		for (String deltaObjectId : deltaObjectIds) {
+			// the data of a delta object in a file is older than that in the next file
+			for (SimpleMetadataQuerierForMerge metadataQuerier : metadataQueriers) {
+				List<RowGroupMetaData> rowGroups = metadataQuerier.getRowGroupMetaDataList(deltaObjectId);
+				if (rowGroups.isEmpty()) {
+					continue;
+				}
+				ITsRandomAccessFileReader chunkReader = new TsRandomAccessLocalFileReader(
+						metadataQuerier.getFilePath());
+				try {
+					for (RowGroupMetaData rowGroup : rowGroups) {
+						fileIOWriter.startRowGroup(deltaObjectId);
+						long startPos = fileIOWriter.getPos();
+						for (TimeSeriesChunkMetaData chunk : rowGroup.getTimeSeriesChunkMetaDataList()) {
+							mergeManager.acquireRead(chunk.getTotalByteSize());
+							fileIOWriter.writeSeriesChunk(chunk, readSeriesChunk(chunkReader, chunk));
+						}
+						long memSize = fileIOWriter.getPos() - startPos;
+						mergeManager.acquireWrite(memSize);
+						fileIOWriter.endRowGroup(memSize, rowGroup.getNumOfRows());
+					}
+				} finally {
+					chunkReader.close();
+				}
+			}
+		}
+		fileIOWriter.endFile(fileSchema);
+	}
+
+	/**
+	 * Replace the compacted files by the new file in <code>newFileNodes</code>.
+	 *
+	 * @return false if the compacted files are not in <code>newFileNodes</code> any more
+	 */
+	private boolean switchCompactedFile(List<IntervalFileNode> sourceFiles, IntervalFileNode targetFile)
+			throws FileNodeProcessorException {
+		writeLock();
+		try {
+			int index = 0;
+			while (index < newFileNodes.size() && newFileNodes.get(index) != sourceFiles.get(0)) {
+				index++;
+			}
+			if (index + sourceFiles.size() > newFileNodes.size()) {
+				return false;
+			}
+			for (int i = 0; i < sourceFiles.size(); i++) {
+				IntervalFileNode sourceFile = newFileNodes.get(index + i);
+				if (sourceFile != sourceFiles.get(i)) {
+					return false;
+				}
+				// keep the overflow written into the compacted files since they were selected
+				if (sourceFile.overflowChangeType != OverflowChangeType.NO_CHANGE) {
+					targetFile.overflowChangeType = OverflowChangeType.CHANGED;
+				}
+				for (Entry<String, Long> entry : sourceFile.getStartTimeMap().entrySet()) {
+					if (targetFile.getStartTime(entry.getKey()) == -1
+							|| targetFile.getStartTime(entry.getKey()) > entry.getValue()) {
+						targetFile.setStartTime(entry.getKey(), entry.getValue());
+					}
+				}
+				for (Entry<String, Long> entry : sourceFile.getEndTimeMap().entrySet()) {
+					if (targetFile.getEndTime(entry.getKey()) < entry.getValue()) {
+						targetFile.setEndTime(entry.getKey(), entry.getValue());
+					}
+				}
+			}
+			List<IntervalFileNode> result = new ArrayList<>(newFileNodes.subList(0, index));
+			result.add(targetFile);
+			result.addAll(newFileNodes.subList(index + sourceFiles.size(), newFileNodes.size()));
+
+			// the queries from now on read the new file
+			oldMultiPassTokenSet = newMultiPassTokenSet;
+			oldMultiPassLock = newMultiPassLock;
+			newMultiPassTokenSet = new HashSet<>();
+			newMultiPassLock = new ReentrantReadWriteLock(false);
+
+			newFileNodes = result;
+			addALLFileIntoIndex(newFileNodes);
+			synchronized (fileNodeProcessorStore) {
+				fileNodeProcessorStore.setNewFileNodes(newFileNodes);
+				fileNodeProcessorStore.setFilesToDelete(sourceFiles);
+				writeStoreToDisk(fileNodeProcessorStore);
+			}
+			return true;
+		} finally {
+			writeUnlock();
+		}
+	}
+
+	private void setFilesToDelete(List<IntervalFileNode> filesToDelete) throws FileNodeProcessorException {
+		synchronized (fileNodeProcessorStore) {
+			fileNodeProcessorStore.setFilesToDelete(filesToDelete);
+			writeStoreToDisk(fileNodeProcessorStore);
+		}
+	}
+
+	/**
+	 * Delete the files left by a compaction which was interrupted by a crash.
+	 */
+	private void deleteCompactionFiles() throws FileNodeProcessorException {
+		List<IntervalFileNode> filesToDelete = fileNodeProcessorStore.getFilesToDelete();
+		if (filesToDelete.isEmpty()) {
+			return;
+		}
+		Set<String> usedFiles = new HashSet<>();
+		for (IntervalFileNode intervalFileNode : newFileNodes) {
+			usedFiles.add(intervalFileNode.getFilePath());
+		}
+		for (IntervalFileNode intervalFileNode : filesToDelete) {
+			if (!usedFiles.contains(intervalFileNode.getFilePath())) {
+				LOGGER.info("The filenode processor {} deletes the tsfile {} left by compaction.", getProcessorName(),
+						intervalFileNode.getFilePath());
+				new File(intervalFileNode.getFilePath()).delete();
+			}
+		}
+		setFilesToDelete(new ArrayList<>());
+	}
+
 	private TSRecord constructTsRecord(TimeValuePair timeValuePair, String deltaObjectId, String measurementId) {
 		TSRecord record = new TSRecord(timeValuePair.getTimestamp(), deltaObjectId);
 		record.addTuple(DataPoint.getDataPoint(timeValuePair.getValue().getDataType(), measurementId,
@@ -1391,8 +1747,15 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 		return record;
 	}
 
+	/**
+	 * Merge a tsfile with the overflow data into a new tsfile. The series of a delta object are read, merged and
+	 * encoded concurrently on the series pool of {@code MergeManager}, while this thread appends them to the new file
+	 * in order, so at most {@code mergeConcurrentSeriesThreads} merged series are buffered in memory.
+	 */
 	private String queryAndWriteDataForMerge(IntervalFileNode backupIntervalFile)
 			throws IOException, WriteProcessException, FileNodeProcessorException, PathErrorException {
+		MergeManager mergeManager = MergeManager.getInstance();
+		int maxPendingSeries = TsFileDBConf.mergeConcurrentSeriesThreads;
 		Map<String, Long> startTimeMap = new HashMap<>();
 		Map<String, Long> endTimeMap = new HashMap<>();
 
@@ -1400,76 +1763,101 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 		String outputPath = null;
 		String baseDir = null;
 		String fileName = null;
-		for (String deltaObjectId : backupIntervalFile.getStartTimeMap().keySet()) {
-			// query one deltaObjectId
-			List<Path> pathList = new ArrayList<>();
-			boolean isRowGroupHasData = false;
-			long startPos = -1;
-			int recordCount = 0;
-			try {
-				List<String> pathStrings = mManager.getLeafNodePathInNextLevel(deltaObjectId);
-				for (String string : pathStrings) {
-					pathList.add(new Path(string));
-				}
-			} catch (PathErrorException e) {
-				LOGGER.error("Can't get all the paths from MManager, the deltaObjectId is {}", deltaObjectId);
-				throw new FileNodeProcessorException(e);
-			}
-			if (pathList.isEmpty()) {
-				continue;
-			}
-			for (Path path : pathList) {
-				// query one measurenment in the special deltaObjectId
-				String measurementId = path.getMeasurementToString();
-				TSDataType dataType = mManager.getSeriesType(path.getFullPath());
-				OverflowSeriesDataSource overflowSeriesDataSource = overflowProcessor.queryMerge(deltaObjectId,
-						measurementId, dataType, true);
-				Filter<Long> timeFilter = FilterFactory.and(
-						TimeFilter.gtEq(backupIntervalFile.getStartTime(deltaObjectId)),
-						TimeFilter.ltEq(backupIntervalFile.getEndTime(deltaObjectId)));
-				SeriesFilter<Long> seriesFilter = new SeriesFilter<>(path, timeFilter);
-				SeriesReader seriesReader = SeriesReaderFactory.getInstance()
-						.createSeriesReaderForMerge(backupIntervalFile, overflowSeriesDataSource, seriesFilter);
+		// the chunks of the series untouched by overflow are copied from the old file without decoding
+		SimpleMetadataQuerierForMerge metadataQuerier = null;
+		if (backupIntervalFile.getFilePath() != null) {
+			metadataQuerier = new SimpleMetadataQuerierForMerge(backupIntervalFile.getFilePath());
+		}
+		LinkedList<Future<MergedSeries>> pendingSeries = new LinkedList<>();
+		try {
+			for (String deltaObjectId : backupIntervalFile.getStartTimeMap().keySet()) {
+				// query one deltaObjectId
+				List<Path> pathList = new ArrayList<>();
+				boolean isRowGroupHasData = false;
+				long startPos = -1;
+				int recordCount = 0;
 				try {
-					if (!seriesReader.hasNext()) {
-						LOGGER.debug("The time-series {} has no data with the filter {} in the filenode processor {}",
-								path, seriesFilter, getProcessorName());
-					} else {
-						TimeValuePair timeValuePair = seriesReader.next();
-						if (fileIOWriter == null) {
-							baseDir = directories.getNextFolderForTsfile();
-							fileName = String.valueOf(timeValuePair.getTimestamp()
-									+ FileNodeConstants.BUFFERWRITE_FILE_SEPARATOR + System.currentTimeMillis());
-							outputPath = constructOutputFilePath(baseDir, getProcessorName(), fileName);
-							fileName = getProcessorName() + File.separatorChar + fileName;
-							fileIOWriter = new TsFileIOWriter(new File(outputPath));
-						}
-						if (!isRowGroupHasData) {
-							// start a new rowGroupMetadata
-							isRowGroupHasData = true;
-							fileIOWriter.startRowGroup(deltaObjectId);
-							startPos = fileIOWriter.getPos();
+					List<String> pathStrings = mManager.getLeafNodePathInNextLevel(deltaObjectId);
+					for (String string : pathStrings) {
+						pathList.add(new Path(string));
+					}
+				} catch (PathErrorException e) {
+					LOGGER.error("Can't get all the paths from MManager, the deltaObjectId is {}", deltaObjectId);
+					throw new FileNodeProcessorException(e);
+				}
+				if (pathList.isEmpty()) {
+					continue;
+				}
+				// the copied series which have more than one chunk
+				List<MergedSeries> remainingSeries = new ArrayList<>();
+				Iterator<Path> paths = pathList.iterator();
+				while (paths.hasNext() || !pendingSeries.isEmpty()) {
+					if (paths.hasNext() && pendingSeries.size() < maxPendingSeries) {
+						pendingSeries.add(submitMergeSeries(backupIntervalFile, metadataQuerier, deltaObjectId,
+								paths.next()));
+						continue;
+					}
+					MergedSeries mergedSeries = getMergedSeries(pendingSeries.removeFirst());
+					if (mergedSeries == null) {
+						continue;
+					}
+					if (fileIOWriter == null) {
+						baseDir = directories.getNextFolderForTsfile();
+						fileName = String.valueOf(mergedSeries.startTime + FileNodeConstants.BUFFERWRITE_FILE_SEPARATOR
+								+ System.currentTimeMillis());
+						outputPath = constructOutputFilePath(baseDir, getProcessorName(), fileName);
+						fileName = getProcessorName() + File.separatorChar + fileName;
+						fileIOWriter = new TsFileIOWriter(new File(outputPath));
+					}
+					if (!isRowGroupHasData) {
+						// start a new rowGroupMetadata
+						isRowGroupHasData = true;
+						fileIOWriter.startRowGroup(deltaObjectId);
+						startPos = fileIOWriter.getPos();
+					}
+					long pos = fileIOWriter.getPos();
+					if (mergedSeries.isCopied()) {
+						// a row group has at most one chunk of a series, the other chunks are copied into the
+						// following row groups
+						recordCount += mergedSeries.writeNextChunk(fileIOWriter);
+						if (mergedSeries.hasNextChunk()) {
+							remainingSeries.add(mergedSeries);
 						}
-						// init the serieswWriteImpl
-						MeasurementDescriptor desc = fileSchema.getMeasurementDescriptor(measurementId);
-						IPageWriter pageWriter = new PageWriterImpl(desc);
-						int pageSizeThreshold = TsFileConf.pageSizeInByte;
-						SeriesWriterImpl seriesWriterImpl = new SeriesWriterImpl(deltaObjectId, desc, pageWriter,
-								pageSizeThreshold);
-						// write the series data
-						recordCount += writeOneSeries(deltaObjectId, measurementId, seriesWriterImpl, dataType,
-								seriesReader, startTimeMap, endTimeMap, timeValuePair);
+					} else {
+						recordCount += mergedSeries.recordCount;
 						// flush the series data
-						seriesWriterImpl.writeToFileWriter(fileIOWriter);
+						mergedSeries.seriesWriter.writeToFileWriter(fileIOWriter);
 					}
-				} finally {
-					seriesReader.close();
+					mergeManager.acquireWrite(fileIOWriter.getPos() - pos);
+					mergeManager.finishSeries(mergedSeries.isCopied());
+					updateTimeMaps(deltaObjectId, mergedSeries.startTime, mergedSeries.endTime, startTimeMap,
+							endTimeMap);
+				}
+				if (isRowGroupHasData) {
+					// end the new rowGroupMetadata
+					long memSize = fileIOWriter.getPos() - startPos;
+					fileIOWriter.endRowGroup(memSize, recordCount);
+				}
+				while (!remainingSeries.isEmpty()) {
+					fileIOWriter.startRowGroup(deltaObjectId);
+					startPos = fileIOWriter.getPos();
+					recordCount = 0;
+					Iterator<MergedSeries> iterator = remainingSeries.iterator();
+					while (iterator.hasNext()) {
+						MergedSeries mergedSeries = iterator.next();
+						recordCount += mergedSeries.writeNextChunk(fileIOWriter);
+						if (!mergedSeries.hasNextChunk()) {
+							iterator.remove();
+						}
+					}
+					long memSize = fileIOWriter.getPos() - startPos;
+					mergeManager.acquireWrite(memSize);
+					fileIOWriter.endRowGroup(memSize, recordCount);
 				}
 			}
-			if (isRowGroupHasData) {
-				// end the new rowGroupMetadata
-				long memSize = fileIOWriter.getPos() - startPos;
-				fileIOWriter.endRowGroup(memSize, recordCount);
+		} finally {
+			for (Future<MergedSeries> task : pendingSeries) {
+				task.cancel(false);
 			}
 		}
 		if (fileIOWriter != null) {
@@ -1483,6 +1871,249 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 		return fileName;
 	}
 
+	/**
+	 * Query the overflow data and the chunks of one series in this thread, then read, merge and encode the series on
+	 * the series pool.
+	 */
+	private Future<MergedSeries> submitMergeSeries(IntervalFileNode backupIntervalFile,
+			SimpleMetadataQuerierForMerge metadataQuerier, String deltaObjectId, Path path)
+			throws IOException, PathErrorException {
+		// query one measurenment in the special deltaObjectId
+		String measurementId = path.getMeasurementToString();
+		TSDataType dataType = mManager.getSeriesType(path.getFullPath());
+		OverflowSeriesDataSource overflowSeriesDataSource = overflowProcessor.queryMerge(deltaObjectId, measurementId,
+				dataType, true);
+		long startTime = backupIntervalFile.getStartTime(deltaObjectId);
+		long endTime = backupIntervalFile.getEndTime(deltaObjectId);
+		List<TimeSeriesChunkMetaData> fileChunks = new ArrayList<>();
+		List<TimeSeriesChunkMetaData> unchangedChunks = null;
+		if (metadataQuerier != null) {
+			fileChunks = metadataQuerier.getSeriesChunkMetaDataList(path);
+			unchangedChunks = getUnchangedSeriesChunks(fileChunks, dataType, startTime, endTime,
+					overflowSeriesDataSource);
+		}
+		long readBytes = 0;
+		for (TimeSeriesChunkMetaData chunk : fileChunks) {
+			readBytes += chunk.getTotalByteSize();
+		}
+		if (unchangedChunks == null) {
+			for (OverflowInsertFile overflowInsertFile : overflowSeriesDataSource.getOverflowInsertFileList()) {
+				for (TimeSeriesChunkMetaData chunk : overflowInsertFile.getTimeSeriesChunkMetaDatas()) {
+					readBytes += chunk.getTotalByteSize();
+				}
+			}
+		}
+		long seriesReadBytes = readBytes;
+		List<TimeSeriesChunkMetaData> copiedChunks = unchangedChunks;
+		// the metadata of the file is only read by this thread, the series pool keeps none of it
+		List<EncodedSeriesChunkDescriptor> fileChunkDescriptors = unchangedChunks == null && metadataQuerier != null
+				? metadataQuerier.getSeriesChunkDescriptorList(path) : new ArrayList<>();
+		return MergeManager.getInstance().submitSeriesTask(() -> {
+			MergeManager.getInstance().acquireRead(seriesReadBytes);
+			if (copiedChunks != null) {
+				return copiedChunks.isEmpty() ? null
+						: new MergedSeries(copiedChunks, readSeriesChunks(backupIntervalFile, copiedChunks));
+			}
+			Filter<Long> timeFilter = FilterFactory.and(TimeFilter.gtEq(startTime), TimeFilter.ltEq(endTime));
+			return mergeOneSeries(backupIntervalFile, fileChunkDescriptors, deltaObjectId, path, dataType,
+					overflowSeriesDataSource, new SeriesFilter<>(path, timeFilter));
+		});
+	}
+
+	private MergedSeries mergeOneSeries(IntervalFileNode backupIntervalFile,
+			List<EncodedSeriesChunkDescriptor> fileChunkDescriptors, String deltaObjectId, Path path, TSDataType dataType,
+			OverflowSeriesDataSource overflowSeriesDataSource, SeriesFilter<Long> seriesFilter) throws IOException {
+		String measurementId = path.getMeasurementToString();
+		SeriesReader seriesReader = SeriesReaderFactory.getInstance().createSeriesReaderForMerge(backupIntervalFile,
+				fileChunkDescriptors, overflowSeriesDataSource, seriesFilter);
+		try {
+			if (!seriesReader.hasNext()) {
+				LOGGER.debug("The time-series {} has no data with the filter {} in the filenode processor {}", path,
+						seriesFilter, getProcessorName());
+				return null;
+			}
+			TimeValuePair timeValuePair = seriesReader.next();
+			// init the serieswWriteImpl
+			MeasurementDescriptor desc = fileSchema.getMeasurementDescriptor(measurementId);
+			IPageWriter pageWriter = new PageWriterImpl(desc);
+			int pageSizeThreshold = TsFileConf.pageSizeInByte;
+			SeriesWriterImpl seriesWriterImpl = new SeriesWriterImpl(deltaObjectId, desc, pageWriter,
+					pageSizeThreshold);
+			// write the series data
+			Map<String, Long> startTimeMap = new HashMap<>();
+			Map<String, Long> endTimeMap = new HashMap<>();
+			int recordCount = writeOneSeries(deltaObjectId, measurementId, seriesWriterImpl, dataType, seriesReader,
+					startTimeMap, endTimeMap, timeValuePair);
+			return new MergedSeries(seriesWriterImpl, recordCount, startTimeMap.get(deltaObjectId),
+					endTimeMap.get(deltaObjectId));
+		} finally {
+			seriesReader.close();
+		}
+	}
+
+	private MergedSeries getMergedSeries(Future<MergedSeries> task) throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Get the chunks of a series which can be copied into the merged file as they are. It is the case if no overflow
+	 * data is inserted into the time range of the file, no update or delete overlaps any chunk, and every chunk is in
+	 * the time range and has the current data type of the series.
+	 *
+	 * @return the chunks in the old file, or null if the series has to be decoded and merged with overflow
+	 */
+	private List<TimeSeriesChunkMetaData> getUnchangedSeriesChunks(List<TimeSeriesChunkMetaData> chunks,
+			TSDataType dataType, long startTime, long endTime, OverflowSeriesDataSource overflowSeriesDataSource)
+			throws IOException {
+		if (overflowSeriesDataSource.hasRawSeriesChunk()) {
+			RawSeriesChunk rawSeriesChunk = overflowSeriesDataSource.getRawSeriesChunk();
+			if (rawSeriesChunk.getMinTimestamp() <= endTime && rawSeriesChunk.getMaxTimestamp() >= startTime) {
+				return null;
+			}
+		}
+		for (OverflowInsertFile overflowInsertFile : overflowSeriesDataSource.getOverflowInsertFileList()) {
+			for (TimeSeriesChunkMetaData chunk : overflowInsertFile.getTimeSeriesChunkMetaDatas()) {
+				TInTimeSeriesChunkMetaData timeRange = chunk.getTInTimeSeriesChunkMetaData();
+				if (timeRange.getStartTime() <= endTime && timeRange.getEndTime() >= startTime) {
+					return null;
+				}
+			}
+		}
+		for (TimeSeriesChunkMetaData chunk : chunks) {
+			TInTimeSeriesChunkMetaData timeRange = chunk.getTInTimeSeriesChunkMetaData();
+			if (timeRange.getStartTime() < startTime || timeRange.getEndTime() > endTime
+					|| chunk.getVInTimeSeriesChunkMetaData().getDataType() != dataType) {
+				return null;
+			}
+		}
+		if (overflowSeriesDataSource.getUpdateDeleteInfoOfOneSeries() != null && !chunks.isEmpty()) {
+			OverflowOperationReader operationReader = overflowSeriesDataSource.getUpdateDeleteInfoOfOneSeries()
+					.getOverflowUpdateOperationReaderNewInstance();
+			try {
+				while (operationReader.hasNext()) {
+					OverflowOperation operation = operationReader.next();
+					for (TimeSeriesChunkMetaData chunk : chunks) {
+						TInTimeSeriesChunkMetaData timeRange = chunk.getTInTimeSeriesChunkMetaData();
+						if (operation.getLeftBound() <= timeRange.getEndTime()
+								&& operation.getRightBound() >= timeRange.getStartTime()) {
+							return null;
+						}
+					}
+				}
+			} finally {
+				operationReader.close();
+			}
+		}
+		return chunks;
+	}
+
+	/**
+	 * Read the encoded bytes of chunks from the old file.
+	 */
+	private List<byte[]> readSeriesChunks(IntervalFileNode backupIntervalFile, List<TimeSeriesChunkMetaData> chunks)
+			throws IOException {
+		List<byte[]> chunkBytes = new ArrayList<>(chunks.size());
+		ITsRandomAccessFileReader chunkReader = new TsRandomAccessLocalFileReader(backupIntervalFile.getFilePath());
+		try {
+			for (TimeSeriesChunkMetaData chunk : chunks) {
+				chunkBytes.add(readSeriesChunk(chunkReader, chunk));
+			}
+		} finally {
+			chunkReader.close();
+		}
+		return chunkBytes;
+	}
+
+	private byte[] readSeriesChunk(ITsRandomAccessFileReader chunkReader, TimeSeriesChunkMetaData chunk)
+			throws IOException {
+		int chunkLength = (int) chunk.getTotalByteSize();
+		byte[] bytes = new byte[chunkLength];
+		chunkReader.seek(chunk.getProperties().getFileOffset());
+		int readLength = chunkReader.read(bytes, 0, chunkLength);
+		if (readLength != chunkLength) {
+			throw new IOException(
+					String.format("The length of chunk %s read from file is not right. Expected: %d, actual: %d",
+							chunk.getProperties().getMeasurementUID(), chunkLength, readLength));
+		}
+		return bytes;
+	}
+
+	private void updateTimeMaps(String deltaObjectId, long startTime, long endTime, Map<String, Long> startTimeMap,
+			Map<String, Long> endTimeMap) {
+		if (!startTimeMap.containsKey(deltaObjectId) || startTimeMap.get(deltaObjectId) > startTime) {
+			startTimeMap.put(deltaObjectId, startTime);
+		}
+		if (!endTimeMap.containsKey(deltaObjectId) || endTimeMap.get(deltaObjectId) < endTime) {
+			endTimeMap.put(deltaObjectId, endTime);
+		}
+	}
+
+	/**
+	 * One series of a delta object ready to be appended to the merged file: either the chunks copied from the old
+	 * file, or the pages encoded by a series writer.
+	 */
+	private static class MergedSeries {
+		private final long startTime;
+		private final long endTime;
+
+		private SeriesWriterImpl seriesWriter;
+		private int recordCount;
+
+		private List<TimeSeriesChunkMetaData> chunks;
+		private List<byte[]> chunkBytes;
+		private int nextChunk;
+
+		private MergedSeries(SeriesWriterImpl seriesWriter, int recordCount, long startTime, long endTime) {
+			this.seriesWriter = seriesWriter;
+			this.recordCount = recordCount;
+			this.startTime = startTime;
+			this.endTime = endTime;
+		}
+
+		private MergedSeries(List<TimeSeriesChunkMetaData> chunks, List<byte[]> chunkBytes) {
+			this.chunks = chunks;
+			this.chunkBytes = chunkBytes;
+			long start = Long.MAX_VALUE;
+			long end = Long.MIN_VALUE;
+			for (TimeSeriesChunkMetaData chunk : chunks) {
+				start = Math.min(start, chunk.getTInTimeSeriesChunkMetaData().getStartTime());
+				end = Math.max(end, chunk.getTInTimeSeriesChunkMetaData().getEndTime());
+			}
+			this.startTime = start;
+			this.endTime = end;
+		}
+
+		private boolean isCopied() {
+			return chunks != null;
+		}
+
+		private boolean hasNextChunk() {
+			return nextChunk < chunks.size();
+		}
+
+		/**
+		 * @return the number of points in the chunk
+		 */
+		private long writeNextChunk(TsFileIOWriter fileIOWriter) throws IOException {
+			TimeSeriesChunkMetaData chunk = chunks.get(nextChunk);
+			fileIOWriter.writeSeriesChunk(chunk, chunkBytes.get(nextChunk));
+			// the bytes can be collected once they are written
+			chunkBytes.set(nextChunk, null);
+			nextChunk++;
+			return chunk.getNumRows();
+		}
+	}
+
 	private int writeOneSeries(String deltaObjectId, String measurement, SeriesWriterImpl seriesWriterImpl,
 			TSDataType dataType, SeriesReader seriesReader, Map<String, Long> startTimeMap,
 			Map<String, Long> endTimeMap, TimeValuePair timeValuePair) throws IOException {
@@ -1673,6 +2304,10 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 
 	@Override
 	public boolean canBeClosed() {
+		if (isCompacting) {
+			LOGGER.info("The filenode {} can't be closed, because it is compacting", getProcessorName());
+			return false;
+		}
 		if (isMerging == FileNodeProcessorStatus.NONE) {
 			if (newMultiPassLock.writeLock().tryLock()) {
 				try {
@@ -1808,6 +2443,10 @@ public class FileNodeProcessor extends Processor implements IStatistic {
 		}
 		closeBufferWrite();
 		closeOverflow();
+		for (IntervalFileNode fileNode : newFileNodes) {
+			TsFileMetaDataCache.getInstance().remove(fileNode.getFilePath());
+			ChunkCacheManager.getInstance().removeFile(fileNode.getFilePath());
+		}
 	}
 
 	@Override
@@ -1,6 +1,7 @@
 package cn.edu.tsinghua.iotdb.engine.filenode;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,7 +12,8 @@ import java.util.Map;
  * close. emptyIntervalFileNode and newFileNodes will changed and stored by
  * overflow flush and overflow close. fileNodeProcessorState will changed and
  * stored by work->merge merge->wait wait->work. numOfMergeFile will changed and
- * stored in work to merge.
+ * stored in work to merge. filesToDelete will changed and stored by compaction,
+ * they are deleted when the filenode processor is restored.
  * 
  * @author liukun
  *
@@ -26,6 +28,8 @@ public class FileNodeProcessorStore implements Serializable {
 	private List<IntervalFileNode> newFileNodes;
 	private int numOfMergeFile;
 	private FileNodeProcessorStatus fileNodeProcessorStatus;
+	// the file written by an unfinished compaction, or the files replaced by a finished one
+	private List<IntervalFileNode> filesToDelete = new ArrayList<>();
 
 	public FileNodeProcessorStore(boolean isOverflowed,Map<String, Long> lastUpdateTimeMap, IntervalFileNode emptyIntervalFileNode,
 			List<IntervalFileNode> newFileNodes, FileNodeProcessorStatus fileNodeProcessorStatus, int numOfMergeFile) {
@@ -84,4 +88,13 @@ public class FileNodeProcessorStore implements Serializable {
 	public void setNumOfMergeFile(int numOfMergeFile) {
 		this.numOfMergeFile = numOfMergeFile;
 	}
+
+	public List<IntervalFileNode> getFilesToDelete() {
+		// null if restored from a file written before compaction existed
+		return filesToDelete == null ? new ArrayList<>() : filesToDelete;
+	}
+
+	public void setFilesToDelete(List<IntervalFileNode> filesToDelete) {
+		this.filesToDelete = filesToDelete;
+	}
 }
@@ -121,4 +121,14 @@ public abstract class BasicMemController implements IService{
     public abstract UsageLevel reportUse(Object user, long usage);
 
     public abstract void reportFree(Object user, long freeSize);
+
+    /**
+     * Block a writer while the memory usage is dangerous, until the flushes free some memory or the timeout elapses.
+     * Controllers which can not observe the frees return at once.
+     *
+     * @return false if the usage is still dangerous after the timeout
+     */
+    public boolean waitForMemory(long timeoutInMs) throws InterruptedException {
+        return true;
+    }
 }
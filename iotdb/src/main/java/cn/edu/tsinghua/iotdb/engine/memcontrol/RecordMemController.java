@@ -6,20 +6,28 @@ import cn.edu.tsinghua.iotdb.utils.MemUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * This class hold global memory usage of MemUsers. This only counts record(tuple) sizes.
+ * This class hold global memory usage of MemUsers. The usage is reported by the users, which count the memory their
+ * memtables grow by.<br>
+ * Every user has its own {@link LongAdder}, so the concurrent writers of different storage groups do not contend on
+ * one counter. The usage is always counted whatever the level is, because the data is already in memory when it is
+ * reported. Writers are expected to slow down through {@link #waitForMemory(long)} instead.
  */
 public class RecordMemController extends BasicMemController{
 
     private static Logger logger = LoggerFactory.getLogger(RecordMemController.class);
 
     // the key is the reference of the memory user, while the value is its memory usage in byte
-    private Map<Object, Long> memMap;
-    private AtomicLong totalMemUsed;
+    private ConcurrentMap<Object, LongAdder> memMap;
+    private LongAdder totalMemUsed;
+    // notified when memory is freed
+    private final Object freeCondition = new Object();
+    // flushes all processors when the writers are blocked
+    private final Policy dangerousPolicy = new ForceFLushAllPolicy();
 
     private static class InstanceHolder {
         private static final RecordMemController INSTANCE = new RecordMemController(TsfileDBDescriptor.getInstance().getConfig());
@@ -27,8 +35,8 @@ public class RecordMemController extends BasicMemController{
 
     private RecordMemController(TsfileDBConfig config) {
         super(config);
-        memMap = new HashMap<>();
-        totalMemUsed = new AtomicLong(0);
+        memMap = new ConcurrentHashMap<>();
+        totalMemUsed = new LongAdder();
     }
 
     public static RecordMemController getInstance() {
@@ -36,12 +44,15 @@ public class RecordMemController extends BasicMemController{
     }
 
     public long getTotalUsage() {
-        return totalMemUsed.get();
+        return totalMemUsed.sum();
     }
 
     public void clear() {
         memMap.clear();
-        totalMemUsed.set(0);
+        totalMemUsed.reset();
+        synchronized (freeCondition) {
+            freeCondition.notifyAll();
+        }
     }
 
     public void close() {
@@ -49,7 +60,10 @@ public class RecordMemController extends BasicMemController{
     }
 
     public UsageLevel getCurrLevel() {
-        long memUsage = totalMemUsed.get();
+        return getLevel(totalMemUsed.sum());
+    }
+
+    private UsageLevel getLevel(long memUsage) {
         if (memUsage < warningThreshold) {
             return UsageLevel.SAFE;
         } else if (memUsage < dangerouseThreshold) {
@@ -60,60 +74,76 @@ public class RecordMemController extends BasicMemController{
     }
 
     public UsageLevel reportUse(Object user, long usage) {
-        Long oldUsage = memMap.get(user);
-        if (oldUsage == null)
-            oldUsage = 0L;
-        long newTotUsage = totalMemUsed.get() + usage;
-        // check if the new usage will reach dangerous threshold
-        if (newTotUsage < dangerouseThreshold) {
-            newTotUsage = totalMemUsed.addAndGet(usage);
-            // double check if updating will reach dangerous threshold
-            if (newTotUsage < warningThreshold) {
-                // still safe, action taken
-                memMap.put(user, oldUsage + usage);
-                logger.debug("Safe Threshold : {} allocated to {}, it is using {}, total usage {}",
-                        MemUtils.bytesCntToStr(usage),
-                        user.getClass(),
-                        MemUtils.bytesCntToStr(oldUsage + usage), MemUtils.bytesCntToStr(newTotUsage));
-                return UsageLevel.SAFE;
-            } else if (newTotUsage < dangerouseThreshold) {
-                // become warning because competition with other threads, still take the action
-                memMap.put(user, oldUsage + usage);
-                logger.debug("Warning Threshold : {} allocated to {}, it is using {}, total usage {}",
-                        MemUtils.bytesCntToStr(usage),
-                        user.getClass(),
-                        MemUtils.bytesCntToStr(oldUsage + usage), MemUtils.bytesCntToStr(newTotUsage));
-                return UsageLevel.WARNING;
-            } else {
-                logger.warn("Memory request from {} is denied, memory usage : {}", user.getClass(), MemUtils.bytesCntToStr(newTotUsage));
-                // become dangerous because competition with other threads, discard this action
-                totalMemUsed.addAndGet(-usage);
-                return UsageLevel.DANGEROUS;
-            }
-        } else {
-            logger.warn("Memory request from {} is denied, memory usage : {}", user.getClass(), MemUtils.bytesCntToStr(newTotUsage));
-            return UsageLevel.DANGEROUS;
+        LongAdder userUsage = memMap.computeIfAbsent(user, k -> new LongAdder());
+        userUsage.add(usage);
+        totalMemUsed.add(usage);
+        long newTotUsage = totalMemUsed.sum();
+        UsageLevel level = getLevel(newTotUsage);
+        switch (level) {
+            case SAFE:
+                logger.debug("Safe Threshold : {} allocated to {}, total usage {}", MemUtils.bytesCntToStr(usage),
+                        user.getClass(), MemUtils.bytesCntToStr(newTotUsage));
+                break;
+            case WARNING:
+                logger.debug("Warning Threshold : {} allocated to {}, total usage {}", MemUtils.bytesCntToStr(usage),
+                        user.getClass(), MemUtils.bytesCntToStr(newTotUsage));
+                break;
+            case DANGEROUS:
+            default:
+                logger.warn("Dangerous Threshold : {} allocated to {}, total usage {}", MemUtils.bytesCntToStr(usage),
+                        user.getClass(), MemUtils.bytesCntToStr(newTotUsage));
+                break;
         }
+        return level;
     }
 
     public void reportFree(Object user, long freeSize) {
-        Long usage = memMap.get(user);
-        if (usage == null)
+        LongAdder userUsage = memMap.get(user);
+        if (userUsage == null) {
             logger.error("Unregistered memory usage from {}", user.getClass());
-        else if (freeSize > usage) {
-            logger.error("Request to free {} bytes while it only registered {} bytes", freeSize, usage);
-            totalMemUsed.addAndGet(-usage);
-            memMap.remove(user);
-        } else {
-            long newTotalMemUsage = totalMemUsed.addAndGet(-freeSize);
-            if(usage - freeSize > 0)
-                memMap.put(user, usage - freeSize);
-            else
-                memMap.remove(user);
-            logger.info("{} freed from {}, it is using {}, total usage {}", MemUtils.bytesCntToStr(freeSize)
-                    ,user.getClass()
-                    , MemUtils.bytesCntToStr(usage - freeSize)
-                    , MemUtils.bytesCntToStr(newTotalMemUsage));
+            return;
+        }
+        // the users free exactly what they reported, so the total stays right even if the counter of the user is
+        // dropped while the user is writing
+        userUsage.add(-freeSize);
+        totalMemUsed.add(-freeSize);
+        long usage = userUsage.sum();
+        if (usage < 0) {
+            logger.error("Request to free {} bytes while it only registered {} bytes", freeSize, usage + freeSize);
+        }
+        if (usage <= 0) {
+            memMap.remove(user, userUsage);
+        }
+        logger.info("{} freed from {}, it is using {}, total usage {}", MemUtils.bytesCntToStr(freeSize)
+                , user.getClass()
+                , MemUtils.bytesCntToStr(Math.max(usage, 0))
+                , MemUtils.bytesCntToStr(totalMemUsed.sum()));
+        synchronized (freeCondition) {
+            freeCondition.notifyAll();
+        }
+    }
+
+    /**
+     * Flush all processors and block until some memory is freed when the usage is dangerous.
+     */
+    @Override
+    public boolean waitForMemory(long timeoutInMs) throws InterruptedException {
+        if (getCurrLevel() != UsageLevel.DANGEROUS) {
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + timeoutInMs;
+        synchronized (freeCondition) {
+            if (getCurrLevel() == UsageLevel.DANGEROUS) {
+                dangerousPolicy.execute();
+            }
+            while (getCurrLevel() == UsageLevel.DANGEROUS) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                freeCondition.wait(remaining);
+            }
         }
+        return true;
     }
 }
@@ -1,6 +1,10 @@
 package cn.edu.tsinghua.iotdb.engine.memtable;
 
+import cn.edu.tsinghua.iotdb.utils.MemUtils;
+import cn.edu.tsinghua.tsfile.common.exception.UnSupportedDataTypeException;
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.DataPoint;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -16,9 +20,11 @@ public abstract class AbstractMemTable implements IMemTable{
     }
 
     private final Map<String, Map<String, IMemSeries>> memTableMap;
+    private long memSize;
 
     public AbstractMemTable() {
         this.memTableMap = new HashMap<>();
+        this.memSize = MemUtils.HASH_MAP_SIZE;
     }
 
     /**
@@ -33,14 +39,19 @@ public abstract class AbstractMemTable implements IMemTable{
     }
 
     private IMemSeries createIfNotExistAndGet(String deltaObject, String measurement, TSDataType dataType) {
-        if(!memTableMap.containsKey(deltaObject)) {
-            memTableMap.put(deltaObject, new HashMap<>());
-        }
         Map<String, IMemSeries> memSeries = memTableMap.get(deltaObject);
-        if(!memSeries.containsKey(measurement)) {
-            memSeries.put(measurement, genMemSeries(dataType));
+        if(memSeries == null) {
+            memSeries = new HashMap<>();
+            memTableMap.put(deltaObject, memSeries);
+            memSize += MemUtils.HASH_MAP_ENTRY_SIZE + MemUtils.HASH_MAP_SIZE;
+        }
+        IMemSeries series = memSeries.get(measurement);
+        if(series == null) {
+            series = genMemSeries(dataType);
+            memSeries.put(measurement, series);
+            memSize += MemUtils.HASH_MAP_ENTRY_SIZE + series.getMemSize();
         }
-        return memSeries.get(measurement);
+        return series;
     }
 
     protected abstract IMemSeries genMemSeries(TSDataType dataType);
@@ -48,7 +59,65 @@ public abstract class AbstractMemTable implements IMemTable{
     @Override
     public void write(String deltaObject, String measurement, TSDataType dataType, long insertTime, String insertValue) {
         IMemSeries memSeries = createIfNotExistAndGet(deltaObject, measurement, dataType);
+        long oldSize = memSeries.getMemSize();
         memSeries.write(insertTime,insertValue);
+        memSize += memSeries.getMemSize() - oldSize;
+    }
+
+    @Override
+    public void write(String deltaObject, long insertTime, DataPoint dataPoint) {
+        IMemSeries memSeries = createIfNotExistAndGet(deltaObject, dataPoint.getMeasurementId(), dataPoint.getType());
+        long oldSize = memSeries.getMemSize();
+        memSeries.write(insertTime, dataPoint);
+        memSize += memSeries.getMemSize() - oldSize;
+    }
+
+    @Override
+    public void write(String deltaObject, String measurement, TSDataType dataType, long[] times, Object column,
+                      int[] rows) {
+        IMemSeries memSeries = createIfNotExistAndGet(deltaObject, measurement, dataType);
+        long oldSize = memSeries.getMemSize();
+        switch (dataType) {
+            case BOOLEAN:
+                boolean[] booleans = (boolean[]) column;
+                for (int row : rows) {
+                    memSeries.putBoolean(times[row], booleans[row]);
+                }
+                break;
+            case INT32:
+                int[] ints = (int[]) column;
+                for (int row : rows) {
+                    memSeries.putInt(times[row], ints[row]);
+                }
+                break;
+            case INT64:
+                long[] longs = (long[]) column;
+                for (int row : rows) {
+                    memSeries.putLong(times[row], longs[row]);
+                }
+                break;
+            case FLOAT:
+                float[] floats = (float[]) column;
+                for (int row : rows) {
+                    memSeries.putFloat(times[row], floats[row]);
+                }
+                break;
+            case DOUBLE:
+                double[] doubles = (double[]) column;
+                for (int row : rows) {
+                    memSeries.putDouble(times[row], doubles[row]);
+                }
+                break;
+            case TEXT:
+                Binary[] binaries = (Binary[]) column;
+                for (int row : rows) {
+                    memSeries.putBinary(times[row], binaries[row]);
+                }
+                break;
+            default:
+                throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+        }
+        memSize += memSeries.getMemSize() - oldSize;
     }
 
     @Override
@@ -65,6 +134,7 @@ public abstract class AbstractMemTable implements IMemTable{
     @Override
     public void clear(){
         memTableMap.clear();
+        memSize = MemUtils.HASH_MAP_SIZE;
     }
 
     @Override
@@ -72,6 +142,11 @@ public abstract class AbstractMemTable implements IMemTable{
         return memTableMap.isEmpty();
     }
 
+    @Override
+    public long getMemSize() {
+        return memSize;
+    }
+
 
     @Override
     public IMemSeries query(String deltaObject, String measurement, TSDataType dataType) {
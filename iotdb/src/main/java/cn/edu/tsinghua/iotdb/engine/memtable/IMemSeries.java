@@ -3,6 +3,7 @@ package cn.edu.tsinghua.iotdb.engine.memtable;
 import cn.edu.tsinghua.tsfile.common.utils.Binary;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.DataPoint;
 
 import java.util.List;
 
@@ -25,7 +26,14 @@ public interface IMemSeries extends TimeValuePairSorter{
 
     void write(long insertTime, String insertValue);
 
+    void write(long insertTime, DataPoint dataPoint);
+
     void reset();
 
     int count();
+
+    /**
+     * @return the heap size of this series in bytes, counted from the allocated capacity
+     */
+    long getMemSize();
 }
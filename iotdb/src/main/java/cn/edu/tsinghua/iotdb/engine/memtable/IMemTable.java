@@ -2,6 +2,7 @@ package cn.edu.tsinghua.iotdb.engine.memtable;
 
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.DataPoint;
 
 import java.util.Map;
 
@@ -18,6 +19,17 @@ public interface IMemTable {
 
     void write(String deltaObject, String measurement, TSDataType dataType, long insertTime, String insertValue);
 
+    /**
+     * write one typed data point without converting its value to a String.
+     */
+    void write(String deltaObject, long insertTime, DataPoint dataPoint);
+
+    /**
+     * write the given rows of a column, which is a boolean[], int[], long[], float[], double[] or Binary[] according to
+     * dataType, without creating a data point for each value.
+     */
+    void write(String deltaObject, String measurement, TSDataType dataType, long[] times, Object column, int[] rows);
+
     int size();
 
     IMemSeries query(String deltaObject, String measurement,TSDataType dataType);
@@ -26,5 +38,11 @@ public interface IMemTable {
 
     boolean isEmpty();
 
+    /**
+     * @return the heap size of all series and the maps holding them in bytes. It is kept up to date by the writes, so
+     * the writer can take the difference before and after a write as the memory it uses.
+     */
+    long getMemSize();
+
 }
 
@@ -1,6 +1,7 @@
 package cn.edu.tsinghua.iotdb.engine.memtable;
 
-import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
+import cn.edu.tsinghua.iotdb.utils.SortedColumn;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -11,14 +12,16 @@ import java.util.List;
  */
 public class MemSeriesLazyMerger implements TimeValuePairSorter{
 
+    private TSDataType dataType;
     private List<IMemSeries> memSeriesList;
 
-    public MemSeriesLazyMerger() {
+    public MemSeriesLazyMerger(TSDataType dataType) {
+        this.dataType = dataType;
         memSeriesList = new ArrayList<>();
     }
 
-    public MemSeriesLazyMerger(IMemSeries... memSerieses) {
-        this();
+    public MemSeriesLazyMerger(TSDataType dataType, IMemSeries... memSerieses) {
+        this(dataType);
         Collections.addAll(memSeriesList, memSerieses);
     }
 
@@ -31,15 +34,15 @@ public class MemSeriesLazyMerger implements TimeValuePairSorter{
         memSeriesList.add(series);
     }
 
-    public List<TimeValuePair> getSortedTimeValuePairList() {
+    @Override
+    public SortedColumn getSortedColumn() {
         if (memSeriesList.size() == 0) {
-            return new ArrayList<>();
-        } else {
-            List<TimeValuePair> ret = memSeriesList.get(0).getSortedTimeValuePairList();
-            for (int i = 1; i < memSeriesList.size(); i++) {
-                ret.addAll(memSeriesList.get(i).getSortedTimeValuePairList());
-            }
-            return ret;
+            return SortedColumn.empty(dataType);
         }
+        List<SortedColumn> sortedColumns = new ArrayList<>(memSeriesList.size());
+        for (IMemSeries memSeries : memSeriesList) {
+            sortedColumns.add(memSeries.getSortedColumn());
+        }
+        return SortedColumn.concat(dataType, sortedColumns);
     }
 }
@@ -1,14 +1,26 @@
 package cn.edu.tsinghua.iotdb.engine.memtable;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import cn.edu.tsinghua.iotdb.concurrent.ThreadName;
+import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
+import cn.edu.tsinghua.iotdb.utils.SortedColumn;
 import cn.edu.tsinghua.tsfile.common.conf.TSFileDescriptor;
+import cn.edu.tsinghua.tsfile.common.utils.Pair;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
-import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
 import cn.edu.tsinghua.tsfile.timeseries.write.desc.MeasurementDescriptor;
 import cn.edu.tsinghua.tsfile.timeseries.write.io.TsFileIOWriter;
 import cn.edu.tsinghua.tsfile.timeseries.write.page.IPageWriter;
@@ -20,70 +32,124 @@ public class MemTableFlushUtil {
 	private static final Logger logger = LoggerFactory.getLogger(MemTableFlushUtil.class);
 	private static final int pageSizeThreshold = TSFileDescriptor.getInstance().getConfig().pageSizeInByte;
 
-	private static int writeOneSeries(List<TimeValuePair> tvPairs, SeriesWriterImpl seriesWriterImpl,
+	private static int writeOneSeries(SortedColumn sortedColumn, SeriesWriterImpl seriesWriterImpl,
 			TSDataType dataType) throws IOException {
-		int count = 0;
+		int count = sortedColumn.size();
 		switch (dataType) {
 		case BOOLEAN:
-			for (TimeValuePair timeValuePair : tvPairs) {
-				count++;
-				seriesWriterImpl.write(timeValuePair.getTimestamp(), timeValuePair.getValue().getBoolean());
+			for (int i = 0; i < count; i++) {
+				seriesWriterImpl.write(sortedColumn.getTimestamp(i), sortedColumn.getBoolean(i));
 			}
 			break;
 		case INT32:
-			for (TimeValuePair timeValuePair : tvPairs) {
-				count++;
-				seriesWriterImpl.write(timeValuePair.getTimestamp(), timeValuePair.getValue().getInt());
+			for (int i = 0; i < count; i++) {
+				seriesWriterImpl.write(sortedColumn.getTimestamp(i), sortedColumn.getInt(i));
 			}
 			break;
 		case INT64:
-			for (TimeValuePair timeValuePair : tvPairs) {
-				count++;
-				seriesWriterImpl.write(timeValuePair.getTimestamp(), timeValuePair.getValue().getLong());
+			for (int i = 0; i < count; i++) {
+				seriesWriterImpl.write(sortedColumn.getTimestamp(i), sortedColumn.getLong(i));
 			}
 			break;
 		case FLOAT:
-			for (TimeValuePair timeValuePair : tvPairs) {
-				count++;
-				seriesWriterImpl.write(timeValuePair.getTimestamp(), timeValuePair.getValue().getFloat());
+			for (int i = 0; i < count; i++) {
+				seriesWriterImpl.write(sortedColumn.getTimestamp(i), sortedColumn.getFloat(i));
 			}
 			break;
 		case DOUBLE:
-			for (TimeValuePair timeValuePair : tvPairs) {
-				count++;
-				seriesWriterImpl.write(timeValuePair.getTimestamp(), timeValuePair.getValue().getDouble());
+			for (int i = 0; i < count; i++) {
+				seriesWriterImpl.write(sortedColumn.getTimestamp(i), sortedColumn.getDouble(i));
 			}
 			break;
 		case TEXT:
-			for (TimeValuePair timeValuePair : tvPairs) {
-				count++;
-				seriesWriterImpl.write(timeValuePair.getTimestamp(), timeValuePair.getValue().getBinary());
+			for (int i = 0; i < count; i++) {
+				seriesWriterImpl.write(sortedColumn.getTimestamp(i), sortedColumn.getBinary(i));
 			}
 			break;
 		default:
 			logger.error("don't support data type: {}", dataType);
-			break;
+			return 0;
 		}
 		return count;
 	}
 
+	/**
+	 * Encode and compress one series into the pages buffered by its series writer.
+	 */
+	private static Pair<SeriesWriterImpl, Integer> encodeOneSeries(String deltaObjectId, IMemSeries series,
+			MeasurementDescriptor desc) throws IOException {
+		IPageWriter pageWriter = new PageWriterImpl(desc);
+		SeriesWriterImpl seriesWriter = new SeriesWriterImpl(deltaObjectId, desc, pageWriter, pageSizeThreshold);
+		int count = writeOneSeries(series.getSortedColumn(), seriesWriter, desc.getType());
+		return new Pair<>(seriesWriter, count);
+	}
+
+	/**
+	 * Flush a memtable into the file. The series are encoded and compressed concurrently on the encoding pool, while
+	 * the calling thread appends the encoded series to the file in the order of the memtable as soon as each is ready,
+	 * so the file layout is the same as a serial flush. At most twice as many series as the pool has threads are
+	 * encoded ahead of the one being written, which bounds the encoded pages held in memory.
+	 */
 	public static void flushMemTable(FileSchema fileSchema, TsFileIOWriter tsFileIOWriter, IMemTable iMemTable)
 			throws IOException {
-		for (String deltaObjectId : iMemTable.getMemTableMap().keySet()) {
-			long startPos = tsFileIOWriter.getPos();
-			long recordCount = 0;
-			tsFileIOWriter.startRowGroup(deltaObjectId);
-			for (String measurementId : iMemTable.getMemTableMap().get(deltaObjectId).keySet()) {
-				IMemSeries series = iMemTable.getMemTableMap().get(deltaObjectId).get(measurementId);
-				MeasurementDescriptor desc = fileSchema.getMeasurementDescriptor(measurementId);
-				IPageWriter pageWriter = new PageWriterImpl(desc);
-				SeriesWriterImpl seriesWriter = new SeriesWriterImpl(deltaObjectId, desc, pageWriter,
-						pageSizeThreshold);
-				recordCount += writeOneSeries(series.getSortedTimeValuePairList(), seriesWriter, desc.getType());
-				seriesWriter.writeToFileWriter(tsFileIOWriter);
+		Map<String, Map<String, IMemSeries>> memTableMap = iMemTable.getMemTableMap();
+		List<Callable<Pair<SeriesWriterImpl, Integer>>> encodeJobs = new ArrayList<>();
+		for (Map.Entry<String, Map<String, IMemSeries>> deltaObjectEntry : memTableMap.entrySet()) {
+			String deltaObjectId = deltaObjectEntry.getKey();
+			for (Map.Entry<String, IMemSeries> seriesEntry : deltaObjectEntry.getValue().entrySet()) {
+				IMemSeries series = seriesEntry.getValue();
+				MeasurementDescriptor desc = fileSchema.getMeasurementDescriptor(seriesEntry.getKey());
+				encodeJobs.add(() -> encodeOneSeries(deltaObjectId, series, desc));
 			}
-			long memSize = tsFileIOWriter.getPos() - startPos;
-			tsFileIOWriter.endRowGroup(memSize, recordCount);
 		}
+		int window = 2 * EncodingPoolHolder.POOL.getParallelism();
+		Deque<Future<Pair<SeriesWriterImpl, Integer>>> encodeTasks = new ArrayDeque<>(window);
+		int nextJob = 0;
+		try {
+			for (Map.Entry<String, Map<String, IMemSeries>> deltaObjectEntry : memTableMap.entrySet()) {
+				long startPos = tsFileIOWriter.getPos();
+				long recordCount = 0;
+				tsFileIOWriter.startRowGroup(deltaObjectEntry.getKey());
+				for (int i = 0; i < deltaObjectEntry.getValue().size(); i++) {
+					while (nextJob < encodeJobs.size() && encodeTasks.size() < window) {
+						encodeTasks.add(EncodingPoolHolder.POOL.submit(encodeJobs.get(nextJob++)));
+					}
+					Pair<SeriesWriterImpl, Integer> encodedSeries = getEncodedSeries(encodeTasks.poll());
+					recordCount += encodedSeries.right;
+					encodedSeries.left.writeToFileWriter(tsFileIOWriter);
+				}
+				long memSize = tsFileIOWriter.getPos() - startPos;
+				tsFileIOWriter.endRowGroup(memSize, recordCount);
+			}
+		} finally {
+			for (Future<Pair<SeriesWriterImpl, Integer>> task : encodeTasks) {
+				task.cancel(false);
+			}
+		}
+	}
+
+	private static Pair<SeriesWriterImpl, Integer> getEncodedSeries(Future<Pair<SeriesWriterImpl, Integer>> task)
+			throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private static class EncodingPoolHolder {
+		private static final ForkJoinPool POOL = new ForkJoinPool(
+				TsfileDBDescriptor.getInstance().getConfig().concurrentEncodeThread, pool -> {
+					ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+					thread.setName(ThreadName.FLUSH_ENCODE.getName() + "-" + thread.getPoolIndex());
+					thread.setDaemon(true);
+					return thread;
+				}, null, false);
 	}
 }
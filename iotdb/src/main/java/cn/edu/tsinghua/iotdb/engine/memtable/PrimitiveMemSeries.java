@@ -1,27 +1,24 @@
 package cn.edu.tsinghua.iotdb.engine.memtable;
 
-import cn.edu.tsinghua.iotdb.utils.PrimitiveArrayList;
-import cn.edu.tsinghua.iotdb.utils.PrimitiveArrayListFactory;
+import cn.edu.tsinghua.iotdb.utils.MemUtils;
+import cn.edu.tsinghua.iotdb.utils.PrimitiveColumn;
+import cn.edu.tsinghua.iotdb.utils.PrimitiveColumnFactory;
+import cn.edu.tsinghua.iotdb.utils.SortedColumn;
 import cn.edu.tsinghua.tsfile.common.exception.UnSupportedDataTypeException;
 import cn.edu.tsinghua.tsfile.common.utils.Binary;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
-import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
-import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.TreeMap;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.DataPoint;
 
 /**
  * Created by zhangjinrui on 2018/1/25.
  */
 public class PrimitiveMemSeries implements IMemSeries {
     private TSDataType dataType;
-    private PrimitiveArrayList list;
+    private PrimitiveColumn list;
 
     public PrimitiveMemSeries(TSDataType dataType) {
         this.dataType = dataType;
-        this.list = PrimitiveArrayListFactory.getByDataType(dataType);
+        this.list = PrimitiveColumnFactory.getByDataType(dataType);
     }
 
     @Override
@@ -50,54 +47,70 @@ public class PrimitiveMemSeries implements IMemSeries {
         }
     }
 
+    @Override
+    public void write(long insertTime, DataPoint dataPoint) {
+        switch (dataType) {
+            case BOOLEAN:
+                putBoolean(insertTime, dataPoint.getBoolean());
+                break;
+            case INT32:
+                putInt(insertTime, dataPoint.getInteger());
+                break;
+            case INT64:
+                putLong(insertTime, dataPoint.getLong());
+                break;
+            case FLOAT:
+                putFloat(insertTime, dataPoint.getFloat());
+                break;
+            case DOUBLE:
+                putDouble(insertTime, dataPoint.getDouble());
+                break;
+            case TEXT:
+                putBinary(insertTime, dataPoint.getBinary());
+                break;
+            default:
+                throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+        }
+    }
+
     @Override
     public void putLong(long t, long v) {
-        list.putTimestamp(t, v);
+        list.putLong(t, v);
     }
 
     @Override
     public void putInt(long t, int v) {
-        list.putTimestamp(t, v);
+        list.putInt(t, v);
     }
 
     @Override
     public void putFloat(long t, float v) {
-        list.putTimestamp(t, v);
+        list.putFloat(t, v);
     }
 
     @Override
     public void putDouble(long t, double v) {
-        list.putTimestamp(t, v);
+        list.putDouble(t, v);
     }
 
     @Override
     public void putBinary(long t, Binary v) {
-        list.putTimestamp(t, v);
+        list.putBinary(t, v);
     }
 
     @Override
     public void putBoolean(long t, boolean v) {
-        list.putTimestamp(t, v);
+        list.putBoolean(t, v);
     }
 
     @Override
-    //TODO: 考虑使用数组进行排序去重
-    public List<TimeValuePair> getSortedTimeValuePairList() {
-        int length = list.size();
-        TreeMap<Long, TsPrimitiveType> treeMap = new TreeMap<>();
-        for (int i = 0; i < length; i++) {
-            treeMap.put(list.getTimestamp(i), TsPrimitiveType.getByType(dataType, list.getValue(i)));
-        }
-        List<TimeValuePair> ret = new ArrayList<>();
-        treeMap.forEach((k, v) -> {
-            ret.add(new TimeValuePairInMemTable(k, v));
-        });
-        return ret;
+    public SortedColumn getSortedColumn() {
+        return list.getSortedColumn();
     }
 
     @Override
     public void reset() {
-        this.list = PrimitiveArrayListFactory.getByDataType(dataType);
+        this.list = PrimitiveColumnFactory.getByDataType(dataType);
     }
 
     @Override
@@ -105,4 +118,9 @@ public class PrimitiveMemSeries implements IMemSeries {
         return list.size();
     }
 
+    @Override
+    public long getMemSize() {
+        return MemUtils.OBJECT_HEADER_SIZE + 2 * MemUtils.REFERENCE_SIZE + list.getMemSize();
+    }
+
 }
@@ -1,7 +1,9 @@
 package cn.edu.tsinghua.iotdb.engine.memtable;
 
+import cn.edu.tsinghua.iotdb.utils.SortedColumn;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -9,8 +11,20 @@ import java.util.List;
  */
 public interface TimeValuePairSorter {
 
+    /**
+     * @return all distinct points in ascending order by timestamp, stored in primitive arrays.
+     */
+    SortedColumn getSortedColumn();
+
     /**
      * @return a List which contains all distinct {@link TimeValuePair}s in ascending order by timestamp.
      */
-    List<TimeValuePair> getSortedTimeValuePairList();
+    default List<TimeValuePair> getSortedTimeValuePairList() {
+        SortedColumn sortedColumn = getSortedColumn();
+        List<TimeValuePair> ret = new ArrayList<>(sortedColumn.size());
+        for (int i = 0; i < sortedColumn.size(); i++) {
+            ret.add(new TimeValuePairInMemTable(sortedColumn.getTimestamp(i), sortedColumn.getValue(i)));
+        }
+        return ret;
+    }
 }
@@ -29,6 +29,7 @@ import cn.edu.tsinghua.iotdb.engine.memcontrol.BasicMemController;
 import cn.edu.tsinghua.iotdb.engine.pool.FlushManager;
 import cn.edu.tsinghua.iotdb.engine.utils.FlushStatus;
 import cn.edu.tsinghua.iotdb.exception.OverflowProcessorException;
+import cn.edu.tsinghua.iotdb.qp.physical.crud.BatchInsertPlan;
 import cn.edu.tsinghua.iotdb.utils.MemUtils;
 import cn.edu.tsinghua.tsfile.common.conf.TSFileConfig;
 import cn.edu.tsinghua.tsfile.common.conf.TSFileDescriptor;
@@ -142,12 +143,38 @@ public class OverflowProcessor extends Processor {
 	 * @throws IOException
 	 */
 	public void insert(TSRecord tsRecord) throws IOException {
+		// write data, the memory used is what the memtable grows by
+		long memUage = workSupport.getSize();
+		workSupport.insert(tsRecord);
+		valueCount++;
 		// memory control
-		long memUage = MemUtils.getRecordSize(tsRecord);
+		memUage = workSupport.getSize() - memUage;
 		BasicMemController.getInstance().reportUse(this, memUage);
+		// check flush
+		memUage = memSize.addAndGet(memUage);
+		if (memUage > memThreshold) {
+			LOGGER.warn("The usage of memory {} in overflow processor {} reaches the threshold {}",
+					MemUtils.bytesCntToStr(memUage), getProcessorName(), MemUtils.bytesCntToStr(memThreshold));
+			flush();
+		}
+	}
+
+	/**
+	 * insert the given rows of a batch. The memory is reported once for the whole batch, and the flush is only
+	 * checked after all rows are inserted, so the rows are in memory even if the flush fails.
+	 * 
+	 * @param plan
+	 * @param rows
+	 * @throws IOException
+	 */
+	public void insert(BatchInsertPlan plan, int[] rows) throws IOException {
 		// write data
-		workSupport.insert(tsRecord);
-		valueCount++;
+		long memUage = workSupport.getSize();
+		workSupport.insert(plan, rows);
+		valueCount += rows.length;
+		// memory control
+		memUage = workSupport.getSize() - memUage;
+		BasicMemController.getInstance().reportUse(this, memUage);
 		// check flush
 		memUage = memSize.addAndGet(memUage);
 		if (memUage > memThreshold) {
@@ -170,14 +197,15 @@ public class OverflowProcessor extends Processor {
 	 */
 	public void update(String deltaObjectId, String measurementId, long startTime, long endTime, TSDataType type,
 			byte[] value) {
+		long memUage = workSupport.getSize();
 		workSupport.update(deltaObjectId, measurementId, startTime, endTime, type, value);
 		valueCount++;
+		reportTreeUse(workSupport.getSize() - memUage);
 	}
 
 	public void update(String deltaObjectId, String measurementId, long startTime, long endTime, TSDataType type,
 			String value) {
-		workSupport.update(deltaObjectId, measurementId, startTime, endTime, type, convertStringToBytes(type, value));
-		valueCount++;
+		update(deltaObjectId, measurementId, startTime, endTime, type, convertStringToBytes(type, value));
 	}
 
 	private byte[] convertStringToBytes(TSDataType type, String o) {
@@ -209,8 +237,21 @@ public class OverflowProcessor extends Processor {
 	 * @param type
 	 */
 	public void delete(String deltaObjectId, String measurementId, long timestamp, TSDataType type) {
+		long memUage = workSupport.getSize();
 		workSupport.delete(deltaObjectId, measurementId, timestamp, type);
 		valueCount++;
+		reportTreeUse(workSupport.getSize() - memUage);
+	}
+
+	/**
+	 * count the memory the overflow trees grow by, it is freed with the memtable when the overflow is flushed. A tree
+	 * shrinking by merging its nodes is not counted until then, and the flush is only checked by the inserts.
+	 */
+	private void reportTreeUse(long memUage) {
+		if (memUage > 0) {
+			BasicMemController.getInstance().reportUse(this, memUage);
+			memSize.addAndGet(memUage);
+		}
 	}
 
 	/**
@@ -285,7 +326,7 @@ public class OverflowProcessor extends Processor {
 	 */
 	private RawSeriesChunk queryOverflowInsertInMemory(String deltaObjectId, String measurementId, TSDataType dataType) {
 
-		MemSeriesLazyMerger memSeriesLazyMerger = new MemSeriesLazyMerger();
+		MemSeriesLazyMerger memSeriesLazyMerger = new MemSeriesLazyMerger(dataType);
 		if (flushStatus.isFlushing()) {
 			memSeriesLazyMerger
 					.addMemSeries(flushSupport.queryOverflowInsertInMemory(deltaObjectId, measurementId, dataType));
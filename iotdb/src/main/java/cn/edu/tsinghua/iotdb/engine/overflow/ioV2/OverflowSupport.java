@@ -6,6 +6,7 @@ import java.util.Map;
 import cn.edu.tsinghua.iotdb.engine.memtable.IMemSeries;
 import cn.edu.tsinghua.iotdb.engine.memtable.IMemTable;
 import cn.edu.tsinghua.iotdb.engine.memtable.PrimitiveMemTable;
+import cn.edu.tsinghua.iotdb.qp.physical.crud.BatchInsertPlan;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.timeseries.filter.definition.SingleSeriesFilterExpression;
 import cn.edu.tsinghua.tsfile.timeseries.read.query.DynamicOneColumnData;
@@ -31,6 +32,11 @@ public class OverflowSupport {
 	 */
 	private IMemTable memTable;
 
+	/**
+	 * the size of the update and delete data, as estimated by the overflow trees
+	 */
+	private long indexTreesSize;
+
 	public OverflowSupport() {
 		indexTrees = new HashMap<>();
 		//memTable = new TreeSetMemTable();
@@ -39,8 +45,19 @@ public class OverflowSupport {
 
 	public void insert(TSRecord tsRecord) {
 		for (DataPoint dataPoint : tsRecord.dataPointList) {
-			memTable.write(tsRecord.deltaObjectId, dataPoint.getMeasurementId(), dataPoint.getType(), tsRecord.time,
-					dataPoint.getValue().toString());
+			memTable.write(tsRecord.deltaObjectId, tsRecord.time, dataPoint);
+		}
+	}
+
+	/**
+	 * insert the given rows of a batch column by column.
+	 */
+	public void insert(BatchInsertPlan plan, int[] rows) {
+		String[] measurements = plan.getMeasurements();
+		TSDataType[] dataTypes = plan.getDataTypes();
+		Object[] columns = plan.getColumns();
+		for (int i = 0; i < measurements.length; i++) {
+			memTable.write(plan.getDeltaObject(), measurements[i], dataTypes[i], plan.getTimes(), columns[i], rows);
 		}
 	}
 
@@ -52,7 +69,10 @@ public class OverflowSupport {
 		if (!indexTrees.get(deltaObjectId).containsKey(measurementId)) {
 			indexTrees.get(deltaObjectId).put(measurementId, new OverflowSeriesImpl(measurementId, dataType));
 		}
-		indexTrees.get(deltaObjectId).get(measurementId).update(startTime, endTime, value);
+		OverflowSeriesImpl series = indexTrees.get(deltaObjectId).get(measurementId);
+		long oldSize = series.getSize();
+		series.update(startTime, endTime, value);
+		indexTreesSize += series.getSize() - oldSize;
 	}
 
 	public void delete(String deltaObjectId, String measurementId, long timestamp, TSDataType dataType) {
@@ -62,7 +82,10 @@ public class OverflowSupport {
 		if (!indexTrees.get(deltaObjectId).containsKey(measurementId)) {
 			indexTrees.get(deltaObjectId).put(measurementId, new OverflowSeriesImpl(measurementId, dataType));
 		}
-		indexTrees.get(deltaObjectId).get(measurementId).delete(timestamp);
+		OverflowSeriesImpl series = indexTrees.get(deltaObjectId).get(measurementId);
+		long oldSize = series.getSize();
+		series.delete(timestamp);
+		indexTreesSize += series.getSize() - oldSize;
 	}
 
 	public IMemSeries queryOverflowInsertInMemory(String deltaObjectId, String measurementId,
@@ -97,14 +120,17 @@ public class OverflowSupport {
 		return memTable;
 	}
 
+	/**
+	 * @return the size of the insert data in the memtable plus the size of the update and delete data. The overflow
+	 *         trees only estimate the time pair and the value of each node.
+	 */
 	public long getSize() {
-		// memtable+overflowTreesMap
-		// TODO: calculate the size of this overflow support
-		return 0;
+		return memTable.getMemSize() + indexTreesSize;
 	}
 
 	public void clear() {
 		indexTrees.clear();
+		indexTreesSize = 0;
 		memTable.clear();
 	}
 }
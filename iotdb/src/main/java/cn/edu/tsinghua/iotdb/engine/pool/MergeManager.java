@@ -1,22 +1,50 @@
 package cn.edu.tsinghua.iotdb.engine.pool;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import cn.edu.tsinghua.iotdb.concurrent.IoTDBThreadPoolFactory;
 import cn.edu.tsinghua.iotdb.concurrent.ThreadName;
 import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
 import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
+import cn.edu.tsinghua.iotdb.monitor.IStatistic;
+import cn.edu.tsinghua.iotdb.monitor.MonitorConstants;
+import cn.edu.tsinghua.iotdb.monitor.MonitorConstants.MergeManagerStatConstants;
+import cn.edu.tsinghua.iotdb.monitor.StatMonitor;
+import cn.edu.tsinghua.iotdb.utils.TokenBucketRateLimiter;
 import cn.edu.tsinghua.tsfile.common.exception.ProcessorException;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.TSRecord;
 
-public class MergeManager {
+/**
+ * The merges of the filenode processors run on the merge pool, one task for a filenode. A merge submits the series of
+ * its files to the series pool shared by all the merges, and the bytes read and written by all of them are limited by
+ * two rate limiters, which can be changed at runtime.
+ */
+public class MergeManager implements IStatistic {
+
+	private static final long BYTES_PER_MB = 1024 * 1024L;
 
 	private ExecutorService pool;
 	private int threadCnt;
 
+	private final TokenBucketRateLimiter readRateLimiter;
+	private final TokenBucketRateLimiter writeRateLimiter;
+
+	private final String statStorageDeltaName = MonitorConstants.statStorageGroupPrefix
+			+ MonitorConstants.MONITOR_PATH_SEPERATOR + MonitorConstants.mergeManagerPath;
+	private final HashMap<String, AtomicLong> statParamsHashMap = MonitorConstants
+			.initValues(MonitorConstants.MERGE_MANAGER_CONST);
+
 	private static class InstanceHolder {
 		private static MergeManager instance = new MergeManager();
 	}
@@ -25,6 +53,12 @@ public class MergeManager {
 		TsfileDBConfig config = TsfileDBDescriptor.getInstance().getConfig();
 		this.threadCnt = config.mergeConcurrentThreads;
 		pool = IoTDBThreadPoolFactory.newFixedThreadPool(threadCnt, ThreadName.MERGE_SERVICE.getName());
+		readRateLimiter = new TokenBucketRateLimiter(config.mergeReadThroughputInMB * BYTES_PER_MB);
+		writeRateLimiter = new TokenBucketRateLimiter(config.mergeWriteThroughputInMB * BYTES_PER_MB);
+		if (config.enableStatMonitor) {
+			registStatMetadata();
+			StatMonitor.getInstance().registStatistics(statStorageDeltaName, this);
+		}
 	}
 
 	static public MergeManager getInstance() {
@@ -105,4 +139,119 @@ public class MergeManager {
 	public int getThreadCnt() {
 		return threadCnt;
 	}
+
+	/**
+	 * Submit a task processing one series of a merge. The tasks of all the merges share one pool.
+	 */
+	public <T> Future<T> submitSeriesTask(Callable<T> task) {
+		return SeriesPoolHolder.POOL.submit(task);
+	}
+
+	/**
+	 * Wait until the merges may read the bytes.
+	 */
+	public void acquireRead(long bytes) {
+		readRateLimiter.acquire(bytes);
+		statParamsHashMap.get(MergeManagerStatConstants.TOTAL_READ_BYTES.name()).addAndGet(bytes);
+	}
+
+	/**
+	 * Record the bytes written by a merge, and wait until the merges may write again.
+	 */
+	public void acquireWrite(long bytes) {
+		writeRateLimiter.acquire(bytes);
+		statParamsHashMap.get(MergeManagerStatConstants.TOTAL_WRITE_BYTES.name()).addAndGet(bytes);
+	}
+
+	public int getReadThroughputInMB() {
+		return TsfileDBDescriptor.getInstance().getConfig().mergeReadThroughputInMB;
+	}
+
+	public void setReadThroughputInMB(int readThroughputInMB) {
+		TsfileDBDescriptor.getInstance().getConfig().mergeReadThroughputInMB = readThroughputInMB;
+		readRateLimiter.setRate(readThroughputInMB * BYTES_PER_MB);
+	}
+
+	public int getWriteThroughputInMB() {
+		return TsfileDBDescriptor.getInstance().getConfig().mergeWriteThroughputInMB;
+	}
+
+	public void setWriteThroughputInMB(int writeThroughputInMB) {
+		TsfileDBDescriptor.getInstance().getConfig().mergeWriteThroughputInMB = writeThroughputInMB;
+		writeRateLimiter.setRate(writeThroughputInMB * BYTES_PER_MB);
+	}
+
+	public void addPendingFiles(int fileNum) {
+		statParamsHashMap.get(MergeManagerStatConstants.PENDING_FILES.name()).addAndGet(fileNum);
+	}
+
+	public void finishFile() {
+		statParamsHashMap.get(MergeManagerStatConstants.PENDING_FILES.name()).decrementAndGet();
+		statParamsHashMap.get(MergeManagerStatConstants.TOTAL_MERGED_FILES.name()).incrementAndGet();
+	}
+
+	/**
+	 * @param fileNum
+	 *            how many tsfiles are compacted into one
+	 */
+	public void finishCompaction(int fileNum) {
+		statParamsHashMap.get(MergeManagerStatConstants.TOTAL_COMPACTIONS.name()).incrementAndGet();
+		statParamsHashMap.get(MergeManagerStatConstants.TOTAL_COMPACTED_FILES.name()).addAndGet(fileNum);
+	}
+
+	/**
+	 * @param copied
+	 *            whether the chunks of the series are copied without decoding
+	 */
+	public void finishSeries(boolean copied) {
+		statParamsHashMap.get(MergeManagerStatConstants.TOTAL_MERGED_SERIES.name()).incrementAndGet();
+		if (copied) {
+			statParamsHashMap.get(MergeManagerStatConstants.TOTAL_COPIED_SERIES.name()).incrementAndGet();
+		}
+	}
+
+	public long getStatValue(MergeManagerStatConstants statConstant) {
+		return statParamsHashMap.get(statConstant.name()).get();
+	}
+
+	@Override
+	public HashMap<String, AtomicLong> getStatParamsHashMap() {
+		return statParamsHashMap;
+	}
+
+	@Override
+	public List<String> getAllPathForStatistic() {
+		List<String> list = new ArrayList<>();
+		for (MergeManagerStatConstants statConstant : MergeManagerStatConstants.values()) {
+			list.add(statStorageDeltaName + MonitorConstants.MONITOR_PATH_SEPERATOR + statConstant.name());
+		}
+		return list;
+	}
+
+	@Override
+	public HashMap<String, TSRecord> getAllStatisticsValue() {
+		HashMap<String, TSRecord> hashMap = new HashMap<>();
+		hashMap.put(statStorageDeltaName,
+				StatMonitor.convertToTSRecord(statParamsHashMap, statStorageDeltaName, System.currentTimeMillis()));
+		return hashMap;
+	}
+
+	@Override
+	public void registStatMetadata() {
+		HashMap<String, String> hashMap = new HashMap<>();
+		for (String path : getAllPathForStatistic()) {
+			hashMap.put(path, MonitorConstants.DataType);
+		}
+		StatMonitor.getInstance().registStatStorageGroup(hashMap);
+	}
+
+	private static class SeriesPoolHolder {
+		private static final ForkJoinPool POOL = new ForkJoinPool(
+				TsfileDBDescriptor.getInstance().getConfig().mergeConcurrentSeriesThreads, pool -> {
+					ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+					thread.setName(ThreadName.MERGE_SERIES.getName() + "-" + thread.getPoolIndex());
+					thread.setDaemon(true);
+					return thread;
+				}, null, false);
+	}
 }
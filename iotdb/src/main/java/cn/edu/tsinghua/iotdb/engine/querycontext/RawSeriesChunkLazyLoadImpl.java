@@ -1,12 +1,14 @@
 package cn.edu.tsinghua.iotdb.engine.querycontext;
 
+import cn.edu.tsinghua.iotdb.engine.memtable.TimeValuePairInMemTable;
 import cn.edu.tsinghua.iotdb.engine.memtable.TimeValuePairSorter;
+import cn.edu.tsinghua.iotdb.utils.SortedColumn;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType;
 
 import java.util.Iterator;
-import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * Created by zhangjinrui on 2018/1/26.
@@ -18,7 +20,7 @@ public class RawSeriesChunkLazyLoadImpl implements RawSeriesChunk {
 
     private TSDataType dataType;
     private TimeValuePairSorter memSeries;
-    private List<TimeValuePair> sortedTimeValuePairList;
+    private SortedColumn sortedColumn;
 
     public RawSeriesChunkLazyLoadImpl(TSDataType dataType, TimeValuePairSorter memSeries) {
         this.dataType = dataType;
@@ -33,7 +35,7 @@ public class RawSeriesChunkLazyLoadImpl implements RawSeriesChunk {
     }
 
     private void init() {
-        sortedTimeValuePairList = memSeries.getSortedTimeValuePairList();
+        sortedColumn = memSeries.getSortedColumn();
         initialized = true;
     }
 
@@ -46,7 +48,7 @@ public class RawSeriesChunkLazyLoadImpl implements RawSeriesChunk {
     public long getMaxTimestamp() {
         checkInitialized();
         if (!isEmpty()) {
-            return sortedTimeValuePairList.get(sortedTimeValuePairList.size() - 1).getTimestamp();
+            return sortedColumn.getTimestamp(sortedColumn.size() - 1);
         } else {
             return -1;
         }
@@ -56,7 +58,7 @@ public class RawSeriesChunkLazyLoadImpl implements RawSeriesChunk {
     public long getMinTimestamp() {
         checkInitialized();
         if (!isEmpty()) {
-            return sortedTimeValuePairList.get(0).getTimestamp();
+            return sortedColumn.getTimestamp(0);
         } else {
             return -1;
         }
@@ -66,7 +68,7 @@ public class RawSeriesChunkLazyLoadImpl implements RawSeriesChunk {
     public TsPrimitiveType getValueAtMaxTime() {
         checkInitialized();
         if (!isEmpty()) {
-            return sortedTimeValuePairList.get(sortedTimeValuePairList.size() - 1).getValue();
+            return sortedColumn.getValue(sortedColumn.size() - 1);
         } else {
             return null;
         }
@@ -76,7 +78,7 @@ public class RawSeriesChunkLazyLoadImpl implements RawSeriesChunk {
     public TsPrimitiveType getValueAtMinTime() {
         checkInitialized();
         if (!isEmpty()) {
-            return sortedTimeValuePairList.get(0).getValue();
+            return sortedColumn.getValue(0);
         } else {
             return null;
         }
@@ -85,12 +87,30 @@ public class RawSeriesChunkLazyLoadImpl implements RawSeriesChunk {
     @Override
     public Iterator<TimeValuePair> getIterator() {
         checkInitialized();
-        return sortedTimeValuePairList.iterator();
+        return new Iterator<TimeValuePair>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < sortedColumn.size();
+            }
+
+            @Override
+            public TimeValuePair next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                TimeValuePair timeValuePair = new TimeValuePairInMemTable(sortedColumn.getTimestamp(index),
+                        sortedColumn.getValue(index));
+                index++;
+                return timeValuePair;
+            }
+        };
     }
 
     @Override
     public boolean isEmpty() {
         checkInitialized();
-        return sortedTimeValuePairList.size() == 0;
+        return sortedColumn.isEmpty();
     }
 }
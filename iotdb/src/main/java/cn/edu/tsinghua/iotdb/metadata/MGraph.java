@@ -5,6 +5,7 @@ import java.util.*;
 
 import cn.edu.tsinghua.iotdb.exception.MetadataArgsErrorException;
 import cn.edu.tsinghua.iotdb.exception.PathErrorException;
+import cn.edu.tsinghua.iotdb.index.IndexManager.IndexType;
 
 /**
  * Metadata Graph consists of one {@code MTree} and several {@code PTree}
@@ -24,6 +25,19 @@ public class MGraph implements Serializable {
 		pTreeMap = new HashMap<>();
 	}
 
+	MGraph(MTree mTree, HashMap<String, PTree> pTreeMap) {
+		this.mTree = mTree;
+		this.pTreeMap = pTreeMap;
+	}
+
+	MTree getMTree() {
+		return mTree;
+	}
+
+	HashMap<String, PTree> getPTreeMap() {
+		return pTreeMap;
+	}
+
 	/**
 	 * Add a {@code PTree} to current {@code MGraph}
 	 * @throws MetadataArgsErrorException
@@ -305,6 +319,14 @@ public class MGraph implements Serializable {
 		return mTree.getSchemaForOnePathWithCheck(path);
 	}
 
+	public void addIndex(String path, IndexType indexType) throws PathErrorException {
+		mTree.addIndex(path, indexType);
+	}
+
+	public void deleteIndex(String path, IndexType indexType) throws PathErrorException {
+		mTree.deleteIndex(path, indexType);
+	}
+
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("===  Timeseries Tree  ===\n\n");
@@ -4,12 +4,15 @@ import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
 import cn.edu.tsinghua.iotdb.exception.MetadataArgsErrorException;
 import cn.edu.tsinghua.iotdb.exception.PathErrorException;
 import cn.edu.tsinghua.iotdb.index.IndexManager.IndexType;
-import cn.edu.tsinghua.iotdb.utils.RandomDeleteCache;
+import cn.edu.tsinghua.iotdb.utils.ConcurrentLRUCache;
 import cn.edu.tsinghua.tsfile.common.exception.cache.CacheException;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -18,6 +21,11 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * and persistent it into files. This class contains all the interfaces to
  * modify the metadata for delta system. All the operations will be write into
  * the logs temporary in case the downtime of the delta system.
+ * <p>
+ * The lookups of a single path, which are used by every insertion, take no
+ * lock: the children of a {@code MNode} are published atomically, so readers
+ * always see a consistent tree. Modifications and the queries over many paths
+ * are still serialized by the read/write lock.
  *
  * @author Jinrui Zhang
  */
@@ -30,13 +38,20 @@ public class MManager {
     private String datafilePath;
     // the log file path
     private String logFilePath;
-    private MGraph mGraph;
+    // the file storing the binary snapshot of metadata
+    private String snapshotFilePath;
+    // the id of the last checkpoint, which wrote the snapshot and started the log
+    private long checkpointId = 0;
+    // the number of operations in the log since the last checkpoint
+    private int logLineNum = 0;
+    private int checkpointThreshold;
+    private volatile MGraph mGraph;
     private BufferedWriter logWriter;
     private boolean writeToLog;
     private String metadataDirPath;
 
-    private RandomDeleteCache<String, PathCheckRet> checkAndGetDataTypeCache;
-    private RandomDeleteCache<String, MNode> mNodeCache;
+    private ConcurrentLRUCache<String, PathCheckRet> checkAndGetDataTypeCache;
+    private ConcurrentLRUCache<String, MNode> mNodeCache;
 
     private static class MManagerHolder {
         private static final MManager INSTANCE = new MManager();
@@ -58,25 +73,19 @@ public class MManager {
         }
         datafilePath = metadataDirPath + MetadataConstant.METADATA_OBJ;
         logFilePath = metadataDirPath + MetadataConstant.METADATA_LOG;
+        snapshotFilePath = metadataDirPath + MetadataConstant.METADATA_SNAPSHOT;
+        checkpointThreshold = TsfileDBDescriptor.getInstance().getConfig().metadataCheckpointThreshold;
         writeToLog = false;
 
         int cacheSize = TsfileDBDescriptor.getInstance().getConfig().mManagerCacheSize;
-        checkAndGetDataTypeCache = new RandomDeleteCache<String, PathCheckRet>(cacheSize) {
-            @Override
-            public void beforeRemove(PathCheckRet object) throws CacheException {
-
-            }
-
+        checkAndGetDataTypeCache = new ConcurrentLRUCache<String, PathCheckRet>(cacheSize) {
             @Override
             public PathCheckRet loadObjectByKey(String key) throws CacheException {
                 return loadPathToCache(key);
             }
         };
 
-        mNodeCache = new RandomDeleteCache<String, MNode>(cacheSize) {
-            @Override
-            public void beforeRemove(MNode object) throws CacheException {}
-
+        mNodeCache = new ConcurrentLRUCache<String, MNode>(cacheSize) {
             @Override
             public MNode loadObjectByKey(String key) throws CacheException {
                 try {
@@ -94,30 +103,48 @@ public class MManager {
 
         lock.writeLock().lock();
         File dataFile = new File(datafilePath);
+        File snapshotFile = new File(snapshotFilePath);
         File logFile = new File(logFilePath);
         try {
             try {
-                if (dataFile.exists()) {
-                    // init the metadata from the serialized file
-                    FileInputStream fis = new FileInputStream(dataFile);
-                    ObjectInputStream ois = new ObjectInputStream(fis);
-                    mGraph = (MGraph) ois.readObject();
-                    ois.close();
-                    fis.close();
-                    dataFile.delete();
+                boolean replayLog = true;
+                long logCheckpointId = readLogCheckpointId(logFile);
+                if (snapshotFile.exists()) {
+                    // init the metadata from the binary snapshot and the log written after it
+                    MetadataSnapshot snapshot = MetadataSnapshot.read(snapshotFile);
+                    mGraph = snapshot.getMGraph();
+                    checkpointId = snapshot.getCheckpointId();
+                    if (logCheckpointId > checkpointId) {
+                        throw new IOException(String.format(
+                                "The metadata log %s starts from checkpoint %d, but the snapshot %s is of checkpoint %d",
+                                logFilePath, logCheckpointId, snapshotFilePath, checkpointId));
+                    }
+                    // the snapshot is replaced before the log, so a log of an older checkpoint is covered by it
+                    replayLog = checkpointId == logCheckpointId;
+                } else if (logCheckpointId != 0) {
+                    throw new IOException(String.format(
+                            "The metadata log %s starts from checkpoint %d, but the snapshot %s is missing",
+                            logFilePath, logCheckpointId, snapshotFilePath));
                 } else {
-                    // init the metadata from the operation log
                     mGraph = new MGraph(ROOT_NAME);
-                    if (logFile.exists()) {
-                        FileReader fr;
-                        fr = new FileReader(logFile);
-                        BufferedReader br = new BufferedReader(fr);
-                        String cmd;
-                        while ((cmd = br.readLine()) != null) {
-                            operation(cmd);
+                }
+                // the serialized file of old versions can't be read, but it
+                // was always written along with the whole operation log
+                dataFile.delete();
+                // init the metadata from the operation log
+                if (replayLog && logFile.exists()) {
+                    FileReader fr;
+                    fr = new FileReader(logFile);
+                    BufferedReader br = new BufferedReader(fr);
+                    String cmd;
+                    while ((cmd = br.readLine()) != null) {
+                        if (cmd.startsWith(MetadataOperationType.CHECKPOINT + ",")) {
+                            continue;
                         }
-                        br.close();
+                        operation(cmd);
+                        logLineNum++;
                     }
+                    br.close();
                 }
                 FileWriter fw = new FileWriter(logFile, true);
                 logWriter = new BufferedWriter(fw);
@@ -131,10 +158,50 @@ public class MManager {
         }
     }
 
+    /**
+     * Drop the metadata in memory and load it again from the snapshot and
+     * the log, as at startup.
+     */
+    void reload() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (logWriter != null) {
+                logWriter.close();
+                logWriter = null;
+            }
+            checkpointId = 0;
+            logLineNum = 0;
+            checkAndGetDataTypeCache.clear();
+            mNodeCache.clear();
+            init();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the id of the checkpoint which started the log, 0 if the log
+     *         was not started by a checkpoint
+     */
+    private long readLogCheckpointId(File logFile) throws IOException {
+        if (!logFile.exists()) {
+            return 0;
+        }
+        try (BufferedReader br = new BufferedReader(new FileReader(logFile))) {
+            String line = br.readLine();
+            if (line != null && line.startsWith(MetadataOperationType.CHECKPOINT + ",")) {
+                return Long.parseLong(line.substring(MetadataOperationType.CHECKPOINT.length() + 1).trim());
+            }
+            return 0;
+        }
+    }
+
     public void clear() {
         lock.writeLock().lock();
         try {
             this.mGraph = new MGraph(ROOT_NAME);
+            checkAndGetDataTypeCache.clear();
+            mNodeCache.clear();
         } finally {
             lock.writeLock().unlock();
         }
@@ -175,6 +242,50 @@ public class MManager {
         }
     }
 
+    private void appendLog(String log) throws IOException {
+        initLogStream();
+        logWriter.write(log);
+        logWriter.newLine();
+        logWriter.flush();
+        logLineNum++;
+        if (checkpointThreshold > 0 && logLineNum >= checkpointThreshold) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Write the whole metadata to a new snapshot and restart the operation
+     * log, so that the next startup does not have to replay the operations
+     * before now. The write lock must be held by the caller.
+     */
+    private void checkpoint() throws IOException {
+        if (logWriter != null) {
+            logWriter.close();
+            logWriter = null;
+        }
+        File metadataDir = new File(metadataDirPath);
+        if (!metadataDir.exists()) {
+            metadataDir.mkdirs();
+        }
+        long newCheckpointId = checkpointId + 1;
+        File tempFile = new File(snapshotFilePath + MetadataConstant.METADATA_TEMP);
+        MetadataSnapshot.write(mGraph, newCheckpointId, tempFile);
+        // the snapshot is replaced before the log, and each atomically, so a
+        // crash in between leaves the new snapshot with the old log, whose
+        // checkpoint id is older and which is ignored at startup
+        Files.move(tempFile.toPath(), Paths.get(snapshotFilePath), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        checkpointId = newCheckpointId;
+        File tempLogFile = new File(logFilePath + MetadataConstant.METADATA_TEMP);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tempLogFile))) {
+            writer.write(MetadataOperationType.CHECKPOINT + "," + checkpointId);
+            writer.newLine();
+        }
+        Files.move(tempLogFile.toPath(), Paths.get(logFilePath), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        logLineNum = 0;
+    }
+
     private void initLogStream() {
         if (logWriter == null) {
             File logFile = new File(logFilePath);
@@ -214,14 +325,14 @@ public class MManager {
         lock.writeLock().lock();
         try {
             mGraph.addPathToMTree(path, dataType, encoding, args);
+            // the path may be cached as not existing
+            checkAndGetDataTypeCache.invalidate(path);
             if (writeToLog) {
-                initLogStream();
-                logWriter.write(MetadataOperationType.ADD_PATH_TO_MTREE + "," + path + "," + dataType + "," + encoding);
+                StringBuilder log = new StringBuilder(MetadataOperationType.ADD_PATH_TO_MTREE + "," + path + "," + dataType + "," + encoding);
                 for (int i = 0; i < args.length; i++) {
-                    logWriter.write("," + args[i]);
+                    log.append(",").append(args[i]);
                 }
-                logWriter.newLine();
-                logWriter.flush();
+                appendLog(log.toString());
             }
         } finally {
             lock.writeLock().unlock();
@@ -231,14 +342,13 @@ public class MManager {
     public String deletePathFromMTree(String path) throws PathErrorException, IOException {
         lock.writeLock().lock();
         try {
-            checkAndGetDataTypeCache.clear();
-            mNodeCache.clear();
             String dataFileName = mGraph.deletePath(path);
+            // the path, the paths below it and the ancestors left without
+            // children are deleted
+            checkAndGetDataTypeCache.invalidateIf(key -> isRelatedPath(key, path));
+            mNodeCache.invalidateIf(key -> isRelatedPath(key, path));
             if (writeToLog) {
-                initLogStream();
-                logWriter.write(MetadataOperationType.DELETE_PATH_FROM_MTREE + "," + path);
-                logWriter.newLine();
-                logWriter.flush();
+                appendLog(MetadataOperationType.DELETE_PATH_FROM_MTREE + "," + path);
             }
             return dataFileName;
         } finally {
@@ -250,30 +360,36 @@ public class MManager {
 
         lock.writeLock().lock();
         try {
-            checkAndGetDataTypeCache.clear();
-            mNodeCache.clear();
             mGraph.setStorageLevel(path);
+            // the paths below may be cached as not in any storage group
+            checkAndGetDataTypeCache.invalidateIf(key -> key.startsWith(path + "."));
             if (writeToLog) {
-                initLogStream();
-                logWriter.write(MetadataOperationType.SET_STORAGE_LEVEL_TO_MTREE + "," + path);
-                logWriter.newLine();
-                logWriter.flush();
+                appendLog(MetadataOperationType.SET_STORAGE_LEVEL_TO_MTREE + "," + path);
             }
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    /**
+     * @return whether path1 is path2, or one of them is a prefix of the other
+     */
+    private static boolean isRelatedPath(String path1, String path2) {
+        if (path1.length() < path2.length()) {
+            return path2.startsWith(path1) && path2.charAt(path1.length()) == '.';
+        } else if (path1.length() > path2.length()) {
+            return path1.startsWith(path2) && path1.charAt(path2.length()) == '.';
+        }
+        return path1.equals(path2);
+    }
+
     public void addAPTree(String pTreeRootName) throws IOException, MetadataArgsErrorException {
 
         lock.writeLock().lock();
         try {
             mGraph.addAPTree(pTreeRootName);
             if (writeToLog) {
-                initLogStream();
-                logWriter.write(MetadataOperationType.ADD_A_PTREE + "," + pTreeRootName);
-                logWriter.newLine();
-                logWriter.flush();
+                appendLog(MetadataOperationType.ADD_A_PTREE + "," + pTreeRootName);
             }
         } finally {
             lock.writeLock().unlock();
@@ -286,10 +402,7 @@ public class MManager {
         try {
             mGraph.addPathToPTree(path);
             if (writeToLog) {
-                initLogStream();
-                logWriter.write(MetadataOperationType.ADD_A_PATH_TO_PTREE + "," + path);
-                logWriter.newLine();
-                logWriter.flush();
+                appendLog(MetadataOperationType.ADD_A_PATH_TO_PTREE + "," + path);
             }
         } finally {
             lock.writeLock().unlock();
@@ -302,10 +415,7 @@ public class MManager {
         try {
             mGraph.deletePath(path);
             if (writeToLog) {
-                initLogStream();
-                logWriter.write(MetadataOperationType.DELETE_PATH_FROM_PTREE + "," + path);
-                logWriter.newLine();
-                logWriter.flush();
+                appendLog(MetadataOperationType.DELETE_PATH_FROM_PTREE + "," + path);
             }
         } finally {
             lock.writeLock().unlock();
@@ -318,10 +428,7 @@ public class MManager {
         try {
             mGraph.linkMNodeToPTree(path, mPath);
             if (writeToLog) {
-                initLogStream();
-                logWriter.write(MetadataOperationType.LINK_MNODE_TO_PTREE + "," + path + "," + mPath);
-                logWriter.newLine();
-                logWriter.flush();
+                appendLog(MetadataOperationType.LINK_MNODE_TO_PTREE + "," + path + "," + mPath);
             }
         } finally {
             lock.writeLock().unlock();
@@ -334,10 +441,7 @@ public class MManager {
         try {
             mGraph.unlinkMNodeFromPTree(path, mPath);
             if (writeToLog) {
-                initLogStream();
-                logWriter.write(MetadataOperationType.UNLINK_MNODE_FROM_PTREE + "," + path + "," + mPath);
-                logWriter.newLine();
-                logWriter.flush();
+                appendLog(MetadataOperationType.UNLINK_MNODE_FROM_PTREE + "," + path + "," + mPath);
             }
         } finally {
             lock.writeLock().unlock();
@@ -351,13 +455,7 @@ public class MManager {
      * @return String represents the DeltaObjectId
      */
     public String getDeltaObjectTypeByPath(String path) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            return mGraph.getDeltaObjectTypeByPath(path);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return mGraph.getDeltaObjectTypeByPath(path);
     }
 
     /**
@@ -368,43 +466,19 @@ public class MManager {
      * @throws PathErrorException
      */
     public TSDataType getSeriesType(String fullPath) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            return getSchemaForOnePath(fullPath).dataType;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return getSchemaForOnePath(fullPath).dataType;
     }
 
     public TSDataType getSeriesType(MNode node, String fullPath) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            return getSchemaForOnePath(node, fullPath).dataType;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return getSchemaForOnePath(node, fullPath).dataType;
     }
 
     public TSDataType getSeriesTypeWithCheck(MNode node, String fullPath) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            return getSchemaForOnePathWithCheck(node, fullPath).dataType;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return getSchemaForOnePathWithCheck(node, fullPath).dataType;
     }
 
     public TSDataType getSeriesTypeWithCheck(String fullPath) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            return getSchemaForOnePathWithCheck(fullPath).dataType;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return getSchemaForOnePathWithCheck(fullPath).dataType;
     }
 
     /**
@@ -538,49 +612,31 @@ public class MManager {
      * @throws PathErrorException
      */
     public String getFileNameByPath(String path) throws PathErrorException {
-
-        lock.readLock().lock();
         try {
             return mGraph.getFileNameByPath(path);
         } catch (PathErrorException e) {
             throw new PathErrorException(String.format(e.getMessage()));
-        } finally {
-            lock.readLock().unlock();
         }
     }
 
     public String getFileNameByPath(MNode node, String path) throws PathErrorException {
-
-        lock.readLock().lock();
         try {
             return mGraph.getFileNameByPath(node, path);
         } catch (PathErrorException e) {
             throw new PathErrorException(String.format(e.getMessage()));
-        } finally {
-            lock.readLock().unlock();
         }
     }
 
     public String getFileNameByPathWithCheck(MNode node, String path) throws PathErrorException {
-
-        lock.readLock().lock();
         try {
             return mGraph.getFileNameByPath(node, path);
         } catch (PathErrorException e) {
             throw new PathErrorException(String.format(e.getMessage()));
-        } finally {
-            lock.readLock().unlock();
         }
     }
 
     public boolean checkFileNameByPath(String path) {
-
-        lock.readLock().lock();
-        try {
-            return mGraph.checkFileNameByPath(path);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return mGraph.checkFileNameByPath(path);
     }
 
     public List<String> getAllFileNames() throws PathErrorException {
@@ -661,52 +717,27 @@ public class MManager {
      * Check whether the path given exists
      */
     public boolean pathExist(String path) {
-
-        lock.readLock().lock();
-        try {
-            return mGraph.pathExist(path);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return mGraph.pathExist(path);
     }
 
     public boolean pathExist(MNode node, String path) {
-
-        lock.readLock().lock();
-        try {
-            return mGraph.pathExist(node, path);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return mGraph.pathExist(node, path);
     }
 
     public MNode getNodeByPath(String path) throws PathErrorException {
-        lock.readLock().lock();
-        try {
-            return mGraph.getNodeByPath(path);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return mGraph.getNodeByPath(path);
     }
 
     public MNode getNodeByDeltaObjectIDFromCache(String deltaObjectID) throws PathErrorException {
-        lock.readLock().lock();
         try {
             return mNodeCache.get(deltaObjectID);
         } catch (CacheException e) {
             throw new PathErrorException(e);
-        } finally {
-            lock.readLock().unlock();
         }
     }
 
     public MNode getNodeByPathWithCheck(String path) throws PathErrorException {
-        lock.readLock().lock();
-        try {
-            return mGraph.getNodeByPathWithCheck(path);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return mGraph.getNodeByPathWithCheck(path);
     }
 
     /**
@@ -714,43 +745,19 @@ public class MManager {
      * from root to leaf node.
      */
     public ColumnSchema getSchemaForOnePath(String path) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            return mGraph.getSchemaForOnePath(path);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return mGraph.getSchemaForOnePath(path);
     }
 
     public ColumnSchema getSchemaForOnePath(MNode node, String path) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            return mGraph.getSchemaForOnePath(node, path);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return mGraph.getSchemaForOnePath(node, path);
     }
 
     public ColumnSchema getSchemaForOnePathWithCheck(MNode node, String path) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            return mGraph.getSchemaForOnePathWithCheck(node, path);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return mGraph.getSchemaForOnePathWithCheck(node, path);
     }
 
     public ColumnSchema getSchemaForOnePathWithCheck(String path) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            return mGraph.getSchemaForOnePathWithCheck(path);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return mGraph.getSchemaForOnePathWithCheck(path);
     }
 
     /**
@@ -758,78 +765,37 @@ public class MManager {
      * {@code MNode.isStorageLevel} is true
      */
     public boolean checkFileLevel(List<Path> path) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            for (Path p : path) {
-                getFileNameByPath(p.getFullPath());
-            }
-            return true;
-        } finally {
-            lock.readLock().unlock();
+        for (Path p : path) {
+            getFileNameByPath(p.getFullPath());
         }
+        return true;
     }
 
     public boolean checkFileLevel(MNode node, List<Path> path) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            for (Path p : path) {
-                getFileNameByPath(node, p.getFullPath());
-            }
-            return true;
-        } finally {
-            lock.readLock().unlock();
+        for (Path p : path) {
+            getFileNameByPath(node, p.getFullPath());
         }
+        return true;
     }
 
     public boolean checkFileLevel(String path) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            getFileNameByPath(path);
-            return true;
-        } finally {
-            lock.readLock().unlock();
-        }
+        getFileNameByPath(path);
+        return true;
     }
 
     public boolean checkFileLevelWithCheck(MNode node, String path) throws PathErrorException {
-
-        lock.readLock().lock();
-        try {
-            getFileNameByPathWithCheck(node, path);
-            return true;
-        } finally {
-            lock.readLock().unlock();
-        }
+        getFileNameByPathWithCheck(node, path);
+        return true;
     }
 
+    /**
+     * Write a checkpoint of the metadata, see {@link #checkpoint()}.
+     */
     public void flushObjectToFile() throws IOException {
 
         lock.writeLock().lock();
         try {
-            File dataFile = new File(datafilePath);
-            // delete old metadata data file
-            if (dataFile.exists()) {
-                dataFile.delete();
-            }
-            File metadataDir = new File(metadataDirPath);
-            if (!metadataDir.exists()) {
-                metadataDir.mkdirs();
-            }
-            File tempFile = new File(datafilePath + MetadataConstant.METADATA_TEMP);
-            FileOutputStream fos = new FileOutputStream(tempFile);
-            ObjectOutputStream oos = new ObjectOutputStream(fos);
-            oos.writeObject(mGraph);
-            oos.close();
-            // close the logFile stream
-            if (logWriter != null) {
-                logWriter.close();
-                logWriter = null;
-            }
-            // rename temp file to data file
-            tempFile.renameTo(dataFile);
+            checkpoint();
         } finally {
             lock.writeLock().unlock();
         }
@@ -901,15 +867,10 @@ public class MManager {
      * @throws PathErrorException
      */
     public boolean checkPathIndex(String path, IndexType indexType) throws PathErrorException {
-        lock.readLock().lock();
-        try {
-            if (getSchemaForOnePath(path).isHasIndex(indexType)) {
-                return true;
-            } else {
-                return false;
-            }
-        } finally {
-            lock.readLock().unlock();
+        if (getSchemaForOnePath(path).isHasIndex(indexType)) {
+            return true;
+        } else {
+            return false;
         }
     }
 
@@ -923,12 +884,9 @@ public class MManager {
     public void addIndexForOneTimeseries(String path, IndexType indexType) throws PathErrorException, IOException {
         lock.writeLock().lock();
         try {
-            getSchemaForOnePath(path).setHasIndex(indexType);
+            mGraph.addIndex(path, indexType);
             if (writeToLog) {
-                initLogStream();
-                logWriter.write(MetadataOperationType.ADD_INDEX_TO_PATH + "," + path + "," + indexType);
-                logWriter.newLine();
-                logWriter.flush();
+                appendLog(MetadataOperationType.ADD_INDEX_TO_PATH + "," + path + "," + indexType);
             }
         } finally {
             lock.writeLock().unlock();
@@ -945,12 +903,9 @@ public class MManager {
     public void deleteIndexForOneTimeseries(String path, IndexType indexType) throws PathErrorException, IOException {
         lock.writeLock().lock();
         try {
-            getSchemaForOnePath(path).removeIndex(indexType);
+            mGraph.deleteIndex(path, indexType);
             if (writeToLog) {
-                initLogStream();
-                logWriter.write(MetadataOperationType.DELETE_INDEX_FROM_PATH + "," + path + "," + indexType);
-                logWriter.newLine();
-                logWriter.flush();
+                appendLog(MetadataOperationType.DELETE_INDEX_FROM_PATH + "," + path + "," + indexType);
             }
         } finally {
             lock.writeLock().unlock();
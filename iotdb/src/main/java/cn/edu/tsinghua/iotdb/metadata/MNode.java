@@ -2,7 +2,6 @@ package cn.edu.tsinghua.iotdb.metadata;
 
 import java.io.Serializable;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
@@ -35,7 +34,7 @@ public class MNode implements Serializable {
 	// node is one leaf
 	private ColumnSchema schema;
 	private MNode parent;
-	private LinkedHashMap<String, MNode> children;
+	private MNodeChildren children;
 
 	public MNode(String name, MNode parent, boolean isLeaf) {
 		this.setName(name);
@@ -43,13 +42,21 @@ public class MNode implements Serializable {
 		this.isLeaf = isLeaf;
 		this.isStorageLevel = false;
 		if (!isLeaf) {
-			children = new LinkedHashMap<>();
+			children = new MNodeChildren();
 		}
 	}
 
 	public MNode(String name, MNode parent, TSDataType dataType, TSEncoding encoding) {
+		this(name, parent, new ColumnSchema(name, dataType, encoding));
+	}
+
+	/**
+	 * Create a leaf with the given schema, which may be shared with other
+	 * leaves of the same name, see {@link MTree#getSchemaTemplate}.
+	 */
+	public MNode(String name, MNode parent, ColumnSchema schema) {
 		this(name, parent, true);
-		this.schema = new ColumnSchema(name, dataType, encoding);
+		this.schema = schema;
 	}
 
 	public boolean isStorageLevel() {
@@ -90,9 +97,14 @@ public class MNode implements Serializable {
 		return false;
 	}
 
+	/**
+	 * @param key
+	 *            must be the name of child, children are looked up by their
+	 *            names
+	 */
 	public void addChild(String key, MNode child) {
 		if (!isLeaf) {
-			this.children.put(key, child);
+			this.children.put(child);
 		}
 	}
 
@@ -150,20 +162,17 @@ public class MNode implements Serializable {
 		this.parent = parent;
 	}
 
-	public LinkedHashMap<String, MNode> getChildren() {
+	public MNodeChildren getChildren() {
 		return children;
 	}
 
-	public void setChildren(LinkedHashMap<String, MNode> children) {
-		this.children = children;
-	}
-
 	public String getName() {
 		return name;
 	}
 
 	public void setName(String name) {
-		this.name = name;
+		// the same names appear under many nodes, e.g. the sensors of devices
+		this.name = name.intern();
 	}
 
 }
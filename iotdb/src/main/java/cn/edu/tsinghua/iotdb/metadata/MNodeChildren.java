@@ -0,0 +1,169 @@
+package cn.edu.tsinghua.iotdb.metadata;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The children of a {@code MNode}, keyed by their names and kept in insertion order. The children are stored in one
+ * array, which is scanned directly while there are at most {@code ARRAY_THRESHOLD} of them. Above that, an open
+ * addressing table of positions in the array is built, so a node with many children costs about one reference and two
+ * ints per child, instead of one entry object of a LinkedHashMap.
+ * <p>
+ * Modifications must be serialized by the caller, but reads need no lock: the array, the size and the table are
+ * published together in one immutable {@code State}. Appending a child only writes the slots beyond the size of the
+ * published state, which its readers ignore; any other modification publishes copies.
+ */
+public class MNodeChildren implements Serializable {
+
+	private static final long serialVersionUID = 2473871640375307452L;
+
+	static final int ARRAY_THRESHOLD = 8;
+	private static final State EMPTY = new State(new MNode[0], 0, null);
+
+	private volatile State state = EMPTY;
+
+	public int size() {
+		return state.size;
+	}
+
+	public boolean containsKey(String name) {
+		return state.indexOf(name) >= 0;
+	}
+
+	public MNode get(String name) {
+		State current = state;
+		int i = current.indexOf(name);
+		return i >= 0 ? current.nodes[i] : null;
+	}
+
+	/**
+	 * Add a child, or replace the child of the same name.
+	 */
+	public void put(MNode node) {
+		State current = state;
+		int i = current.indexOf(node.getName());
+		if (i >= 0) {
+			MNode[] nodes = current.nodes.clone();
+			nodes[i] = node;
+			state = new State(nodes, current.size, current.table);
+			return;
+		}
+		int size = current.size + 1;
+		if (current.size < current.nodes.length
+				&& (current.table == null ? size <= ARRAY_THRESHOLD : size * 2 <= current.table.length)) {
+			// append in place, the readers of current don't look beyond its size
+			current.nodes[current.size] = node;
+			if (current.table != null) {
+				insert(current.table, node.getName(), size);
+			}
+			state = new State(current.nodes, size, current.table);
+		} else {
+			MNode[] nodes = Arrays.copyOf(current.nodes, Math.max(2, current.size + (current.size >> 1) + 1));
+			nodes[current.size] = node;
+			state = new State(nodes, size, size > ARRAY_THRESHOLD ? buildTable(nodes, size) : null);
+		}
+	}
+
+	public MNode remove(String name) {
+		State current = state;
+		int i = current.indexOf(name);
+		if (i < 0) {
+			return null;
+		}
+		MNode node = current.nodes[i];
+		int size = current.size - 1;
+		MNode[] nodes = new MNode[current.nodes.length];
+		System.arraycopy(current.nodes, 0, nodes, 0, i);
+		System.arraycopy(current.nodes, i + 1, nodes, i, size - i);
+		state = new State(nodes, size, size > ARRAY_THRESHOLD ? buildTable(nodes, size) : null);
+		return node;
+	}
+
+	/**
+	 * @return whether the children are looked up in the table of positions instead of by scanning the array
+	 */
+	boolean isHashed() {
+		return state.table != null;
+	}
+
+	/**
+	 * @return an unmodifiable view of the children in insertion order, which is not changed by later modifications
+	 */
+	public List<MNode> values() {
+		final State current = state;
+		return new AbstractList<MNode>() {
+			@Override
+			public MNode get(int index) {
+				if (index >= current.size) {
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.size);
+				}
+				return current.nodes[index];
+			}
+
+			@Override
+			public int size() {
+				return current.size;
+			}
+		};
+	}
+
+	private static int[] buildTable(MNode[] nodes, int size) {
+		int[] table = new int[Integer.highestOneBit(size * 2 - 1) << 1];
+		for (int i = 0; i < size; i++) {
+			insert(table, nodes[i].getName(), i + 1);
+		}
+		return table;
+	}
+
+	private static void insert(int[] table, String name, int position) {
+		int mask = table.length - 1;
+		int slot = hash(name) & mask;
+		while (table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = position;
+	}
+
+	private static int hash(String name) {
+		int h = name.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private static class State implements Serializable {
+
+		private static final long serialVersionUID = -3127460941893545317L;
+
+		private final MNode[] nodes;
+		private final int size;
+		// position + 1 of the node in nodes, 0 for an empty slot, null while size <= ARRAY_THRESHOLD
+		private final int[] table;
+
+		private State(MNode[] nodes, int size, int[] table) {
+			this.nodes = nodes;
+			this.size = size;
+			this.table = table;
+		}
+
+		private int indexOf(String name) {
+			if (table == null) {
+				for (int i = 0; i < size; i++) {
+					if (nodes[i].getName().equals(name)) {
+						return i;
+					}
+				}
+				return -1;
+			}
+			int mask = table.length - 1;
+			for (int slot = hash(name) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+				int position = table[slot];
+				// positions beyond size are appended after this state was published
+				if (position <= size && nodes[position - 1].getName().equals(name)) {
+					return position - 1;
+				}
+			}
+			return -1;
+		}
+	}
+}
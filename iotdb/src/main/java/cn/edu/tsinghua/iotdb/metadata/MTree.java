@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.util.*;
 
 import cn.edu.tsinghua.iotdb.exception.PathErrorException;
+import cn.edu.tsinghua.iotdb.index.IndexManager.IndexType;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSEncoding;
 
@@ -19,6 +20,8 @@ public class MTree implements Serializable {
 	private final String space = "    ";
 	private MNode root;
 	private final String separator = "\\.";
+	// schemas without args or index, shared by all the leaves of the same name, data type and encoding
+	private HashMap<String, ColumnSchema> schemaTemplates = new HashMap<>();
 
 	public MTree(String rootName) {
 		this.root = new MNode(rootName, null, false);
@@ -73,12 +76,16 @@ public class MTree implements Serializable {
 		}
 		TSDataType dt = TSDataType.valueOf(dataType);
 		TSEncoding ed = TSEncoding.valueOf(encoding);
-		MNode leaf = new MNode(nodeNames[nodeNames.length - 1], cur, dt, ed);
+		String leafName = nodeNames[nodeNames.length - 1];
+		MNode leaf;
 		if (args.length > 0) {
+			leaf = new MNode(leafName, cur, dt, ed);
 			for (int k = 0; k < args.length; k++) {
 				String[] arg = args[k].split("=");
 				leaf.getSchema().putKeyValueToArgs(arg[0], arg[1]);
 			}
+		} else {
+			leaf = new MNode(leafName, cur, getSchemaTemplate(leafName, dt, ed));
 		}
 		levelPath = cur.getDataFileName();
 		leaf.setDataFileName(levelPath);
@@ -646,8 +653,8 @@ public class MTree implements Serializable {
 	public ArrayList<String> getAllType() {
 		ArrayList<String> res = new ArrayList<>();
 		if (getRoot() != null) {
-			for (String type : getRoot().getChildren().keySet()) {
-				res.add(type);
+			for (MNode type : getRoot().getChildren().values()) {
+				res.add(type.getName());
 			}
 		}
 		return res;
@@ -700,9 +707,9 @@ public class MTree implements Serializable {
 		if (node.isLeaf()) {
 			deltaObjectMap.put(path, 1);
 		} else {
-			for (String child : node.getChildren().keySet()) {
+			for (MNode child : node.getChildren().values()) {
 				String newPath = path + "." + node.getName();
-				putDeltaObjectToMap(newPath, node.getChildren().get(child), deltaObjectMap);
+				putDeltaObjectToMap(newPath, child, deltaObjectMap);
 			}
 		}
 	}
@@ -900,7 +907,54 @@ public class MTree implements Serializable {
 		return sb.toString();
 	}
 
+	/**
+	 * @return the schema shared by the leaves named measurement with the
+	 *         given data type and encoding. It must not be modified, see
+	 *         {@link #addIndex} for a leaf whose schema changes.
+	 */
+	ColumnSchema getSchemaTemplate(String measurement, TSDataType dataType, TSEncoding encoding) {
+		String key = dataType + "," + encoding + "," + measurement;
+		ColumnSchema schema = schemaTemplates.get(key);
+		if (schema == null) {
+			schema = new ColumnSchema(measurement, dataType, encoding);
+			schemaTemplates.put(key, schema);
+		}
+		return schema;
+	}
+
+	/**
+	 * Add an index to one timeseries. A shared schema is replaced by a copy
+	 * of its own first.
+	 */
+	public void addIndex(String path, IndexType indexType) throws PathErrorException {
+		MNode leaf = getLeafByPath(path);
+		ColumnSchema schema = leaf.getSchema();
+		if (isSchemaTemplate(schema)) {
+			ColumnSchema copy = new ColumnSchema(schema.getName(), schema.geTsDataType(), schema.getEncoding());
+			copy.getArgsMap().putAll(schema.getArgsMap());
+			leaf.setSchema(copy);
+			schema = copy;
+		}
+		schema.setHasIndex(indexType);
+	}
+
+	public void deleteIndex(String path, IndexType indexType) throws PathErrorException {
+		ColumnSchema schema = getLeafByPath(path).getSchema();
+		// a shared schema has no index
+		if (!isSchemaTemplate(schema)) {
+			schema.removeIndex(indexType);
+		}
+	}
+
+	private boolean isSchemaTemplate(ColumnSchema schema) {
+		return schemaTemplates.get(schema.geTsDataType() + "," + schema.getEncoding() + "," + schema.getName()) == schema;
+	}
+
 	public MNode getRoot() {
 		return root;
 	}
+
+	void setRoot(MNode root) {
+		this.root = root;
+	}
 }
@@ -5,6 +5,7 @@ public class MetadataConstant {
 	public static String ROOT = "root";
 	public static String METADATA_OBJ = "mdata.obj";
 	public static String METADATA_LOG = "mlog.txt";
+	public static String METADATA_SNAPSHOT = "mdata.snapshot";
 	public static String METADATA_TEMP = ".temp";
 
 }
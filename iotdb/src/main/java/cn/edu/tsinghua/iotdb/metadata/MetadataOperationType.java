@@ -11,4 +11,6 @@ public class MetadataOperationType {
 	public final static String UNLINK_MNODE_FROM_PTREE = "7";
 	public final static String ADD_INDEX_TO_PATH = "8";
 	public final static String DELETE_INDEX_FROM_PATH = "9";
+	// the first line of a log started by a checkpoint, followed by the checkpoint id
+	public final static String CHECKPOINT = "10";
 }
@@ -0,0 +1,270 @@
+package cn.edu.tsinghua.iotdb.metadata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cn.edu.tsinghua.iotdb.index.IndexManager.IndexType;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSEncoding;
+
+/**
+ * Binary snapshot of a {@code MGraph}. The MTree and the PTrees are written depth first, so that they can be rebuilt
+ * while the file is read. Every string is written only once: its first occurrence is followed by its bytes, and the
+ * later ones only refer to its index, so equal node names share one String instance after loading.
+ * <p>
+ * Layout: magic, version, checkpoint id, the MTree, then the number of PTrees and the PTrees.
+ */
+class MetadataSnapshot {
+
+	private static final int MAGIC = 0x4d474e53;
+	private static final int VERSION = 1;
+
+	private static final int NULL_STRING = -1;
+	private static final int NEW_STRING = -2;
+
+	private static final byte LEAF = 1;
+	private static final byte STORAGE_LEVEL = 2;
+
+	private long checkpointId;
+	private MGraph mGraph;
+
+	private MetadataSnapshot(long checkpointId, MGraph mGraph) {
+		this.checkpointId = checkpointId;
+		this.mGraph = mGraph;
+	}
+
+	/**
+	 * @return the id of the checkpoint which wrote this snapshot. Only the operation log started by this checkpoint
+	 *         should be replayed on it.
+	 */
+	public long getCheckpointId() {
+		return checkpointId;
+	}
+
+	public MGraph getMGraph() {
+		return mGraph;
+	}
+
+	/**
+	 * write mGraph to file, the file is synced to disk before return.
+	 */
+	static void write(MGraph mGraph, long checkpointId, File file) throws IOException {
+		try (FileOutputStream fos = new FileOutputStream(file)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(checkpointId);
+			StringWriter strings = new StringWriter(out);
+			writeMNode(mGraph.getMTree().getRoot(), out, strings);
+			out.writeInt(mGraph.getPTreeMap().size());
+			for (PTree pTree : mGraph.getPTreeMap().values()) {
+				writePNode(pTree.getRoot(), out, strings);
+			}
+			out.flush();
+			fos.getFD().sync();
+		}
+	}
+
+	static MetadataSnapshot read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(String.format("%s is not a metadata snapshot", file.getPath()));
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException(
+						String.format("The version %d of metadata snapshot %s is not supported", version, file.getPath()));
+			}
+			long checkpointId = in.readLong();
+			StringReader strings = new StringReader(in);
+			MTree mTree = new MTree((MNode) null);
+			mTree.setRoot(readMNode(mTree, null, null, in, strings));
+			int pTreeNum = in.readInt();
+			HashMap<String, PTree> pTreeMap = new HashMap<>();
+			for (int i = 0; i < pTreeNum; i++) {
+				PNode root = readPNode(null, in, strings);
+				pTreeMap.put(root.getName(), new PTree(root.getName(), root, mTree));
+			}
+			return new MetadataSnapshot(checkpointId, new MGraph(mTree, pTreeMap));
+		}
+	}
+
+	private static void writeMNode(MNode node, DataOutputStream out, StringWriter strings) throws IOException {
+		strings.write(node.getName());
+		out.writeByte((node.isLeaf() ? LEAF : 0) | (node.isStorageLevel() ? STORAGE_LEVEL : 0));
+		strings.write(node.getDataFileName());
+		if (node.isLeaf()) {
+			ColumnSchema schema = node.getSchema();
+			strings.write(schema.geTsDataType().name());
+			strings.write(schema.getEncoding().name());
+			out.writeInt(schema.getArgsMap().size());
+			for (Map.Entry<String, String> arg : schema.getArgsMap().entrySet()) {
+				strings.write(arg.getKey());
+				strings.write(arg.getValue());
+			}
+			out.writeInt(schema.getIndexSet().size());
+			for (IndexType indexType : schema.getIndexSet()) {
+				strings.write(indexType.name());
+			}
+		} else {
+			out.writeInt(node.getChildren().size());
+			for (MNode child : node.getChildren().values()) {
+				writeMNode(child, out, strings);
+			}
+		}
+	}
+
+	/**
+	 * @param storageGroup
+	 *            the storage group node above this node, its schema maps are rebuilt from the leaves below it
+	 */
+	private static MNode readMNode(MTree mTree, MNode parent, MNode storageGroup, DataInputStream in,
+			StringReader strings) throws IOException {
+		String name = strings.read();
+		byte flags = in.readByte();
+		String dataFileName = strings.read();
+		MNode node;
+		if ((flags & LEAF) != 0) {
+			TSDataType dataType = TSDataType.valueOf(strings.read());
+			TSEncoding encoding = TSEncoding.valueOf(strings.read());
+			int argNum = in.readInt();
+			ColumnSchema schema;
+			if (argNum == 0) {
+				schema = mTree.getSchemaTemplate(name, dataType, encoding);
+			} else {
+				schema = new ColumnSchema(name, dataType, encoding);
+				for (int i = 0; i < argNum; i++) {
+					schema.putKeyValueToArgs(strings.read(), strings.read());
+				}
+			}
+			node = new MNode(name, parent, schema);
+			int indexNum = in.readInt();
+			for (int i = 0; i < indexNum; i++) {
+				if (i == 0 && argNum == 0) {
+					// a leaf with index has a schema of its own
+					schema = new ColumnSchema(name, dataType, encoding);
+					node.setSchema(schema);
+				}
+				schema.setHasIndex(IndexType.valueOf(strings.read()));
+			}
+			if (storageGroup != null) {
+				Map<String, Integer> numSchemaMap = storageGroup.getNumSchemaMap();
+				Integer num = numSchemaMap.get(name);
+				if (num == null) {
+					storageGroup.getSchemaMap().put(name, schema);
+					numSchemaMap.put(name, 1);
+				} else {
+					numSchemaMap.put(name, num + 1);
+				}
+			}
+		} else {
+			node = new MNode(name, parent, false);
+		}
+		if ((flags & STORAGE_LEVEL) != 0) {
+			node.setStorageLevel(true);
+			storageGroup = node;
+		}
+		node.setDataFileName(dataFileName);
+		if (!node.isLeaf()) {
+			int childNum = in.readInt();
+			for (int i = 0; i < childNum; i++) {
+				MNode child = readMNode(mTree, node, storageGroup, in, strings);
+				node.addChild(child.getName(), child);
+			}
+		}
+		return node;
+	}
+
+	private static void writePNode(PNode node, DataOutputStream out, StringWriter strings) throws IOException {
+		strings.write(node.getName());
+		out.writeBoolean(node.isLeaf());
+		if (node.isLeaf()) {
+			out.writeInt(node.getLinkedMTreePathMap().size());
+			for (String mTreePath : node.getLinkedMTreePathMap().keySet()) {
+				strings.write(mTreePath);
+			}
+		} else {
+			out.writeInt(node.getChildren().size());
+			for (PNode child : node.getChildren().values()) {
+				writePNode(child, out, strings);
+			}
+		}
+	}
+
+	private static PNode readPNode(PNode parent, DataInputStream in, StringReader strings) throws IOException {
+		String name = strings.read();
+		boolean isLeaf = in.readBoolean();
+		PNode node = new PNode(name, parent, isLeaf);
+		int num = in.readInt();
+		for (int i = 0; i < num; i++) {
+			if (isLeaf) {
+				node.getLinkedMTreePathMap().put(strings.read(), 1);
+			} else {
+				PNode child = readPNode(node, in, strings);
+				node.addChild(child.getName(), child);
+			}
+		}
+		return node;
+	}
+
+	private static class StringWriter {
+		private final DataOutputStream out;
+		private final Map<String, Integer> indexes = new HashMap<>();
+
+		private StringWriter(DataOutputStream out) {
+			this.out = out;
+		}
+
+		private void write(String string) throws IOException {
+			if (string == null) {
+				out.writeInt(NULL_STRING);
+				return;
+			}
+			Integer index = indexes.get(string);
+			if (index != null) {
+				out.writeInt(index);
+				return;
+			}
+			indexes.put(string, indexes.size());
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(NEW_STRING);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static class StringReader {
+		private final DataInputStream in;
+		private final List<String> strings = new ArrayList<>();
+
+		private StringReader(DataInputStream in) {
+			this.in = in;
+		}
+
+		private String read() throws IOException {
+			int index = in.readInt();
+			if (index == NULL_STRING) {
+				return null;
+			}
+			if (index != NEW_STRING) {
+				return strings.get(index);
+			}
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			String string = new String(bytes, StandardCharsets.UTF_8);
+			strings.add(string);
+			return string;
+		}
+	}
+}
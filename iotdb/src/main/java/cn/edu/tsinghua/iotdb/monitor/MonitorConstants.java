@@ -6,6 +6,8 @@ public class MonitorConstants {
     public static final String DataType = "INT64";
     public static final String FILENODE_PROCESSOR_CONST = "FILENODE_PROCESSOR_CONST";
     public static final String FILENODE_MANAGER_CONST = "FILENODE_MANAGER_CONST";
+    public static final String MERGE_MANAGER_CONST = "MERGE_MANAGER_CONST";
+    public static final String CACHE_CONST = "CACHE_CONST";
     public static final String MONITOR_PATH_SEPERATOR = ".";
     public static final String statStorageGroupPrefix = "root.stats";
 
@@ -13,6 +15,15 @@ public class MonitorConstants {
     public static final String fileNodeManagerPath = "write.global";
     public static final String fileNodePath = "write";
 
+    // statistic for merge module
+    public static final String mergeManagerPath = "merge.global";
+
+    // statistic for the metadata cache of tsfiles
+    public static final String metadataCachePath = "cache.metadata";
+
+    // statistic for the chunk cache of tsfiles
+    public static final String chunkCachePath = "cache.chunk";
+
     /**
      * @param constantsType: produce initialization values for Statistics Params
      * @return : HashMap contains all the Statistics Params
@@ -30,6 +41,16 @@ public class MonitorConstants {
                     hashMap.put(statConstant.name(), new AtomicLong(0));
                 }
                 break;
+            case MERGE_MANAGER_CONST:
+                for (MergeManagerStatConstants statConstant : MergeManagerStatConstants.values()) {
+                    hashMap.put(statConstant.name(), new AtomicLong(0));
+                }
+                break;
+            case CACHE_CONST:
+                for (CacheStatConstants statConstant : CacheStatConstants.values()) {
+                    hashMap.put(statConstant.name(), new AtomicLong(0));
+                }
+                break;
             default:
                 //TODO: throws some errors
                 break;
@@ -47,4 +68,24 @@ public class MonitorConstants {
         TOTAL_REQ_SUCCESS, TOTAL_REQ_FAIL,
         TOTAL_POINTS_SUCCESS, TOTAL_POINTS_FAIL,
     }
+
+    /**
+     * PENDING_FILES is the number of files waiting to be merged by the running merges, the others are totals since
+     * startup.
+     */
+    public enum MergeManagerStatConstants {
+        TOTAL_MERGED_FILES, PENDING_FILES,
+        TOTAL_MERGED_SERIES, TOTAL_COPIED_SERIES,
+        TOTAL_READ_BYTES, TOTAL_WRITE_BYTES,
+        TOTAL_COMPACTIONS, TOTAL_COMPACTED_FILES,
+    }
+
+    /**
+     * The statistics of the metadata cache and of the chunk cache. CACHED_BYTES and CACHED_ENTRIES are the current
+     * estimated size and number of the cached entries, the others are totals since startup.
+     */
+    public enum CacheStatConstants {
+        TOTAL_HITS, TOTAL_MISSES, TOTAL_EVICTIONS, TOTAL_LOAD_TIME_IN_MS,
+        CACHED_BYTES, CACHED_ENTRIES,
+    }
 }
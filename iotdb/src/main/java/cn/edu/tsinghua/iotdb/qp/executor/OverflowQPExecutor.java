@@ -23,6 +23,7 @@ import cn.edu.tsinghua.iotdb.qp.logical.sys.AuthorOperator;
 import cn.edu.tsinghua.iotdb.qp.logical.sys.MetadataOperator;
 import cn.edu.tsinghua.iotdb.qp.logical.sys.PropertyOperator;
 import cn.edu.tsinghua.iotdb.qp.physical.PhysicalPlan;
+import cn.edu.tsinghua.iotdb.qp.physical.crud.BatchInsertPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.DeletePlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.IndexPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.InsertPlan;
@@ -78,6 +79,10 @@ public class OverflowQPExecutor extends QueryProcessExecutor {
                 }
                 return flag;
             case INSERT:
+                if (plan instanceof BatchInsertPlan) {
+                    insertBatch((BatchInsertPlan) plan);
+                    return true;
+                }
                 InsertPlan insert = (InsertPlan) plan;
                 int result = multiInsert(insert.getDeltaObject(), insert.getTime(), insert.getMeasurements(),
                         insert.getValues());
@@ -321,6 +326,35 @@ public class OverflowQPExecutor extends QueryProcessExecutor {
         }
     }
 
+    /**
+     * check the measurements and data types of plan against the schema, then insert all its rows at once. A column
+     * given in a narrower numeric type than its series is widened, as the SQL insertion does.
+     */
+    public void insertBatch(BatchInsertPlan plan) throws ProcessorException {
+        String deltaObject = plan.getDeltaObject();
+        String[] measurements = plan.getMeasurements();
+        TSDataType[] dataTypes = plan.getDataTypes();
+        try {
+            MNode node = mManager.getNodeByDeltaObjectIDFromCache(deltaObject);
+            for (int i = 0; i < measurements.length; i++) {
+                if (!node.hasChild(measurements[i])) {
+                    throw new ProcessorException(String.format("Current deltaObjectId[%s] does not contains measurement:%s", deltaObject, measurements[i]));
+                }
+                MNode measurementNode = node.getChild(measurements[i]);
+                if (!measurementNode.isLeaf()) {
+                    throw new ProcessorException(String.format("Current Path is not leaf node. %s.%s", deltaObject, measurements[i]));
+                }
+                TSDataType dataType = measurementNode.getSchema().dataType;
+                if (dataType != dataTypes[i] && !plan.widenColumn(i, dataType)) {
+                    throw new ProcessorException(String.format("The data type of %s.%s is %s, but %s is given", deltaObject, measurements[i], dataType, dataTypes[i]));
+                }
+            }
+            fileNodeManager.insertBatch(plan, false);
+        } catch (PathErrorException | FileNodeManagerException e) {
+            throw new ProcessorException(e.getMessage());
+        }
+    }
+
     @Override
     public List<String> getAllPaths(String originPath) throws PathErrorException {
         return MManager.getInstance().getPaths(originPath);
@@ -0,0 +1,270 @@
+package cn.edu.tsinghua.iotdb.qp.physical.crud;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cn.edu.tsinghua.iotdb.qp.logical.Operator;
+import cn.edu.tsinghua.iotdb.qp.physical.PhysicalPlan;
+import cn.edu.tsinghua.tsfile.common.exception.UnSupportedDataTypeException;
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.TSRecord;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.BooleanDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.DoubleDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.FloatDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.IntDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.LongDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.StringDataPoint;
+
+/**
+ * Insert many rows of one deltaObject, without going through SQL. Values are kept column by column: the column of a
+ * measurement is a boolean[], int[], long[], float[], double[] or Binary[] according to its data type, and holds one
+ * value for every timestamp in times.
+ */
+public class BatchInsertPlan extends PhysicalPlan {
+    private String deltaObject;
+    private String[] measurements;
+    private TSDataType[] dataTypes;
+    private long[] times;
+    private Object[] columns;
+
+    public BatchInsertPlan(String deltaObject, String[] measurements, TSDataType[] dataTypes, long[] times,
+                           Object[] columns) {
+        super(false, Operator.OperatorType.INSERT);
+        this.deltaObject = deltaObject;
+        this.measurements = measurements;
+        this.dataTypes = dataTypes;
+        this.times = times;
+        this.columns = columns;
+    }
+
+    @Override
+    public List<Path> getPaths() {
+        List<Path> ret = new ArrayList<>(measurements.length);
+        for (String m : measurements) {
+            ret.add(new Path(deltaObject + "." + m));
+        }
+        return ret;
+    }
+
+    public String getDeltaObject() {
+        return deltaObject;
+    }
+
+    public String[] getMeasurements() {
+        return measurements;
+    }
+
+    public TSDataType[] getDataTypes() {
+        return dataTypes;
+    }
+
+    public long[] getTimes() {
+        return times;
+    }
+
+    public Object[] getColumns() {
+        return columns;
+    }
+
+    public int getRowCount() {
+        return times.length;
+    }
+
+    /**
+     * @return the row-th row of this plan as a TSRecord with typed data points
+     */
+    public TSRecord getRecord(int row) {
+        TSRecord tsRecord = new TSRecord(times[row], deltaObject);
+        for (int i = 0; i < measurements.length; i++) {
+            switch (dataTypes[i]) {
+                case BOOLEAN:
+                    tsRecord.addTuple(new BooleanDataPoint(measurements[i], ((boolean[]) columns[i])[row]));
+                    break;
+                case INT32:
+                    tsRecord.addTuple(new IntDataPoint(measurements[i], ((int[]) columns[i])[row]));
+                    break;
+                case INT64:
+                    tsRecord.addTuple(new LongDataPoint(measurements[i], ((long[]) columns[i])[row]));
+                    break;
+                case FLOAT:
+                    tsRecord.addTuple(new FloatDataPoint(measurements[i], ((float[]) columns[i])[row]));
+                    break;
+                case DOUBLE:
+                    tsRecord.addTuple(new DoubleDataPoint(measurements[i], ((double[]) columns[i])[row]));
+                    break;
+                case TEXT:
+                    tsRecord.addTuple(new StringDataPoint(measurements[i], ((Binary[]) columns[i])[row]));
+                    break;
+                default:
+                    throw new UnSupportedDataTypeException("Unsupported data type:" + dataTypes[i]);
+            }
+        }
+        return tsRecord;
+    }
+
+    /**
+     * @return a plan of the same deltaObject and measurements which only holds the given rows
+     */
+    public BatchInsertPlan selectRows(int[] rows) {
+        long[] selectedTimes = new long[rows.length];
+        for (int r = 0; r < rows.length; r++) {
+            selectedTimes[r] = times[rows[r]];
+        }
+        Object[] selectedColumns = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            selectedColumns[i] = selectRows(dataTypes[i], columns[i], rows);
+        }
+        return new BatchInsertPlan(deltaObject, measurements, dataTypes, selectedTimes, selectedColumns);
+    }
+
+    private static Object selectRows(TSDataType dataType, Object column, int[] rows) {
+        switch (dataType) {
+            case BOOLEAN:
+                boolean[] booleans = (boolean[]) column;
+                boolean[] selectedBooleans = new boolean[rows.length];
+                for (int r = 0; r < rows.length; r++) {
+                    selectedBooleans[r] = booleans[rows[r]];
+                }
+                return selectedBooleans;
+            case INT32:
+                int[] ints = (int[]) column;
+                int[] selectedInts = new int[rows.length];
+                for (int r = 0; r < rows.length; r++) {
+                    selectedInts[r] = ints[rows[r]];
+                }
+                return selectedInts;
+            case INT64:
+                long[] longs = (long[]) column;
+                long[] selectedLongs = new long[rows.length];
+                for (int r = 0; r < rows.length; r++) {
+                    selectedLongs[r] = longs[rows[r]];
+                }
+                return selectedLongs;
+            case FLOAT:
+                float[] floats = (float[]) column;
+                float[] selectedFloats = new float[rows.length];
+                for (int r = 0; r < rows.length; r++) {
+                    selectedFloats[r] = floats[rows[r]];
+                }
+                return selectedFloats;
+            case DOUBLE:
+                double[] doubles = (double[]) column;
+                double[] selectedDoubles = new double[rows.length];
+                for (int r = 0; r < rows.length; r++) {
+                    selectedDoubles[r] = doubles[rows[r]];
+                }
+                return selectedDoubles;
+            case TEXT:
+                Binary[] binaries = (Binary[]) column;
+                Binary[] selectedBinaries = new Binary[rows.length];
+                for (int r = 0; r < rows.length; r++) {
+                    selectedBinaries[r] = binaries[rows[r]];
+                }
+                return selectedBinaries;
+            default:
+                throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+        }
+    }
+
+    /**
+     * Widen the i-th column to dataType, as a numeric value in SQL is accepted by a series of a wider type: INT32 to
+     * INT64, FLOAT or DOUBLE, INT64 to FLOAT or DOUBLE, and FLOAT to DOUBLE.
+     *
+     * @return false if the column can't be widened to dataType
+     */
+    public boolean widenColumn(int i, TSDataType dataType) {
+        Object column = columns[i];
+        int size = times.length;
+        switch (dataTypes[i]) {
+            case INT32:
+                int[] ints = (int[]) column;
+                if (dataType == TSDataType.INT64) {
+                    long[] longs = new long[size];
+                    for (int r = 0; r < size; r++) {
+                        longs[r] = ints[r];
+                    }
+                    column = longs;
+                } else if (dataType == TSDataType.FLOAT) {
+                    float[] floats = new float[size];
+                    for (int r = 0; r < size; r++) {
+                        floats[r] = ints[r];
+                    }
+                    column = floats;
+                } else if (dataType == TSDataType.DOUBLE) {
+                    double[] doubles = new double[size];
+                    for (int r = 0; r < size; r++) {
+                        doubles[r] = ints[r];
+                    }
+                    column = doubles;
+                } else {
+                    return false;
+                }
+                break;
+            case INT64:
+                long[] longs = (long[]) column;
+                if (dataType == TSDataType.FLOAT) {
+                    float[] floats = new float[size];
+                    for (int r = 0; r < size; r++) {
+                        floats[r] = longs[r];
+                    }
+                    column = floats;
+                } else if (dataType == TSDataType.DOUBLE) {
+                    double[] doubles = new double[size];
+                    for (int r = 0; r < size; r++) {
+                        doubles[r] = longs[r];
+                    }
+                    column = doubles;
+                } else {
+                    return false;
+                }
+                break;
+            case FLOAT:
+                float[] floats = (float[]) column;
+                if (dataType == TSDataType.DOUBLE) {
+                    double[] doubles = new double[size];
+                    for (int r = 0; r < size; r++) {
+                        doubles[r] = floats[r];
+                    }
+                    column = doubles;
+                } else {
+                    return false;
+                }
+                break;
+            default:
+                return false;
+        }
+        columns[i] = column;
+        dataTypes[i] = dataType;
+        return true;
+    }
+
+    /**
+     * @return an empty column of size values of dataType
+     */
+    public static Object newColumn(TSDataType dataType, int size) {
+        switch (dataType) {
+            case BOOLEAN:
+                return new boolean[size];
+            case INT32:
+                return new int[size];
+            case INT64:
+                return new long[size];
+            case FLOAT:
+                return new float[size];
+            case DOUBLE:
+                return new double[size];
+            case TEXT:
+                return new Binary[size];
+            default:
+                throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BatchInsertPlan{deltaObject=" + deltaObject + ", measurements=" + measurements.length + ", rows="
+                + times.length + "}";
+    }
+}
@@ -7,6 +7,8 @@ import java.util.Objects;
 import cn.edu.tsinghua.iotdb.qp.physical.PhysicalPlan;
 import cn.edu.tsinghua.iotdb.qp.logical.Operator;
 import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.DataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.TSRecord;
 
 /**
  * @author kangrong
@@ -16,6 +18,8 @@ public class InsertPlan extends PhysicalPlan {
 	private String deltaObject;
 	private List<String> measurements;
 	private List<String> values;
+	// typed values, used instead of values when the plan is built from a TSRecord
+	private List<DataPoint> dataPoints;
     private long time;
 
     // insertType
@@ -39,6 +43,21 @@ public class InsertPlan extends PhysicalPlan {
         this.values = insertValues;
     }
 
+    /**
+     * build a typed insert plan which keeps the values of tsRecord as primitives.
+     */
+    public InsertPlan(int insertType, TSRecord tsRecord) {
+        super(false, Operator.OperatorType.INSERT);
+        this.insertType = insertType;
+        this.time = tsRecord.time;
+        this.deltaObject = tsRecord.deltaObjectId;
+        this.dataPoints = tsRecord.dataPointList;
+        this.measurements = new ArrayList<>(dataPoints.size());
+        for (DataPoint dataPoint : dataPoints) {
+            measurements.add(dataPoint.getMeasurementId());
+        }
+    }
+
     public long getTime() {
         return time;
     }
@@ -81,7 +100,17 @@ public class InsertPlan extends PhysicalPlan {
         this.measurements = measurements;
     }
 
+    /**
+     * @return the values as Strings, derived from the data points of a typed plan on the first call
+     */
     public List<String> getValues() {
+        if (values == null && dataPoints != null) {
+            List<String> derived = new ArrayList<>(dataPoints.size());
+            for (DataPoint dataPoint : dataPoints) {
+                derived.add(String.valueOf(dataPoint.getValue()));
+            }
+            values = derived;
+        }
         return this.values;
     }
 
@@ -89,6 +118,13 @@ public class InsertPlan extends PhysicalPlan {
         this.values = values;
     }
 
+    /**
+     * @return typed values of this plan, or null if the values are given as Strings
+     */
+    public List<DataPoint> getDataPoints() {
+        return dataPoints;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -97,7 +133,7 @@ public class InsertPlan extends PhysicalPlan {
         return time == that.time &&
                 Objects.equals(deltaObject, that.deltaObject) &&
                 Objects.equals(measurements, that.measurements) &&
-                Objects.equals(values, that.values);
+                Objects.equals(getValues(), that.getValues());
     }
 
 }
@@ -3,6 +3,7 @@ package cn.edu.tsinghua.iotdb.query.engine.groupby;
 import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
 import cn.edu.tsinghua.iotdb.exception.PathErrorException;
 import cn.edu.tsinghua.iotdb.query.aggregation.AggregateFunction;
+import cn.edu.tsinghua.iotdb.query.aggregation.AggregationConstant;
 import cn.edu.tsinghua.iotdb.query.management.ReadCachePrefix;
 import cn.edu.tsinghua.iotdb.query.reader.QueryRecordReader;
 import cn.edu.tsinghua.iotdb.query.reader.ReaderType;
@@ -31,6 +32,11 @@ public class  GroupByEngineNoFilter {
 
     private static final Logger LOG = LoggerFactory.getLogger(GroupByEngineNoFilter.class);
 
+    /** the aggregations which could be calculated from the page statistics if a page lies in one group **/
+    private static final Set<String> PAGE_STATISTICS_AGGREGATIONS = new HashSet<>(Arrays.asList(
+            AggregationConstant.FIRST, AggregationConstant.LAST, AggregationConstant.MIN_VALUE,
+            AggregationConstant.MAX_VALUE, AggregationConstant.MIN_TIME, AggregationConstant.MAX_TIME));
+
     /** queryFetchSize is sed to read one column data, this variable is mainly used to debug to verify
      * the rightness of iterative readOneColumnWithoutFilter **/
     private int queryFetchSize = TsfileDBDescriptor.getInstance().getConfig().fetchSize;
@@ -146,7 +152,7 @@ public class  GroupByEngineNoFilter {
                     String aggregationKey = aggregationKey(aggregateFunction, path);
                     DynamicOneColumnData data = queryPathResult.get(aggregationKey);
                     if (data == null || (data.curIdx >= data.timeLength && !data.hasReadAll)) {
-                        data = readOneColumnWithoutFilter(path, data, null, aggregationOrdinal);
+                        data = readOneColumnWithoutFilter(path, aggregateFunction, data, null, aggregationOrdinal);
                         queryPathResult.put(aggregationKey, data);
                     }
 
@@ -156,7 +162,7 @@ public class  GroupByEngineNoFilter {
                             break;
                         }
                         if (data.curIdx >= data.timeLength && data.timeLength != 0) {
-                            data = readOneColumnWithoutFilter(path, data, null, aggregationOrdinal);
+                            data = readOneColumnWithoutFilter(path, aggregateFunction, data, null, aggregationOrdinal);
                         }
                         if (data.timeLength == 0 || data.curIdx >= data.timeLength) {
                             break;
@@ -200,7 +206,8 @@ public class  GroupByEngineNoFilter {
         return groupByResult;
     }
 
-    private DynamicOneColumnData readOneColumnWithoutFilter(Path path, DynamicOneColumnData res, Integer readLock, int aggregationOrdinal)
+    private DynamicOneColumnData readOneColumnWithoutFilter(Path path, AggregateFunction aggregateFunction, DynamicOneColumnData res,
+                                                            Integer readLock, int aggregationOrdinal)
             throws ProcessorException, IOException, PathErrorException {
 
         // this read process is batch read
@@ -214,6 +221,14 @@ public class  GroupByEngineNoFilter {
                 RecordReaderFactory.getInstance().getRecordReader(deltaObjectID, measurementID,
                 queryTimeFilter, null,  readLock, recordReaderPrefix, ReaderType.QUERY);
 
+        // these aggregations only need the first, minimum, maximum and last points of a group,
+        // so the pages in one group are read from their statistics
+        if (PAGE_STATISTICS_AGGREGATIONS.contains(aggregateFunction.name)) {
+            recordReader.setPageInOneGroup(this::inOneGroup);
+        } else {
+            recordReader.setPageInOneGroup(null);
+        }
+
         if (res == null) {
             res = recordReader.queryOneSeries(queryTimeFilter, null, null, queryFetchSize);
         } else {
@@ -223,4 +238,21 @@ public class  GroupByEngineNoFilter {
 
         return res;
     }
+
+    /**
+     * Whether the time range [minTime, maxTime] lies in one partition and one interval.
+     */
+    private boolean inOneGroup(long minTime, long maxTime) {
+        if (Math.floorDiv(minTime - origin, unit) != Math.floorDiv(maxTime - origin, unit)) {
+            return false;
+        }
+        for (int i = 0; i < longInterval.count; i += 2) {
+            long intervalStart = longInterval.flag[i] ? longInterval.v[i] : longInterval.v[i] + 1;
+            long intervalEnd = longInterval.flag[i + 1] ? longInterval.v[i + 1] : longInterval.v[i + 1] - 1;
+            if (intervalStart <= minTime && maxTime <= intervalEnd) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -25,7 +25,10 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
 
 public class QueryRecordReader extends RecordReader {
 
@@ -52,6 +55,22 @@ public class QueryRecordReader extends RecordReader {
     /** the used file stream offset **/
     private long usedPageOffset = -1;
 
+    /** tells whether the time range of a page lies in one group of a group by query, see {@link #setPageInOneGroup} **/
+    private BiPredicate<Long, Long> pageInOneGroup;
+
+    /**
+     * <p> Let the pages lying in one group be replaced by the points telling their first, minimum, maximum and last
+     * values, which is enough for the first, last, min_value, max_value, min_time and max_time aggregations of a
+     * group by query, so these pages are not decompressed.
+     * The minimum and maximum values are put at the second and third timestamp of the page, which are not their real
+     * timestamps. Set null to read all the points.
+     *
+     * @param pageInOneGroup tests the min and max timestamp of a page
+     */
+    public void setPageInOneGroup(BiPredicate<Long, Long> pageInOneGroup) {
+        this.pageInOneGroup = pageInOneGroup;
+    }
+
     /**
      * Query the data of one given series.
      */
@@ -195,6 +214,23 @@ public class QueryRecordReader extends RecordReader {
                 }
             }
 
+            // replace the current page by its statistics if all its points are in one group
+            if (queryValueFilter == null && canReducePage(pageHeader, pageMinTime, pageMaxTime)) {
+                pageReader.skipCurrentPage();
+                usedPageOffset += lastAvailable - bis.available();
+                Map<String, ByteBuffer> statistics = pageHeader.data_page_header.digest.getStatistics();
+                res.putTime(pageMinTime);
+                res.putAnObject(getStatisticValue(statistics.get(AggregationConstant.FIRST)));
+                res.putTime(pageMinTime + 1);
+                res.putAnObject(getStatisticValue(statistics.get(AggregationConstant.MIN_VALUE)));
+                res.putTime(pageMinTime + 2);
+                res.putAnObject(getStatisticValue(statistics.get(AggregationConstant.MAX_VALUE)));
+                res.putTime(pageMaxTime);
+                res.putAnObject(getStatisticValue(statistics.get(AggregationConstant.LAST)));
+                resCount += 4;
+                continue;
+            }
+
             InputStream page = pageReader.getNextPage();
             usedPageOffset += lastAvailable - bis.available();
             long[] pageTimestamps = valueReader.initTimeValue(page, pageHeader.data_page_header.num_rows, false);
@@ -498,6 +534,39 @@ public class QueryRecordReader extends RecordReader {
         return false;
     }
 
+    /**
+     * Whether the points of the page could be replaced by its statistics, the page must have at least 4 points of a
+     * numeric type, all in one group, and must not be changed by overflow or memory data.
+     */
+    private boolean canReducePage(PageHeader pageHeader, long pageMinTime, long pageMaxTime) throws IOException {
+        if (pageInOneGroup == null || pageHeader.data_page_header.num_rows < 4) {
+            return false;
+        }
+        switch (dataType) {
+            case INT32:
+            case INT64:
+            case FLOAT:
+            case DOUBLE:
+                break;
+            default:
+                return false;
+        }
+        if (pageHeader.data_page_header.digest == null) {
+            return false;
+        }
+        Map<String, ByteBuffer> statistics = pageHeader.data_page_header.digest.getStatistics();
+        if (statistics == null || !statistics.containsKey(AggregationConstant.FIRST) || !statistics.containsKey(AggregationConstant.LAST)
+                || !statistics.containsKey(AggregationConstant.MIN_VALUE) || !statistics.containsKey(AggregationConstant.MAX_VALUE)) {
+            return false;
+        }
+        return pageInOneGroup.test(pageMinTime, pageMaxTime)
+                && canCalcAggregationUsingHeader(pageMinTime, pageMaxTime, insertMemoryData);
+    }
+
+    private Object getStatisticValue(ByteBuffer statistic) {
+        return new DigestForFilter(statistic, statistic, dataType).getMaxValue();
+    }
+
     /**
      *  <p> This function is used for cross series query.
      *  Notice that: query using timestamps, query time filter and value filter is not needed,
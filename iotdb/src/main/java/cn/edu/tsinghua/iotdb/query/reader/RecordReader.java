@@ -16,6 +16,7 @@ import cn.edu.tsinghua.tsfile.file.metadata.enums.CompressionTypeName;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.timeseries.filter.definition.SingleSeriesFilterExpression;
 import cn.edu.tsinghua.tsfile.timeseries.filter.utils.Interval;
+import cn.edu.tsinghua.tsfile.timeseries.filter.utils.LongInterval;
 import cn.edu.tsinghua.tsfile.timeseries.filter.visitorImpl.SingleValueVisitor;
 import cn.edu.tsinghua.tsfile.timeseries.read.TsRandomAccessLocalFileReader;
 import cn.edu.tsinghua.tsfile.timeseries.read.ValueReader;
@@ -152,4 +153,61 @@ public class RecordReader {
     public int getReadToken() {
         return this.readToken;
     }
+
+    /**
+     * Examine whether the page header can be used to calculate the aggregation.
+     * <p>
+     * Notice that: the process could be optimized, if the query time filer and value filter contain the time and value of this page completely,
+     * the aggregation calculation can also use the page header.
+     * e.g. time filter is "time > 20 and time < 100", page time min and max is [50, 60], so the calculation can use the page header and does not need
+     * to decompress the page.
+     *
+     * @param pageMinTime
+     * @param pageMaxTime
+     * @param insertMemoryData
+     * @return
+     * @throws IOException
+     */
+    protected boolean canCalcAggregationUsingHeader(long pageMinTime, long pageMaxTime, InsertDynamicData insertMemoryData) throws IOException {
+
+        while (overflowOperationReaderCopy.hasNext() && overflowOperationReaderCopy.getCurrentOperation().getRightBound() < pageMinTime)
+            overflowOperationReaderCopy.next();
+
+        // this page is changed by overflow update operation
+        if (overflowOperationReaderCopy.hasNext() && overflowOperationReaderCopy.getCurrentOperation().getLeftBound() <= pageMaxTime) {
+            return false;
+        }
+
+        // this page is changed by overflow insert operation
+        if (insertMemoryData.hasNext()) {
+            if (pageMinTime <= insertMemoryData.getCurrentMinTime() && insertMemoryData.getCurrentMinTime() <= pageMaxTime)
+                return false;
+            if (insertMemoryData.getCurrentMinTime() < pageMinTime)
+                return false;
+        }
+
+        // no time filter and value filter
+        if (queryTimeFilter == null && queryValueFilter == null)
+            return true;
+
+        // represents that whether the time data of this page are satisfied with the time filter
+        boolean timeEligible = false;
+        if (queryTimeFilter != null) {
+            LongInterval timeInterval = (LongInterval) singleTimeVisitor.getInterval();
+            for (int i = 0; i < timeInterval.count; i += 2) {
+
+                long startTime = timeInterval.flag[i] ? timeInterval.v[i] : timeInterval.v[i] + 1;
+                if (startTime > pageMaxTime)
+                    break;
+                long endTime = timeInterval.flag[i+1] ? timeInterval.v[i+1] : timeInterval.v[i+1] - 1;
+                if (startTime <= pageMinTime && endTime >= pageMaxTime) {
+                    return true;
+                }
+            }
+        } else {
+            timeEligible = true;
+        }
+
+        return timeEligible;
+    }
 }
@@ -0,0 +1,103 @@
+package cn.edu.tsinghua.iotdb.queryV2.engine.control;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The prefetch tasks of the readers of one query admitted to the query pool. The tasks are queued here and run on the
+ * pool by at most {@code parallelism} workers, so a query with many series takes no more than its share of the pool
+ * however many batches it prefetches.
+ * <p>
+ * The query holds its admission to the pool until all its readers are exhausted or closed, or until
+ * {@link #release()} is called when the query is closed.
+ * </p>
+ */
+class PrefetchQueue {
+
+    private final ExecutorService pool;
+    private final int parallelism;
+    private final Semaphore admission;
+
+    // guarded by this
+    private final Queue<FutureTask<?>> tasks = new ArrayDeque<>();
+    private int workerNum;
+    private int readerNum;
+    private boolean released;
+
+    /**
+     * @param admission the semaphore a permit of which is acquired by the query, it is released once by this queue
+     */
+    PrefetchQueue(ExecutorService pool, int parallelism, Semaphore admission) {
+        this.pool = pool;
+        this.parallelism = parallelism;
+        this.admission = admission;
+    }
+
+    <T> Future<T> submit(Callable<T> callable) {
+        FutureTask<T> task = new FutureTask<>(callable);
+        synchronized (this) {
+            tasks.add(task);
+            if (workerNum >= parallelism) {
+                return task;
+            }
+            workerNum++;
+        }
+        pool.execute(this::runTasks);
+        return task;
+    }
+
+    private void runTasks() {
+        while (true) {
+            FutureTask<?> task;
+            synchronized (this) {
+                task = tasks.poll();
+                if (task == null) {
+                    workerNum--;
+                    return;
+                }
+            }
+            task.run();
+        }
+    }
+
+    /**
+     * Count the readers that are about to be created, before any of them may end.
+     */
+    synchronized void addReaders(int num) {
+        readerNum += num;
+    }
+
+    /**
+     * Called once by every reader when its series is exhausted or it is closed.
+     */
+    synchronized void onReaderEnd() {
+        if (--readerNum == 0) {
+            release();
+        }
+    }
+
+    /**
+     * Release the admission if no reader is left, used when the query does not prefetch after all.
+     */
+    synchronized void releaseIfNoReader() {
+        if (readerNum == 0) {
+            release();
+        }
+    }
+
+    synchronized void release() {
+        if (!released) {
+            released = true;
+            admission.release();
+        }
+    }
+
+    synchronized boolean isReleased() {
+        return released;
+    }
+}
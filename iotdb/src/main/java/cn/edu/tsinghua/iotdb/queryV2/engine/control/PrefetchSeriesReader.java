@@ -0,0 +1,168 @@
+package cn.edu.tsinghua.iotdb.queryV2.engine.control;
+
+import cn.edu.tsinghua.iotdb.engine.memcontrol.BasicMemController;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.SeriesReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the next batch of points of a series on the query pool while the query consumes the current one, so that the
+ * series of a query are read in parallel while they are merged by the thread of the query.
+ * <p>
+ * At most one batch is read at a time, so the wrapped reader is only used by one thread at a time. The batches are
+ * read by the {@link PrefetchQueue} of the query. The reader frees the memory reserved for its series, and tells the
+ * queue that it ends, once the series is exhausted or the reader is closed.
+ * </p>
+ */
+class PrefetchSeriesReader implements SeriesReader {
+
+    private final SeriesReader reader;
+    private final PrefetchQueue prefetchQueue;
+    private final int batchSize;
+    private final Object reservation;
+    private final long reservedSize;
+    private final QueryJobManager queryJobManager = QueryJobManager.getInstance();
+    // the jobs added by the pool threads while reading, handed to the thread of the query
+    private final ConcurrentLinkedQueue<Long> jobIdsOfPool = new ConcurrentLinkedQueue<>();
+
+    private List<TimeValuePair> batch;
+    private int index;
+    private Future<List<TimeValuePair>> nextBatch;
+    private boolean ended;
+
+    /**
+     * @param firstBatch the first points of the series, read by {@link #readBatch(SeriesReader, int)}
+     */
+    PrefetchSeriesReader(SeriesReader reader, List<TimeValuePair> firstBatch, PrefetchQueue prefetchQueue,
+            int batchSize, Object reservation, long reservedSize) {
+        this.reader = reader;
+        this.prefetchQueue = prefetchQueue;
+        this.batchSize = batchSize;
+        this.reservation = reservation;
+        this.reservedSize = reservedSize;
+        onBatch(firstBatch);
+    }
+
+    static List<TimeValuePair> readBatch(SeriesReader reader, int batchSize) throws IOException {
+        List<TimeValuePair> batch = new ArrayList<>(batchSize);
+        while (batch.size() < batchSize && reader.hasNext()) {
+            batch.add(reader.next());
+        }
+        return batch;
+    }
+
+    private void onBatch(List<TimeValuePair> newBatch) {
+        batch = newBatch;
+        index = 0;
+        if (newBatch.size() < batchSize) {
+            // the series is exhausted
+            end();
+        } else {
+            nextBatch = prefetchQueue.submit(() -> {
+                try {
+                    return readBatch(reader, batchSize);
+                } finally {
+                    jobIdsOfPool.addAll(queryJobManager.removeJobsOfCurrentThread());
+                }
+            });
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (index < batch.size()) {
+            return true;
+        }
+        if (nextBatch == null) {
+            return false;
+        }
+        List<TimeValuePair> newBatch;
+        try {
+            newBatch = nextBatch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            nextBatch = null;
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            queryJobManager.addJobsForOneQuery(jobIdsOfPool);
+            jobIdsOfPool.clear();
+        }
+        nextBatch = null;
+        onBatch(newBatch);
+        return index < batch.size();
+    }
+
+    @Override
+    public TimeValuePair next() throws IOException {
+        if (!hasNext()) {
+            throw new IOException("No more points in the series");
+        }
+        return batch.get(index++);
+    }
+
+    @Override
+    public void skipCurrentTimeValuePair() throws IOException {
+        next();
+    }
+
+    /**
+     * Skips the buffered points before the timestamp, the batch being read is left as it is.
+     */
+    @Override
+    public void skipTo(long timestamp) throws IOException {
+        while (index < batch.size() && batch.get(index).getTimestamp() < timestamp) {
+            index++;
+        }
+    }
+
+    /**
+     * Waits for the batch being read, as the files of the series may be closed with the query right after.
+     */
+    @Override
+    public void close() throws IOException {
+        // a batch still queued is not read at all
+        if (nextBatch != null && !nextBatch.cancel(false)) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    nextBatch.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    break;
+                }
+            }
+            queryJobManager.addJobsForOneQuery(jobIdsOfPool);
+            jobIdsOfPool.clear();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        nextBatch = null;
+        batch.clear();
+        index = 0;
+        end();
+        reader.close();
+    }
+
+    private void end() {
+        if (ended) {
+            return;
+        }
+        ended = true;
+        BasicMemController.getInstance().reportFree(reservation, reservedSize);
+        prefetchQueue.onReaderEnd();
+    }
+}
@@ -36,6 +36,26 @@ public class QueryJobManager {
         return jobIdCurrent;
     }
 
+    /**
+     * Remove the jobs added by the current thread, e.g. a thread of the query pool creating series readers for a
+     * query, so that they can be handed to the thread of the query by {@link #addJobsForOneQuery(Collection)}.
+     */
+    public Set<Long> removeJobsOfCurrentThread() {
+        Set<Long> jobIds = queryJobIds.get();
+        queryJobIds.remove();
+        return jobIds == null ? Collections.emptySet() : jobIds;
+    }
+
+    public void addJobsForOneQuery(Collection<Long> jobIds) {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        if (queryJobIds.get() == null) {
+            queryJobIds.set(new HashSet<>());
+        }
+        queryJobIds.get().addAll(jobIds);
+    }
+
     public void closeOneJobForOneQuery(long jobId) throws IOException {
         if (queryJobIds.get() == null && queryJobIds.get().contains(jobId)) {
             overflowFileStreamManager.closeAll(jobId);
@@ -0,0 +1,297 @@
+package cn.edu.tsinghua.iotdb.queryV2.engine.control;
+
+import cn.edu.tsinghua.iotdb.concurrent.ThreadName;
+import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
+import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
+import cn.edu.tsinghua.iotdb.engine.memcontrol.BasicMemController;
+import cn.edu.tsinghua.iotdb.exception.FileNodeManagerException;
+import cn.edu.tsinghua.tsfile.common.conf.TSFileDescriptor;
+import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.SeriesReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates and prefetches the series readers of the queries on a pool shared by all queries.
+ * <p>
+ * A query with a few series creates its readers in its own thread, so point queries never wait behind the large
+ * scans. A larger query takes at most {@link TsfileDBConfig#queryParallelism} threads, its own one included, which
+ * take the series one by one, and at most {@link TsfileDBConfig#maxConcurrentParallelQuery} queries use the pool at the
+ * same time. A query not admitted to the pool creates its readers in its own thread instead of waiting.
+ * </p>
+ * <p>
+ * The readers of an admitted query read the next {@link #PREFETCH_SIZE} points of their series on the pool while the
+ * query merges the current ones, by at most {@link TsfileDBConfig#queryParallelism} threads of the pool too, see
+ * {@link PrefetchQueue}. The query keeps its admission until all its readers are exhausted or it is closed. Such a
+ * query reserves a page and a prefetched batch per series from
+ * {@link BasicMemController} first, and runs in its own thread without prefetching if the reservation would make the
+ * memory usage dangerous. The reservation of a series is freed when the series is exhausted or the query is closed
+ * by {@link #closeSeriesReadersOfCurrentQuery()}.
+ * </p>
+ * The jobs added to {@link QueryJobManager} by the pool threads are handed to the thread of the query, so that they
+ * are closed with the query.
+ */
+public class QueryScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryScheduler.class);
+
+    /**
+     * A query uses one more thread for every such number of series.
+     */
+    private static final int SERIES_NUM_PER_THREAD = 4;
+
+    /**
+     * The number of points read ahead of the query for each series.
+     */
+    private static final int PREFETCH_SIZE = 256;
+
+    /**
+     * The estimated size of a prefetched {@link TimeValuePair} with its value.
+     */
+    private static final int POINT_SIZE = 64;
+
+    private TsfileDBConfig config;
+    private int maxParallelQuery;
+    private Semaphore admission;
+    private QueryJobManager queryJobManager;
+    // the prefetching readers of the queries of the current thread, closed with the queries
+    private ThreadLocal<List<PrefetchSeriesReader>> readersOfQuery = new ThreadLocal<>();
+    // the prefetch tasks of the query of the current thread, which holds its admission until it is released
+    private ThreadLocal<PrefetchQueue> prefetchQueueOfQuery = new ThreadLocal<>();
+
+    private QueryScheduler() {
+        config = TsfileDBDescriptor.getInstance().getConfig();
+        maxParallelQuery = config.maxConcurrentParallelQuery;
+        admission = new Semaphore(maxParallelQuery);
+        queryJobManager = QueryJobManager.getInstance();
+    }
+
+    private static class QuerySchedulerHolder {
+        private static final QueryScheduler INSTANCE = new QueryScheduler();
+    }
+
+    public static QueryScheduler getInstance() {
+        return QuerySchedulerHolder.INSTANCE;
+    }
+
+    public interface SeriesReaderCreator<T extends SeriesReader> {
+        T create(Path path) throws IOException, FileNodeManagerException;
+    }
+
+    /**
+     * Create the readers of the series. The readers of a query admitted to the pool prefetch their series on the pool
+     * and must be closed by {@link #closeSeriesReadersOfCurrentQuery()} when the query ends.
+     *
+     * @return the readers in the order of the series
+     */
+    public LinkedHashMap<Path, SeriesReader> createSeriesReaders(List<Path> paths,
+            SeriesReaderCreator<? extends SeriesReader> creator) throws IOException, FileNodeManagerException {
+        int threadNum = Math.min(config.queryParallelism,
+                (paths.size() + SERIES_NUM_PER_THREAD - 1) / SERIES_NUM_PER_THREAD);
+        PrefetchQueue prefetchQueue = threadNum > 1 ? admit() : null;
+        if (prefetchQueue != null) {
+            long seriesSize = (long) PREFETCH_SIZE * POINT_SIZE
+                    + TSFileDescriptor.getInstance().getConfig().pageSizeInByte;
+            Object reservation = new Object();
+            BasicMemController memController = BasicMemController.getInstance();
+            if (memController.reportUse(reservation, seriesSize * paths.size())
+                    != BasicMemController.UsageLevel.DANGEROUS) {
+                return createInParallel(paths, creator, threadNum, prefetchQueue, reservation, seriesSize);
+            }
+            memController.reportFree(reservation, seriesSize * paths.size());
+            prefetchQueue.releaseIfNoReader();
+            LOGGER.warn("The memory usage is dangerous, the query of {} series runs without prefetching",
+                    paths.size());
+        }
+        LinkedHashMap<Path, SeriesReader> readers = new LinkedHashMap<>();
+        for (Path path : paths) {
+            readers.put(path, creator.create(path));
+        }
+        return readers;
+    }
+
+    /**
+     * Close the prefetching readers created by the queries of the current thread, it waits for the batches being read
+     * so that the files of the queries can be closed afterwards. The admission of the query is released.
+     */
+    public void closeSeriesReadersOfCurrentQuery() throws IOException {
+        List<PrefetchSeriesReader> readers = readersOfQuery.get();
+        readersOfQuery.remove();
+        PrefetchQueue prefetchQueue = prefetchQueueOfQuery.get();
+        prefetchQueueOfQuery.remove();
+        IOException failure = null;
+        if (readers != null) {
+            for (PrefetchSeriesReader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+        }
+        if (prefetchQueue != null) {
+            prefetchQueue.release();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return the number of the queries holding their admission to the pool
+     */
+    public int getAdmittedQueryNum() {
+        return maxParallelQuery - admission.availablePermits();
+    }
+
+    /**
+     * Admit the query of the current thread to the pool, a query creating more readers keeps its admission.
+     *
+     * @return the prefetch tasks of the query, or null if the query is not admitted
+     */
+    private PrefetchQueue admit() {
+        PrefetchQueue prefetchQueue = prefetchQueueOfQuery.get();
+        if (prefetchQueue != null && !prefetchQueue.isReleased()) {
+            return prefetchQueue;
+        }
+        if (!admission.tryAcquire()) {
+            return null;
+        }
+        prefetchQueue = new PrefetchQueue(QueryPoolHolder.POOL, config.queryParallelism, admission);
+        prefetchQueueOfQuery.set(prefetchQueue);
+        return prefetchQueue;
+    }
+
+    private LinkedHashMap<Path, SeriesReader> createInParallel(List<Path> paths,
+            SeriesReaderCreator<? extends SeriesReader> creator, int threadNum, PrefetchQueue prefetchQueue,
+            Object reservation, long seriesSize) throws IOException, FileNodeManagerException {
+        List<SeriesReader> readers = new ArrayList<>(paths.size());
+        List<List<TimeValuePair>> firstBatches = new ArrayList<>(paths.size());
+        for (int i = 0; i < paths.size(); i++) {
+            readers.add(null);
+            firstBatches.add(null);
+        }
+        AtomicInteger nextIndex = new AtomicInteger();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        ConcurrentLinkedQueue<Long> jobIdsOfPool = new ConcurrentLinkedQueue<>();
+
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int i = 1; i < threadNum; i++) {
+            tasks.add(QueryPoolHolder.POOL.submit(() -> {
+                try {
+                    createSeriesReaders(paths, creator, readers, firstBatches, nextIndex, failure);
+                } finally {
+                    jobIdsOfPool.addAll(queryJobManager.removeJobsOfCurrentThread());
+                }
+            }));
+        }
+        createSeriesReaders(paths, creator, readers, firstBatches, nextIndex, failure);
+        waitForTasks(tasks, failure);
+        queryJobManager.addJobsForOneQuery(jobIdsOfPool);
+
+        Exception e = failure.get();
+        if (e != null) {
+            closeReaders(readers, e);
+            BasicMemController.getInstance().reportFree(reservation, seriesSize * paths.size());
+            prefetchQueue.releaseIfNoReader();
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            } else if (e instanceof FileNodeManagerException) {
+                throw (FileNodeManagerException) e;
+            }
+            throw new IOException(e);
+        }
+        if (readersOfQuery.get() == null) {
+            readersOfQuery.set(new ArrayList<>());
+        }
+        LinkedHashMap<Path, SeriesReader> readersOfPaths = new LinkedHashMap<>();
+        prefetchQueue.addReaders(paths.size());
+        for (int i = 0; i < paths.size(); i++) {
+            PrefetchSeriesReader reader = new PrefetchSeriesReader(readers.get(i), firstBatches.get(i),
+                    prefetchQueue, PREFETCH_SIZE, reservation, seriesSize);
+            readersOfQuery.get().add(reader);
+            readersOfPaths.put(paths.get(i), reader);
+        }
+        return readersOfPaths;
+    }
+
+    private void createSeriesReaders(List<Path> paths, SeriesReaderCreator<? extends SeriesReader> creator,
+            List<SeriesReader> readers, List<List<TimeValuePair>> firstBatches, AtomicInteger nextIndex,
+            AtomicReference<Exception> failure) {
+        int index;
+        while (failure.get() == null && (index = nextIndex.getAndIncrement()) < paths.size()) {
+            try {
+                SeriesReader reader = creator.create(paths.get(index));
+                readers.set(index, reader);
+                firstBatches.set(index, PrefetchSeriesReader.readBatch(reader, PREFETCH_SIZE));
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /**
+     * Close the readers created before the failure, the errors of closing them are added to the failure.
+     */
+    private void closeReaders(List<SeriesReader> readers, Exception failure) {
+        for (SeriesReader reader : readers) {
+            if (reader == null) {
+                continue;
+            }
+            try {
+                reader.close();
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * Wait until all the tasks end, even if interrupted, as the jobs they add must be handed to the query.
+     */
+    private void waitForTasks(List<Future<?>> tasks, AtomicReference<Exception> failure) {
+        boolean interrupted = false;
+        for (Future<?> task : tasks) {
+            while (true) {
+                try {
+                    task.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    failure.compareAndSet(null, e);
+                } catch (ExecutionException e) {
+                    failure.compareAndSet(null, e);
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class QueryPoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool(
+                TsfileDBDescriptor.getInstance().getConfig().concurrentQueryThread, pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName(ThreadName.QUERY_SERIES.getName() + "-" + thread.getPoolIndex());
+                    thread.setDaemon(true);
+                    return thread;
+                }, null, true);
+    }
+}
@@ -1,18 +1,93 @@
 package cn.edu.tsinghua.iotdb.queryV2.engine.control;
 
+import cn.edu.tsinghua.iotdb.engine.cache.ChunkCacheManager;
+import cn.edu.tsinghua.tsfile.common.utils.ITsRandomAccessFileReader;
+import cn.edu.tsinghua.tsfile.compress.UnCompressor;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.CompressionTypeName;
+import cn.edu.tsinghua.tsfile.file.utils.ReadWriteThriftFormatUtils;
+import cn.edu.tsinghua.tsfile.format.PageHeader;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.common.EncodedSeriesChunkDescriptor;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.common.MemSeriesChunk;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.common.SeriesChunk;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.controller.SeriesChunkLoader;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 /**
- * Created by zhangjinrui on 2018/1/24.
+ * Loads the series chunks of one tsfile through the {@link ChunkCacheManager}, so the chunks read by a query are
+ * reused by the other queries. If the cache keeps decompressed pages, the returned chunk is described as
+ * uncompressed.
  */
-public class SeriesChunkLoaderIoTDBImpl implements SeriesChunkLoader{
+public class SeriesChunkLoaderIoTDBImpl implements SeriesChunkLoader {
+
+    private final String filePath;
+    private final ITsRandomAccessFileReader randomAccessFileReader;
+    private final ChunkCacheManager chunkCacheManager;
+
+    public SeriesChunkLoaderIoTDBImpl(String filePath, ITsRandomAccessFileReader randomAccessFileReader) {
+        this(filePath, randomAccessFileReader, ChunkCacheManager.getInstance());
+    }
+
+    public SeriesChunkLoaderIoTDBImpl(String filePath, ITsRandomAccessFileReader randomAccessFileReader,
+                                      ChunkCacheManager chunkCacheManager) {
+        this.filePath = filePath;
+        this.randomAccessFileReader = randomAccessFileReader;
+        this.chunkCacheManager = chunkCacheManager;
+    }
 
     @Override
     public SeriesChunk getMemSeriesChunk(EncodedSeriesChunkDescriptor encodedSeriesChunkDescriptor) throws IOException {
-        return null;
+        boolean decompress = chunkCacheManager.isCacheDecompressedPage()
+                && encodedSeriesChunkDescriptor.getCompressionTypeName() != CompressionTypeName.UNCOMPRESSED;
+        byte[] bytes = chunkCacheManager.get(filePath, encodedSeriesChunkDescriptor.getOffsetInFile(), () -> {
+            byte[] chunkBytes = load(encodedSeriesChunkDescriptor);
+            return decompress ? decompress(chunkBytes, encodedSeriesChunkDescriptor.getCompressionTypeName()) : chunkBytes;
+        });
+        EncodedSeriesChunkDescriptor descriptor = encodedSeriesChunkDescriptor;
+        if (decompress) {
+            descriptor = new EncodedSeriesChunkDescriptor(filePath, encodedSeriesChunkDescriptor.getOffsetInFile(),
+                    bytes.length, CompressionTypeName.UNCOMPRESSED, encodedSeriesChunkDescriptor.getDataType(),
+                    encodedSeriesChunkDescriptor.getValueDigest(), encodedSeriesChunkDescriptor.getMinTimestamp(),
+                    encodedSeriesChunkDescriptor.getMaxTimestamp(), encodedSeriesChunkDescriptor.getCountOfPoints(),
+                    encodedSeriesChunkDescriptor.getEnumValueList());
+            descriptor.setMaxTombstoneTime(encodedSeriesChunkDescriptor.getMaxTombstoneTime());
+        }
+        return new MemSeriesChunk(descriptor, new ByteArrayInputStream(bytes));
+    }
+
+    private byte[] load(EncodedSeriesChunkDescriptor encodedSeriesChunkDescriptor) throws IOException {
+        int seriesChunkLength = (int) encodedSeriesChunkDescriptor.getLengthOfBytes();
+        byte[] buf = new byte[seriesChunkLength];
+        randomAccessFileReader.seek(encodedSeriesChunkDescriptor.getOffsetInFile());
+        int readLength = randomAccessFileReader.read(buf, 0, seriesChunkLength);
+        if (readLength != seriesChunkLength) {
+            throw new IOException(String.format("length of seriesChunk read from %s is not right. Expected: %d. Actual: %d",
+                    filePath, seriesChunkLength, readLength));
+        }
+        return buf;
+    }
+
+    /**
+     * Rewrite every page of the chunk with its body decompressed and its header telling the decompressed size.
+     */
+    private byte[] decompress(byte[] chunkBytes, CompressionTypeName compressionTypeName) throws IOException {
+        UnCompressor unCompressor = UnCompressor.getUnCompressor(compressionTypeName);
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(chunkBytes);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(chunkBytes.length * 2);
+        while (inputStream.available() > 0) {
+            PageHeader pageHeader = ReadWriteThriftFormatUtils.readPageHeader(inputStream);
+            byte[] compressedPageBody = new byte[pageHeader.getCompressed_page_size()];
+            if (inputStream.read(compressedPageBody, 0, compressedPageBody.length) != compressedPageBody.length) {
+                throw new IOException(String.format("A page of the chunk in %s is truncated", filePath));
+            }
+            byte[] pageBody = unCompressor.uncompress(compressedPageBody);
+            pageHeader.setCompressed_page_size(pageBody.length);
+            pageHeader.setUncompressed_page_size(pageBody.length);
+            ReadWriteThriftFormatUtils.writePageHeader(pageHeader, outputStream);
+            outputStream.write(pageBody);
+        }
+        return outputStream.toByteArray();
     }
 }
@@ -6,6 +6,7 @@ import cn.edu.tsinghua.iotdb.queryV2.engine.externalsort.serialize.impl.FixLengt
 import cn.edu.tsinghua.iotdb.queryV2.engine.externalsort.serialize.impl.FixLengthTimeValuePairSerializer;
 import cn.edu.tsinghua.iotdb.queryV2.engine.reader.PriorityMergeSortTimeValuePairReader;
 import cn.edu.tsinghua.iotdb.queryV2.engine.reader.PriorityTimeValuePairReader;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
 
 import java.io.IOException;
 import java.util.List;
@@ -15,6 +16,8 @@ import java.util.List;
  */
 public class LineMerger {
 
+    private static final int BATCH_SIZE = 1024;
+
     private String tmpFilePath;
 
     public LineMerger(String tmpFilePath) {
@@ -24,8 +27,12 @@ public class LineMerger {
     public PriorityTimeValuePairReader merge(List<PriorityTimeValuePairReader> priorityTimeValuePairReaders) throws IOException {
         TimeValuePairSerializer serializer = new FixLengthTimeValuePairSerializer(tmpFilePath);
         PriorityMergeSortTimeValuePairReader reader = new PriorityMergeSortTimeValuePairReader(priorityTimeValuePairReaders);
-        while (reader.hasNext()) {
-            serializer.write(reader.next());
+        TimeValuePair[] batch = new TimeValuePair[BATCH_SIZE];
+        int count;
+        while ((count = reader.nextBatch(batch)) > 0) {
+            for (int i = 0; i < count; i++) {
+                serializer.write(batch[i]);
+            }
         }
         reader.close();
         serializer.close();
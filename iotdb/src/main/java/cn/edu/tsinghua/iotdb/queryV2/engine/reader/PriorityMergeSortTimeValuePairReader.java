@@ -7,17 +7,29 @@ import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.TimeValuePairReader;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.PriorityQueue;
 
 /**
+ * Merges the readers by time, among the points of the same time the one of the highest priority is returned.
+ * <p>
+ * The head point of every reader is kept in a slot, and the slots are ordered by a loser tree on the head time and the
+ * priority. Taking the next point replays only the path from the slot to the root, and nothing is allocated per point.
+ * </p>
  * Created by zhangjinrui on 2018/1/11.
  */
 public class PriorityMergeSortTimeValuePairReader <T extends PriorityTimeValuePairReader>
         implements TimeValuePairReader, SeriesReader {
 
     protected List<T> readerList;
-    protected PriorityQueue<Element> heap;
+
+    private int size;
+    // the head point of each reader, null if the reader is exhausted
+    private TimeValuePair[] heads;
+    private long[] headTimes;
+    private Priority[] priorities;
+    // tree[0] is the winner, tree[1, size) are the losers of the inner nodes, the leaf i is under the node (i + size) / 2
+    private int[] tree;
 
     public PriorityMergeSortTimeValuePairReader(T... readers) throws IOException {
         readerList = new ArrayList<T>();
@@ -33,34 +45,109 @@ public class PriorityMergeSortTimeValuePairReader <T extends PriorityTimeValuePa
     }
 
     private void init() throws IOException {
-        heap = new PriorityQueue<>();
-        for (int i = 0; i < readerList.size(); i++) {
+        size = readerList.size();
+        heads = new TimeValuePair[size];
+        headTimes = new long[size];
+        priorities = new Priority[size];
+        tree = new int[Math.max(size, 1)];
+        for (int i = 0; i < size; i++) {
+            priorities[i] = readerList.get(i).getPriority();
             if (readerList.get(i).hasNext()) {
-                heap.add(new Element(i, readerList.get(i).next(), readerList.get(i).getPriority()));
+                heads[i] = readerList.get(i).next();
+                headTimes[i] = heads[i].getTimestamp();
             }
         }
+        // the virtual leaf "size" beats all the others, so it is pushed up and replaced by the real winners
+        Arrays.fill(tree, size);
+        for (int i = size - 1; i >= 0; i--) {
+            adjust(i);
+        }
     }
 
     @Override
     public boolean hasNext() throws IOException {
-        return heap.size() > 0;
+        return peek() != null;
     }
 
     @Override
     public TimeValuePair next() throws IOException {
-        Element top = heap.peek();
-        updateHeap(top);
-        return top.timeValuePair;
+        TimeValuePair top = peek();
+        updateHeads(top);
+        return top;
+    }
+
+    /**
+     * Fill the batch with the next points.
+     *
+     * @return the number of the points put into the batch, 0 if there is no more point
+     */
+    public int nextBatch(TimeValuePair[] batch) throws IOException {
+        int count = 0;
+        while (count < batch.length && hasNext()) {
+            batch[count++] = next();
+        }
+        return count;
+    }
+
+    private void updateHeads(TimeValuePair top) throws IOException {
+        while (peek() != null && headTimes[tree[0]] == top.getTimestamp()) {
+            int index = tree[0];
+            T reader = readerList.get(index);
+            setHead(index, reader.hasNext() ? reader.next() : null);
+        }
     }
 
-    private void updateHeap(Element top) throws IOException {
-        while (heap.size() > 0 && heap.peek().timeValuePair.getTimestamp() == top.timeValuePair.getTimestamp()) {
-            Element e = heap.poll();
-            PriorityTimeValuePairReader priorityTimeValuePairReader = readerList.get(e.index);
-            if (priorityTimeValuePairReader.hasNext()) {
-                heap.add(new Element(e.index, priorityTimeValuePairReader.next(), priorityTimeValuePairReader.getPriority()));
+    /**
+     * @return the head point of the winner, null if all the readers are exhausted
+     */
+    protected TimeValuePair peek() {
+        return size == 0 ? null : heads[tree[0]];
+    }
+
+    /**
+     * @return the index of the reader whose head point is returned by {@link #peek()}
+     */
+    protected int peekIndex() {
+        return tree[0];
+    }
+
+    /**
+     * Replace the head point of a reader, null if the reader is exhausted.
+     */
+    protected void setHead(int index, TimeValuePair head) {
+        heads[index] = head;
+        if (head != null) {
+            headTimes[index] = head.getTimestamp();
+        }
+        adjust(index);
+    }
+
+    private void adjust(int leaf) {
+        int winner = leaf;
+        for (int node = (leaf + size) >> 1; node > 0; node >>= 1) {
+            if (beats(tree[node], winner)) {
+                int loser = winner;
+                winner = tree[node];
+                tree[node] = loser;
             }
         }
+        tree[0] = winner;
+    }
+
+    private boolean beats(int a, int b) {
+        if (a == size) {
+            return true;
+        }
+        if (b == size || heads[a] == null) {
+            return false;
+        }
+        if (heads[b] == null) {
+            return true;
+        }
+        if (headTimes[a] != headTimes[b]) {
+            return headTimes[a] < headTimes[b];
+        }
+        return priorities[a].compareTo(priorities[b]) > 0;
     }
 
     @Override
@@ -70,29 +157,31 @@ public class PriorityMergeSortTimeValuePairReader <T extends PriorityTimeValuePa
         }
     }
 
+    /**
+     * The readers whose heads are before the timestamp skip to it, their points still before it are dropped.
+     */
     @Override
-    public void close() throws IOException {
-        for (TimeValuePairReader timeValuePairReader : readerList) {
-            timeValuePairReader.close();
+    public void skipTo(long timestamp) throws IOException {
+        while (peek() != null && headTimes[tree[0]] < timestamp) {
+            int index = tree[0];
+            T reader = readerList.get(index);
+            reader.skipTo(timestamp);
+            TimeValuePair head = null;
+            while (reader.hasNext()) {
+                TimeValuePair timeValuePair = reader.next();
+                if (timeValuePair.getTimestamp() >= timestamp) {
+                    head = timeValuePair;
+                    break;
+                }
+            }
+            setHead(index, head);
         }
     }
 
-    protected class Element implements Comparable<Element> {
-        int index;
-        TimeValuePair timeValuePair;
-        Priority priority;
-
-        public Element(int index, TimeValuePair timeValuePair, Priority priority) {
-            this.index = index;
-            this.timeValuePair = timeValuePair;
-            this.priority = priority;
-        }
-
-        @Override
-        public int compareTo(Element o) {
-            return this.timeValuePair.getTimestamp() > o.timeValuePair.getTimestamp() ? 1 :
-                    this.timeValuePair.getTimestamp() < o.timeValuePair.getTimestamp() ? -1 :
-                            o.priority.compareTo(this.priority);
+    @Override
+    public void close() throws IOException {
+        for (TimeValuePairReader timeValuePairReader : readerList) {
+            timeValuePairReader.close();
         }
     }
 }
@@ -34,12 +34,12 @@ public class PriorityMergeSortTimeValuePairReaderByTimestamp extends PriorityMer
         if(hasCachedTimeValuePair && cachedTimeValuePair.getTimestamp() >= currentTimestamp){
             return true;
         }
-        while (heap.size()>0){
-            Element top = heap.peek();
+        while (peek() != null){
+            TimeValuePair top = peek();
             updateHeap(top);
-            if(top.timeValuePair.getTimestamp() >= currentTimestamp){
+            if(top.getTimestamp() >= currentTimestamp){
                 hasCachedTimeValuePair = true;
-                cachedTimeValuePair = top.timeValuePair;
+                cachedTimeValuePair = top;
                 return true;
             }
         }
@@ -53,32 +53,28 @@ public class PriorityMergeSortTimeValuePairReaderByTimestamp extends PriorityMer
             return cachedTimeValuePair;
         }
 
-        Element top = heap.peek();
+        TimeValuePair top = peek();
         updateHeap(top);
-        return top.timeValuePair;
+        return top;
     }
 
-    private void updateHeap(Element top) throws IOException {
-        while (heap.size() > 0 && heap.peek().timeValuePair.getTimestamp() == top.timeValuePair.getTimestamp()) {
-            Element e = heap.poll();
-            PriorityTimeValuePairReaderByTimestamp priorityTimeValuePairReader = readerList.get(e.index);
+    private void updateHeap(TimeValuePair top) throws IOException {
+        while (peek() != null && peek().getTimestamp() == top.getTimestamp()) {
+            int index = peekIndex();
+            PriorityTimeValuePairReaderByTimestamp priorityTimeValuePairReader = readerList.get(index);
 
-            if(currentTimestamp > top.timeValuePair.getTimestamp()){
+            if(currentTimestamp > top.getTimestamp()){
                 TsPrimitiveType value = priorityTimeValuePairReader.getValueInTimestamp(currentTimestamp);
                 if(value != null){
-                    heap.add(new Element(e.index, new TimeValuePair(currentTimestamp, value), priorityTimeValuePairReader.getPriority()));
+                    setHead(index, new TimeValuePair(currentTimestamp, value));
                 }
                 else {
                     //judge if priorityTimeValuePairReader has a timeValuePair whose time > currentTimestamp when it doesn't has a timeValuePair in currentTimestamp
-                    if (priorityTimeValuePairReader.hasNext()) {
-                        heap.add(new Element(e.index, priorityTimeValuePairReader.next(), priorityTimeValuePairReader.getPriority()));
-                    }
+                    setHead(index, priorityTimeValuePairReader.hasNext() ? priorityTimeValuePairReader.next() : null);
                 }
             }
             else {
-                if (priorityTimeValuePairReader.hasNext()) {
-                    heap.add(new Element(e.index, priorityTimeValuePairReader.next(), priorityTimeValuePairReader.getPriority()));
-                }
+                setHead(index, priorityTimeValuePairReader.hasNext() ? priorityTimeValuePairReader.next() : null);
             }
         }
     }
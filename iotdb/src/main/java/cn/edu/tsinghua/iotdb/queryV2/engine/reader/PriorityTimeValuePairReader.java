@@ -34,6 +34,11 @@ public class PriorityTimeValuePairReader implements TimeValuePairReader {
         seriesReader.next();
     }
 
+    @Override
+    public void skipTo(long timestamp) throws IOException {
+        seriesReader.skipTo(timestamp);
+    }
+
     @Override
     public void close() throws IOException {
         seriesReader.close();
@@ -2,7 +2,8 @@ package cn.edu.tsinghua.iotdb.queryV2.engine.reader.series;
 
 import cn.edu.tsinghua.iotdb.engine.querycontext.RawSeriesChunk;
 import cn.edu.tsinghua.tsfile.timeseries.filterV2.basic.Filter;
-import cn.edu.tsinghua.tsfile.timeseries.filterV2.visitor.impl.TimeValuePairFilterVisitorImpl;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.basic.PrimitiveFilter;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.visitor.impl.PrimitiveFilterVisitor;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.SeriesReader;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.TimeValuePairReader;
@@ -17,16 +18,14 @@ public class RawSeriesChunkReaderWithFilter implements TimeValuePairReader, Seri
 
     private RawSeriesChunk rawSeriesChunk;
     private Iterator<TimeValuePair> timeValuePairIterator;
-    private Filter<?> filter;
-    private TimeValuePairFilterVisitorImpl filterVisitor;
+    private PrimitiveFilter filter;
     private boolean hasCachedTimeValuePair;
     private TimeValuePair cachedTimeValuePair;
 
     public RawSeriesChunkReaderWithFilter(RawSeriesChunk rawSeriesChunk, Filter<?> filter) {
         this.rawSeriesChunk = rawSeriesChunk;
         timeValuePairIterator = rawSeriesChunk.getIterator();
-        this.filter = filter;
-        this.filterVisitor = new TimeValuePairFilterVisitorImpl();
+        this.filter = new PrimitiveFilterVisitor(rawSeriesChunk.getDataType()).compile(filter);
     }
 
     @Override
@@ -36,7 +35,7 @@ public class RawSeriesChunkReaderWithFilter implements TimeValuePairReader, Seri
         }
         while (timeValuePairIterator.hasNext()) {
             TimeValuePair timeValuePair = timeValuePairIterator.next();
-            if (filterVisitor.satisfy(timeValuePair, filter)) {
+            if (filter.satisfy(timeValuePair)) {
                 hasCachedTimeValuePair = true;
                 cachedTimeValuePair = timeValuePair;
                 break;
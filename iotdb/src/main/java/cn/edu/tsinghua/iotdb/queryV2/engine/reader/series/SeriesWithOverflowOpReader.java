@@ -102,6 +102,14 @@ public class SeriesWithOverflowOpReader implements SeriesReader {
         next();
     }
 
+    @Override
+    public void skipTo(long timestamp) throws IOException {
+        if (hasCacheTimeValuePair && cachedTimeValuePair.getTimestamp() < timestamp) {
+            hasCacheTimeValuePair = false;
+        }
+        seriesReader.skipTo(timestamp);
+    }
+
     @Override
     public void close() throws IOException {
         seriesReader.close();
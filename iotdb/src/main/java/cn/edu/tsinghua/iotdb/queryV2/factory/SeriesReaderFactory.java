@@ -13,10 +13,9 @@ import cn.edu.tsinghua.iotdb.queryV2.engine.reader.PriorityTimeValuePairReaderBy
 import cn.edu.tsinghua.iotdb.queryV2.engine.reader.series.*;
 import cn.edu.tsinghua.tsfile.common.constant.StatisticConstant;
 import cn.edu.tsinghua.tsfile.common.utils.ITsRandomAccessFileReader;
-import cn.edu.tsinghua.tsfile.timeseries.filter.utils.DigestForFilter;
 import cn.edu.tsinghua.tsfile.timeseries.filterV2.basic.Filter;
 import cn.edu.tsinghua.tsfile.timeseries.filterV2.expression.impl.SeriesFilter;
-import cn.edu.tsinghua.tsfile.timeseries.filterV2.visitor.impl.DigestFilterVisitor;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.visitor.impl.PrimitiveFilterVisitor;
 import cn.edu.tsinghua.tsfile.timeseries.read.TsRandomAccessLocalFileReader;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.common.EncodedSeriesChunkDescriptor;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.common.SeriesChunk;
@@ -39,7 +38,6 @@ import java.util.List;
 public class SeriesReaderFactory {
     private static final Logger logger = LoggerFactory.getLogger(SeriesReaderFactory.class);
     private OverflowSeriesChunkLoader overflowSeriesChunkLoader;
-    private DigestFilterVisitor digestFilterVisitor;
     private ExternalSortJobEngine externalSortJobEngine;
     private QueryJobManager queryJobManager;
 
@@ -47,7 +45,6 @@ public class SeriesReaderFactory {
 
     private SeriesReaderFactory() {
         overflowSeriesChunkLoader = new OverflowSeriesChunkLoader();
-        digestFilterVisitor = new DigestFilterVisitor();
         externalSortJobEngine = SimpleExternalSortEngine.getInstance();
         metadataQuerierForMerge = new ThreadLocal<>();
         queryJobManager = QueryJobManager.getInstance();
@@ -105,13 +102,10 @@ public class SeriesReaderFactory {
     }
 
     private boolean seriesChunkSatisfied(SeriesChunkDescriptor seriesChunkDescriptor, Filter<?> filter) {
-        DigestForFilter timeDigest = new DigestForFilter(seriesChunkDescriptor.getMinTimestamp(),
-                seriesChunkDescriptor.getMaxTimestamp());
-        DigestForFilter valueDigest = new DigestForFilter(
+        return new PrimitiveFilterVisitor(seriesChunkDescriptor.getDataType()).compile(filter).satisfyDigest(
+                seriesChunkDescriptor.getMinTimestamp(), seriesChunkDescriptor.getMaxTimestamp(),
                 seriesChunkDescriptor.getValueDigest().getStatistics().get(StatisticConstant.MIN_VALUE),
-                seriesChunkDescriptor.getValueDigest().getStatistics().get(StatisticConstant.MAX_VALUE),
-                seriesChunkDescriptor.getDataType());
-        return digestFilterVisitor.satisfy(timeDigest, valueDigest, filter);
+                seriesChunkDescriptor.getValueDigest().getStatistics().get(StatisticConstant.MAX_VALUE));
     }
 
     public OverflowInsertDataReader createSeriesReaderForOverflowInsert(OverflowSeriesDataSource overflowSeriesDataSource) throws IOException {
@@ -141,8 +135,22 @@ public class SeriesReaderFactory {
     public SeriesReader createSeriesReaderForMerge(
             IntervalFileNode intervalFileNode, OverflowSeriesDataSource overflowSeriesDataSource, SeriesFilter<?> seriesFilter)
             throws IOException {
+        return createSeriesReaderForMerge(intervalFileNode,
+                getMetadataQuerier(intervalFileNode.getFilePath()).getSeriesChunkDescriptorList(seriesFilter.getSeriesPath()),
+                overflowSeriesDataSource, seriesFilter);
+    }
+
+    /**
+     * Create the reader of a merged series from the chunks of the series in the tsfile of the interval file node,
+     * given by the merge which reads the metadata of the file once for all its series. The reader doesn't keep any
+     * metadata in the thread, so the series can be merged on a pool shared by the merges.
+     */
+    public SeriesReader createSeriesReaderForMerge(IntervalFileNode intervalFileNode,
+            List<EncodedSeriesChunkDescriptor> seriesChunkDescriptors, OverflowSeriesDataSource overflowSeriesDataSource,
+            SeriesFilter<?> seriesFilter) throws IOException {
         logger.debug("create seriesReaders for merge. SeriesFilter = {}. TsFilePath = {}", seriesFilter, intervalFileNode.getFilePath());
-        SeriesReader seriesInTsFileReader = genTsFileSeriesReader(intervalFileNode.getFilePath(), seriesFilter);
+        SeriesReader seriesInTsFileReader = genTsFileSeriesReader(intervalFileNode.getFilePath(), seriesChunkDescriptors,
+                seriesFilter.getFilter());
 
         SeriesReader overflowInsertDataReader = createSeriesReaderForOverflowInsert(overflowSeriesDataSource, seriesFilter.getFilter());
         PriorityTimeValuePairReader priorityTimeValuePairReaderForTsFile = new PriorityTimeValuePairReader(seriesInTsFileReader,
@@ -163,11 +171,16 @@ public class SeriesReaderFactory {
     }
 
     public SeriesReader genTsFileSeriesReader(String filePath, SeriesFilter<?> seriesFilter) throws IOException {
-        ITsRandomAccessFileReader randomAccessFileReader = new TsRandomAccessLocalFileReader(filePath);
         List<EncodedSeriesChunkDescriptor> seriesChunkDescriptors = getMetadataQuerier(filePath)
                 .getSeriesChunkDescriptorList(seriesFilter.getSeriesPath());
+        return genTsFileSeriesReader(filePath, seriesChunkDescriptors, seriesFilter.getFilter());
+    }
+
+    private SeriesReader genTsFileSeriesReader(String filePath, List<EncodedSeriesChunkDescriptor> seriesChunkDescriptors,
+            Filter<?> filter) throws IOException {
+        ITsRandomAccessFileReader randomAccessFileReader = new TsRandomAccessLocalFileReader(filePath);
         SeriesReader seriesInTsFileReader = new SeriesReaderFromSingleFileWithFilterImpl(randomAccessFileReader,
-                new SeriesChunkLoaderImpl(randomAccessFileReader), seriesChunkDescriptors, seriesFilter.getFilter());
+                new SeriesChunkLoaderImpl(randomAccessFileReader), seriesChunkDescriptors, filter);
         return seriesInTsFileReader;
     }
 
@@ -51,18 +51,46 @@ public class SimpleMetadataQuerierForMerge implements MetadataQuerier {
 
     @Override
     public List<EncodedSeriesChunkDescriptor> getSeriesChunkDescriptorList(Path path) throws IOException {
+        List<EncodedSeriesChunkDescriptor> encodedSeriesChunkDescriptorList = new ArrayList<>();
+        for (TimeSeriesChunkMetaData timeSeriesChunkMetaData : getSeriesChunkMetaDataList(path)) {
+            encodedSeriesChunkDescriptorList.add(generateSeriesChunkDescriptorByMetadata(timeSeriesChunkMetaData));
+        }
+        return encodedSeriesChunkDescriptorList;
+    }
+
+    /**
+     * @return the metadata of all the chunks of the series in this file, in the order of their row groups
+     */
+    public List<TimeSeriesChunkMetaData> getSeriesChunkMetaDataList(Path path) throws IOException {
+        if (!fileMetaData.containsDeltaObject(path.getDeltaObjectToString())) {
+            return new ArrayList<>();
+        }
         try {
             List<RowGroupMetaData> rowGroupMetaDataList = rowGroupMetadataCache.get(path.getDeltaObjectToString());
-            List<EncodedSeriesChunkDescriptor> encodedSeriesChunkDescriptorList = new ArrayList<>();
+            List<TimeSeriesChunkMetaData> timeSeriesChunkMetaDataList = new ArrayList<>();
             for (RowGroupMetaData rowGroupMetaData : rowGroupMetaDataList) {
                 List<TimeSeriesChunkMetaData> timeSeriesChunkMetaDataListInOneRowGroup = rowGroupMetaData.getTimeSeriesChunkMetaDataList();
                 for (TimeSeriesChunkMetaData timeSeriesChunkMetaData : timeSeriesChunkMetaDataListInOneRowGroup) {
                     if (path.getMeasurementToString().equals(timeSeriesChunkMetaData.getProperties().getMeasurementUID())) {
-                        encodedSeriesChunkDescriptorList.add(generateSeriesChunkDescriptorByMetadata(timeSeriesChunkMetaData));
+                        timeSeriesChunkMetaDataList.add(timeSeriesChunkMetaData);
                     }
                 }
             }
-            return encodedSeriesChunkDescriptorList;
+            return timeSeriesChunkMetaDataList;
+        } catch (CacheException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @return the metadata of all the row groups of the delta object in this file, in the order they are written
+     */
+    public List<RowGroupMetaData> getRowGroupMetaDataList(String deltaObjectId) throws IOException {
+        if (!fileMetaData.containsDeltaObject(deltaObjectId)) {
+            return new ArrayList<>();
+        }
+        try {
+            return rowGroupMetadataCache.get(deltaObjectId);
         } catch (CacheException e) {
             throw new IOException(e);
         }
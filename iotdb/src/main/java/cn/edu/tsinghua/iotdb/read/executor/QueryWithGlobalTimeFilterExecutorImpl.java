@@ -2,6 +2,7 @@ package cn.edu.tsinghua.iotdb.read.executor;
 
 import cn.edu.tsinghua.iotdb.engine.querycontext.QueryDataSource;
 import cn.edu.tsinghua.iotdb.exception.FileNodeManagerException;
+import cn.edu.tsinghua.iotdb.queryV2.engine.control.QueryScheduler;
 import cn.edu.tsinghua.iotdb.read.QueryDataSourceExecutor;
 import cn.edu.tsinghua.iotdb.read.reader.QueryWithOrWithOutFilterReader;
 import cn.edu.tsinghua.tsfile.timeseries.filterV2.basic.Filter;
@@ -15,7 +16,6 @@ import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.SeriesReader;
 
 import java.io.IOException;
 import java.util.LinkedHashMap;
-import java.util.List;
 
 /**
  * IoTDB query executor with  global time filter
@@ -27,20 +27,14 @@ public class QueryWithGlobalTimeFilterExecutorImpl {
 
     public static QueryDataSet execute(QueryExpression queryExpression) throws IOException, FileNodeManagerException {
 
-        LinkedHashMap<Path, SeriesReader> readersOfSelectedSeries = new LinkedHashMap<>();
         Filter<Long> timeFilter = ((GlobalTimeFilter) queryExpression.getQueryFilter()).getFilter();
-        initReadersOfSelectedSeries(readersOfSelectedSeries, queryExpression.getSelectedSeries(), timeFilter);
+        LinkedHashMap<Path, SeriesReader> readersOfSelectedSeries = QueryScheduler.getInstance().createSeriesReaders(
+                queryExpression.getSelectedSeries(), path -> {
+                    SeriesFilter<Long> seriesFilter = new SeriesFilter<Long>(path, timeFilter);
+                    QueryDataSource queryDataSource = QueryDataSourceExecutor.getQueryDataSource(seriesFilter);
+                    return new QueryWithOrWithOutFilterReader(queryDataSource, seriesFilter);
+                });
         return new MergeQueryDataSet(readersOfSelectedSeries);
     }
 
-    private static void initReadersOfSelectedSeries(LinkedHashMap<Path, SeriesReader> readersOfSelectedSeries,
-                                             List<Path> selectedSeries, Filter<Long> timeFilter) throws IOException, FileNodeManagerException {
-        for (Path path : selectedSeries) {
-            SeriesFilter<Long> seriesFilter = new SeriesFilter<Long>(path, timeFilter);
-            QueryDataSource queryDataSource = QueryDataSourceExecutor.getQueryDataSource(seriesFilter);
-            SeriesReader seriesReader = new QueryWithOrWithOutFilterReader(queryDataSource, seriesFilter);
-            readersOfSelectedSeries.put(path, seriesReader);
-        }
-    }
-
 }
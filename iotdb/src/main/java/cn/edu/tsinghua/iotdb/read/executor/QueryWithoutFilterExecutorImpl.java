@@ -2,6 +2,7 @@ package cn.edu.tsinghua.iotdb.read.executor;
 
 import cn.edu.tsinghua.iotdb.engine.querycontext.QueryDataSource;
 import cn.edu.tsinghua.iotdb.exception.FileNodeManagerException;
+import cn.edu.tsinghua.iotdb.queryV2.engine.control.QueryScheduler;
 import cn.edu.tsinghua.iotdb.read.QueryDataSourceExecutor;
 import cn.edu.tsinghua.iotdb.read.reader.QueryWithOrWithOutFilterReader;
 import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
@@ -12,7 +13,6 @@ import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.SeriesReader;
 
 import java.io.IOException;
 import java.util.LinkedHashMap;
-import java.util.List;
 
 /**
  * IoTDB query executor without filter
@@ -23,17 +23,11 @@ public class QueryWithoutFilterExecutorImpl {
     }
 
     public static QueryDataSet execute(QueryExpression queryExpression) throws IOException, FileNodeManagerException {
-        LinkedHashMap<Path, SeriesReader> readersOfSelectedSeries = new LinkedHashMap<>();
-        initReadersOfSelectedSeries(readersOfSelectedSeries, queryExpression.getSelectedSeries());
+        LinkedHashMap<Path, SeriesReader> readersOfSelectedSeries = QueryScheduler.getInstance().createSeriesReaders(
+                queryExpression.getSelectedSeries(), path -> {
+                    QueryDataSource queryDataSource = QueryDataSourceExecutor.getQueryDataSource(path);
+                    return new QueryWithOrWithOutFilterReader(queryDataSource);
+                });
         return new MergeQueryDataSet(readersOfSelectedSeries);
     }
-
-    private static void initReadersOfSelectedSeries(LinkedHashMap<Path, SeriesReader> readersOfSelectedSeries,
-                                             List<Path> selectedSeries) throws IOException, FileNodeManagerException {
-        for (Path path : selectedSeries) {
-            QueryDataSource queryDataSource = QueryDataSourceExecutor.getQueryDataSource(path);
-            SeriesReader seriesReader = new QueryWithOrWithOutFilterReader(queryDataSource);
-            readersOfSelectedSeries.put(path, seriesReader);
-        }
-    }
 }
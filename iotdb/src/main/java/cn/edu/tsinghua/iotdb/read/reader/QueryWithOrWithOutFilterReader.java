@@ -75,6 +75,11 @@ public class QueryWithOrWithOutFilterReader implements SeriesReader {
         seriesWithOverflowOpReader.skipCurrentTimeValuePair();
     }
 
+    @Override
+    public void skipTo(long timestamp) throws IOException {
+        seriesWithOverflowOpReader.skipTo(timestamp);
+    }
+
     @Override
     public void close() throws IOException {
         seriesWithOverflowOpReader.close();
@@ -4,6 +4,7 @@ import cn.edu.tsinghua.iotdb.engine.filenode.IntervalFileNode;
 import cn.edu.tsinghua.iotdb.engine.querycontext.GlobalSortedSeriesDataSource;
 import cn.edu.tsinghua.iotdb.engine.querycontext.UnsealedTsFile;
 import cn.edu.tsinghua.iotdb.queryV2.engine.control.OverflowFileStreamManager;
+import cn.edu.tsinghua.iotdb.queryV2.engine.control.SeriesChunkLoaderIoTDBImpl;
 import cn.edu.tsinghua.iotdb.queryV2.engine.reader.PriorityMergeSortTimeValuePairReaderByTimestamp;
 import cn.edu.tsinghua.iotdb.queryV2.engine.reader.PriorityTimeValuePairReader;
 import cn.edu.tsinghua.iotdb.queryV2.engine.reader.PriorityTimeValuePairReaderByTimestamp;
@@ -11,6 +12,7 @@ import cn.edu.tsinghua.iotdb.queryV2.engine.reader.series.RawSeriesChunkReaderBy
 import cn.edu.tsinghua.tsfile.common.utils.ITsRandomAccessFileReader;
 import cn.edu.tsinghua.tsfile.timeseries.read.TsRandomAccessLocalFileReader;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.common.EncodedSeriesChunkDescriptor;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.controller.MetadataQuerierByFileImpl;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.controller.SeriesChunkLoader;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType;
@@ -170,7 +172,10 @@ public class SequenceInsertDataByTimeStampReader extends SequenceInsertDataReade
         protected void initSingleTsFileReader(IntervalFileNode fileNode)throws IOException {
             RandomAccessFile raf = OverflowFileStreamManager.getInstance().get(jobId, fileNode.getFilePath());
             ITsRandomAccessFileReader randomAccessFileReader = new TsRandomAccessLocalFileReader(raf);
-            singleTsFileReader = new SeriesReaderFromSingleFileByTimestampImpl(randomAccessFileReader, path);
+            List<EncodedSeriesChunkDescriptor> encodedSeriesChunkDescriptorList = new MetadataQuerierByFileImpl(randomAccessFileReader)
+                    .getSeriesChunkDescriptorList(path);
+            SeriesChunkLoader seriesChunkLoader = new SeriesChunkLoaderIoTDBImpl(fileNode.getFilePath(), randomAccessFileReader);
+            singleTsFileReader = new SeriesReaderFromSingleFileByTimestampImpl(randomAccessFileReader, seriesChunkLoader, encodedSeriesChunkDescriptorList);
         }
 
         @Override
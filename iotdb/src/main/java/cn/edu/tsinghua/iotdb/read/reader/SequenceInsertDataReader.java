@@ -5,15 +5,18 @@ import cn.edu.tsinghua.iotdb.engine.querycontext.GlobalSortedSeriesDataSource;
 import cn.edu.tsinghua.iotdb.engine.querycontext.UnsealedTsFile;
 import cn.edu.tsinghua.iotdb.queryV2.engine.control.OverflowFileStreamManager;
 import cn.edu.tsinghua.iotdb.queryV2.engine.control.QueryJobManager;
+import cn.edu.tsinghua.iotdb.queryV2.engine.control.SeriesChunkLoaderIoTDBImpl;
 import cn.edu.tsinghua.tsfile.common.utils.ITsRandomAccessFileReader;
 import cn.edu.tsinghua.tsfile.file.metadata.TimeSeriesChunkMetaData;
 import cn.edu.tsinghua.tsfile.timeseries.read.TsRandomAccessLocalFileReader;
 import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.common.EncodedSeriesChunkDescriptor;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.controller.SeriesChunkLoader;
-import cn.edu.tsinghua.tsfile.timeseries.readV2.controller.SeriesChunkLoaderImpl;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.BatchData;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.BatchDataReader;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.SeriesReader;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.impl.SeriesReaderFromSingleFile;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -33,6 +36,7 @@ public abstract class SequenceInsertDataReader implements SeriesReader {
     private boolean hasSeriesReaderInitialized;
     private int nextSeriesReaderIndex;
     private SeriesReader currentSeriesReader;
+    private long skipToTime = Long.MIN_VALUE;
 
     public SequenceInsertDataReader(GlobalSortedSeriesDataSource sortedSeriesDataSource){
         path = sortedSeriesDataSource.getSeriesPath();
@@ -55,6 +59,7 @@ public abstract class SequenceInsertDataReader implements SeriesReader {
         while (nextSeriesReaderIndex < seriesReaders.size()){
             if(!hasSeriesReaderInitialized){
                 currentSeriesReader = seriesReaders.get(nextSeriesReaderIndex++);
+                currentSeriesReader.skipTo(skipToTime);
                 hasSeriesReaderInitialized = true;
             }
             if(currentSeriesReader.hasNext()){
@@ -77,6 +82,21 @@ public abstract class SequenceInsertDataReader implements SeriesReader {
         next();
     }
 
+    /**
+     * The sealed files, the unsealed file and the memtable are read in turn, each of them skips to the timestamp when
+     * it is reached.
+     */
+    @Override
+    public void skipTo(long timestamp) throws IOException {
+        if (timestamp <= skipToTime) {
+            return;
+        }
+        skipToTime = timestamp;
+        if (hasSeriesReaderInitialized) {
+            currentSeriesReader.skipTo(timestamp);
+        }
+    }
+
     @Override
     public void close() throws IOException {
         for (SeriesReader seriesReader: seriesReaders){
@@ -98,12 +118,13 @@ public abstract class SequenceInsertDataReader implements SeriesReader {
         return encodedSeriesChunkDescriptor;
     }
 
-    protected abstract class SealedTsFileReader implements SeriesReader{
+    protected abstract class SealedTsFileReader implements SeriesReader, BatchDataReader {
 
         protected List<IntervalFileNode> sealedTsFiles;
         protected int usedIntervalFileIndex;
-        protected SeriesReader singleTsFileReader;
+        protected SeriesReaderFromSingleFile singleTsFileReader;
         protected boolean singleTsFileReaderInitialized;
+        private long skipToTime = Long.MIN_VALUE;
 
         public SealedTsFileReader(List<IntervalFileNode> sealedTsFiles) {
             this.sealedTsFiles = sealedTsFiles;
@@ -120,8 +141,10 @@ public abstract class SequenceInsertDataReader implements SeriesReader {
             while ((usedIntervalFileIndex + 1) < sealedTsFiles.size()){
                 if(!singleTsFileReaderInitialized){
                     IntervalFileNode fileNode = sealedTsFiles.get(++usedIntervalFileIndex);
-                    if(singleTsFileSatisfied(fileNode)) {
+                    // the files before the skipped time are not opened
+                    if(fileNode.getEndTime(path.getDeltaObjectToString()) >= skipToTime && singleTsFileSatisfied(fileNode)) {
                         initSingleTsFileReader(fileNode);
+                        singleTsFileReader.skipTo(skipToTime);
                         singleTsFileReaderInitialized = true;
                     }
                     else {
@@ -148,6 +171,50 @@ public abstract class SequenceInsertDataReader implements SeriesReader {
             next();
         }
 
+        @Override
+        public void skipTo(long timestamp) throws IOException {
+            if (timestamp <= skipToTime) {
+                return;
+            }
+            skipToTime = timestamp;
+            if (singleTsFileReaderInitialized) {
+                singleTsFileReader.skipTo(timestamp);
+            }
+        }
+
+        @Override
+        public boolean hasNextBatch() throws IOException {
+            if(singleTsFileReaderInitialized && singleTsFileReader.hasNextBatch()){
+                return true;
+            }
+            while ((usedIntervalFileIndex + 1) < sealedTsFiles.size()){
+                if(!singleTsFileReaderInitialized){
+                    IntervalFileNode fileNode = sealedTsFiles.get(++usedIntervalFileIndex);
+                    // the files before the skipped time are not opened
+                    if(fileNode.getEndTime(path.getDeltaObjectToString()) >= skipToTime && singleTsFileSatisfied(fileNode)) {
+                        initSingleTsFileReader(fileNode);
+                        singleTsFileReader.skipTo(skipToTime);
+                        singleTsFileReaderInitialized = true;
+                    }
+                    else {
+                        continue;
+                    }
+                }
+                if(singleTsFileReader.hasNextBatch()){
+                    return true;
+                }
+                else{
+                    singleTsFileReaderInitialized = false;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public BatchData nextBatch() throws IOException {
+            return singleTsFileReader.nextBatch();
+        }
+
         @Override
         public void close() throws IOException {
             if (singleTsFileReader != null) {
@@ -160,9 +227,9 @@ public abstract class SequenceInsertDataReader implements SeriesReader {
         protected abstract void initSingleTsFileReader(IntervalFileNode fileNode) throws IOException;
     }
 
-    protected abstract class UnSealedTsFileReader implements SeriesReader{
+    protected abstract class UnSealedTsFileReader implements SeriesReader, BatchDataReader {
         protected UnsealedTsFile unsealedTsFile;
-        protected SeriesReader singleTsFileReader;
+        protected SeriesReaderFromSingleFile singleTsFileReader;
 
 
         public UnSealedTsFileReader(UnsealedTsFile unsealedTsFile) throws IOException {
@@ -177,7 +244,7 @@ public abstract class SequenceInsertDataReader implements SeriesReader {
             // TODO unSealedSeriesChunkReader need to be constructed correctly
             RandomAccessFile raf = OverflowFileStreamManager.getInstance().get(jobId, unsealedTsFile.getFilePath());
             ITsRandomAccessFileReader randomAccessFileReader = new TsRandomAccessLocalFileReader(raf);
-            SeriesChunkLoader seriesChunkLoader = new SeriesChunkLoaderImpl(randomAccessFileReader);
+            SeriesChunkLoader seriesChunkLoader = new SeriesChunkLoaderIoTDBImpl(unsealedTsFile.getFilePath(), randomAccessFileReader);
 
             initSingleTsFileReader(randomAccessFileReader, seriesChunkLoader, encodedSeriesChunkDescriptorList);
         }
@@ -197,6 +264,21 @@ public abstract class SequenceInsertDataReader implements SeriesReader {
             singleTsFileReader.skipCurrentTimeValuePair();
         }
 
+        @Override
+        public void skipTo(long timestamp) throws IOException {
+            singleTsFileReader.skipTo(timestamp);
+        }
+
+        @Override
+        public boolean hasNextBatch() throws IOException {
+            return singleTsFileReader.hasNextBatch();
+        }
+
+        @Override
+        public BatchData nextBatch() throws IOException {
+            return singleTsFileReader.nextBatch();
+        }
+
         @Override
         public void close() throws IOException {
             if(singleTsFileReader!=null){
@@ -126,6 +126,11 @@ public class CloseMergeService implements IService{
 			} catch (Exception e) {
 				LOGGER.error("Merge all error.", e);
 			}
+			try {
+				FileNodeManager.getInstance().compactAll();
+			} catch (Exception e) {
+				LOGGER.error("Compact all error.", e);
+			}
 		}
 	}
 
@@ -4,6 +4,11 @@ import java.io.File;
 import cn.edu.tsinghua.iotdb.conf.TsFileDBConstant;
 import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
 import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
+import cn.edu.tsinghua.iotdb.engine.cache.ChunkCacheManager;
+import cn.edu.tsinghua.iotdb.engine.cache.MetaDataCacheManager;
+import cn.edu.tsinghua.iotdb.engine.pool.MergeManager;
+import cn.edu.tsinghua.iotdb.monitor.MonitorConstants.MergeManagerStatConstants;
+import cn.edu.tsinghua.iotdb.monitor.MonitorConstants.CacheStatConstants;
 import cn.edu.tsinghua.iotdb.utils.OpenFileNumUtil;
 import cn.edu.tsinghua.iotdb.exception.StartupException;
 import org.apache.commons.io.FileUtils;
@@ -105,6 +110,106 @@ public class Monitor implements MonitorMBean, IService{
 		return config.periodTimeForFlush;
 	}
 
+	@Override
+	public long getMergedFileNum() {
+		return MergeManager.getInstance().getStatValue(MergeManagerStatConstants.TOTAL_MERGED_FILES);
+	}
+
+	@Override
+	public long getPendingMergeFileNum() {
+		return MergeManager.getInstance().getStatValue(MergeManagerStatConstants.PENDING_FILES);
+	}
+
+	@Override
+	public long getMergedSeriesNum() {
+		return MergeManager.getInstance().getStatValue(MergeManagerStatConstants.TOTAL_MERGED_SERIES);
+	}
+
+	@Override
+	public long getMergeCopiedSeriesNum() {
+		return MergeManager.getInstance().getStatValue(MergeManagerStatConstants.TOTAL_COPIED_SERIES);
+	}
+
+	@Override
+	public long getMergeReadBytes() {
+		return MergeManager.getInstance().getStatValue(MergeManagerStatConstants.TOTAL_READ_BYTES);
+	}
+
+	@Override
+	public long getMergeWriteBytes() {
+		return MergeManager.getInstance().getStatValue(MergeManagerStatConstants.TOTAL_WRITE_BYTES);
+	}
+
+	@Override
+	public int getMergeReadThroughputInMB() {
+		return MergeManager.getInstance().getReadThroughputInMB();
+	}
+
+	@Override
+	public void setMergeReadThroughputInMB(int mergeReadThroughputInMB) {
+		MergeManager.getInstance().setReadThroughputInMB(mergeReadThroughputInMB);
+	}
+
+	@Override
+	public int getMergeWriteThroughputInMB() {
+		return MergeManager.getInstance().getWriteThroughputInMB();
+	}
+
+	@Override
+	public void setMergeWriteThroughputInMB(int mergeWriteThroughputInMB) {
+		MergeManager.getInstance().setWriteThroughputInMB(mergeWriteThroughputInMB);
+	}
+
+	@Override
+	public long getMetadataCacheHitNum() {
+		return MetaDataCacheManager.getInstance().getStatValue(CacheStatConstants.TOTAL_HITS);
+	}
+
+	@Override
+	public long getMetadataCacheMissNum() {
+		return MetaDataCacheManager.getInstance().getStatValue(CacheStatConstants.TOTAL_MISSES);
+	}
+
+	@Override
+	public long getMetadataCacheEvictionNum() {
+		return MetaDataCacheManager.getInstance().getStatValue(CacheStatConstants.TOTAL_EVICTIONS);
+	}
+
+	@Override
+	public long getMetadataCacheLoadTimeInMs() {
+		return MetaDataCacheManager.getInstance().getStatValue(CacheStatConstants.TOTAL_LOAD_TIME_IN_MS);
+	}
+
+	@Override
+	public long getMetadataCacheSizeInByte() {
+		return MetaDataCacheManager.getInstance().getStatValue(CacheStatConstants.CACHED_BYTES);
+	}
+
+	@Override
+	public long getChunkCacheHitNum() {
+		return ChunkCacheManager.getInstance().getStatValue(CacheStatConstants.TOTAL_HITS);
+	}
+
+	@Override
+	public long getChunkCacheMissNum() {
+		return ChunkCacheManager.getInstance().getStatValue(CacheStatConstants.TOTAL_MISSES);
+	}
+
+	@Override
+	public long getChunkCacheEvictionNum() {
+		return ChunkCacheManager.getInstance().getStatValue(CacheStatConstants.TOTAL_EVICTIONS);
+	}
+
+	@Override
+	public long getChunkCacheLoadTimeInMs() {
+		return ChunkCacheManager.getInstance().getStatValue(CacheStatConstants.TOTAL_LOAD_TIME_IN_MS);
+	}
+
+	@Override
+	public long getChunkCacheSizeInByte() {
+		return ChunkCacheManager.getInstance().getStatValue(CacheStatConstants.CACHED_BYTES);
+	}
+
 	@Override
 	public void start() throws StartupException {
 		try {
@@ -19,4 +19,27 @@ public interface MonitorMBean {
 	int getOverflowOpenFileNum();
 	int getMetadataOpenFileNum();
 	int getSocketOpenFileNum();
+
+	long getMergedFileNum();
+	long getPendingMergeFileNum();
+	long getMergedSeriesNum();
+	long getMergeCopiedSeriesNum();
+	long getMergeReadBytes();
+	long getMergeWriteBytes();
+	int getMergeReadThroughputInMB();
+	void setMergeReadThroughputInMB(int mergeReadThroughputInMB);
+	int getMergeWriteThroughputInMB();
+	void setMergeWriteThroughputInMB(int mergeWriteThroughputInMB);
+
+	long getMetadataCacheHitNum();
+	long getMetadataCacheMissNum();
+	long getMetadataCacheEvictionNum();
+	long getMetadataCacheLoadTimeInMs();
+	long getMetadataCacheSizeInByte();
+
+	long getChunkCacheHitNum();
+	long getChunkCacheMissNum();
+	long getChunkCacheEvictionNum();
+	long getChunkCacheLoadTimeInMs();
+	long getChunkCacheSizeInByte();
 }
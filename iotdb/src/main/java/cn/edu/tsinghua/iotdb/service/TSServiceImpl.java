@@ -21,6 +21,7 @@ import cn.edu.tsinghua.iotdb.qp.exception.QueryProcessorException;
 import cn.edu.tsinghua.iotdb.qp.executor.OverflowQPExecutor;
 import cn.edu.tsinghua.iotdb.qp.logical.Operator;
 import cn.edu.tsinghua.iotdb.qp.physical.PhysicalPlan;
+import cn.edu.tsinghua.iotdb.qp.physical.crud.BatchInsertPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.IndexQueryPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.MultiQueryPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.sys.AuthorPlan;
@@ -28,8 +29,12 @@ import cn.edu.tsinghua.iotdb.query.aggregation.AggregateFunction;
 import cn.edu.tsinghua.iotdb.query.aggregation.AggregationConstant;
 import cn.edu.tsinghua.iotdb.query.management.ReadCacheManager;
 import cn.edu.tsinghua.iotdb.queryV2.engine.control.QueryJobManager;
+import cn.edu.tsinghua.iotdb.queryV2.engine.control.QueryScheduler;
 import cn.edu.tsinghua.service.rpc.thrift.*;
 import cn.edu.tsinghua.tsfile.common.exception.ProcessorException;
+import cn.edu.tsinghua.tsfile.common.exception.UnSupportedDataTypeException;
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.query.QueryDataSet;
 import org.apache.thrift.TException;
@@ -137,7 +142,11 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 		LOGGER.info("{}: receive close operation",TsFileDBConstant.GLOBAL_DB_NAME);
 		try {
 			ReadCacheManager.getInstance().unlockForOneRequest();
-			QueryJobManager.getInstance().closeAllJobForOneQuery();
+			try {
+				QueryScheduler.getInstance().closeSeriesReadersOfCurrentQuery();
+			} finally {
+				QueryJobManager.getInstance().closeAllJobForOneQuery();
+			}
 			clearAllStatusForCurrentRequest();
 		} catch (ProcessorException | IOException e) {
 			LOGGER.error("Error in closeOperation : {}", e.getMessage());
@@ -366,6 +375,119 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 		}
 	}
 
+	/**
+	 * Insert the rows of one deltaObject given column by column, without parsing SQL. The whole batch is executed as
+	 * one BatchInsertPlan, which is checked as a whole before any row is written, see
+	 * {@link cn.edu.tsinghua.iotdb.engine.filenode.FileNodeManager#insertBatch}.
+	 */
+	@Override
+	public TSExecuteBatchStatementResp insertBatch(TSInsertBatchReq req) throws TException {
+		try {
+			if (!checkLogin()) {
+				LOGGER.info("{}: Not login.", TsFileDBConstant.GLOBAL_DB_NAME);
+				return getTSBathExecuteStatementResp(TS_StatusCode.ERROR_STATUS, "Not login", null);
+			}
+			int rowCount = req.getRowCount();
+			int columnNum = req.getMeasurementsSize();
+			if (req.getDataTypesSize() != columnNum || req.getValuesSize() != columnNum) {
+				return getTSBathExecuteStatementResp(TS_StatusCode.ERROR_STATUS,
+						"The numbers of measurements, data types and value columns are different", null);
+			}
+			String[] measurements = req.getMeasurements().toArray(new String[columnNum]);
+			TSDataType[] dataTypes = new TSDataType[columnNum];
+			Object[] columns = new Object[columnNum];
+			for (int i = 0; i < columnNum; i++) {
+				dataTypes[i] = TSDataType.valueOf(req.getDataTypes().get(i));
+				columns[i] = decodeColumn(measurements[i], dataTypes[i], req.getValues().get(i), rowCount);
+			}
+			ByteBuffer timeBuffer = req.bufferForTimestamps();
+			checkColumnSize("timestamp", timeBuffer, rowCount, 8);
+			long[] times = new long[rowCount];
+			timeBuffer.asLongBuffer().get(times);
+
+			BatchInsertPlan plan = new BatchInsertPlan(req.getDeviceId(), measurements, dataTypes, times, columns);
+			plan.setProposer(username.get());
+			TSExecuteStatementResp resp = ExecuteUpdateStatement(plan);
+			boolean success = resp.getStatus().getStatusCode().equals(TS_StatusCode.SUCCESS_STATUS);
+			List<Integer> result = Collections.nCopies(rowCount,
+					success ? Statement.SUCCESS_NO_INFO : Statement.EXECUTE_FAILED);
+			if (success) {
+				return getTSBathExecuteStatementResp(TS_StatusCode.SUCCESS_STATUS, "Insert batch successfully",
+						result);
+			} else {
+				return getTSBathExecuteStatementResp(TS_StatusCode.ERROR_STATUS, resp.getStatus().getErrorMessage(),
+						result);
+			}
+		} catch (Exception e) {
+			LOGGER.error("{}: error occurs when inserting batch", TsFileDBConstant.GLOBAL_DB_NAME, e);
+			return getTSBathExecuteStatementResp(TS_StatusCode.ERROR_STATUS, e.getMessage(), null);
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the size of the column doesn't match the row count
+	 */
+	private static void checkColumnSize(String column, ByteBuffer buffer, int rowCount, int valueSize) {
+		if (buffer.remaining() != (long) rowCount * valueSize) {
+			throw new IllegalArgumentException(String.format("The %s column has %d bytes, but %d rows need %d bytes",
+					column, buffer.remaining(), rowCount, (long) rowCount * valueSize));
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the size of the column doesn't match the row count
+	 */
+	private static Object decodeColumn(String measurement, TSDataType dataType, ByteBuffer buffer, int rowCount) {
+		switch (dataType) {
+			case BOOLEAN:
+				checkColumnSize(measurement, buffer, rowCount, 1);
+				boolean[] booleans = new boolean[rowCount];
+				for (int i = 0; i < rowCount; i++) {
+					booleans[i] = buffer.get() != 0;
+				}
+				return booleans;
+			case INT32:
+				checkColumnSize(measurement, buffer, rowCount, 4);
+				int[] ints = new int[rowCount];
+				buffer.asIntBuffer().get(ints);
+				return ints;
+			case INT64:
+				checkColumnSize(measurement, buffer, rowCount, 8);
+				long[] longs = new long[rowCount];
+				buffer.asLongBuffer().get(longs);
+				return longs;
+			case FLOAT:
+				checkColumnSize(measurement, buffer, rowCount, 4);
+				float[] floats = new float[rowCount];
+				buffer.asFloatBuffer().get(floats);
+				return floats;
+			case DOUBLE:
+				checkColumnSize(measurement, buffer, rowCount, 8);
+				double[] doubles = new double[rowCount];
+				buffer.asDoubleBuffer().get(doubles);
+				return doubles;
+			case TEXT:
+				Binary[] binaries = new Binary[rowCount];
+				for (int i = 0; i < rowCount; i++) {
+					int length = buffer.remaining() >= 4 ? buffer.getInt() : -1;
+					if (length < 0 || length > buffer.remaining()) {
+						throw new IllegalArgumentException(String.format(
+								"The %s column ends before its value of row %d", measurement, i));
+					}
+					byte[] bytes = new byte[length];
+					buffer.get(bytes);
+					binaries[i] = new Binary(bytes);
+				}
+				if (buffer.hasRemaining()) {
+					throw new IllegalArgumentException(String.format("The %s column has %d bytes after its %d rows",
+							measurement, buffer.remaining(), rowCount));
+				}
+				return binaries;
+			default:
+				throw new UnSupportedDataTypeException("Unsupported data type:" + dataType);
+		}
+	}
+
 	@Override
 	public TSExecuteStatementResp executeStatement(TSExecuteStatementReq req) throws TException {
 		try {
@@ -537,14 +659,26 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 			} else {
 				queryDataSet = queryRet.get().get(statement);
 			}
-			TSQueryDataSet result = Utils.convertQueryDataSetByFetchSize(queryDataSet, fetchSize);
-			boolean hasResultSet = result.getRecords().size() > 0;
+			TSQueryDataSet result = null;
+			TSColumnarDataSet columnarResult = null;
+			boolean hasResultSet;
+			if (req.isColumnar()) {
+				columnarResult = Utils.convertQueryDataSetToColumnar(queryDataSet, fetchSize, req.isCompress());
+				hasResultSet = columnarResult.getRowCount() > 0;
+			} else {
+				result = Utils.convertQueryDataSetByFetchSize(queryDataSet, fetchSize);
+				hasResultSet = result.getRecords().size() > 0;
+			}
 			if(!hasResultSet && queryRet.get() != null) {
 				queryRet.get().remove(statement);
 			}
 			TSFetchResultsResp resp = getTSFetchResultsResp(TS_StatusCode.SUCCESS_STATUS, "FetchResult successfully. Has more result: " + hasResultSet);
 			resp.setHasResultSet(hasResultSet);
-			resp.setQueryDataSet(result);
+			if (columnarResult != null) {
+				resp.setColumnarDataSet(columnarResult);
+			} else {
+				resp.setQueryDataSet(result);
+			}
 			return resp;
 		} catch (Exception e) {
 			LOGGER.error("{}: Internal server error: {}",TsFileDBConstant.GLOBAL_DB_NAME, e.getMessage());
@@ -1,8 +1,12 @@
 package cn.edu.tsinghua.iotdb.service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -11,14 +15,17 @@ import java.util.Map.Entry;
 
 import cn.edu.tsinghua.iotdb.metadata.ColumnSchema;
 import cn.edu.tsinghua.service.rpc.thrift.TSColumnSchema;
+import cn.edu.tsinghua.service.rpc.thrift.TSColumnarDataSet;
 import cn.edu.tsinghua.service.rpc.thrift.TSDataValue;
 import cn.edu.tsinghua.service.rpc.thrift.TSQueryDataSet;
 import cn.edu.tsinghua.service.rpc.thrift.TSRowRecord;
 import cn.edu.tsinghua.tsfile.common.exception.UnSupportedDataTypeException;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.RowRecord;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.query.QueryDataSet;
+import org.xerial.snappy.Snappy;
 
 /**
  * Utils to convert between thrift format and TsFile format
@@ -66,6 +73,98 @@ public class Utils {
 		return tsQueryDataSet;
 	}
 
+	/**
+	 * Convert at most fetchsize rows of queryDataSet into columns. A column is added when its path first appears, the
+	 * rows before it are null in it.
+	 *
+	 * @param compress compress the columns with Snappy
+	 */
+	public static TSColumnarDataSet convertQueryDataSetToColumnar(QueryDataSet queryDataSet, int fetchsize,
+			boolean compress) throws IOException {
+		ByteArrayOutputStream timeBytes = new ByteArrayOutputStream();
+		DataOutputStream timeOutput = new DataOutputStream(timeBytes);
+		Map<Path, ColumnBuilder> columns = new LinkedHashMap<>();
+		int rowCount = 0;
+		while (rowCount < fetchsize && queryDataSet.hasNext()) {
+			RowRecord rowRecord = queryDataSet.next();
+			timeOutput.writeLong(rowRecord.getTimestamp());
+			for (Entry<Path, TsPrimitiveType> entry : rowRecord.getFields().entrySet()) {
+				ColumnBuilder column = columns.get(entry.getKey());
+				if (column == null) {
+					column = new ColumnBuilder();
+					columns.put(entry.getKey(), column);
+				}
+				if (entry.getValue() != null) {
+					column.add(rowCount, entry.getValue());
+				}
+			}
+			rowCount++;
+		}
+
+		List<String> names = new ArrayList<>(columns.size());
+		List<String> dataTypes = new ArrayList<>(columns.size());
+		List<ByteBuffer> bitmaps = new ArrayList<>(columns.size());
+		List<ByteBuffer> values = new ArrayList<>(columns.size());
+		int bitmapSize = (rowCount + 7) / 8;
+		for (Entry<Path, ColumnBuilder> entry : columns.entrySet()) {
+			ColumnBuilder column = entry.getValue();
+			names.add(entry.getKey().toString());
+			dataTypes.add(column.dataType == null ? TSDataType.TEXT.name() : column.dataType.name());
+			bitmaps.add(pack(Arrays.copyOf(column.bitmap.toByteArray(), bitmapSize), compress));
+			values.add(pack(column.valueBytes.toByteArray(), compress));
+		}
+		return new TSColumnarDataSet(rowCount, names, dataTypes, pack(timeBytes.toByteArray(), compress), bitmaps,
+				values, compress);
+	}
+
+	private static ByteBuffer pack(byte[] bytes, boolean compress) throws IOException {
+		return ByteBuffer.wrap(compress ? Snappy.compress(bytes) : bytes);
+	}
+
+	/**
+	 * builds a column of a TSColumnarDataSet, values are written as they are added
+	 */
+	private static class ColumnBuilder {
+		private TSDataType dataType;
+		private BitSet bitmap = new BitSet();
+		private ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+		private DataOutputStream valueOutput = new DataOutputStream(valueBytes);
+
+		private void add(int row, TsPrimitiveType value) throws IOException {
+			if (dataType == null) {
+				dataType = value.getDataType();
+			} else if (dataType != value.getDataType()) {
+				throw new UnSupportedDataTypeException(String.format("data type of a column changes from %s to %s",
+						dataType, value.getDataType()));
+			}
+			bitmap.set(row);
+			switch (dataType) {
+			case BOOLEAN:
+				valueOutput.writeByte(value.getBoolean() ? 1 : 0);
+				break;
+			case INT32:
+				valueOutput.writeInt(value.getInt());
+				break;
+			case INT64:
+				valueOutput.writeLong(value.getLong());
+				break;
+			case FLOAT:
+				valueOutput.writeFloat(value.getFloat());
+				break;
+			case DOUBLE:
+				valueOutput.writeDouble(value.getDouble());
+				break;
+			case TEXT:
+				byte[] bytes = value.getBinary().values;
+				valueOutput.writeInt(bytes.length);
+				valueOutput.write(bytes);
+				break;
+			default:
+				throw new UnSupportedDataTypeException(String.format("data type %s is not supported when convert data at server", dataType));
+			}
+		}
+	}
+
 	public static TSRowRecord convertToTSRecord(RowRecord rowRecord) {
 		TSRowRecord tsRowRecord = new TSRowRecord();
 		tsRowRecord.setTimestamp(rowRecord.getTimestamp());
@@ -0,0 +1,65 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link PrimitiveColumn} of Binary values.
+ */
+public class BinaryColumn extends PrimitiveColumn {
+
+    private List<Binary[]> values;
+
+    public BinaryColumn() {
+        super();
+        values = new ArrayList<>();
+        values.add(new Binary[INITIAL_SIZE]);
+    }
+
+    @Override
+    protected int getValueSize() {
+        return MemUtils.REFERENCE_SIZE;
+    }
+
+    @Override
+    protected List<?> getValueBlocks() {
+        return values;
+    }
+
+    @Override
+    public TSDataType getDataType() {
+        return TSDataType.TEXT;
+    }
+
+    @Override
+    protected void expandFirstValueBlock(int newSize) {
+        values.set(0, Arrays.copyOf(values.get(0), newSize));
+    }
+
+    @Override
+    protected void addValueBlock() {
+        values.add(new Binary[BLOCK_SIZE]);
+    }
+
+    @Override
+    public void putBinary(long timestamp, Binary value) {
+        int index = appendTimestamp(timestamp);
+        values.get(blockIndex(index))[blockOffset(index)] = value;
+        addMemSize(MemUtils.getBinarySize(value));
+    }
+
+    @Override
+    public Binary getBinary(int index) {
+        checkIndex(index);
+        return values.get(blockIndex(index))[blockOffset(index)];
+    }
+
+    @Override
+    public Object getValue(int index) {
+        return getBinary(index);
+    }
+}
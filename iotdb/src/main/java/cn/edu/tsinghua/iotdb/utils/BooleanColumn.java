@@ -0,0 +1,63 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link PrimitiveColumn} of boolean values.
+ */
+public class BooleanColumn extends PrimitiveColumn {
+
+    private List<boolean[]> values;
+
+    public BooleanColumn() {
+        super();
+        values = new ArrayList<>();
+        values.add(new boolean[INITIAL_SIZE]);
+    }
+
+    @Override
+    protected int getValueSize() {
+        return 1;
+    }
+
+    @Override
+    protected List<?> getValueBlocks() {
+        return values;
+    }
+
+    @Override
+    public TSDataType getDataType() {
+        return TSDataType.BOOLEAN;
+    }
+
+    @Override
+    protected void expandFirstValueBlock(int newSize) {
+        values.set(0, Arrays.copyOf(values.get(0), newSize));
+    }
+
+    @Override
+    protected void addValueBlock() {
+        values.add(new boolean[BLOCK_SIZE]);
+    }
+
+    @Override
+    public void putBoolean(long timestamp, boolean value) {
+        int index = appendTimestamp(timestamp);
+        values.get(blockIndex(index))[blockOffset(index)] = value;
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        checkIndex(index);
+        return values.get(blockIndex(index))[blockOffset(index)];
+    }
+
+    @Override
+    public Object getValue(int index) {
+        return getBoolean(index);
+    }
+}
@@ -0,0 +1,265 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.common.exception.cache.CacheException;
+import cn.edu.tsinghua.tsfile.timeseries.utils.cache.Cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * A bounded cache which can be used by many threads. Keys are spread over several segments by their hash, and every
+ * segment is a LRU list with a lock and a budget of its own, so concurrent readers seldom wait for each other. An entry
+ * weighs 1 by default, or e.g. its estimated heap size if a weigher is given, and the least recently used entries of a
+ * segment are evicted until the segment fits its budget. Entries can be invalidated one by one, or by a predicate on
+ * their keys, instead of clearing the whole cache.
+ * <p>
+ * A missing value is loaded by the first thread asking for it, while the other threads asking for the same key wait
+ * for its result. Loading holds no lock. If the segment is invalidated meanwhile, the loaded value is returned but not
+ * cached, because it may be computed from the state before the invalidation.
+ * <p>
+ * The subclasses may count the hits, misses, loads and evictions of the cache by overriding the {@code on...} methods.
+ */
+public class ConcurrentLRUCache<K, V> implements Cache<K, V> {
+
+    private static final int SEGMENT_NUM = 16;
+
+    private final Segment<K, V>[] segments;
+    private final ToLongFunction<? super V> weigher;
+    private final ConcurrentHashMap<K, FutureTask<V>> loadingTasks = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheSize the number of entries, shared equally by the segments
+     */
+    public ConcurrentLRUCache(int cacheSize) {
+        this((long) Math.max(1, (cacheSize + SEGMENT_NUM - 1) / SEGMENT_NUM) * SEGMENT_NUM, SEGMENT_NUM,
+                value -> 1);
+    }
+
+    /**
+     * @param capacity the budget of all the entries, shared equally by the segments
+     * @param weigher  the weight of a value loaded by {@link #loadObjectByKey}
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLRUCache(long capacity, int segmentNum, ToLongFunction<? super V> weigher) {
+        segments = new Segment[segmentNum];
+        for (int i = 0; i < segmentNum; i++) {
+            segments[i] = new Segment<>(capacity / segmentNum);
+        }
+        this.weigher = weigher;
+    }
+
+    @Override
+    public V get(K key) throws CacheException {
+        return get(key, () -> loadObjectByKey(key), weigher);
+    }
+
+    /**
+     * Load the value of a key missing from the cache for {@link #get(Object)}, the caches whose values are loaded by
+     * their callers don't override it.
+     */
+    public V loadObjectByKey(K key) throws CacheException {
+        throw new UnsupportedOperationException("No loader for " + key);
+    }
+
+    /**
+     * @param loader  loads the value if it is missing, the value may be null
+     * @param weigher the weight of the loaded value
+     * @throws CacheException with the checked exception of the loader as its cause, unless it is a CacheException
+     */
+    public V get(K key, Callable<? extends V> loader, ToLongFunction<? super V> weigher) throws CacheException {
+        Segment<K, V> segment = segmentFor(key);
+        long startVersion;
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry != null) {
+                onHit();
+                return entry.value;
+            }
+            startVersion = segment.version;
+        }
+        onMiss();
+
+        FutureTask<V> task = new FutureTask<>(loader::call);
+        FutureTask<V> runningTask = loadingTasks.putIfAbsent(key, task);
+        if (runningTask != null) {
+            // another thread is loading the same key
+            return getLoaded(runningTask);
+        }
+        V value;
+        try {
+            long startTime = System.nanoTime();
+            task.run();
+            value = getLoaded(task);
+            onLoad(System.nanoTime() - startTime);
+            put(segment, key, new Entry<>(value, weigher.applyAsLong(value)), startVersion);
+        } finally {
+            loadingTasks.remove(key, task);
+        }
+        return value;
+    }
+
+    private V getLoaded(FutureTask<V> task) throws CacheException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CacheException) {
+                throw (CacheException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CacheException(cause);
+        }
+    }
+
+    private void put(Segment<K, V> segment, K key, Entry<V> entry, long startVersion) {
+        synchronized (segment) {
+            if (segment.version != startVersion || entry.weight > segment.capacity) {
+                return;
+            }
+            Entry<V> oldEntry = segment.put(key, entry);
+            long deltaWeight = entry.weight - (oldEntry == null ? 0 : oldEntry.weight);
+            long deltaEntries = oldEntry == null ? 1 : 0;
+            Iterator<Entry<V>> iterator = segment.values().iterator();
+            int evictionNum = 0;
+            while (segment.weight + deltaWeight > segment.capacity && iterator.hasNext()) {
+                deltaWeight -= iterator.next().weight;
+                iterator.remove();
+                deltaEntries--;
+                evictionNum++;
+            }
+            segment.weight += deltaWeight;
+            onSizeChange(deltaWeight, deltaEntries);
+            if (evictionNum > 0) {
+                onEviction(evictionNum);
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.remove(key);
+            segment.version++;
+            if (entry != null) {
+                segment.weight -= entry.weight;
+                onSizeChange(-entry.weight, -1);
+            }
+        }
+    }
+
+    /**
+     * Remove all the entries whose keys match predicate.
+     */
+    public void invalidateIf(Predicate<? super K> predicate) {
+        for (Segment<K, V> segment : segments) {
+            invalidateIf(segment, predicate);
+        }
+    }
+
+    private void invalidateIf(Segment<K, V> segment, Predicate<? super K> predicate) {
+        synchronized (segment) {
+            long removedWeight = 0;
+            long removedEntries = 0;
+            Iterator<Map.Entry<K, Entry<V>>> iterator = segment.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Entry<V>> entry = iterator.next();
+                if (predicate.test(entry.getKey())) {
+                    removedWeight += entry.getValue().weight;
+                    removedEntries++;
+                    iterator.remove();
+                }
+            }
+            segment.weight -= removedWeight;
+            segment.version++;
+            if (removedEntries > 0) {
+                onSizeChange(-removedWeight, -removedEntries);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        invalidateIf(key -> true);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    protected void onHit() {
+    }
+
+    protected void onMiss() {
+    }
+
+    /**
+     * Called after a value is loaded, whether it is cached or not.
+     */
+    protected void onLoad(long elapsedNanos) {
+    }
+
+    /**
+     * Called under the lock of the segment whose entries change.
+     */
+    protected void onSizeChange(long deltaWeight, long deltaEntries) {
+    }
+
+    /**
+     * Called under the lock of the segment whose entries are evicted.
+     */
+    protected void onEviction(int evictionNum) {
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return segments[(h & Integer.MAX_VALUE) % segments.length];
+    }
+
+    /**
+     * An access ordered LRU list guarded by itself.
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+
+        private static final long serialVersionUID = -5184796102316226412L;
+
+        private final long capacity;
+        private long weight;
+        // changed by every invalidation, a value loaded before it is not cached
+        private long version = 0;
+
+        private Segment(long capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long weight;
+
+        private Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link PrimitiveColumn} of double values.
+ */
+public class DoubleColumn extends PrimitiveColumn {
+
+    private List<double[]> values;
+
+    public DoubleColumn() {
+        super();
+        values = new ArrayList<>();
+        values.add(new double[INITIAL_SIZE]);
+    }
+
+    @Override
+    protected int getValueSize() {
+        return 8;
+    }
+
+    @Override
+    protected List<?> getValueBlocks() {
+        return values;
+    }
+
+    @Override
+    public TSDataType getDataType() {
+        return TSDataType.DOUBLE;
+    }
+
+    @Override
+    protected void expandFirstValueBlock(int newSize) {
+        values.set(0, Arrays.copyOf(values.get(0), newSize));
+    }
+
+    @Override
+    protected void addValueBlock() {
+        values.add(new double[BLOCK_SIZE]);
+    }
+
+    @Override
+    public void putDouble(long timestamp, double value) {
+        int index = appendTimestamp(timestamp);
+        values.get(blockIndex(index))[blockOffset(index)] = value;
+    }
+
+    @Override
+    public double getDouble(int index) {
+        checkIndex(index);
+        return values.get(blockIndex(index))[blockOffset(index)];
+    }
+
+    @Override
+    public Object getValue(int index) {
+        return getDouble(index);
+    }
+}
@@ -0,0 +1,63 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link PrimitiveColumn} of float values.
+ */
+public class FloatColumn extends PrimitiveColumn {
+
+    private List<float[]> values;
+
+    public FloatColumn() {
+        super();
+        values = new ArrayList<>();
+        values.add(new float[INITIAL_SIZE]);
+    }
+
+    @Override
+    protected int getValueSize() {
+        return 4;
+    }
+
+    @Override
+    protected List<?> getValueBlocks() {
+        return values;
+    }
+
+    @Override
+    public TSDataType getDataType() {
+        return TSDataType.FLOAT;
+    }
+
+    @Override
+    protected void expandFirstValueBlock(int newSize) {
+        values.set(0, Arrays.copyOf(values.get(0), newSize));
+    }
+
+    @Override
+    protected void addValueBlock() {
+        values.add(new float[BLOCK_SIZE]);
+    }
+
+    @Override
+    public void putFloat(long timestamp, float value) {
+        int index = appendTimestamp(timestamp);
+        values.get(blockIndex(index))[blockOffset(index)] = value;
+    }
+
+    @Override
+    public float getFloat(int index) {
+        checkIndex(index);
+        return values.get(blockIndex(index))[blockOffset(index)];
+    }
+
+    @Override
+    public Object getValue(int index) {
+        return getFloat(index);
+    }
+}
@@ -0,0 +1,63 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link PrimitiveColumn} of int values.
+ */
+public class IntColumn extends PrimitiveColumn {
+
+    private List<int[]> values;
+
+    public IntColumn() {
+        super();
+        values = new ArrayList<>();
+        values.add(new int[INITIAL_SIZE]);
+    }
+
+    @Override
+    protected int getValueSize() {
+        return 4;
+    }
+
+    @Override
+    protected List<?> getValueBlocks() {
+        return values;
+    }
+
+    @Override
+    public TSDataType getDataType() {
+        return TSDataType.INT32;
+    }
+
+    @Override
+    protected void expandFirstValueBlock(int newSize) {
+        values.set(0, Arrays.copyOf(values.get(0), newSize));
+    }
+
+    @Override
+    protected void addValueBlock() {
+        values.add(new int[BLOCK_SIZE]);
+    }
+
+    @Override
+    public void putInt(long timestamp, int value) {
+        int index = appendTimestamp(timestamp);
+        values.get(blockIndex(index))[blockOffset(index)] = value;
+    }
+
+    @Override
+    public int getInt(int index) {
+        checkIndex(index);
+        return values.get(blockIndex(index))[blockOffset(index)];
+    }
+
+    @Override
+    public Object getValue(int index) {
+        return getInt(index);
+    }
+}
@@ -0,0 +1,63 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link PrimitiveColumn} of long values.
+ */
+public class LongColumn extends PrimitiveColumn {
+
+    private List<long[]> values;
+
+    public LongColumn() {
+        super();
+        values = new ArrayList<>();
+        values.add(new long[INITIAL_SIZE]);
+    }
+
+    @Override
+    protected int getValueSize() {
+        return 8;
+    }
+
+    @Override
+    protected List<?> getValueBlocks() {
+        return values;
+    }
+
+    @Override
+    public TSDataType getDataType() {
+        return TSDataType.INT64;
+    }
+
+    @Override
+    protected void expandFirstValueBlock(int newSize) {
+        values.set(0, Arrays.copyOf(values.get(0), newSize));
+    }
+
+    @Override
+    protected void addValueBlock() {
+        values.add(new long[BLOCK_SIZE]);
+    }
+
+    @Override
+    public void putLong(long timestamp, long value) {
+        int index = appendTimestamp(timestamp);
+        values.get(blockIndex(index))[blockOffset(index)] = value;
+    }
+
+    @Override
+    public long getLong(int index) {
+        checkIndex(index);
+        return values.get(blockIndex(index))[blockOffset(index)];
+    }
+
+    @Override
+    public Object getValue(int index) {
+        return getLong(index);
+    }
+}
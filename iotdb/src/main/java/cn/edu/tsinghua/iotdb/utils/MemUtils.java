@@ -12,6 +12,33 @@ import org.slf4j.LoggerFactory;
 public class MemUtils {
 	private static Logger logger = LoggerFactory.getLogger(MemUtils.class);
 
+	// sizes on a 64-bit JVM without compressed references, so that the usage is rather over than under estimated
+	public static final int OBJECT_HEADER_SIZE = 16;
+	public static final int ARRAY_HEADER_SIZE = 24;
+	public static final int REFERENCE_SIZE = 8;
+	// a HashMap.Node and its slot in the table
+	public static final int HASH_MAP_ENTRY_SIZE = 48 + REFERENCE_SIZE;
+	// a HashMap with its default table of 16 slots
+	public static final int HASH_MAP_SIZE = 48 + ARRAY_HEADER_SIZE + 16 * REFERENCE_SIZE;
+
+	/**
+	 * @return the heap size of an array of length elements, each of which takes elementSize bytes
+	 */
+	public static long getArraySize(int length, int elementSize) {
+		return align(ARRAY_HEADER_SIZE + (long) length * elementSize);
+	}
+
+	/**
+	 * @return the heap size of a Binary and its byte array. The encoding name is a shared constant and not counted.
+	 */
+	public static long getBinarySize(Binary binary) {
+		return align(OBJECT_HEADER_SIZE + 2 * REFERENCE_SIZE) + getArraySize(binary.getLength(), 1);
+	}
+
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
 	public static long getRecordSize(TSRecord record) {
 		long memSize = 0;
 		for (DataPoint dataPoint : record.dataPointList) {
@@ -33,7 +60,7 @@ public class MemUtils {
 		case BOOLEAN:
 			return 8 + 1;
 		case TEXT:
-			return 8 + dataPoint.getValue().toString().length() * 2;
+			return 8 + dataPoint.getBinary().getLength();
 		default:
 			return 8 + 8;
 		}
@@ -0,0 +1,222 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A column of (timestamp, value) pairs stored in primitive array blocks. Values are appended in arrival order and
+ * are read back by index.<br>
+ * Every block holds {@link #BLOCK_SIZE} points, except the first one, which starts small and doubles until it
+ * reaches {@link #BLOCK_SIZE} so that a series with only a few points stays small. Once the first block is full, new
+ * blocks are allocated at their final size and existing ones are never copied again.<br>
+ * Subclasses store the values of one data type and override the put and get methods of that type, other methods
+ * throw {@link UnsupportedOperationException}.<br>
+ * The column tracks its own heap size from the capacity of the allocated blocks rather than from the number of
+ * points, see {@link #getMemSize()}.
+ */
+public abstract class PrimitiveColumn {
+
+    private static final int BLOCK_SHIFT = 9;
+    protected static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    protected static final int INITIAL_SIZE = 8;
+
+    private List<long[]> timestamps;
+    private int size;
+    private int firstBlockSize;
+    private long memSize;
+
+    protected PrimitiveColumn() {
+        timestamps = new ArrayList<>();
+        timestamps.add(new long[INITIAL_SIZE]);
+        firstBlockSize = INITIAL_SIZE;
+        size = 0;
+        // this column and the two block lists with their default capacity
+        memSize = MemUtils.OBJECT_HEADER_SIZE + 4 * MemUtils.REFERENCE_SIZE
+                + 2 * (MemUtils.OBJECT_HEADER_SIZE + MemUtils.getArraySize(10, MemUtils.REFERENCE_SIZE))
+                + getBlockMemSize(INITIAL_SIZE);
+    }
+
+    /**
+     * @return the heap size of a timestamp block and a value block of the given capacity
+     */
+    private long getBlockMemSize(int capacity) {
+        return MemUtils.getArraySize(capacity, 8) + MemUtils.getArraySize(capacity, getValueSize());
+    }
+
+    /**
+     * make sure the slot at index {@link #size()} exists.
+     */
+    private void ensureCapacity() {
+        if (size < firstBlockSize) {
+            return;
+        }
+        if (size < BLOCK_SIZE) {
+            int newSize = Math.min(BLOCK_SIZE, firstBlockSize * 2);
+            timestamps.set(0, Arrays.copyOf(timestamps.get(0), newSize));
+            expandFirstValueBlock(newSize);
+            memSize += getBlockMemSize(newSize) - getBlockMemSize(firstBlockSize);
+            firstBlockSize = newSize;
+        } else if ((size & BLOCK_MASK) == 0) {
+            timestamps.add(new long[BLOCK_SIZE]);
+            addValueBlock();
+            memSize += getBlockMemSize(BLOCK_SIZE);
+        }
+    }
+
+    /**
+     * grow the first value block to newSize, keeping its content.
+     */
+    protected abstract void expandFirstValueBlock(int newSize);
+
+    /**
+     * append a new value block of {@link #BLOCK_SIZE}.
+     */
+    protected abstract void addValueBlock();
+
+    /**
+     * @return bytes of one slot in a value block
+     */
+    protected abstract int getValueSize();
+
+    /**
+     * @return the value blocks, typed arrays of the data type of this column
+     */
+    protected abstract List<?> getValueBlocks();
+
+    public abstract TSDataType getDataType();
+
+    /**
+     * reserve the slot for a new point and record its timestamp. Subclasses store the value at the returned index
+     * through {@link #blockIndex(int)} and {@link #blockOffset(int)}.
+     *
+     * @return index of the new point
+     */
+    protected int appendTimestamp(long timestamp) {
+        ensureCapacity();
+        int index = size;
+        timestamps.get(blockIndex(index))[blockOffset(index)] = timestamp;
+        size++;
+        return index;
+    }
+
+    protected static int blockIndex(int index) {
+        return index >>> BLOCK_SHIFT;
+    }
+
+    protected static int blockOffset(int index) {
+        return index & BLOCK_MASK;
+    }
+
+    protected void checkIndex(int index) {
+        if (index < 0) {
+            throw new NegativeArraySizeException("negetive array index:" + index);
+        }
+        if (index >= size) {
+            throw new ArrayIndexOutOfBoundsException("index: " + index);
+        }
+    }
+
+    public long getTimestamp(int index) {
+        checkIndex(index);
+        return timestamps.get(blockIndex(index))[blockOffset(index)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the heap size of this column in bytes. All allocated slots are counted, including the unused ones.
+     */
+    public long getMemSize() {
+        return memSize;
+    }
+
+    /**
+     * count the objects referenced by the values, e.g. the Binary values, which are not part of the blocks.
+     */
+    protected void addMemSize(long bytes) {
+        memSize += bytes;
+    }
+
+    /**
+     * copy all points into flat arrays, then sort them by timestamp and remove duplicated timestamps. The column
+     * itself is not modified.
+     */
+    public SortedColumn getSortedColumn() {
+        TSDataType dataType = getDataType();
+        int count = size;
+        long[] flatTimestamps = new long[count];
+        copyBlocks(timestamps, flatTimestamps, count);
+        Object flatValues = SortedColumn.newValueArray(dataType, count);
+        copyBlocks(getValueBlocks(), flatValues, count);
+        return new SortedColumn(dataType, flatTimestamps, flatValues, count);
+    }
+
+    private void copyBlocks(List<?> blocks, Object dest, int count) {
+        int pos = 0;
+        for (int i = 0; pos < count; i++) {
+            int length = Math.min(count - pos, i == 0 ? firstBlockSize : BLOCK_SIZE);
+            System.arraycopy(blocks.get(i), 0, dest, pos, length);
+            pos += length;
+        }
+    }
+
+    /**
+     * @return the boxed value at index, prefer the typed getters on hot paths
+     */
+    public abstract Object getValue(int index);
+
+    public void putBoolean(long timestamp, boolean value) {
+        throw new UnsupportedOperationException("putBoolean() is not supported for current sub-class");
+    }
+
+    public void putInt(long timestamp, int value) {
+        throw new UnsupportedOperationException("putInt() is not supported for current sub-class");
+    }
+
+    public void putLong(long timestamp, long value) {
+        throw new UnsupportedOperationException("putLong() is not supported for current sub-class");
+    }
+
+    public void putFloat(long timestamp, float value) {
+        throw new UnsupportedOperationException("putFloat() is not supported for current sub-class");
+    }
+
+    public void putDouble(long timestamp, double value) {
+        throw new UnsupportedOperationException("putDouble() is not supported for current sub-class");
+    }
+
+    public void putBinary(long timestamp, Binary value) {
+        throw new UnsupportedOperationException("putBinary() is not supported for current sub-class");
+    }
+
+    public boolean getBoolean(int index) {
+        throw new UnsupportedOperationException("getBoolean() is not supported for current sub-class");
+    }
+
+    public int getInt(int index) {
+        throw new UnsupportedOperationException("getInt() is not supported for current sub-class");
+    }
+
+    public long getLong(int index) {
+        throw new UnsupportedOperationException("getLong() is not supported for current sub-class");
+    }
+
+    public float getFloat(int index) {
+        throw new UnsupportedOperationException("getFloat() is not supported for current sub-class");
+    }
+
+    public double getDouble(int index) {
+        throw new UnsupportedOperationException("getDouble() is not supported for current sub-class");
+    }
+
+    public Binary getBinary(int index) {
+        throw new UnsupportedOperationException("getBinary() is not supported for current sub-class");
+    }
+}
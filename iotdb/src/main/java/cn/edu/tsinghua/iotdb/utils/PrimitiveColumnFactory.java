@@ -0,0 +1,26 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.common.exception.UnSupportedDataTypeException;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+
+public class PrimitiveColumnFactory {
+
+    public static PrimitiveColumn getByDataType(TSDataType dataType) {
+        switch (dataType) {
+            case BOOLEAN:
+                return new BooleanColumn();
+            case INT32:
+                return new IntColumn();
+            case INT64:
+                return new LongColumn();
+            case FLOAT:
+                return new FloatColumn();
+            case DOUBLE:
+                return new DoubleColumn();
+            case TEXT:
+                return new BinaryColumn();
+            default:
+                throw new UnSupportedDataTypeException("DataType: " + dataType);
+        }
+    }
+}
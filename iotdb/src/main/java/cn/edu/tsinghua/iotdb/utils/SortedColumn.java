@@ -0,0 +1,357 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.common.exception.UnSupportedDataTypeException;
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType;
+
+import java.util.List;
+
+/**
+ * Points of one series ordered by timestamp with at most one point per timestamp, stored in a flat timestamp
+ * array and a flat value array of the series data type. If a timestamp was written more than once, the point written
+ * last is kept.<br>
+ * Points are read by index in [0, {@link #size()}), with the getter matching the data type.
+ */
+public class SortedColumn {
+
+    // runs shorter than this are sorted by insertion sort before merging
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private TSDataType dataType;
+    private long[] timestamps;
+    // boolean[], int[], long[], float[], double[] or Binary[], depending on dataType
+    private Object values;
+    private int size;
+
+    /**
+     * sort and deduplicate the given points. The arrays are owned by the new instance afterwards.
+     *
+     * @param timestamps timestamps in arrival order
+     * @param values values in arrival order, an array matching dataType
+     * @param size number of points in the arrays
+     */
+    public SortedColumn(TSDataType dataType, long[] timestamps, Object values, int size) {
+        this.dataType = dataType;
+        this.timestamps = timestamps;
+        this.values = values;
+        this.size = size;
+        if (!isSorted()) {
+            sort();
+        }
+        deduplicate();
+    }
+
+    private SortedColumn(TSDataType dataType, long[] timestamps, Object values) {
+        this.dataType = dataType;
+        this.timestamps = timestamps;
+        this.values = values;
+        this.size = timestamps.length;
+    }
+
+    public static SortedColumn empty(TSDataType dataType) {
+        return new SortedColumn(dataType, new long[0], newValueArray(dataType, 0));
+    }
+
+    /**
+     * concatenate columns without sorting again. The minimum timestamp of each column must be larger than any
+     * timestamp of the columns before it.
+     */
+    public static SortedColumn concat(TSDataType dataType, List<SortedColumn> columns) {
+        if (columns.size() == 1) {
+            return columns.get(0);
+        }
+        int totalSize = 0;
+        for (SortedColumn column : columns) {
+            totalSize += column.size;
+        }
+        long[] timestamps = new long[totalSize];
+        Object values = newValueArray(dataType, totalSize);
+        int pos = 0;
+        for (SortedColumn column : columns) {
+            System.arraycopy(column.timestamps, 0, timestamps, pos, column.size);
+            System.arraycopy(column.values, 0, values, pos, column.size);
+            pos += column.size;
+        }
+        return new SortedColumn(dataType, timestamps, values);
+    }
+
+    static Object newValueArray(TSDataType dataType, int length) {
+        switch (dataType) {
+            case BOOLEAN:
+                return new boolean[length];
+            case INT32:
+                return new int[length];
+            case INT64:
+                return new long[length];
+            case FLOAT:
+                return new float[length];
+            case DOUBLE:
+                return new double[length];
+            case TEXT:
+                return new Binary[length];
+            default:
+                throw new UnSupportedDataTypeException("DataType: " + dataType);
+        }
+    }
+
+    private boolean isSorted() {
+        for (int i = 1; i < size; i++) {
+            if (timestamps[i] < timestamps[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * stable sort by timestamp, so that points with the same timestamp keep their arrival order.
+     */
+    private void sort() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        for (int lo = 0; lo < size; lo += INSERTION_SORT_THRESHOLD) {
+            insertionSort(order, lo, Math.min(lo + INSERTION_SORT_THRESHOLD, size));
+        }
+        int[] buffer = new int[size];
+        for (int width = INSERTION_SORT_THRESHOLD; width < size; width <<= 1) {
+            for (int lo = 0; lo < size - width; lo += width << 1) {
+                merge(order, buffer, lo, lo + width, Math.min(lo + (width << 1), size));
+            }
+        }
+
+        long[] sortedTimestamps = new long[size];
+        Object sortedValues = newValueArray(dataType, size);
+        for (int i = 0; i < size; i++) {
+            sortedTimestamps[i] = timestamps[order[i]];
+        }
+        switch (dataType) {
+            case BOOLEAN:
+                boolean[] booleans = (boolean[]) values;
+                boolean[] sortedBooleans = (boolean[]) sortedValues;
+                for (int i = 0; i < size; i++) {
+                    sortedBooleans[i] = booleans[order[i]];
+                }
+                break;
+            case INT32:
+                int[] ints = (int[]) values;
+                int[] sortedInts = (int[]) sortedValues;
+                for (int i = 0; i < size; i++) {
+                    sortedInts[i] = ints[order[i]];
+                }
+                break;
+            case INT64:
+                long[] longs = (long[]) values;
+                long[] sortedLongs = (long[]) sortedValues;
+                for (int i = 0; i < size; i++) {
+                    sortedLongs[i] = longs[order[i]];
+                }
+                break;
+            case FLOAT:
+                float[] floats = (float[]) values;
+                float[] sortedFloats = (float[]) sortedValues;
+                for (int i = 0; i < size; i++) {
+                    sortedFloats[i] = floats[order[i]];
+                }
+                break;
+            case DOUBLE:
+                double[] doubles = (double[]) values;
+                double[] sortedDoubles = (double[]) sortedValues;
+                for (int i = 0; i < size; i++) {
+                    sortedDoubles[i] = doubles[order[i]];
+                }
+                break;
+            case TEXT:
+                Binary[] binaries = (Binary[]) values;
+                Binary[] sortedBinaries = (Binary[]) sortedValues;
+                for (int i = 0; i < size; i++) {
+                    sortedBinaries[i] = binaries[order[i]];
+                }
+                break;
+            default:
+                throw new UnSupportedDataTypeException("DataType: " + dataType);
+        }
+        timestamps = sortedTimestamps;
+        values = sortedValues;
+    }
+
+    private void insertionSort(int[] order, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            int current = order[i];
+            long time = timestamps[current];
+            int j = i - 1;
+            while (j >= lo && timestamps[order[j]] > time) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+    }
+
+    private void merge(int[] order, int[] buffer, int lo, int mid, int hi) {
+        if (timestamps[order[mid - 1]] <= timestamps[order[mid]]) {
+            return;
+        }
+        System.arraycopy(order, lo, buffer, lo, hi - lo);
+        int left = lo;
+        int right = mid;
+        for (int k = lo; k < hi; k++) {
+            if (left >= mid) {
+                order[k] = buffer[right++];
+            } else if (right >= hi || timestamps[buffer[left]] <= timestamps[buffer[right]]) {
+                order[k] = buffer[left++];
+            } else {
+                order[k] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * remove points with duplicated timestamps in place, keeping the last one of each timestamp. The values are moved
+     * by a loop of the data type first, and then the timestamps.
+     */
+    private void deduplicate() {
+        int first = 0;
+        while (first < size && !isOverwritten(first)) {
+            first++;
+        }
+        if (first == size) {
+            return;
+        }
+        switch (dataType) {
+            case BOOLEAN:
+                boolean[] booleans = (boolean[]) values;
+                for (int read = first + 1, write = first; read < size; read++) {
+                    if (!isOverwritten(read)) {
+                        booleans[write++] = booleans[read];
+                    }
+                }
+                break;
+            case INT32:
+                int[] ints = (int[]) values;
+                for (int read = first + 1, write = first; read < size; read++) {
+                    if (!isOverwritten(read)) {
+                        ints[write++] = ints[read];
+                    }
+                }
+                break;
+            case INT64:
+                long[] longs = (long[]) values;
+                for (int read = first + 1, write = first; read < size; read++) {
+                    if (!isOverwritten(read)) {
+                        longs[write++] = longs[read];
+                    }
+                }
+                break;
+            case FLOAT:
+                float[] floats = (float[]) values;
+                for (int read = first + 1, write = first; read < size; read++) {
+                    if (!isOverwritten(read)) {
+                        floats[write++] = floats[read];
+                    }
+                }
+                break;
+            case DOUBLE:
+                double[] doubles = (double[]) values;
+                for (int read = first + 1, write = first; read < size; read++) {
+                    if (!isOverwritten(read)) {
+                        doubles[write++] = doubles[read];
+                    }
+                }
+                break;
+            case TEXT:
+                Binary[] binaries = (Binary[]) values;
+                int write = first;
+                for (int read = first + 1; read < size; read++) {
+                    if (!isOverwritten(read)) {
+                        binaries[write++] = binaries[read];
+                    }
+                }
+                // release the references to the removed values
+                for (int i = write; i < size; i++) {
+                    binaries[i] = null;
+                }
+                break;
+            default:
+                throw new UnSupportedDataTypeException("DataType: " + dataType);
+        }
+        int write = first;
+        for (int read = first + 1; read < size; read++) {
+            if (!isOverwritten(read)) {
+                timestamps[write++] = timestamps[read];
+            }
+        }
+        size = write;
+    }
+
+    /**
+     * whether the point is followed by a point of the same timestamp, which overwrites it.
+     */
+    private boolean isOverwritten(int index) {
+        return index + 1 < size && timestamps[index + 1] == timestamps[index];
+    }
+
+    public TSDataType getDataType() {
+        return dataType;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public boolean getBoolean(int index) {
+        return ((boolean[]) values)[index];
+    }
+
+    public int getInt(int index) {
+        return ((int[]) values)[index];
+    }
+
+    public long getLong(int index) {
+        return ((long[]) values)[index];
+    }
+
+    public float getFloat(int index) {
+        return ((float[]) values)[index];
+    }
+
+    public double getDouble(int index) {
+        return ((double[]) values)[index];
+    }
+
+    public Binary getBinary(int index) {
+        return ((Binary[]) values)[index];
+    }
+
+    /**
+     * @return the value at index wrapped in a new {@link TsPrimitiveType}
+     */
+    public TsPrimitiveType getValue(int index) {
+        switch (dataType) {
+            case BOOLEAN:
+                return new TsPrimitiveType.TsBoolean(getBoolean(index));
+            case INT32:
+                return new TsPrimitiveType.TsInt(getInt(index));
+            case INT64:
+                return new TsPrimitiveType.TsLong(getLong(index));
+            case FLOAT:
+                return new TsPrimitiveType.TsFloat(getFloat(index));
+            case DOUBLE:
+                return new TsPrimitiveType.TsDouble(getDouble(index));
+            case TEXT:
+                return new TsPrimitiveType.TsBinary(getBinary(index));
+            default:
+                throw new UnSupportedDataTypeException("DataType: " + dataType);
+        }
+    }
+}
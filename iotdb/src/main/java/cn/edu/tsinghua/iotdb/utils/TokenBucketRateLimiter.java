@@ -0,0 +1,80 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket which limits how many permits, e.g. bytes, are acquired per second by all the threads sharing it. The
+ * bucket holds at most one second of permits, so an idle period allows a burst of that size.
+ * <p>
+ * A caller may acquire more permits than the bucket holds: it gets them at once and leaves the bucket in debt, then
+ * it and the later callers sleep until the debt is paid. So the size of an I/O can be acquired after it is done, when
+ * it is known exactly. The rate can be changed at any time, and a rate <= 0 means no limit.
+ */
+public class TokenBucketRateLimiter {
+
+	private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private double permitsPerSecond;
+	// negative while in debt
+	private double storedPermits;
+	private long lastRefillNanos;
+
+	public TokenBucketRateLimiter(double permitsPerSecond) {
+		this.permitsPerSecond = permitsPerSecond;
+		this.lastRefillNanos = System.nanoTime();
+	}
+
+	public synchronized double getRate() {
+		return permitsPerSecond;
+	}
+
+	public synchronized void setRate(double permitsPerSecond) {
+		refill(System.nanoTime());
+		this.permitsPerSecond = permitsPerSecond;
+		if (permitsPerSecond <= 0) {
+			storedPermits = 0;
+		} else {
+			storedPermits = Math.min(storedPermits, permitsPerSecond);
+		}
+	}
+
+	/**
+	 * Acquire permits, sleeping until the bucket is no longer in debt.
+	 *
+	 * @return the nanoseconds slept
+	 */
+	public long acquire(long permits) {
+		long waitNanos = reserve(permits);
+		if (waitNanos <= 0) {
+			return 0;
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return waitNanos;
+	}
+
+	/**
+	 * Take permits from the bucket without waiting.
+	 *
+	 * @return how many nanoseconds the caller should wait before its I/O
+	 */
+	synchronized long reserve(long permits) {
+		if (permitsPerSecond <= 0) {
+			return 0;
+		}
+		refill(System.nanoTime());
+		storedPermits -= permits;
+		return storedPermits >= 0 ? 0 : (long) (-storedPermits / permitsPerSecond * NANOS_PER_SECOND);
+	}
+
+	private void refill(long nowNanos) {
+		if (permitsPerSecond > 0 && nowNanos > lastRefillNanos) {
+			storedPermits = Math.min(permitsPerSecond,
+					storedPermits + (nowNanos - lastRefillNanos) * permitsPerSecond / NANOS_PER_SECOND);
+		}
+		lastRefillNanos = nowNanos;
+	}
+}
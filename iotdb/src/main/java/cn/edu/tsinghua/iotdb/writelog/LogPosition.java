@@ -4,4 +4,8 @@ public class LogPosition {
     public String logPath;
     public long startPos;
     public long endPos;
+    /**
+     * serial number of the log in its node, used to wait until the log is synced.
+     */
+    public long serialNumber;
 }
@@ -0,0 +1,48 @@
+package cn.edu.tsinghua.iotdb.writelog;
+
+import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
+
+/**
+ * When the logs of a write log node are forced to disk.
+ */
+public enum WalDurability {
+    /**
+     * a write returns after its log is forced to disk. Writers waiting at the same time share one fsync.
+     */
+    SYNC,
+    /**
+     * logs are written and forced every flush_wal_threshold logs or every flush_wal_period_in_ms, writers do not wait.
+     */
+    PERIODIC,
+    /**
+     * logs are handed to the OS at the same points as PERIODIC but only forced when the node is closed or its
+     * FileNode starts flushing.
+     */
+    ASYNC;
+
+    public static WalDurability getByName(String name) {
+        for (WalDurability durability : values()) {
+            if (durability.name().equalsIgnoreCase(name.trim())) {
+                return durability;
+            }
+        }
+        throw new IllegalArgumentException("Unknown WAL durability: " + name);
+    }
+
+    /**
+     * @param fileNodeName name of the storage group
+     * @return the durability configured for fileNodeName in wal_durability_overrides, or wal_durability if there is
+     * none
+     */
+    public static WalDurability getForFileNode(TsfileDBConfig config, String fileNodeName) {
+        if (config.walDurabilityOverrides != null) {
+            for (String override : config.walDurabilityOverrides.split(",")) {
+                int separator = override.lastIndexOf(':');
+                if (separator > 0 && override.substring(0, separator).trim().equals(fileNodeName)) {
+                    return getByName(override.substring(separator + 1));
+                }
+            }
+        }
+        return getByName(config.walDurability);
+    }
+}
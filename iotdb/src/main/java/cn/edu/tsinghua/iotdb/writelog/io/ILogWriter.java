@@ -5,7 +5,15 @@ import java.util.List;
 
 public interface ILogWriter {
 
+    /**
+     * append the logs to the file. The logs are not guaranteed to be on disk before {@link #force()} is called.
+     */
     void write(List<byte[]> logCache) throws IOException;
 
+    /**
+     * force the logs written so far to disk.
+     */
+    void force() throws IOException;
+
     void close() throws IOException;
 }
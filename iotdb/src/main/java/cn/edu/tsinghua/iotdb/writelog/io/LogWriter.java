@@ -3,7 +3,6 @@ package cn.edu.tsinghua.iotdb.writelog.io;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.List;
@@ -11,9 +10,13 @@ import java.util.zip.CRC32;
 
 public class LogWriter implements ILogWriter {
 
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
     private File logFile;
     private FileChannel outputStream;
     private CRC32 checkSummer = new CRC32();
+    // reused between writes, only grows when a batch does not fit
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
 
     public LogWriter(String logFilePath) {
         logFile = new File(logFilePath);
@@ -27,7 +30,10 @@ public class LogWriter implements ILogWriter {
         for (byte[] bytes : logCache) {
             totalSize += 4 + 8 + bytes.length;
         }
-        ByteBuffer buffer = ByteBuffer.allocate(totalSize);
+        if (buffer.capacity() < totalSize) {
+            buffer = ByteBuffer.allocate(Math.max(totalSize, buffer.capacity() * 2));
+        }
+        buffer.clear();
         for (byte[] bytes : logCache) {
             buffer.putInt(bytes.length);
             checkSummer.reset();
@@ -36,13 +42,22 @@ public class LogWriter implements ILogWriter {
             buffer.put(bytes);
         }
         buffer.flip();
-        outputStream.write(buffer);
-        outputStream.force(true);
+        while (buffer.hasRemaining()) {
+            outputStream.write(buffer);
+        }
+    }
+
+    @Override
+    public void force() throws IOException {
+        if (outputStream != null) {
+            outputStream.force(true);
+        }
     }
 
     @Override
     public void close() throws IOException {
         if (outputStream != null) {
+            outputStream.force(true);
             outputStream.close();
             outputStream = null;
         }
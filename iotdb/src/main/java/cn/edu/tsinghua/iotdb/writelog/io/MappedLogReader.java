@@ -0,0 +1,108 @@
+package cn.edu.tsinghua.iotdb.writelog.io;
+
+import cn.edu.tsinghua.iotdb.qp.physical.PhysicalPlan;
+import cn.edu.tsinghua.iotdb.utils.CommonUtils;
+import cn.edu.tsinghua.iotdb.writelog.transfer.PhysicalPlanLogTransfer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the logs of a segment written by {@link MappedLogWriter} through a {@link MappedByteBuffer}. Reading stops at
+ * the first log whose size or checksum is invalid, which is where the writer stopped. Logs are checked and decoded in
+ * place from the mapped buffer, they are never copied into a byte array.
+ */
+public class MappedLogReader implements ILogReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedLogReader.class);
+    private String filepath;
+    private MappedByteBuffer buffer;
+    // a view of buffer limited to the log being read
+    private ByteBuffer logView;
+    private long sequence;
+    private CRC32 checkSummer = new CRC32();
+    private PhysicalPlan planBuffer = null;
+
+    public MappedLogReader() {
+
+    }
+
+    public MappedLogReader(File segment) throws FileNotFoundException {
+        open(segment);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (planBuffer != null)
+            return true;
+        if (buffer == null || buffer.remaining() < 12) {
+            return false;
+        }
+        int logSize = buffer.getInt();
+        if (logSize <= 0 || logSize > buffer.remaining() - 8) {
+            return false;
+        }
+        long checkSum = buffer.getLong();
+        int logStart = buffer.position();
+        buffer.position(logStart + logSize);
+        logView.limit(logStart + logSize).position(logStart);
+        checkSummer.reset();
+        MappedLogWriter.updateChecksum(checkSummer, sequence);
+        checkSummer.update(logView);
+        if (checkSummer.getValue() != checkSum)
+            return false;
+        logView.position(logStart);
+        try {
+            planBuffer = PhysicalPlanLogTransfer.logToOperator(logView);
+            return true;
+        } catch (IOException e) {
+            logger.error("Cannot read log file {}, because {}", filepath, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public PhysicalPlan next() {
+        PhysicalPlan ret = planBuffer;
+        planBuffer = null;
+        return ret;
+    }
+
+    @Override
+    public void close() {
+        if (buffer != null) {
+            try {
+                CommonUtils.destroyBuffer(buffer);
+            } catch (Exception e) {
+                logger.warn("Cannot unmap log file {}, because {}", filepath, e.getMessage());
+            }
+            buffer = null;
+            logView = null;
+        }
+        planBuffer = null;
+    }
+
+    @Override
+    public void open(File segment) throws FileNotFoundException {
+        this.filepath = segment.getPath();
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "r")) {
+            FileChannel channel = raf.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            logger.error("Cannot map log file {}, because {}", filepath, e.getMessage());
+            throw new FileNotFoundException(e.getMessage());
+        }
+        sequence = buffer.remaining() >= MappedLogWriter.HEADER_SIZE ? buffer.getLong() : 0;
+        logView = buffer.duplicate();
+    }
+}
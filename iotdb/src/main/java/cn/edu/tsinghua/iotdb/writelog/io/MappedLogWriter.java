@@ -0,0 +1,291 @@
+package cn.edu.tsinghua.iotdb.writelog.io;
+
+import cn.edu.tsinghua.iotdb.utils.CommonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Writes logs into fixed-size segment files under a log directory. Segments are preallocated once and written through
+ * a {@link MappedByteBuffer}. Segments that are no longer needed are marked as free and reused instead of deleted, so
+ * that steady writing neither creates nor deletes files.<br>
+ * Layout of a segment: [long sequence number][log]*, where a log is [int size][long checksum][bytes]. The checksum is
+ * the CRC32 of the sequence number followed by the bytes, so the logs left in a reused segment by its previous use
+ * never pass the check. A positive sequence number marks a segment in use, a free segment stores its last sequence
+ * number negated, so that sequence numbers keep increasing across restarts.
+ */
+public class MappedLogWriter implements ILogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedLogWriter.class);
+
+    public static final String SEGMENT_PREFIX = "wal-segment-";
+
+    public static final int HEADER_SIZE = 8;
+
+    private static final int LOG_HEAD_SIZE = 4 + 8;
+
+    private static final int MAX_FREE_SEGMENTS = 2;
+
+    private static final int PREALLOCATE_BUFFER_SIZE = 64 * 1024;
+
+    private File logDirectory;
+    private int segmentSize;
+    private boolean opened = false;
+
+    // segments in use by sequence number, the last one is the one being written unless it is sealed
+    private TreeMap<Long, File> usedSegments = new TreeMap<>();
+    // for each seal not yet recycled, the sequence numbers below it belong to the segments it sealed
+    private Deque<Long> sealBounds = new ArrayDeque<>();
+    private Deque<File> freeSegments = new ArrayDeque<>();
+    private long lastSequence = 0;
+    private int nextSegmentIndex = 0;
+
+    private FileChannel currentChannel;
+    private MappedByteBuffer currentBuffer;
+    private long currentSequence;
+    private CRC32 checkSummer = new CRC32();
+
+    public MappedLogWriter(String logDirectory, int segmentSize) {
+        this.logDirectory = new File(logDirectory);
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public void write(List<byte[]> logCache) throws IOException {
+        for (byte[] bytes : logCache) {
+            write(bytes);
+        }
+    }
+
+    /**
+     * Append one log. A log is either written completely or, if this fails, not at all.
+     */
+    public void write(byte[] bytes) throws IOException {
+        open();
+        int logSize = LOG_HEAD_SIZE + bytes.length;
+        if (logSize > segmentSize - HEADER_SIZE) {
+            throw new IOException(String.format("Log of %d bytes cannot fit in a WAL segment of %d bytes",
+                    bytes.length, segmentSize));
+        }
+        if (currentBuffer == null || currentBuffer.remaining() < logSize) {
+            nextSegment();
+        }
+        checkSummer.reset();
+        updateChecksum(checkSummer, currentSequence);
+        checkSummer.update(bytes);
+        currentBuffer.putInt(bytes.length);
+        currentBuffer.putLong(checkSummer.getValue());
+        currentBuffer.put(bytes);
+    }
+
+    @Override
+    public void force() throws IOException {
+        if (currentBuffer != null) {
+            currentBuffer.force();
+        }
+    }
+
+    /**
+     * Close the current segment. The seals not recycled yet are kept, as sequence numbers keep increasing across
+     * reopening, so the segments of a flush that ends after the close are still recycled by {@link #recycleSealed()}.
+     */
+    @Override
+    public void close() throws IOException {
+        releaseCurrent();
+        usedSegments.clear();
+        freeSegments.clear();
+        opened = false;
+    }
+
+    /**
+     * Forget the seals not recycled yet, once their segments are recycled by {@link #recycleAll(File)} or deleted.
+     */
+    public void discardSeals() {
+        sealBounds.clear();
+    }
+
+    /**
+     * Stop writing into the segments in use, the next log goes into a new segment. The sealed segments stay until
+     * {@link #recycleSealed()} is called for this seal.
+     */
+    public void seal() throws IOException {
+        releaseCurrent();
+        sealBounds.add(lastSequence + 1);
+    }
+
+    /**
+     * Mark the segments sealed by the oldest {@link #seal()} that is not recycled yet as free. Seals are recycled in
+     * the order they are made, so a later seal keeps its segments until its own turn.
+     */
+    public void recycleSealed() throws IOException {
+        Long sealedBefore = sealBounds.poll();
+        if (sealedBefore == null || (!opened && !logDirectory.exists())) {
+            return;
+        }
+        // the writer may have been closed since the seal
+        open();
+        Map<Long, File> sealedSegments = usedSegments.headMap(sealedBefore);
+        for (Map.Entry<Long, File> entry : sealedSegments.entrySet()) {
+            recycle(entry.getValue(), entry.getKey());
+        }
+        sealedSegments.clear();
+    }
+
+    private void recycle(File segment, long sequence) throws IOException {
+        if (freeSegments.size() >= MAX_FREE_SEGMENTS) {
+            if (!segment.delete()) {
+                logger.error("Cannot delete WAL segment {}", segment.getPath());
+            }
+            return;
+        }
+        writeHeader(segment, -sequence);
+        freeSegments.add(segment);
+    }
+
+    private void open() throws IOException {
+        if (opened) {
+            return;
+        }
+        if (!logDirectory.exists() && !logDirectory.mkdirs()) {
+            throw new IOException("Cannot create WAL directory " + logDirectory.getPath());
+        }
+        File[] segments = listSegments(logDirectory);
+        for (File segment : segments) {
+            long sequence = readHeader(segment);
+            if (sequence > 0) {
+                usedSegments.put(sequence, segment);
+            } else {
+                freeSegments.add(segment);
+            }
+            lastSequence = Math.max(lastSequence, Math.abs(sequence));
+            nextSegmentIndex = Math.max(nextSegmentIndex, segmentIndex(segment) + 1);
+        }
+        opened = true;
+    }
+
+    /**
+     * Seal the current segment and start writing a free or newly preallocated one.
+     */
+    private void nextSegment() throws IOException {
+        releaseCurrent();
+        File segment = freeSegments.poll();
+        if (segment == null) {
+            segment = new File(logDirectory, SEGMENT_PREFIX + nextSegmentIndex++);
+            preallocate(segment);
+        }
+        currentSequence = ++lastSequence;
+        currentChannel = new RandomAccessFile(segment, "rw").getChannel();
+        currentBuffer = currentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        currentBuffer.putLong(currentSequence);
+        usedSegments.put(currentSequence, segment);
+    }
+
+    private void preallocate(File segment) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer zeros = ByteBuffer.allocate(PREALLOCATE_BUFFER_SIZE);
+            long pos = 0;
+            while (pos < segmentSize) {
+                zeros.clear();
+                zeros.limit((int) Math.min(PREALLOCATE_BUFFER_SIZE, segmentSize - pos));
+                pos += channel.write(zeros, pos);
+            }
+            channel.force(true);
+        }
+    }
+
+    private void releaseCurrent() throws IOException {
+        if (currentBuffer == null) {
+            return;
+        }
+        currentBuffer.force();
+        try {
+            CommonUtils.destroyBuffer(currentBuffer);
+        } catch (Exception e) {
+            logger.warn("Cannot unmap WAL segment of {}, because {}", logDirectory.getPath(), e.getMessage());
+        }
+        currentBuffer = null;
+        currentChannel.close();
+        currentChannel = null;
+    }
+
+    static void updateChecksum(CRC32 checkSummer, long sequence) {
+        for (int i = 56; i >= 0; i -= 8) {
+            checkSummer.update((int) (sequence >>> i));
+        }
+    }
+
+    private static int segmentIndex(File segment) {
+        try {
+            return Integer.parseInt(segment.getName().substring(SEGMENT_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static File[] listSegments(File logDirectory) {
+        File[] segments = logDirectory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX));
+        return segments == null ? new File[0] : segments;
+    }
+
+    /**
+     * @return the sequence number in the header of the segment, 0 if the segment has never been used
+     */
+    public static long readHeader(File segment) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "r")) {
+            if (raf.length() < HEADER_SIZE) {
+                return 0;
+            }
+            return raf.readLong();
+        }
+    }
+
+    private static void writeHeader(File segment, long sequence) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putLong(sequence);
+            header.flip();
+            raf.getChannel().write(header, 0);
+            raf.getChannel().force(false);
+        }
+    }
+
+    /**
+     * @return the segments in use under logDirectory in the order they were written
+     */
+    public static List<File> listUsedSegments(File logDirectory) throws IOException {
+        TreeMap<Long, File> segments = new TreeMap<>();
+        for (File segment : listSegments(logDirectory)) {
+            long sequence = readHeader(segment);
+            if (sequence > 0) {
+                segments.put(sequence, segment);
+            }
+        }
+        return new ArrayList<>(segments.values());
+    }
+
+    /**
+     * Mark all segments under logDirectory as free. The writer of this directory must be closed.
+     */
+    public static void recycleAll(File logDirectory) throws IOException {
+        for (File segment : listSegments(logDirectory)) {
+            long sequence = readHeader(segment);
+            if (sequence > 0) {
+                writeHeader(segment, -sequence);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package cn.edu.tsinghua.iotdb.writelog.manager;
 
+import cn.edu.tsinghua.iotdb.concurrent.IoTDBThreadPoolFactory;
 import cn.edu.tsinghua.iotdb.concurrent.ThreadName;
 import cn.edu.tsinghua.iotdb.conf.TsFileDBConstant;
 import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
@@ -8,8 +9,10 @@ import cn.edu.tsinghua.iotdb.exception.RecoverException;
 import cn.edu.tsinghua.iotdb.exception.StartupException;
 import cn.edu.tsinghua.iotdb.service.IService;
 import cn.edu.tsinghua.iotdb.service.ServiceType;
+import cn.edu.tsinghua.iotdb.writelog.io.MappedLogWriter;
 import cn.edu.tsinghua.iotdb.writelog.node.ExclusiveWriteLogNode;
 import cn.edu.tsinghua.iotdb.writelog.node.WriteLogNode;
+import cn.edu.tsinghua.iotdb.writelog.recover.ExclusiveLogRecoverPerformer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,9 +20,15 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
 
@@ -90,20 +99,66 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
 
     /*
     Warning : caller must guarantee thread safety.
+    Storage groups recover concurrently on at most concurrentRecoverThread threads, while the nodes of one storage
+    group recover one after another in the order of their identifiers.
      */
     @Override
     public void recover() throws RecoverException {
         List<WriteLogNode> nodeList = new ArrayList<>(nodeMap.size());
         nodeList.addAll(nodeMap.values());
         nodeList.sort(null);
+        Map<String, List<WriteLogNode>> groupMap = new LinkedHashMap<>();
         for(WriteLogNode node : nodeList) {
+            groupMap.computeIfAbsent(node.getIdentifier().split("-")[0], k -> new ArrayList<>()).add(node);
+        }
+        if(groupMap.isEmpty())
+            return;
+
+        int groupNum = groupMap.size();
+        long startTime = System.currentTimeMillis();
+        long startLogCount = ExclusiveLogRecoverPerformer.getReplayedLogCount();
+        AtomicInteger recoveredGroupNum = new AtomicInteger();
+        logger.info("Start recovering {} log nodes of {} storage groups", nodeList.size(), groupNum);
+        ExecutorService recoverPool = IoTDBThreadPoolFactory.newFixedThreadPool(
+                Math.min(config.concurrentRecoverThread, groupNum), ThreadName.WAL_RECOVER.getName());
+        List<Future<?>> futures = new ArrayList<>(groupNum);
+        for(List<WriteLogNode> group : groupMap.values()) {
+            futures.add(recoverPool.submit((Callable<Void>) () -> {
+                for(WriteLogNode node : group) {
+                    try {
+                        node.recover();
+                    } catch (RecoverException e) {
+                        logger.error("{} failed to recover because {}", node.toString(), e.getMessage());
+                        throw e;
+                    }
+                }
+                logger.info("WAL recovery progress: {}/{} storage groups recovered, {} logs replayed in {} ms",
+                        recoveredGroupNum.incrementAndGet(), groupNum,
+                        ExclusiveLogRecoverPerformer.getReplayedLogCount() - startLogCount,
+                        System.currentTimeMillis() - startTime);
+                return null;
+            }));
+        }
+        recoverPool.shutdown();
+        RecoverException exception = null;
+        for(Future<?> future : futures) {
             try {
-                node.recover();
-            } catch (RecoverException e) {
-                logger.error("{} failed to recover because {}", node.toString(), e.getMessage());
-                throw e;
+                future.get();
+            } catch (ExecutionException e) {
+                if(exception == null) {
+                    exception = e.getCause() instanceof RecoverException ? (RecoverException) e.getCause()
+                            : new RecoverException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                recoverPool.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new RecoverException(e);
             }
         }
+        if(exception != null)
+            throw exception;
+        logger.info("Recovered {} storage groups, {} logs replayed in {} ms", groupNum,
+                ExclusiveLogRecoverPerformer.getReplayedLogCount() - startLogCount, System.currentTimeMillis() - startTime);
     }
 
     @Override
@@ -137,9 +192,7 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
     }
 
     private boolean hasBufferWriteWAL(String fileNodeName) {
-        File bufferWriteWALDir = new File(bufferWriteWALPath(fileNodeName));
-        String[] files = bufferWriteWALDir.list();
-        return files != null && files.length > 0;
+        return hasLogs(new File(bufferWriteWALPath(fileNodeName)));
     }
 
     private String bufferWriteWALPath(String fileNodeName) {
@@ -147,9 +200,28 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
     }
 
     private boolean hasOverflowWAL(String fileNodeName) {
-        File overflowWALDir = new File(overflowWALPath(fileNodeName));
-        String[] files = overflowWALDir.list();
-        return files != null && files.length > 0;
+        return hasLogs(new File(overflowWALPath(fileNodeName)));
+    }
+
+    /**
+     * @return true if the directory contains any file other than free log segments
+     */
+    private boolean hasLogs(File logDirectory) {
+        String[] files = logDirectory.list();
+        if (files == null) {
+            return false;
+        }
+        for (String file : files) {
+            if (!file.startsWith(MappedLogWriter.SEGMENT_PREFIX)) {
+                return true;
+            }
+        }
+        try {
+            return !MappedLogWriter.listUsedSegments(logDirectory).isEmpty();
+        } catch (IOException e) {
+            logger.error("Cannot read log segments in {}, because {}", logDirectory.getPath(), e.getMessage());
+            return true;
+        }
     }
 
     private String overflowWALPath(String fileNodeName) {
@@ -3,10 +3,9 @@ package cn.edu.tsinghua.iotdb.writelog.node;
 import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
 import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
 import cn.edu.tsinghua.iotdb.exception.RecoverException;
-import cn.edu.tsinghua.iotdb.utils.MemUtils;
 import cn.edu.tsinghua.iotdb.writelog.LogPosition;
-import cn.edu.tsinghua.iotdb.writelog.io.ILogWriter;
-import cn.edu.tsinghua.iotdb.writelog.io.LogWriter;
+import cn.edu.tsinghua.iotdb.writelog.WalDurability;
+import cn.edu.tsinghua.iotdb.writelog.io.MappedLogWriter;
 import cn.edu.tsinghua.iotdb.writelog.recover.ExclusiveLogRecoverPerformer;
 import cn.edu.tsinghua.iotdb.writelog.recover.RecoverPerformer;
 import cn.edu.tsinghua.iotdb.writelog.transfer.PhysicalPlanLogTransfer;
@@ -19,16 +18,26 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This WriteLogNode is used to manage write ahead logs of a single FileNode.
+ * Writers serialize their plans without holding any lock and only lock the cache to append the bytes. The cache is
+ * double buffered: whoever syncs swaps it with an empty one and writes the swapped logs to the file, so that writers
+ * keep appending while the file is written. With {@link WalDurability#SYNC}, the first writer that waits for its log
+ * syncs the logs of all writers, which then share the same fsync. The logs of a failed sync are kept and synced again
+ * by the next one.<br>
+ * Logs are written into preallocated segments. When a flush starts the segments written so far are sealed, and they
+ * are recycled when the flush ends.
  */
 public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<ExclusiveWriteLogNode> {
 
     private static final Logger logger = LoggerFactory.getLogger(ExclusiveWriteLogNode.class);
 
+    /**
+     * Name of the single log file used before logs were written into segments, see {@link MappedLogWriter}. Such
+     * files, and their "-old" counterparts, are only replayed by recovery.
+     */
     public static final String WAL_FILE_NAME = "wal";
 
     public static final String OLD_SUFFIX = "-old";
@@ -40,46 +49,81 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
     private String logDirectory;
 
-    private ILogWriter currentFileWriter;
+    private MappedLogWriter currentFileWriter;
 
     private RecoverPerformer recoverPerformer;
 
     private TsfileDBConfig config = TsfileDBDescriptor.getInstance().getConfig();
 
+    private WalDurability durability;
+
     private List<byte[]> logCache = new ArrayList<>(config.flushWalThreshold);
 
-    private ReadWriteLock lock = new ReentrantReadWriteLock();
+    // the logs being synced, or the ones left by a failed sync, which are synced before logCache. Guarded by syncLock.
+    private List<byte[]> syncingCache = new ArrayList<>(config.flushWalThreshold);
+
+    // number of logs appended to logCache, guarded by cacheLock
+    private long appendedCount = 0;
+
+    // number of logs written to the file and synced, only updated while holding syncLock
+    private volatile long syncedCount = 0;
+
+    // guards logCache and appendedCount
+    private ReentrantLock cacheLock = new ReentrantLock();
+
+    // serializes syncs, close and delete
+    private ReentrantLock syncLock = new ReentrantLock();
 
     public ExclusiveWriteLogNode(String identifier, String restoreFilePath, String processorStoreFilePath) {
         this.identifier = identifier;
         this.logDirectory = config.walFolder + File.separator + this.identifier;
         new File(logDirectory).mkdirs();
 
+        durability = WalDurability.getForFileNode(config, getFileNodeName());
         recoverPerformer = new ExclusiveLogRecoverPerformer(restoreFilePath, processorStoreFilePath, this);
-        currentFileWriter = new LogWriter(logDirectory + File.separator + WAL_FILE_NAME);
+        currentFileWriter = new MappedLogWriter(logDirectory,
+                Math.max(config.walSegmentSize, MappedLogWriter.HEADER_SIZE + 12 + config.maxLogEntrySize));
     }
 
     public void setRecoverPerformer(RecoverPerformer recoverPerformer) {
         this.recoverPerformer = recoverPerformer;
     }
 
-    /*
-    Return value is of no use in this implementation.
-     */
     @Override
     public LogPosition write(PhysicalPlan plan) throws IOException {
-        lockForWrite();
+        byte[] logBytes = PhysicalPlanLogTransfer.operatorToLog(plan);
+        LogPosition position = new LogPosition();
+        boolean cacheFull;
+        cacheLock.lock();
         try {
-            byte[] logBytes = PhysicalPlanLogTransfer.operatorToLog(plan);
             logCache.add(logBytes);
+            position.serialNumber = ++appendedCount;
+            cacheFull = logCache.size() >= config.flushWalThreshold;
+        } finally {
+            cacheLock.unlock();
+        }
+        if (cacheFull && durability != WalDurability.SYNC) {
+            sync(durability == WalDurability.PERIODIC);
+        }
+        return position;
+    }
 
-            if (logCache.size() >= config.flushWalThreshold) {
-                sync();
+    @Override
+    public void waitForSync(LogPosition position) throws IOException {
+        if (position == null || durability != WalDurability.SYNC) {
+            return;
+        }
+        if (syncedCount < position.serialNumber) {
+            syncLock.lock();
+            try {
+                // the logs may have been synced by another writer while waiting for the lock
+                if (syncedCount < position.serialNumber) {
+                    syncCache(true);
+                }
+            } finally {
+                syncLock.unlock();
             }
-        } finally {
-            unlockForWrite();
         }
-        return null;
     }
 
     @Override
@@ -91,24 +135,32 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
             throw new RecoverException(String.format("Cannot close write log %s node before recover!", identifier));
         }
         recoverPerformer.recover();
+        syncLock.lock();
+        try {
+            // the recovery has replayed and recycled all segments
+            currentFileWriter.discardSeals();
+        } finally {
+            syncLock.unlock();
+        }
     }
 
     @Override
     public void close() throws IOException {
-        sync();
-        lockForOther();
+        syncLock.lock();
         try {
+            syncCache(true);
             this.currentFileWriter.close();
             logger.debug("Log node {} closed successfully", identifier);
         } catch (IOException e) {
             logger.error("Cannot close log node {} because {}", identifier, e.getMessage());
+        } finally {
+            syncLock.unlock();
         }
-        unlockForOther();
     }
 
     @Override
     public void forceSync() throws IOException {
-        sync();
+        sync(durability != WalDurability.ASYNC);
     }
 
     /*
@@ -116,15 +168,14 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
      */
     @Override
     public void notifyStartFlush() throws IOException {
-        close();
-        File oldLogFile = new File(logDirectory + File.separator + WAL_FILE_NAME);
-        File newLogFile = new File(logDirectory + File.separator + WAL_FILE_NAME + OLD_SUFFIX);
-        if(!oldLogFile.exists())
-            return;
-        if(!oldLogFile.renameTo(newLogFile))
-            logger.error("Log node {} renaming log file failed!", identifier);
-        else
-            logger.info("Log node {} renamed log file, file size is {}", identifier, MemUtils.bytesCntToStr(newLogFile.length()));
+        syncLock.lock();
+        try {
+            syncCache(true);
+            currentFileWriter.seal();
+            logger.debug("Log node {} sealed its log segments for flush", identifier);
+        } finally {
+            syncLock.unlock();
+        }
     }
 
     /*
@@ -132,7 +183,15 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
      */
     @Override
     public void notifyEndFlush(List<LogPosition> logPositions) {
-        discard();
+        syncLock.lock();
+        try {
+            currentFileWriter.recycleSealed();
+            logger.debug("Log node {} recycled its sealed log segments", identifier);
+        } catch (IOException e) {
+            logger.error("Log node {} cannot recycle log segments because {}", identifier, e.getMessage());
+        } finally {
+            syncLock.unlock();
+        }
     }
 
     @Override
@@ -147,63 +206,83 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
     @Override
     public void delete() throws IOException {
-        lockForOther();
+        syncLock.lock();
         try {
-            logCache.clear();
-            if(currentFileWriter != null)
+            cacheLock.lock();
+            try {
+                logCache.clear();
+            } finally {
+                cacheLock.unlock();
+            }
+            syncingCache.clear();
+            if(currentFileWriter != null) {
                 currentFileWriter.close();
+                currentFileWriter.discardSeals();
+            }
             FileUtils.deleteDirectory(new File(logDirectory));
         } finally {
-            unlockForOther();
+            syncLock.unlock();
         }
     }
 
-    private void lockForWrite(){
-        lock.writeLock().lock();
+    public WalDurability getDurability() {
+        return durability;
     }
 
-    // other means sync and delete
-    private void lockForOther() {
-       lock.writeLock().lock();
-    }
-
-    private void unlockForWrite() {
-        lock.writeLock().unlock();
-    }
-
-    private void unlockForOther() {
-       lock.writeLock().unlock();
+    private void sync(boolean force) throws IOException {
+        syncLock.lock();
+        try {
+            syncCache(force);
+        } finally {
+            syncLock.unlock();
+        }
     }
 
-    private void sync() {
-        lockForOther();
+    /*
+    Warning : caller must hold syncLock.
+     */
+    private void syncCache(boolean force) throws IOException {
+        List<byte[]> logsToSync;
+        long lastSerialNumber;
+        cacheLock.lock();
         try {
-            logger.debug("Log node {} starts sync, {} logs to be synced", identifier, logCache.size());
-            if(logCache.size() == 0) {
-                return;
+            if (syncingCache.isEmpty()) {
+                logsToSync = logCache;
+                logCache = syncingCache;
+                syncingCache = logsToSync;
+            } else {
+                // the logs left by a failed sync go first
+                logsToSync = syncingCache;
+                logsToSync.addAll(logCache);
+                logCache.clear();
             }
-            try {
-                currentFileWriter.write(logCache);
-            } catch (IOException e) {
-                logger.error("Log node {} sync failed because {}.", identifier, e.getMessage());
-            }
-            logCache.clear();
-            logger.debug("Log node {} ends sync.", identifier);
+            lastSerialNumber = appendedCount;
         } finally {
-            unlockForOther();
+            cacheLock.unlock();
         }
-    }
-
-    private void discard() {
-        File oldLogFile = new File(logDirectory + File.separator + WAL_FILE_NAME + OLD_SUFFIX);
-        if(!oldLogFile.exists()) {
-            logger.info("No old log to be deleted");
-        } else {
-            if(!oldLogFile.delete())
-                logger.error("Old log file of {} cannot be deleted", identifier);
-            else
-                logger.info("Log node {} cleaned old file", identifier);
+        if (lastSerialNumber == syncedCount) {
+            return;
+        }
+        logger.debug("Log node {} starts sync, {} logs to be synced", identifier, logsToSync.size());
+        int writtenNum = 0;
+        try {
+            for (byte[] logBytes : logsToSync) {
+                currentFileWriter.write(logBytes);
+                writtenNum++;
+            }
+            if (force) {
+                currentFileWriter.force();
+            }
+        } catch (IOException e) {
+            // the logs written are forced by the next sync, the others are kept to be written by it
+            logsToSync.subList(0, writtenNum).clear();
+            logger.error("Log node {} sync failed because {}, {} logs are kept to be synced again.", identifier,
+                    e.getMessage(), logsToSync.size());
+            throw e;
         }
+        logsToSync.clear();
+        syncedCount = lastSerialNumber;
+        logger.debug("Log node {} ends sync.", identifier);
     }
 
     public String toString() {
@@ -19,6 +19,14 @@ public interface WriteLogNode {
      */
     LogPosition write(PhysicalPlan plan) throws IOException;
 
+    /**
+     * Block until the log at the given position is on disk if the node requires it, see
+     * {@link cn.edu.tsinghua.iotdb.writelog.WalDurability}.
+     * Call it after releasing the FileNode lock, so that the logs of concurrent writers are synced together.
+     * @param position the position returned by {@link #write(PhysicalPlan)}
+     */
+    void waitForSync(LogPosition position) throws IOException;
+
     /**
      * First judge the stage of recovery by status of files, and then recover from that stage.
      */
@@ -6,6 +6,9 @@ import cn.edu.tsinghua.iotdb.exception.RecoverException;
 import cn.edu.tsinghua.iotdb.qp.physical.PhysicalPlan;
 import cn.edu.tsinghua.iotdb.writelog.RecoverStage;
 import cn.edu.tsinghua.iotdb.writelog.replay.ConcreteLogReplayer;
+import cn.edu.tsinghua.iotdb.writelog.io.ILogReader;
+import cn.edu.tsinghua.iotdb.writelog.io.MappedLogReader;
+import cn.edu.tsinghua.iotdb.writelog.io.MappedLogWriter;
 import cn.edu.tsinghua.iotdb.writelog.io.RAFLogReader;
 import cn.edu.tsinghua.iotdb.writelog.replay.LogReplayer;
 import cn.edu.tsinghua.iotdb.writelog.node.ExclusiveWriteLogNode;
@@ -19,6 +22,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static cn.edu.tsinghua.iotdb.writelog.RecoverStage.*;
 
@@ -44,8 +48,13 @@ public class ExclusiveLogRecoverPerformer implements RecoverPerformer {
 
     private LogReplayer replayer = new ConcreteLogReplayer();
 
-    // The two fields can be made static only because the recovery is a serial process.
-    private static RAFLogReader RAFLogReader = new RAFLogReader();
+    // Log nodes of different storage groups recover concurrently, so each performer has its own readers.
+    private RAFLogReader RAFLogReader = new RAFLogReader();
+
+    private MappedLogReader mappedLogReader = new MappedLogReader();
+
+    // logs replayed by all performers since startup, to report the progress of recovery
+    private static final AtomicLong replayedLogCount = new AtomicLong();
 
     private RecoverPerformer fileNodeRecoverPerformer;
 
@@ -64,6 +73,13 @@ public class ExclusiveLogRecoverPerformer implements RecoverPerformer {
         this.replayer = replayer;
     }
 
+    /**
+     * @return the number of logs replayed by all log nodes since startup
+     */
+    public static long getReplayedLogCount() {
+        return replayedLogCount.get();
+    }
+
     @Override
     public void recover() throws RecoverException {
         currStage = determineStage();
@@ -81,9 +97,17 @@ public class ExclusiveLogRecoverPerformer implements RecoverPerformer {
         File[] files = logDir.listFiles((dir, name) -> name.contains(RECOVER_FLAG_NAME));
 
         if(files == null || files.length == 0) {
-            File[] logFiles = logDir.listFiles((dir, name) -> name.contains(ExclusiveWriteLogNode.WAL_FILE_NAME));
+            File[] logFiles = logDir.listFiles((dir, name) -> name.equals(ExclusiveWriteLogNode.WAL_FILE_NAME)
+                    || name.equals(ExclusiveWriteLogNode.WAL_FILE_NAME + ExclusiveWriteLogNode.OLD_SUFFIX));
+            List<File> segments;
+            try {
+                segments = MappedLogWriter.listUsedSegments(logDir);
+            } catch (IOException e) {
+                logger.error("Log node {} cannot read log segments, because {}", writeLogNode.getIdentifier(), e.getMessage());
+                throw new RecoverException("Cannot read log segments of " + writeLogNode.getIdentifier());
+            }
             // no flag is set, and there exists log file, start from beginning.
-            if(logFiles != null && logFiles.length > 0)
+            if((logFiles != null && logFiles.length > 0) || !segments.isEmpty())
                 return RecoverStage.backup;
                 // no flag is set, and there is no log file, do not recover.
             else
@@ -218,29 +242,30 @@ public class ExclusiveLogRecoverPerformer implements RecoverPerformer {
         replayLog();
     }
 
-    private int replayLogFile(File logFile) throws RecoverException {
+    private int replayLogFile(File logFile, ILogReader logReader) throws RecoverException {
         int failedCnt = 0;
         if(logFile.exists()) {
             try {
-                RAFLogReader.open(logFile);
+                logReader.open(logFile);
             } catch (FileNotFoundException e) {
                 logger.error("Log node {} cannot read old log file, because {}",writeLogNode.getIdentifier(), e.getMessage());
                 throw new RecoverException("Cannot read old log file, recovery aborted.");
             }
-            while(RAFLogReader.hasNext()) {
+            while(logReader.hasNext()) {
                 try {
-                    PhysicalPlan physicalPlan = RAFLogReader.next();
+                    PhysicalPlan physicalPlan = logReader.next();
                     if(physicalPlan == null) {
                         logger.error("Log node {} read a bad log",writeLogNode.getIdentifier());
                         throw new RecoverException("Cannot read old log file, recovery aborted.");
                     }
                     replayer.replay(physicalPlan);
+                    replayedLogCount.incrementAndGet();
                 } catch (ProcessorException e) {
                     failedCnt ++;
                     logger.error("Log node {}, {}", writeLogNode.getLogDirectory(), e.getMessage());
                 }
             }
-            RAFLogReader.close();
+            logReader.close();
         }
         return failedCnt;
     }
@@ -250,15 +275,26 @@ public class ExclusiveLogRecoverPerformer implements RecoverPerformer {
         // if old log file exists, replay it first.
         File oldLogFile = new File(writeLogNode.getLogDirectory() + File.separator +
                 ExclusiveWriteLogNode.WAL_FILE_NAME + ExclusiveWriteLogNode.OLD_SUFFIX);
-        failedEntryCnt += replayLogFile(oldLogFile);
+        failedEntryCnt += replayLogFile(oldLogFile, RAFLogReader);
         // then replay new log
         File newLogFile = new File(writeLogNode.getLogDirectory() + File.separator + ExclusiveWriteLogNode.WAL_FILE_NAME);
-        failedEntryCnt += replayLogFile(newLogFile);
+        failedEntryCnt += replayLogFile(newLogFile, RAFLogReader);
+        // then replay log segments in the order they were written
+        List<File> segments;
+        try {
+            segments = MappedLogWriter.listUsedSegments(new File(writeLogNode.getLogDirectory()));
+        } catch (IOException e) {
+            logger.error("Log node {} cannot read log segments, because {}", writeLogNode.getIdentifier(), e.getMessage());
+            throw new RecoverException("Cannot read log segments, recovery aborted.");
+        }
+        for(File segment : segments) {
+            failedEntryCnt += replayLogFile(segment, mappedLogReader);
+        }
         // TODO : do we need to proceed if there are failed logs ?
         if(failedEntryCnt > 0)
             throw new RecoverException("There are " + failedEntryCnt + " logs failed to recover, see logs above for details");
         try {
-            FileNodeManager.getInstance().closeOneFileNode(writeLogNode.getFileNodeName());
+            FileNodeManager.getInstance().closeOneFileNodeAfterRecovery(writeLogNode.getFileNodeName());
         } catch (FileNodeManagerException e) {
             logger.error("Log node {} cannot perform flush after replaying logs! Because {}",writeLogNode.getIdentifier(), e.getMessage());
             throw new RecoverException(e);
@@ -304,6 +340,14 @@ public class ExclusiveLogRecoverPerformer implements RecoverPerformer {
                 failedFiles.add(newLogFile.getPath());
             }
         }
+        // log segments are kept for reuse, the node is closed first so that it reloads them on its next write
+        try {
+            writeLogNode.close();
+            MappedLogWriter.recycleAll(new File(writeLogNode.getLogDirectory()));
+        } catch (IOException e) {
+            logger.error("Log node {} cannot recycle log segments, because {}", writeLogNode.getLogDirectory(), e.getMessage());
+            failedFiles.add(writeLogNode.getLogDirectory());
+        }
         if(failedFiles.size() > 0)
             throw new RecoverException("File clean failed. Failed files are " + failedFiles.toString());
         // clean flag
@@ -5,6 +5,7 @@ import cn.edu.tsinghua.iotdb.exception.FileNodeManagerException;
 import cn.edu.tsinghua.iotdb.exception.PathErrorException;
 import cn.edu.tsinghua.iotdb.metadata.MManager;
 import cn.edu.tsinghua.iotdb.qp.physical.PhysicalPlan;
+import cn.edu.tsinghua.iotdb.qp.physical.crud.BatchInsertPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.DeletePlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.InsertPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.UpdatePlan;
@@ -21,7 +22,9 @@ public class ConcreteLogReplayer implements LogReplayer {
 
     public void replay(PhysicalPlan plan) throws ProcessorException {
         try {
-            if (plan instanceof InsertPlan) {
+            if (plan instanceof BatchInsertPlan) {
+                FileNodeManager.getInstance().insertBatch((BatchInsertPlan) plan, true);
+            } else if (plan instanceof InsertPlan) {
                 InsertPlan insertPlan = (InsertPlan) plan;
                 multiInsert(insertPlan);
             } else if (plan instanceof UpdatePlan) {
@@ -40,6 +43,12 @@ public class ConcreteLogReplayer implements LogReplayer {
             throws PathErrorException, FileNodeManagerException {
         String deltaObject = insertPlan.getDeltaObject();
         long insertTime = insertPlan.getTime();
+        if (insertPlan.getDataPoints() != null) {
+            TSRecord tsRecord = new TSRecord(insertTime, deltaObject);
+            tsRecord.dataPointList = insertPlan.getDataPoints();
+            FileNodeManager.getInstance().insert(tsRecord, true);
+            return;
+        }
         List<String> measurementList = insertPlan.getMeasurements();
         List<String> insertValues = insertPlan.getValues();
 
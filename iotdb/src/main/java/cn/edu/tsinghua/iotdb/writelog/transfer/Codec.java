@@ -3,10 +3,18 @@ package cn.edu.tsinghua.iotdb.writelog.transfer;
 import cn.edu.tsinghua.iotdb.qp.physical.PhysicalPlan;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 interface Codec<T extends PhysicalPlan> {
 
 	byte[] encode(T t);
 
-	T decode(byte[] bytes) throws IOException;
+	default T decode(byte[] bytes) throws IOException {
+		return decode(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * Decode a log from the position of buffer, the position is moved to the end of the log.
+	 */
+	T decode(ByteBuffer buffer) throws IOException;
 }
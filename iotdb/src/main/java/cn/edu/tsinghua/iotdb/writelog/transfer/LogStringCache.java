@@ -0,0 +1,62 @@
+package cn.edu.tsinghua.iotdb.writelog.transfer;
+
+import cn.edu.tsinghua.tsfile.common.utils.BytesUtils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes the paths and measurement ids of logs, which repeat across the logs of a storage group. Decoded strings are
+ * kept in a small direct-mapped table keyed by the hash of their bytes, so that replaying the logs of the same series
+ * allocates neither a byte array nor a String once the names are cached. Not thread safe, each thread uses its own.
+ */
+class LogStringCache {
+
+    private static final int CAPACITY = 1024;
+
+    private static final int MAX_CACHED_LENGTH = 256;
+
+    private final byte[][] keys = new byte[CAPACITY][];
+
+    private final String[] values = new String[CAPACITY];
+
+    /**
+     * Read a string of length bytes from the position of buffer, and move the position after it.
+     */
+    String read(ByteBuffer buffer, int length) {
+        if (length > MAX_CACHED_LENGTH) {
+            return readUncached(buffer, length);
+        }
+        int start = buffer.position();
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer.get(start + i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & (CAPACITY - 1);
+        byte[] key = keys[slot];
+        if (key != null && key.length == length && matches(key, buffer, start)) {
+            buffer.position(start + length);
+            return values[slot];
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        String value = BytesUtils.bytesToString(bytes);
+        keys[slot] = bytes;
+        values[slot] = value;
+        return value;
+    }
+
+    static String readUncached(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return BytesUtils.bytesToString(bytes);
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buffer, int start) {
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,12 +2,24 @@ package cn.edu.tsinghua.iotdb.writelog.transfer;
 
 import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
 import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
+import cn.edu.tsinghua.iotdb.qp.physical.crud.BatchInsertPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.DeletePlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.InsertPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.UpdatePlan;
+import cn.edu.tsinghua.tsfile.common.exception.UnSupportedDataTypeException;
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
 import cn.edu.tsinghua.tsfile.common.utils.BytesUtils;
 import cn.edu.tsinghua.tsfile.common.utils.Pair;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.DataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.TSRecord;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.BooleanDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.DoubleDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.FloatDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.IntDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.LongDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.StringDataPoint;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -20,7 +32,9 @@ public enum PhysicalPlanCodec {
 
     MULTIINSERTPLAN(SystemLogOperator.INSERT, codecInstances.multiInsertPlanCodec),
     UPDATEPLAN(SystemLogOperator.UPDATE, codecInstances.updatePlanCodec),
-    DELETEPLAN(SystemLogOperator.DELETE, codecInstances.deletePlanCodec);
+    DELETEPLAN(SystemLogOperator.DELETE, codecInstances.deletePlanCodec),
+    TYPEDINSERTPLAN(SystemLogOperator.TYPED_INSERT, codecInstances.typedInsertPlanCodec),
+    BATCHINSERTPLAN(SystemLogOperator.BATCH_INSERT, codecInstances.batchInsertPlanCodec);
 
     private static TsfileDBConfig config = TsfileDBDescriptor.getInstance().getConfig();
 
@@ -49,6 +63,8 @@ public enum PhysicalPlanCodec {
 
     static class codecInstances {
 
+        private static final ThreadLocal<LogStringCache> stringCaches = ThreadLocal.withInitial(LogStringCache::new);
+
         static final Codec<DeletePlan> deletePlanCodec = new Codec<DeletePlan>() {
             ThreadLocal<ByteBuffer> localBuffer = new ThreadLocal<>();
 
@@ -70,15 +86,12 @@ public enum PhysicalPlanCodec {
             }
 
             @Override
-            public DeletePlan decode(byte[] bytes) throws IOException {
-                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            public DeletePlan decode(ByteBuffer buffer) throws IOException {
                 int type = buffer.get();
                 long time = buffer.getLong();
 
                 int pathLength = buffer.getInt();
-                byte[] pathBytes = new byte[pathLength];
-                buffer.get(pathBytes, 0, pathLength);
-                String path = BytesUtils.bytesToString(pathBytes);
+                String path = stringCaches.get().read(buffer, pathLength);
 
                 return new DeletePlan(time, new Path(path));
             }
@@ -114,8 +127,7 @@ public enum PhysicalPlanCodec {
             }
 
             @Override
-            public UpdatePlan decode(byte[] bytes) throws IOException {
-                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            public UpdatePlan decode(ByteBuffer buffer) throws IOException {
                 int type = buffer.get();
 
                 int timeListBytesLength = buffer.getInt();
@@ -127,14 +139,10 @@ public enum PhysicalPlanCodec {
                 }
 
                 int valueLength = buffer.getInt();
-                byte[] valueBytes = new byte[valueLength];
-                buffer.get(valueBytes);
-                String value = BytesUtils.bytesToString(valueBytes);
+                String value = LogStringCache.readUncached(buffer, valueLength);
 
                 int pathLength = buffer.getInt();
-                byte[] pathBytes = new byte[pathLength];
-                buffer.get(pathBytes);
-                String path = BytesUtils.bytesToString(pathBytes);
+                String path = stringCaches.get().read(buffer, pathLength);
 
                 return new UpdatePlan(timeArrayList, value, new Path(path));
             }
@@ -178,34 +186,27 @@ public enum PhysicalPlanCodec {
             }
 
             @Override
-            public InsertPlan decode(byte[] bytes) throws IOException {
-                ByteBuffer buffer = ByteBuffer.wrap(bytes);
-
+            public InsertPlan decode(ByteBuffer buffer) throws IOException {
+                LogStringCache stringCache = stringCaches.get();
                 int type = buffer.get();
                 int insertType = buffer.get();
                 long time = buffer.getLong();
 
                 int deltaObjLen = buffer.getInt();
-                byte[] deltaObjBytes = new byte[deltaObjLen];
-                buffer.get(deltaObjBytes);
-                String deltaObject = BytesUtils.bytesToString(deltaObjBytes);
+                String deltaObject = stringCache.read(buffer, deltaObjLen);
 
                 int mmListLength = buffer.getInt();
                 List<String> measurementsList = new ArrayList<>(mmListLength);
                 for(int i = 0; i < mmListLength; i++) {
                     int mmLen = buffer.getInt();
-                    byte[] mmBytes = new byte[mmLen];
-                    buffer.get(mmBytes);
-                    measurementsList.add(BytesUtils.bytesToString(mmBytes));
+                    measurementsList.add(stringCache.read(buffer, mmLen));
                 }
 
                 int valueListLength = buffer.getInt();
                 List<String> valuesList = new ArrayList<>(valueListLength);
                 for(int i = 0; i < valueListLength; i++) {
                     int valueLen = buffer.getInt();
-                    byte[] valueBytes = new byte[valueLen];
-                    buffer.get(valueBytes);
-                    valuesList.add(BytesUtils.bytesToString(valueBytes));
+                    valuesList.add(LogStringCache.readUncached(buffer, valueLen));
                 }
 
                 InsertPlan ans = new InsertPlan(deltaObject, time, measurementsList, valuesList);
@@ -214,5 +215,251 @@ public enum PhysicalPlanCodec {
             }
         };
 
+        /**
+         * codec of InsertPlan built from a TSRecord. Each value is stored with its data type in binary form, so
+         * neither encoding nor decoding goes through String.
+         */
+        static final Codec<InsertPlan> typedInsertPlanCodec = new Codec<InsertPlan>() {
+            ThreadLocal<ByteBuffer> localBuffer = new ThreadLocal<>();
+
+            @Override
+            public byte[] encode(InsertPlan plan) {
+                int type = SystemLogOperator.TYPED_INSERT;
+                if (localBuffer.get() == null)
+                    localBuffer.set(ByteBuffer.allocate(config.maxLogEntrySize));
+                ByteBuffer buffer = localBuffer.get();
+                buffer.clear();
+                buffer.put((byte) type);
+                buffer.put((byte) plan.getInsertType());
+                buffer.putLong(plan.getTime());
+
+                byte[] deltaObjectBytes = BytesUtils.StringToBytes(plan.getDeltaObject());
+                buffer.putInt(deltaObjectBytes.length);
+                buffer.put(deltaObjectBytes);
+
+                List<DataPoint> dataPoints = plan.getDataPoints();
+                buffer.putInt(dataPoints.size());
+                for (DataPoint dataPoint : dataPoints) {
+                    byte[] mBytes = BytesUtils.StringToBytes(dataPoint.getMeasurementId());
+                    buffer.putInt(mBytes.length);
+                    buffer.put(mBytes);
+                    buffer.put((byte) dataPoint.getType().ordinal());
+                    switch (dataPoint.getType()) {
+                        case BOOLEAN:
+                            buffer.put((byte) (dataPoint.getBoolean() ? 1 : 0));
+                            break;
+                        case INT32:
+                            buffer.putInt(dataPoint.getInteger());
+                            break;
+                        case INT64:
+                            buffer.putLong(dataPoint.getLong());
+                            break;
+                        case FLOAT:
+                            buffer.putFloat(dataPoint.getFloat());
+                            break;
+                        case DOUBLE:
+                            buffer.putDouble(dataPoint.getDouble());
+                            break;
+                        case TEXT:
+                            byte[] vBytes = dataPoint.getBinary().values;
+                            buffer.putInt(vBytes.length);
+                            buffer.put(vBytes);
+                            break;
+                        default:
+                            throw new UnSupportedDataTypeException("Unsupported data type in log: " + dataPoint.getType());
+                    }
+                }
+
+                return Arrays.copyOfRange(buffer.array(), 0, buffer.position());
+            }
+
+            @Override
+            public InsertPlan decode(ByteBuffer buffer) throws IOException {
+                LogStringCache stringCache = stringCaches.get();
+                int type = buffer.get();
+                int insertType = buffer.get();
+                long time = buffer.getLong();
+
+                int deltaObjLen = buffer.getInt();
+                String deltaObject = stringCache.read(buffer, deltaObjLen);
+
+                TSRecord tsRecord = new TSRecord(time, deltaObject);
+                int pointNum = buffer.getInt();
+                for (int i = 0; i < pointNum; i++) {
+                    int mmLen = buffer.getInt();
+                    String measurement = stringCache.read(buffer, mmLen);
+                    TSDataType dataType = TSDataType.values()[buffer.get()];
+                    switch (dataType) {
+                        case BOOLEAN:
+                            tsRecord.addTuple(new BooleanDataPoint(measurement, buffer.get() != 0));
+                            break;
+                        case INT32:
+                            tsRecord.addTuple(new IntDataPoint(measurement, buffer.getInt()));
+                            break;
+                        case INT64:
+                            tsRecord.addTuple(new LongDataPoint(measurement, buffer.getLong()));
+                            break;
+                        case FLOAT:
+                            tsRecord.addTuple(new FloatDataPoint(measurement, buffer.getFloat()));
+                            break;
+                        case DOUBLE:
+                            tsRecord.addTuple(new DoubleDataPoint(measurement, buffer.getDouble()));
+                            break;
+                        case TEXT:
+                            byte[] valueBytes = new byte[buffer.getInt()];
+                            buffer.get(valueBytes);
+                            tsRecord.addTuple(new StringDataPoint(measurement, new Binary(valueBytes)));
+                            break;
+                        default:
+                            throw new UnSupportedDataTypeException("Unsupported data type in log: " + dataType);
+                    }
+                }
+
+                return new InsertPlan(insertType, tsRecord);
+            }
+        };
+
+        /**
+         * codec of BatchInsertPlan. The timestamps and then each column are stored one after another in binary form,
+         * so a whole batch is one log.
+         */
+        static final Codec<BatchInsertPlan> batchInsertPlanCodec = new Codec<BatchInsertPlan>() {
+            ThreadLocal<ByteBuffer> localBuffer = new ThreadLocal<>();
+
+            @Override
+            public byte[] encode(BatchInsertPlan plan) {
+                int type = SystemLogOperator.BATCH_INSERT;
+                if (localBuffer.get() == null)
+                    localBuffer.set(ByteBuffer.allocate(config.maxLogEntrySize));
+                ByteBuffer buffer = localBuffer.get();
+                buffer.clear();
+                buffer.put((byte) type);
+
+                byte[] deltaObjectBytes = BytesUtils.StringToBytes(plan.getDeltaObject());
+                buffer.putInt(deltaObjectBytes.length);
+                buffer.put(deltaObjectBytes);
+
+                int rowCount = plan.getRowCount();
+                buffer.putInt(rowCount);
+                for (long time : plan.getTimes()) {
+                    buffer.putLong(time);
+                }
+
+                String[] measurements = plan.getMeasurements();
+                TSDataType[] dataTypes = plan.getDataTypes();
+                Object[] columns = plan.getColumns();
+                buffer.putInt(measurements.length);
+                for (int i = 0; i < measurements.length; i++) {
+                    byte[] mBytes = BytesUtils.StringToBytes(measurements[i]);
+                    buffer.putInt(mBytes.length);
+                    buffer.put(mBytes);
+                    buffer.put((byte) dataTypes[i].ordinal());
+                    switch (dataTypes[i]) {
+                        case BOOLEAN:
+                            for (boolean v : (boolean[]) columns[i]) {
+                                buffer.put((byte) (v ? 1 : 0));
+                            }
+                            break;
+                        case INT32:
+                            buffer.asIntBuffer().put((int[]) columns[i]);
+                            buffer.position(buffer.position() + rowCount * Integer.BYTES);
+                            break;
+                        case INT64:
+                            buffer.asLongBuffer().put((long[]) columns[i]);
+                            buffer.position(buffer.position() + rowCount * Long.BYTES);
+                            break;
+                        case FLOAT:
+                            buffer.asFloatBuffer().put((float[]) columns[i]);
+                            buffer.position(buffer.position() + rowCount * Float.BYTES);
+                            break;
+                        case DOUBLE:
+                            buffer.asDoubleBuffer().put((double[]) columns[i]);
+                            buffer.position(buffer.position() + rowCount * Double.BYTES);
+                            break;
+                        case TEXT:
+                            for (Binary v : (Binary[]) columns[i]) {
+                                buffer.putInt(v.values.length);
+                                buffer.put(v.values);
+                            }
+                            break;
+                        default:
+                            throw new UnSupportedDataTypeException("Unsupported data type in log: " + dataTypes[i]);
+                    }
+                }
+
+                return Arrays.copyOfRange(buffer.array(), 0, buffer.position());
+            }
+
+            @Override
+            public BatchInsertPlan decode(ByteBuffer buffer) throws IOException {
+                LogStringCache stringCache = stringCaches.get();
+                int type = buffer.get();
+
+                int deltaObjLen = buffer.getInt();
+                String deltaObject = stringCache.read(buffer, deltaObjLen);
+
+                int rowCount = buffer.getInt();
+                long[] times = new long[rowCount];
+                buffer.asLongBuffer().get(times);
+                buffer.position(buffer.position() + rowCount * Long.BYTES);
+
+                int columnNum = buffer.getInt();
+                String[] measurements = new String[columnNum];
+                TSDataType[] dataTypes = new TSDataType[columnNum];
+                Object[] columns = new Object[columnNum];
+                for (int i = 0; i < columnNum; i++) {
+                    int mmLen = buffer.getInt();
+                    measurements[i] = stringCache.read(buffer, mmLen);
+                    dataTypes[i] = TSDataType.values()[buffer.get()];
+                    switch (dataTypes[i]) {
+                        case BOOLEAN:
+                            boolean[] booleans = new boolean[rowCount];
+                            for (int r = 0; r < rowCount; r++) {
+                                booleans[r] = buffer.get() != 0;
+                            }
+                            columns[i] = booleans;
+                            break;
+                        case INT32:
+                            int[] ints = new int[rowCount];
+                            buffer.asIntBuffer().get(ints);
+                            buffer.position(buffer.position() + rowCount * Integer.BYTES);
+                            columns[i] = ints;
+                            break;
+                        case INT64:
+                            long[] longs = new long[rowCount];
+                            buffer.asLongBuffer().get(longs);
+                            buffer.position(buffer.position() + rowCount * Long.BYTES);
+                            columns[i] = longs;
+                            break;
+                        case FLOAT:
+                            float[] floats = new float[rowCount];
+                            buffer.asFloatBuffer().get(floats);
+                            buffer.position(buffer.position() + rowCount * Float.BYTES);
+                            columns[i] = floats;
+                            break;
+                        case DOUBLE:
+                            double[] doubles = new double[rowCount];
+                            buffer.asDoubleBuffer().get(doubles);
+                            buffer.position(buffer.position() + rowCount * Double.BYTES);
+                            columns[i] = doubles;
+                            break;
+                        case TEXT:
+                            Binary[] binaries = new Binary[rowCount];
+                            for (int r = 0; r < rowCount; r++) {
+                                byte[] valueBytes = new byte[buffer.getInt()];
+                                buffer.get(valueBytes);
+                                binaries[r] = new Binary(valueBytes);
+                            }
+                            columns[i] = binaries;
+                            break;
+                        default:
+                            throw new UnSupportedDataTypeException("Unsupported data type in log: " + dataTypes[i]);
+                    }
+                }
+
+                return new BatchInsertPlan(deltaObject, measurements, dataTypes, times, columns);
+            }
+        };
+
     }
-}
\ No newline at end of file
+}
@@ -2,9 +2,12 @@ package cn.edu.tsinghua.iotdb.writelog.transfer;
 
 import cn.edu.tsinghua.iotdb.exception.WALOverSizedException;
 import cn.edu.tsinghua.iotdb.qp.physical.PhysicalPlan;
+import cn.edu.tsinghua.iotdb.qp.physical.crud.BatchInsertPlan;
+import cn.edu.tsinghua.iotdb.qp.physical.crud.InsertPlan;
 
 import java.io.IOException;
 import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 public class PhysicalPlanLogTransfer {
 
@@ -12,7 +15,14 @@ public class PhysicalPlanLogTransfer {
         Codec<PhysicalPlan> codec = null;
         switch (plan.getOperatorType()) {
             case INSERT:
-                codec = (Codec<PhysicalPlan>) PhysicalPlanCodec.fromOpcode(SystemLogOperator.INSERT).codec;
+                int opcode;
+                if (plan instanceof BatchInsertPlan) {
+                    opcode = SystemLogOperator.BATCH_INSERT;
+                } else {
+                    opcode = ((InsertPlan) plan).getDataPoints() != null ? SystemLogOperator.TYPED_INSERT
+                            : SystemLogOperator.INSERT;
+                }
+                codec = (Codec<PhysicalPlan>) PhysicalPlanCodec.fromOpcode(opcode).codec;
                 break;
             case UPDATE:
                 codec = (Codec<PhysicalPlan>) PhysicalPlanCodec.fromOpcode(SystemLogOperator.UPDATE).codec;
@@ -36,4 +46,14 @@ public class PhysicalPlanLogTransfer {
         Codec<PhysicalPlan> codec = (Codec<PhysicalPlan>) PhysicalPlanCodec.fromOpcode(opCode).codec;
         return codec.decode(opInBytes);
     }
+
+    /**
+     * Decode a log in place from the position of buffer, without copying it out first.
+     */
+    public static PhysicalPlan logToOperator(ByteBuffer buffer) throws IOException {
+        // the first byte determines the opCode
+        int opCode = buffer.get(buffer.position());
+        Codec<PhysicalPlan> codec = (Codec<PhysicalPlan>) PhysicalPlanCodec.fromOpcode(opCode).codec;
+        return codec.decode(buffer);
+    }
 }
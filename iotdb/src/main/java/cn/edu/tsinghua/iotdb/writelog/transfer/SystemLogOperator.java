@@ -11,4 +11,6 @@ public class SystemLogOperator {
    public static final int OVERFLOWFLUSHEND = 4;
    public static final int BUFFERFLUSHSTART = 5;
    public static final int BUFFERFLUSHEND = 6;
+   public static final int TYPED_INSERT = 7;
+   public static final int BATCH_INSERT = 8;
 }
@@ -1,6 +1,8 @@
 package cn.edu.tsinghua.iotdb.engine.bufferwrite;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
@@ -25,6 +27,7 @@ import cn.edu.tsinghua.tsfile.file.metadata.TimeSeriesChunkMetaData;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
 import cn.edu.tsinghua.tsfile.timeseries.write.exception.WriteProcessException;
+import cn.edu.tsinghua.tsfile.timeseries.write.schema.FileSchema;
 
 public class BufferWriteProcessorNewTest {
 
@@ -132,4 +135,90 @@ public class BufferWriteProcessorNewTest {
 		assertEquals(dataType, right.get(0).getVInTimeSeriesChunkMetaData().getDataType());
 		bufferWriteProcessor.close();
 	}
+
+	@Test
+	public void testPendingFlushes()
+			throws BufferWriteProcessorException, WriteProcessException, IOException, InterruptedException {
+		// a slow flush makes the later memtables wait in the flush queue
+		parameters.put(FileNodeConstants.FILENODE_PROCESSOR_FLUSH_ACTION, new Action() {
+
+			@Override
+			public void act() throws Exception {
+				TimeUnit.MILLISECONDS.sleep(500);
+			}
+		});
+		bufferwrite = new BufferWriteProcessor(Directories.getInstance().getFolderForTest(),
+				processorName, filename, parameters, FileSchemaUtils.constructFileSchema(processorName));
+		long startTime = System.currentTimeMillis();
+		for (int round = 0; round < 3; round++) {
+			for (int i = round * 100 + 1; i <= round * 100 + 100; i++) {
+				bufferwrite.write(processorName, measurementId, i, dataType, String.valueOf(i));
+			}
+			bufferwrite.flush();
+		}
+		// writes do not wait for the earlier flushes
+		assertTrue(System.currentTimeMillis() - startTime < 500);
+		assertEquals(true, bufferwrite.isFlush());
+		// the memtables waiting for flush are still queried
+		Pair<RawSeriesChunk, List<TimeSeriesChunkMetaData>> pair = bufferwrite.queryBufferWriteData(processorName,
+				measurementId, dataType);
+		Iterator<TimeValuePair> iterator = pair.left.getIterator();
+		int num = pair.right.size() * 100;
+		while (iterator.hasNext()) {
+			num++;
+			TimeValuePair timeValuePair = iterator.next();
+			assertEquals(num, timeValuePair.getTimestamp());
+			assertEquals(num, timeValuePair.getValue().getInt());
+		}
+		assertEquals(300, num);
+		// waiting for the end of flush.
+		TimeUnit.SECONDS.sleep(2);
+		assertEquals(false, bufferwrite.isFlush());
+		pair = bufferwrite.queryBufferWriteData(processorName, measurementId, dataType);
+		assertEquals(true, pair.left.isEmpty());
+		assertEquals(3, pair.right.size());
+	}
+
+	@Test
+	public void testFailedFlush()
+			throws BufferWriteProcessorException, WriteProcessException, IOException, InterruptedException {
+		// the series is unknown to the schema, so writing the memtable to the file fails
+		FileSchema fileSchema = new FileSchema();
+		bufferwrite = new BufferWriteProcessor(Directories.getInstance().getFolderForTest(),
+				processorName, filename, parameters, fileSchema);
+		for (int i = 1; i <= 100; i++) {
+			bufferwrite.write(processorName, measurementId, i, dataType, String.valueOf(i));
+		}
+		bufferwrite.flush();
+		// waiting for the end of flush.
+		TimeUnit.SECONDS.sleep(1);
+		assertEquals(false, bufferwrite.isFlush());
+		// the memtable failed to flush is kept, and its data is still queried
+		Pair<RawSeriesChunk, List<TimeSeriesChunkMetaData>> pair = bufferwrite.queryBufferWriteData(processorName,
+				measurementId, dataType);
+		assertEquals(0, pair.right.size());
+		Iterator<TimeValuePair> iterator = pair.left.getIterator();
+		int num = 0;
+		while (iterator.hasNext()) {
+			num++;
+			assertEquals(num, iterator.next().getTimestamp());
+		}
+		assertEquals(100, num);
+		try {
+			bufferwrite.close();
+			fail("the failed flush must be reported");
+		} catch (BufferWriteProcessorException e) {
+			// expected
+		}
+
+		// the memtable is flushed once the series is known
+		fileSchema.registerMeasurements(FileSchemaUtils.constructFileSchema(processorName).getDescriptor());
+		bufferwrite.flush();
+		TimeUnit.SECONDS.sleep(1);
+		assertEquals(false, bufferwrite.isFlush());
+		pair = bufferwrite.queryBufferWriteData(processorName, measurementId, dataType);
+		assertEquals(true, pair.left.isEmpty());
+		assertEquals(1, pair.right.size());
+		assertEquals(100, pair.right.get(0).getNumRows());
+	}
 }
@@ -73,8 +73,9 @@ public class BufferWriteProcessorTest {
 		parameters.put(FileNodeConstants.FILENODE_PROCESSOR_FLUSH_ACTION, fnflushaction);
 		// origin value
 		groupSizeInByte = TsFileConf.groupSizeInByte;
-		// new value
-		TsFileConf.groupSizeInByte = 1024;
+		// new value, the memtable of one int series exceeds it when its first block grows to 128 points, i.e. at the
+		// 65th point
+		TsFileConf.groupSizeInByte = 2048;
 		// init metadata
 		MetadataManagerHelper.initMetadata();
 		EnvironmentUtils.envSetUp();
@@ -167,11 +168,12 @@ public class BufferWriteProcessorTest {
 		assertEquals(0, bufferwrite.memoryUsage());
 		assertEquals(0, bufferwrite.getFileSize());
 		assertEquals(0, bufferwrite.getMetaSize());
-		for (int i = 1; i <= 85; i++) {
+		for (int i = 1; i <= 64; i++) {
 			bufferwrite.write(deltaObjectId, measurementId, i, dataType, String.valueOf(i));
-			assertEquals(i * 12, bufferwrite.memoryUsage());
+			assertEquals(getMemTableSize(i), bufferwrite.memoryUsage());
 		}
-		bufferwrite.write(deltaObjectId, measurementId, 86, dataType, String.valueOf(86));
+		assertEquals(false, bufferwrite.isFlush());
+		bufferwrite.write(deltaObjectId, measurementId, 65, dataType, String.valueOf(65));
 		assertEquals(true, bufferwrite.isFlush());
 		// sleep to the end of flush
 		TimeUnit.SECONDS.sleep(2);
@@ -185,19 +187,19 @@ public class BufferWriteProcessorTest {
 		TimeSeriesChunkMetaData chunkMetaData = pair.right.get(0);
 		assertEquals(measurementId, chunkMetaData.getProperties().getMeasurementUID());
 		assertEquals(dataType, chunkMetaData.getVInTimeSeriesChunkMetaData().getDataType());
-		for (int i = 87; i <= 100; i++) {
+		for (int i = 66; i <= 100; i++) {
 			bufferwrite.write(deltaObjectId, measurementId, i, dataType, String.valueOf(i));
-			assertEquals((i - 86) * 12, bufferwrite.memoryUsage());
+			assertEquals(getMemTableSize(i - 65), bufferwrite.memoryUsage());
 		}
 		pair = bufferwrite.queryBufferWriteData(deltaObjectId, measurementId, dataType);
 		RawSeriesChunk rawSeriesChunk = pair.left;
 		assertEquals(false, rawSeriesChunk.isEmpty());
-		assertEquals(87, rawSeriesChunk.getMinTimestamp());
-		assertEquals(87, rawSeriesChunk.getValueAtMinTime().getInt());
+		assertEquals(66, rawSeriesChunk.getMinTimestamp());
+		assertEquals(66, rawSeriesChunk.getValueAtMinTime().getInt());
 		assertEquals(100, rawSeriesChunk.getMaxTimestamp());
 		assertEquals(100, rawSeriesChunk.getValueAtMaxTime().getInt());
 		Iterator<TimeValuePair> iterator = rawSeriesChunk.getIterator();
-		for (int i = 87; i <= 100; i++) {
+		for (int i = 66; i <= 100; i++) {
 			iterator.hasNext();
 			TimeValuePair timeValuePair = iterator.next();
 			assertEquals(i, timeValuePair.getTimestamp());
@@ -205,4 +207,20 @@ public class BufferWriteProcessorTest {
 		}
 		bufferwrite.close();
 	}
+
+	/**
+	 * @return the memory counted for a memtable of one INT32 series: 776 bytes for the maps, the series and its first
+	 *         blocks of 8 points, which double with the number of points
+	 */
+	private long getMemTableSize(int pointNum) {
+		if (pointNum <= 8) {
+			return 776;
+		} else if (pointNum <= 16) {
+			return 872;
+		} else if (pointNum <= 32) {
+			return 1064;
+		} else {
+			return 1448;
+		}
+	}
 }
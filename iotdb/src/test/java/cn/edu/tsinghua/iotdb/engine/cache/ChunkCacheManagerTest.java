@@ -0,0 +1,149 @@
+package cn.edu.tsinghua.iotdb.engine.cache;
+
+import cn.edu.tsinghua.iotdb.monitor.MonitorConstants.CacheStatConstants;
+import cn.edu.tsinghua.iotdb.queryV2.engine.control.SeriesChunkLoaderIoTDBImpl;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.CompressionTypeName;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.file.utils.ReadWriteThriftFormatUtils;
+import cn.edu.tsinghua.tsfile.format.DataPageHeader;
+import cn.edu.tsinghua.tsfile.format.Encoding;
+import cn.edu.tsinghua.tsfile.format.PageHeader;
+import cn.edu.tsinghua.tsfile.format.PageType;
+import cn.edu.tsinghua.tsfile.timeseries.read.TsRandomAccessLocalFileReader;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.common.EncodedSeriesChunkDescriptor;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.common.SeriesChunk;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xerial.snappy.Snappy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ChunkCacheManagerTest {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final String FILE_PATH = "chunkCacheTestFile";
+
+    private AtomicInteger loadNum = new AtomicInteger();
+
+    private byte[] get(ChunkCacheManager cache, String filePath, long offset) throws IOException {
+        return cache.get(filePath, offset, () -> {
+            loadNum.incrementAndGet();
+            return new byte[CHUNK_SIZE];
+        });
+    }
+
+    @After
+    public void tearDown() {
+        new File(FILE_PATH).delete();
+    }
+
+    @Test
+    public void testEvictByWeight() throws IOException {
+        // room for 3 chunks
+        ChunkCacheManager cache = new ChunkCacheManager(3 * CHUNK_SIZE + 3 * 300, 1, false);
+        get(cache, "file1", 0);
+        get(cache, "file1", 100);
+        get(cache, "file2", 0);
+        Assert.assertEquals(3, loadNum.get());
+        // file1.0 is used recently, so file1.100 is evicted
+        get(cache, "file1", 0);
+        get(cache, "file3", 0);
+        Assert.assertEquals(4, loadNum.get());
+        Assert.assertEquals(1, cache.getStatValue(CacheStatConstants.TOTAL_EVICTIONS));
+        Assert.assertEquals(3, cache.getStatValue(CacheStatConstants.CACHED_ENTRIES));
+        Assert.assertTrue(cache.getStatValue(CacheStatConstants.CACHED_BYTES) <= 3 * CHUNK_SIZE + 3 * 300);
+        get(cache, "file1", 0);
+        Assert.assertEquals(4, loadNum.get());
+        get(cache, "file1", 100);
+        Assert.assertEquals(5, loadNum.get());
+        Assert.assertEquals(2, cache.getStatValue(CacheStatConstants.TOTAL_HITS));
+        Assert.assertEquals(5, cache.getStatValue(CacheStatConstants.TOTAL_MISSES));
+
+        // a chunk larger than a segment is not cached
+        ChunkCacheManager smallCache = new ChunkCacheManager(CHUNK_SIZE, 1, false);
+        get(smallCache, "file1", 0);
+        get(smallCache, "file1", 0);
+        Assert.assertEquals(7, loadNum.get());
+        Assert.assertEquals(0, smallCache.getStatValue(CacheStatConstants.CACHED_BYTES));
+    }
+
+    @Test
+    public void testRemoveFile() throws IOException {
+        ChunkCacheManager cache = new ChunkCacheManager(Long.MAX_VALUE, 4, false);
+        for (int offset = 0; offset < 10; offset++) {
+            get(cache, "file1", offset);
+            get(cache, "file2", offset);
+        }
+        Assert.assertEquals(20, cache.getStatValue(CacheStatConstants.CACHED_ENTRIES));
+        cache.removeFile("file1");
+        Assert.assertEquals(10, cache.getStatValue(CacheStatConstants.CACHED_ENTRIES));
+        get(cache, "file2", 0);
+        Assert.assertEquals(20, loadNum.get());
+        get(cache, "file1", 0);
+        Assert.assertEquals(21, loadNum.get());
+        cache.clear();
+        Assert.assertEquals(0, cache.getStatValue(CacheStatConstants.CACHED_ENTRIES));
+        Assert.assertEquals(0, cache.getStatValue(CacheStatConstants.CACHED_BYTES));
+    }
+
+    @Test
+    public void testDecompressedPage() throws IOException {
+        // a chunk of two snappy pages, after 10 bytes of other data
+        byte[][] pageBodies = new byte[2][];
+        ByteArrayOutputStream chunkStream = new ByteArrayOutputStream();
+        for (int i = 0; i < pageBodies.length; i++) {
+            pageBodies[i] = new byte[100 * (i + 1)];
+            Arrays.fill(pageBodies[i], (byte) i);
+            byte[] compressedBody = Snappy.compress(pageBodies[i]);
+            PageHeader pageHeader = new PageHeader(PageType.DATA_PAGE, pageBodies[i].length, compressedBody.length);
+            pageHeader.setData_page_header(new DataPageHeader(100, 100, Encoding.PLAIN, 100, 0));
+            ReadWriteThriftFormatUtils.writePageHeader(pageHeader, chunkStream);
+            chunkStream.write(compressedBody);
+        }
+        byte[] chunkBytes = chunkStream.toByteArray();
+        try (FileOutputStream outputStream = new FileOutputStream(FILE_PATH)) {
+            outputStream.write(new byte[10]);
+            outputStream.write(chunkBytes);
+        }
+        EncodedSeriesChunkDescriptor descriptor = new EncodedSeriesChunkDescriptor(FILE_PATH, 10, chunkBytes.length,
+                CompressionTypeName.SNAPPY, TSDataType.INT32, null, 0, 100, 100);
+
+        TsRandomAccessLocalFileReader reader = new TsRandomAccessLocalFileReader(FILE_PATH);
+        try {
+            ChunkCacheManager compressedCache = new ChunkCacheManager(Long.MAX_VALUE, 1, false);
+            SeriesChunk seriesChunk = new SeriesChunkLoaderIoTDBImpl(FILE_PATH, reader, compressedCache)
+                    .getMemSeriesChunk(descriptor);
+            Assert.assertEquals(CompressionTypeName.SNAPPY,
+                    seriesChunk.getEncodedSeriesChunkDescriptor().getCompressionTypeName());
+            Assert.assertEquals(chunkBytes.length, seriesChunk.getSeriesChunkBodyStream().available());
+
+            ChunkCacheManager decompressedCache = new ChunkCacheManager(Long.MAX_VALUE, 1, true);
+            SeriesChunkLoaderIoTDBImpl loader = new SeriesChunkLoaderIoTDBImpl(FILE_PATH, reader, decompressedCache);
+            for (int time = 0; time < 2; time++) {
+                seriesChunk = loader.getMemSeriesChunk(descriptor);
+                Assert.assertEquals(CompressionTypeName.UNCOMPRESSED,
+                        seriesChunk.getEncodedSeriesChunkDescriptor().getCompressionTypeName());
+                InputStream inputStream = seriesChunk.getSeriesChunkBodyStream();
+                for (byte[] pageBody : pageBodies) {
+                    PageHeader pageHeader = ReadWriteThriftFormatUtils.readPageHeader(inputStream);
+                    Assert.assertEquals(pageBody.length, pageHeader.getCompressed_page_size());
+                    Assert.assertEquals(100, pageHeader.getData_page_header().getNum_values());
+                    byte[] body = new byte[pageHeader.getCompressed_page_size()];
+                    Assert.assertEquals(body.length, inputStream.read(body));
+                    Assert.assertArrayEquals(pageBody, body);
+                }
+                Assert.assertEquals(0, inputStream.available());
+            }
+            Assert.assertEquals(1, decompressedCache.getStatValue(CacheStatConstants.TOTAL_HITS));
+        } finally {
+            reader.close();
+        }
+    }
+}
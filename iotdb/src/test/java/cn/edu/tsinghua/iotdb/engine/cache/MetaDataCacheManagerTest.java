@@ -0,0 +1,114 @@
+package cn.edu.tsinghua.iotdb.engine.cache;
+
+import cn.edu.tsinghua.iotdb.monitor.MonitorConstants.CacheStatConstants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MetaDataCacheManagerTest {
+
+    private static final long WEIGHT = 1000;
+
+    private AtomicInteger loadNum = new AtomicInteger();
+
+    private String get(MetaDataCacheManager cache, String filePath, String deltaObjectId) throws IOException {
+        return cache.get(filePath, deltaObjectId, () -> {
+            loadNum.incrementAndGet();
+            return filePath + deltaObjectId;
+        }, value -> WEIGHT);
+    }
+
+    @Test
+    public void testEvictByWeight() throws IOException {
+        // room for 3 entries
+        MetaDataCacheManager cache = new MetaDataCacheManager(3 * WEIGHT + 3 * 500);
+        Assert.assertEquals("file1null", get(cache, "file1", null));
+        get(cache, "file1", "d1");
+        get(cache, "file2", null);
+        Assert.assertEquals(3, loadNum.get());
+        Assert.assertEquals(0, cache.getStatValue(CacheStatConstants.TOTAL_EVICTIONS));
+        // file1 is used recently, so file1.d1 is evicted
+        get(cache, "file1", null);
+        get(cache, "file3", null);
+        Assert.assertEquals(4, loadNum.get());
+        Assert.assertEquals(1, cache.getStatValue(CacheStatConstants.TOTAL_EVICTIONS));
+        Assert.assertEquals(3, cache.getStatValue(CacheStatConstants.CACHED_ENTRIES));
+        Assert.assertTrue(cache.getStatValue(CacheStatConstants.CACHED_BYTES) <= 3 * WEIGHT + 3 * 500);
+        get(cache, "file1", null);
+        Assert.assertEquals(4, loadNum.get());
+        get(cache, "file1", "d1");
+        Assert.assertEquals(5, loadNum.get());
+        Assert.assertEquals(2, cache.getStatValue(CacheStatConstants.TOTAL_HITS));
+        Assert.assertEquals(5, cache.getStatValue(CacheStatConstants.TOTAL_MISSES));
+
+        // an entry larger than the cache is not cached
+        MetaDataCacheManager smallCache = new MetaDataCacheManager(WEIGHT);
+        get(smallCache, "file1", null);
+        get(smallCache, "file1", null);
+        Assert.assertEquals(7, loadNum.get());
+        Assert.assertEquals(0, smallCache.getStatValue(CacheStatConstants.CACHED_BYTES));
+    }
+
+    @Test
+    public void testInvalidate() throws IOException {
+        MetaDataCacheManager cache = new MetaDataCacheManager(Long.MAX_VALUE);
+        get(cache, "file1", null);
+        get(cache, "file1", "d1");
+        get(cache, "file2", null);
+        get(cache, "file2", "d1");
+        cache.removeFile("file1");
+        Assert.assertEquals(2, cache.getStatValue(CacheStatConstants.CACHED_ENTRIES));
+        cache.clearRowGroupBlockMetaData();
+        Assert.assertEquals(1, cache.getStatValue(CacheStatConstants.CACHED_ENTRIES));
+        get(cache, "file2", null);
+        Assert.assertEquals(4, loadNum.get());
+        get(cache, "file1", null);
+        get(cache, "file2", "d1");
+        Assert.assertEquals(6, loadNum.get());
+        cache.clear();
+        Assert.assertEquals(0, cache.getStatValue(CacheStatConstants.CACHED_ENTRIES));
+        Assert.assertEquals(0, cache.getStatValue(CacheStatConstants.CACHED_BYTES));
+    }
+
+    @Test
+    public void testLoadOnce() throws Exception {
+        MetaDataCacheManager cache = new MetaDataCacheManager(Long.MAX_VALUE);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = pool.submit(() -> cache.get("file1", null, () -> {
+                loadNum.incrementAndGet();
+                loading.countDown();
+                finish.await();
+                return "value";
+            }, value -> WEIGHT));
+            loading.await();
+            // the second thread waits for the loading of the first one
+            Future<String> second = pool.submit(() -> get(cache, "file1", null));
+            TimeUnit.MILLISECONDS.sleep(100);
+            Assert.assertFalse(second.isDone());
+            finish.countDown();
+            Assert.assertEquals("value", first.get());
+            Assert.assertEquals("value", second.get());
+            Assert.assertEquals(1, loadNum.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadFailure() throws IOException {
+        MetaDataCacheManager cache = new MetaDataCacheManager(Long.MAX_VALUE);
+        cache.get("file1", null, () -> {
+            throw new IOException("broken file");
+        }, value -> WEIGHT);
+    }
+}
@@ -48,7 +48,7 @@ public class FileNodeProcessorTest {
 	@Before
 	public void setUp() throws Exception {
 		groupThreshold = config.groupSizeInByte;
-		config.groupSizeInByte = 1024;
+		config.groupSizeInByte = 1600;
 		parameters = new HashMap<>();
 		MetadataManagerHelper.initMetadata();
 		EnvironmentUtils.envSetUp();
@@ -87,13 +87,14 @@ public class FileNodeProcessorTest {
 				fileNodeProcessor.setLastUpdateTime(processorName, i);
 				assertEquals(true, fileNodeProcessor.hasBufferwriteProcessor());
 			}
-			if (i == 85) {
+			if (i == 64) {
 				// all buffer-write data in memory
-			} else if (i == 87) {
-				// the groupSize is 1024Bytes. The size of one INT32 data-point
-				// is 12Bytes.
+			} else if (i == 66) {
+				// the groupSize is 1600Bytes. The memtable of one INT32 series
+				// takes 1448Bytes for 33 ~ 64 data-points, and 2216Bytes when
+				// its first block grows to 128 data-points.
 				// the flush will be triggered when the number of insert data
-				// reaches 86(1024/12=85.33).
+				// reaches 65.
 				// waiting for the end of asynchronous flush.
 				TimeUnit.SECONDS.sleep(2);
 				// query result contains the flushed result.
@@ -123,22 +124,24 @@ public class FileNodeProcessorTest {
 				assertEquals(0, globalSortedSeriesDataSource.getSealedTsFiles().size());
 				assertEquals(1, globalSortedSeriesDataSource.getUnsealedTsFile().getTimeSeriesChunkMetaDatas().size());
 				assertEquals(false, globalSortedSeriesDataSource.getRawSeriesChunk().isEmpty());
-				assertEquals(87, globalSortedSeriesDataSource.getRawSeriesChunk().getMaxTimestamp());
-				assertEquals(87, globalSortedSeriesDataSource.getRawSeriesChunk().getMinTimestamp());
-				assertEquals(87, globalSortedSeriesDataSource.getRawSeriesChunk().getValueAtMaxTime().getInt());
+				assertEquals(66, globalSortedSeriesDataSource.getRawSeriesChunk().getMaxTimestamp());
+				assertEquals(66, globalSortedSeriesDataSource.getRawSeriesChunk().getMinTimestamp());
+				assertEquals(66, globalSortedSeriesDataSource.getRawSeriesChunk().getValueAtMaxTime().getInt());
 			}
 		}
-		// the flush last update time is 87
-		// insert overflow data, whose time range is from 0 to 86.
+		// the flush last update time is 65
+		// insert overflow data, whose time range is from 0 to 65.
+		// the memtable of one INT64 series takes 1704Bytes for 33 data-points,
+		// so the overflow flush will be triggered at 33.
 		for (int i = 1; i <= 100; i++) {
 			// System.out.println(i);
 			long flushLastUpdateTime = fileNodeProcessor.getFlushLastUpdateTime(processorName);
-			if (i <= 85) {
-				if (i == 66) {
+			if (i <= 64) {
+				if (i == 34) {
 					// waiting the end of flush overflow data.
 					TimeUnit.SECONDS.sleep(2);
 				}
-				assertEquals(86, flushLastUpdateTime);
+				assertEquals(65, flushLastUpdateTime);
 				if (i < flushLastUpdateTime) {
 					// insert value whose data-type is INT64.
 					OverflowProcessor overflowProcessor = fileNodeProcessor.getOverflowProcessor(processorName);
@@ -151,25 +154,25 @@ public class FileNodeProcessorTest {
 					fail("bufferwrite data");
 				}
 			} else {
-				// i>=86
-				if (i == 86) {
+				// i>=65
+				if (i == 65) {
 					if (i >= flushLastUpdateTime) {
-						// query and insert time = 86
+						// query and insert time = 65
 						QueryDataSource dataSource = fileNodeProcessor.query(processorName, measurementId1, null);
 						// insert overflow data
 						RawSeriesChunk rawSeriesChunk = dataSource.getOverflowSeriesDataSource().getRawSeriesChunk();
 						assertEquals(false, rawSeriesChunk.isEmpty());
 						assertEquals(daType1, rawSeriesChunk.getDataType());
-						assertEquals(66, rawSeriesChunk.getMinTimestamp());
-						assertEquals(85, rawSeriesChunk.getMaxTimestamp());
+						assertEquals(34, rawSeriesChunk.getMinTimestamp());
+						assertEquals(64, rawSeriesChunk.getMaxTimestamp());
 						Iterator<TimeValuePair> iterator = rawSeriesChunk.getIterator();
-						for (int j = 66; j <= 85; j++) {
+						for (int j = 34; j <= 64; j++) {
 							iterator.hasNext();
 							TimeValuePair pair = iterator.next();
 							assertEquals(j, pair.getTimestamp());
 							assertEquals(j, pair.getValue().getLong());
 						}
-						// insert time = 86 overflow data
+						// insert time = 65 overflow data
 						OverflowProcessor overflowProcessor = fileNodeProcessor.getOverflowProcessor(processorName);
 						TSRecord tsRecord = new TSRecord(i, processorName);
 						tsRecord.addTuple(DataPoint.getDataPoint(daType1, measurementId1, String.valueOf(i)));
@@ -180,7 +183,7 @@ public class FileNodeProcessorTest {
 						fail("bufferwrite data" + i + "flushLastUpdateTime" + flushLastUpdateTime);
 					}
 				} else {
-					// i>=87
+					// i>=66
 					if (i < flushLastUpdateTime) {
 						fail("overflow data" + i + "flushLastUpdateTime" + flushLastUpdateTime);
 					} else {
@@ -198,7 +201,7 @@ public class FileNodeProcessorTest {
 						rawSeriesChunk = dataSource.getSeriesDataSource().getRawSeriesChunk();
 						assertEquals(false, rawSeriesChunk.isEmpty());
 						Iterator<TimeValuePair> iterator = rawSeriesChunk.getIterator();
-						for (int j = 87; j <= 100; j++) {
+						for (int j = 66; j <= 100; j++) {
 							iterator.hasNext();
 							TimeValuePair timeValuePair = iterator.next();
 							assertEquals(j, timeValuePair.getTimestamp());
@@ -6,6 +6,8 @@ import cn.edu.tsinghua.iotdb.exception.BufferWriteProcessorException;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class MemControllerTest {
 
@@ -14,6 +16,39 @@ public class MemControllerTest {
     private static long GB = 1024 * 1024 * 1024L;
     private static long MB = 1024 * 1024L;
 
+    @Test
+    public void testWaitForMemory() throws InterruptedException {
+        RecordMemController memController = RecordMemController.getInstance();
+        memController.clear();
+        memController.setWarningThreshold(8 * GB);
+        memController.setDangerouseThreshold(16 * GB);
+        Object user = new Object();
+        try {
+            memController.reportUse(user, 8 * GB);
+            assertTrue(memController.waitForMemory(0));
+
+            memController.reportUse(user, 8 * GB);
+            assertFalse(memController.waitForMemory(100));
+            // the writer goes on once some memory is freed
+            Thread freeThread = new Thread(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                memController.reportFree(user, 1 * GB);
+            });
+            freeThread.start();
+            assertTrue(memController.waitForMemory(60 * 1000));
+            assertEquals(15 * GB, memController.getTotalUsage());
+            freeThread.join();
+        } finally {
+            memController.clear();
+            memController.setWarningThreshold(config.memThresholdWarning);
+            memController.setDangerouseThreshold(config.memThresholdDangerous);
+        }
+    }
+
     @Test
     public void test() throws BufferWriteProcessorException {
         BasicMemController memController = BasicMemController.getInstance();
@@ -31,7 +66,7 @@ public class MemControllerTest {
         for(int i = 0; i < dummyUser.length; i++)
             dummyUser[i] = new Object();
 
-        // every one request 1 GB, should get 7 safes, 8 warning and 5 dangerous
+        // every one request 1 GB, should get 7 safes, 8 warning and 5 dangerous, all of them are counted
         for(int i = 0; i < 7; i++) {
             BasicMemController.UsageLevel level = memController.reportUse(dummyUser[i], 1 * GB);
             assertEquals(BasicMemController.UsageLevel.SAFE, level);
@@ -44,19 +79,19 @@ public class MemControllerTest {
             BasicMemController.UsageLevel level = memController.reportUse(dummyUser[i], 1 * GB);
             assertEquals(BasicMemController.UsageLevel.DANGEROUS, level);
         }
-        assertEquals(15 * GB, memController.getTotalUsage());
+        assertEquals(20 * GB, memController.getTotalUsage());
         // every one free its mem
-        for(int i = 0; i < 7; i++) {
+        for(int i = 0; i < 20; i++) {
             memController.reportFree(dummyUser[i], 1 * GB);
-            assertEquals((14 - i) * GB, memController.getTotalUsage());
-        }
-        for(int i = 7; i < 15; i++) {
-            memController.reportFree(dummyUser[i], 2 * GB);
-            assertEquals((14 - i) * GB, memController.getTotalUsage());
+            assertEquals((19 - i) * GB, memController.getTotalUsage());
         }
+        // free the mem of an unregistered user
+        memController.reportFree(dummyUser[0], 1 * GB);
+        assertEquals(0, memController.getTotalUsage());
         // ask for a too big mem
         BasicMemController.UsageLevel level = memController.reportUse(dummyUser[0], 100 * GB);
         assertEquals(BasicMemController.UsageLevel.DANGEROUS, level);
+        memController.reportFree(dummyUser[0], 100 * GB);
         // single user ask continuously
         for(int i = 0; i < 8 * 1024 - 1; i++) {
             level = memController.reportUse(dummyUser[0], 1 * MB);
@@ -0,0 +1,81 @@
+package cn.edu.tsinghua.iotdb.engine.memtable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import cn.edu.tsinghua.tsfile.file.metadata.RowGroupMetaData;
+import cn.edu.tsinghua.tsfile.file.metadata.TimeSeriesChunkMetaData;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSEncoding;
+import cn.edu.tsinghua.tsfile.timeseries.write.desc.MeasurementDescriptor;
+import cn.edu.tsinghua.tsfile.timeseries.write.io.TsFileIOWriter;
+import cn.edu.tsinghua.tsfile.timeseries.write.schema.FileSchema;
+
+public class MemTableFlushUtilTest {
+
+	private static final int DELTA_OBJECT_NUM = 3;
+	private static final int MEASUREMENT_NUM = 20;
+	private static final int POINT_NUM = 100;
+
+	private File file1 = new File("flushtest1");
+	private File file2 = new File("flushtest2");
+	private FileSchema fileSchema = new FileSchema();
+	private IMemTable memTable = new PrimitiveMemTable();
+
+	@Before
+	public void setUp() {
+		for (int m = 0; m < MEASUREMENT_NUM; m++) {
+			fileSchema.registerMeasurement(new MeasurementDescriptor("s" + m, TSDataType.INT64, TSEncoding.RLE));
+		}
+		for (int d = 0; d < DELTA_OBJECT_NUM; d++) {
+			for (int m = 0; m < MEASUREMENT_NUM; m++) {
+				MemTableTestUtils.produceData(memTable, 1, POINT_NUM, "d" + d, "s" + m, TSDataType.INT64);
+			}
+		}
+	}
+
+	@After
+	public void tearDown() {
+		file1.delete();
+		file2.delete();
+	}
+
+	@Test
+	public void testFlushInOrder() throws IOException {
+		TsFileIOWriter writer1 = new TsFileIOWriter(file1);
+		MemTableFlushUtil.flushMemTable(fileSchema, writer1, memTable);
+		writer1.endFile(fileSchema);
+		TsFileIOWriter writer2 = new TsFileIOWriter(file2);
+		MemTableFlushUtil.flushMemTable(fileSchema, writer2, memTable);
+		writer2.endFile(fileSchema);
+
+		// series are encoded concurrently, but the file is the same as a serial flush
+		assertArrayEquals(Files.readAllBytes(file1.toPath()), Files.readAllBytes(file2.toPath()));
+
+		List<RowGroupMetaData> rowGroups = writer1.getRowGroups();
+		assertEquals(DELTA_OBJECT_NUM, rowGroups.size());
+		int i = 0;
+		for (Map.Entry<String, Map<String, IMemSeries>> entry : memTable.getMemTableMap().entrySet()) {
+			RowGroupMetaData rowGroup = rowGroups.get(i++);
+			assertEquals(entry.getKey(), rowGroup.getDeltaObjectID());
+			assertEquals(MEASUREMENT_NUM * POINT_NUM, rowGroup.getNumOfRows());
+			List<String> measurements = new ArrayList<>();
+			for (TimeSeriesChunkMetaData chunkMetaData : rowGroup.getTimeSeriesChunkMetaDataList()) {
+				measurements.add(chunkMetaData.getProperties().getMeasurementUID());
+				assertEquals(POINT_NUM, chunkMetaData.getNumRows());
+			}
+			assertEquals(new ArrayList<>(entry.getValue().keySet()), measurements);
+		}
+	}
+}
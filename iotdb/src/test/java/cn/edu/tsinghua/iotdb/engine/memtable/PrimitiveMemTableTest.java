@@ -5,6 +5,8 @@ import cn.edu.tsinghua.tsfile.common.utils.Binary;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.DoubleDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.LongDataPoint;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -59,6 +61,27 @@ public class PrimitiveMemTableTest {
         }
     }
 
+    @Test
+    public void typedWriteTest() {
+        IMemTable memTable = new PrimitiveMemTable();
+        String deviceId = "d1";
+        int dataSize = 1000;
+        for (int i = 0; i < dataSize; i++) {
+            memTable.write(deviceId, dataSize - i - 1, new LongDataPoint("s0", i));
+            memTable.write(deviceId, i, new DoubleDataPoint("s1", i * 0.5));
+        }
+        Iterator<TimeValuePair> longPairs = memTable.query(deviceId, "s0", TSDataType.INT64).getSortedTimeValuePairList().iterator();
+        Iterator<TimeValuePair> doublePairs = memTable.query(deviceId, "s1", TSDataType.DOUBLE).getSortedTimeValuePairList().iterator();
+        for (int i = 0; i < dataSize; i++) {
+            TimeValuePair longPair = longPairs.next();
+            Assert.assertEquals(i, longPair.getTimestamp());
+            Assert.assertEquals(dataSize - i - 1, longPair.getValue().getLong());
+            TimeValuePair doublePair = doublePairs.next();
+            Assert.assertEquals(i, doublePair.getTimestamp());
+            Assert.assertEquals(i * 0.5, doublePair.getValue().getDouble(), 0.0);
+        }
+    }
+
     private void write(IMemTable memTable, String deviceId, String sensorId, TSDataType dataType, int size) {
         int dataSize = 100;
         TimeValuePair[] ret = genTimeValuePair(size, dataType);
@@ -2,6 +2,8 @@ package cn.edu.tsinghua.iotdb.engine.overflow.ioV2;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Map;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -91,6 +93,24 @@ public class OverflowSupportTest {
 		assertEquals(0, d2s2.getFloat(0), error);
 	}
 
+	@Test
+	public void testSize() {
+		long memTableSize = support.getMemTabale().getMemSize();
+		// the trees count 16 bytes for the time pair and the bytes of the value of each update, and 16 bytes for
+		// each delete
+		long treesSize = 0;
+		for (Map<String, OverflowSeriesImpl> seriesMap : support.getOverflowSeriesMap().values()) {
+			for (OverflowSeriesImpl series : seriesMap.values()) {
+				treesSize += series.getSize();
+			}
+		}
+		assertEquals(40, support.getOverflowSeriesMap().get(deltaObjectId1).get(measurementId1).getSize());
+		assertEquals(memTableSize + treesSize, support.getSize());
+
+		support.clear();
+		assertEquals(support.getMemTabale().getMemSize(), support.getSize());
+	}
+
 	@Test
 	public void testInsert() {
 		support.clear();
@@ -0,0 +1,77 @@
+package cn.edu.tsinghua.iotdb.metadata;
+
+import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
+import cn.edu.tsinghua.iotdb.utils.EnvironmentUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MManagerCheckpointTest {
+
+    private MManager mManager = MManager.getInstance();
+    private File snapshotFile;
+    private File logFile;
+
+    @Before
+    public void setUp() throws Exception {
+        String metadataDir = TsfileDBDescriptor.getInstance().getConfig().metadataDir;
+        snapshotFile = new File(metadataDir, MetadataConstant.METADATA_SNAPSHOT);
+        logFile = new File(metadataDir, MetadataConstant.METADATA_LOG);
+        mManager.setStorageLevelToMTree("root.vehicle.d0");
+        mManager.addPathToMTree("root.vehicle.d0.s0", "INT32", "RLE", new String[0]);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        EnvironmentUtils.cleanEnv();
+    }
+
+    @Test
+    public void testReloadAfterCheckpoint() throws Exception {
+        mManager.flushObjectToFile();
+        mManager.addPathToMTree("root.vehicle.d0.s1", "INT64", "RLE", new String[0]);
+
+        mManager.reload();
+        assertTrue(mManager.pathExist("root.vehicle.d0.s0"));
+        assertTrue(mManager.pathExist("root.vehicle.d0.s1"));
+    }
+
+    @Test
+    public void testCrashBetweenSnapshotAndLog() throws Exception {
+        // the log before the checkpoint, as if the crash happened before it was replaced
+        File oldLog = new File(logFile.getPath() + ".old");
+        Files.copy(logFile.toPath(), oldLog.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        mManager.flushObjectToFile();
+        Files.move(oldLog.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        mManager.reload();
+        assertTrue(mManager.pathExist("root.vehicle.d0.s0"));
+        assertFalse(mManager.pathExist("root.vehicle.d0.s1"));
+    }
+
+    @Test
+    public void testMissingSnapshot() throws Exception {
+        mManager.flushObjectToFile();
+        File backup = new File(snapshotFile.getPath() + ".backup");
+        Files.move(snapshotFile.toPath(), backup.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        try {
+            mManager.reload();
+            fail("the log of a checkpoint can't be loaded without its snapshot");
+        } catch (RuntimeException e) {
+            // expected
+        } finally {
+            Files.move(backup.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        mManager.reload();
+        assertTrue(mManager.pathExist("root.vehicle.d0.s0"));
+    }
+}
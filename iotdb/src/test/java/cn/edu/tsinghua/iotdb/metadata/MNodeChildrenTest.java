@@ -0,0 +1,84 @@
+package cn.edu.tsinghua.iotdb.metadata;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MNodeChildrenTest {
+
+    @Test
+    public void testSmallAndLargeFanOut() {
+        MNode parent = new MNode("root", null, false);
+        MNodeChildren children = new MNodeChildren();
+        // grows from the array scan to the hash table
+        for (int i = 0; i < 100; i++) {
+            children.put(new MNode("d" + i, parent, false));
+            assertEquals(i + 1, children.size());
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals("d" + i, children.get("d" + i).getName());
+            assertEquals("d" + i, children.values().get(i).getName());
+        }
+        assertFalse(children.containsKey("d100"));
+
+        MNode replaced = new MNode("d50", parent, false);
+        children.put(replaced);
+        assertEquals(100, children.size());
+        assertSame(replaced, children.get("d50"));
+        assertSame(replaced, children.values().get(50));
+
+        // shrinks back to the array scan, insertion order is kept
+        for (int i = 0; i < 95; i++) {
+            assertEquals("d" + i, children.remove("d" + i).getName());
+            assertNull(children.get("d" + i));
+        }
+        assertNull(children.remove("d0"));
+        assertEquals(5, children.size());
+        int i = 95;
+        for (MNode child : children.values()) {
+            assertEquals("d" + i++, child.getName());
+        }
+        assertTrue(children.containsKey("d99"));
+    }
+
+    @Test
+    public void testReadWhileAppending() throws Exception {
+        MNode parent = new MNode("root", null, false);
+        MNodeChildren children = new MNodeChildren();
+        int total = 20000;
+        AtomicInteger added = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean(false);
+        Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                while (added.get() < total) {
+                    int n = added.get();
+                    // every child added before must be found without lock
+                    for (int i = Math.max(0, n - 100); i < n; i++) {
+                        MNode child = children.get("d" + i);
+                        if (child == null || !child.getName().equals("d" + i)) {
+                            failed.set(true);
+                        }
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        for (int i = 0; i < total; i++) {
+            children.put(new MNode("d" + i, parent, false));
+            added.incrementAndGet();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertFalse(failed.get());
+        assertEquals(total, children.size());
+    }
+}
@@ -0,0 +1,47 @@
+package cn.edu.tsinghua.iotdb.metadata;
+
+import cn.edu.tsinghua.iotdb.exception.PathErrorException;
+
+/**
+ * Measures the heap used by the metadata of deviceCount * sensorCount timeseries, which share their sensor names
+ * between the devices as most schemas do. A leaf takes about 50 bytes with its schema and its entry in the children of
+ * the device. Run it with the main method, it is not part of the unit tests.
+ */
+public class MTreeMemoryBenchmark {
+
+    private static final int STORAGE_GROUP_COUNT = 10;
+    private static final int DEVICE_COUNT = 200;
+    private static final int SENSOR_COUNT = 500;
+
+    public static void main(String[] args) throws PathErrorException {
+        String[] sensors = new String[SENSOR_COUNT];
+        for (int i = 0; i < SENSOR_COUNT; i++) {
+            sensors[i] = "s" + i;
+        }
+        long before = usedMemory();
+        MTree mTree = new MTree("root");
+        for (int i = 0; i < STORAGE_GROUP_COUNT; i++) {
+            mTree.setStorageGroup("root.group" + i);
+        }
+        for (int i = 0; i < DEVICE_COUNT; i++) {
+            String device = "root.group" + (i % STORAGE_GROUP_COUNT) + ".d" + i;
+            for (String sensor : sensors) {
+                mTree.addTimeseriesPath(device + "." + sensor, "INT32", "RLE", new String[0]);
+            }
+        }
+        long used = usedMemory() - before;
+        long total = (long) DEVICE_COUNT * SENSOR_COUNT;
+        System.out.println(String.format("%d timeseries: %d bytes, %.1f bytes per timeseries", total, used,
+                used * 1.0 / total));
+        // keep the tree alive until the memory is measured
+        System.out.println(mTree.getRoot().getChildren().size() + " storage groups");
+    }
+
+    private static long usedMemory() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
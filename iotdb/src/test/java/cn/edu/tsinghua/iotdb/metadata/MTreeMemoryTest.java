@@ -0,0 +1,57 @@
+package cn.edu.tsinghua.iotdb.metadata;
+
+import cn.edu.tsinghua.iotdb.exception.PathErrorException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the compact representation of the metadata of many timeseries: the children of a node are only hashed above
+ * {@link MNodeChildren#ARRAY_THRESHOLD}, and the leaves of the same sensor name share one schema between the devices.
+ * The heap used per timeseries is measured by {@link MTreeMemoryBenchmark}.
+ */
+public class MTreeMemoryTest {
+
+    @Test
+    public void testChildrenRepresentation() throws PathErrorException {
+        MTree mTree = new MTree("root");
+        mTree.setStorageGroup("root.group");
+        for (int i = 0; i < MNodeChildren.ARRAY_THRESHOLD; i++) {
+            mTree.addTimeseriesPath("root.group.d.s" + i, "INT32", "RLE", new String[0]);
+        }
+        MNodeChildren children = mTree.getRoot().getChild("group").getChild("d").getChildren();
+        Assert.assertEquals(MNodeChildren.ARRAY_THRESHOLD, children.size());
+        Assert.assertFalse(children.isHashed());
+
+        mTree.addTimeseriesPath("root.group.d.s" + MNodeChildren.ARRAY_THRESHOLD, "INT32", "RLE", new String[0]);
+        Assert.assertTrue(children.isHashed());
+        for (int i = 0; i <= MNodeChildren.ARRAY_THRESHOLD; i++) {
+            Assert.assertEquals("s" + i, children.get("s" + i).getName());
+        }
+
+        children.remove("s0");
+        Assert.assertFalse(children.isHashed());
+        Assert.assertNull(children.get("s0"));
+        Assert.assertEquals("s1", children.get("s1").getName());
+    }
+
+    @Test
+    public void testSharedSchemas() throws PathErrorException {
+        MTree mTree = new MTree("root");
+        mTree.setStorageGroup("root.group0");
+        mTree.setStorageGroup("root.group1");
+        for (int i = 0; i < 4; i++) {
+            String device = "root.group" + (i % 2) + ".d" + i;
+            mTree.addTimeseriesPath(device + ".s0", "INT32", "RLE", new String[0]);
+            mTree.addTimeseriesPath(device + ".s1", "INT32", "RLE", new String[0]);
+        }
+        mTree.addTimeseriesPath("root.group0.d4.s0", "INT64", "RLE", new String[0]);
+
+        ColumnSchema schema = mTree.getSchemaForOnePath("root.group0.d0.s0");
+        for (int i = 1; i < 4; i++) {
+            Assert.assertSame(schema, mTree.getSchemaForOnePath("root.group" + (i % 2) + ".d" + i + ".s0"));
+        }
+        Assert.assertNotSame(schema, mTree.getSchemaForOnePath("root.group0.d0.s1"));
+        // the data type is part of the shared schema
+        Assert.assertNotSame(schema, mTree.getSchemaForOnePath("root.group0.d4.s0"));
+    }
+}
@@ -1,6 +1,9 @@
 package cn.edu.tsinghua.iotdb.metadata;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -13,6 +16,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import cn.edu.tsinghua.iotdb.exception.PathErrorException;
+import cn.edu.tsinghua.iotdb.index.IndexManager.IndexType;
 import cn.edu.tsinghua.iotdb.utils.EnvironmentUtils;
 
 public class MTreeTest {
@@ -170,4 +174,27 @@ public class MTreeTest {
 		assertEquals(root.isPathExist("root.laptop.d2"), true);
 		assertEquals(root.isPathExist("root.laptop.d2.s0"), true);
 	}
+
+	@Test
+	public void testSharedSchema() throws PathErrorException {
+		MTree root = new MTree("root");
+		root.setStorageGroup("root.laptop");
+		root.addTimeseriesPath("root.laptop.d1.s0", "INT32", "RLE", new String[0]);
+		root.addTimeseriesPath("root.laptop.d2.s0", "INT32", "RLE", new String[0]);
+		root.addTimeseriesPath("root.laptop.d3.s0", "INT64", "RLE", new String[0]);
+		root.addTimeseriesPath("root.laptop.d4.s0", "INT32", "RLE", new String[] { "max_point_number=2" });
+		assertSame(root.getSchemaForOnePath("root.laptop.d1.s0"), root.getSchemaForOnePath("root.laptop.d2.s0"));
+		assertNotSame(root.getSchemaForOnePath("root.laptop.d1.s0"), root.getSchemaForOnePath("root.laptop.d3.s0"));
+		assertNotSame(root.getSchemaForOnePath("root.laptop.d1.s0"), root.getSchemaForOnePath("root.laptop.d4.s0"));
+		assertEquals("2", root.getSchemaForOnePath("root.laptop.d4.s0").getValueFromArgs("max_point_number"));
+
+		// the index of one timeseries doesn't change the others
+		root.addIndex("root.laptop.d1.s0", IndexType.KvIndex);
+		assertTrue(root.getSchemaForOnePath("root.laptop.d1.s0").isHasIndex(IndexType.KvIndex));
+		assertFalse(root.getSchemaForOnePath("root.laptop.d2.s0").isHasIndex());
+		root.deleteIndex("root.laptop.d1.s0", IndexType.KvIndex);
+		assertFalse(root.getSchemaForOnePath("root.laptop.d1.s0").isHasIndex());
+		root.deleteIndex("root.laptop.d2.s0", IndexType.KvIndex);
+		assertEquals("s0", root.getSchemaForOnePath("root.laptop.d2.s0").getName());
+	}
 }
@@ -0,0 +1,77 @@
+package cn.edu.tsinghua.iotdb.metadata;
+
+import cn.edu.tsinghua.iotdb.index.IndexManager.IndexType;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSEncoding;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetadataSnapshotTest {
+
+    private File snapshotFile = new File("metadata-snapshot-test");
+
+    @Before
+    public void setUp() {
+        snapshotFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        snapshotFile.delete();
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        MGraph mGraph = new MGraph("root");
+        mGraph.setStorageLevel("root.vehicle.d0");
+        mGraph.setStorageLevel("root.vehicle.d1");
+        mGraph.addPathToMTree("root.vehicle.d0.s0", "INT32", "RLE", new String[]{"max_point_number=3"});
+        mGraph.addPathToMTree("root.vehicle.d0.s1", "TEXT", "PLAIN", new String[0]);
+        mGraph.addPathToMTree("root.vehicle.d1.s0", "INT32", "RLE", new String[0]);
+        mGraph.addPathToMTree("root.vehicle.d1.s1", "TEXT", "PLAIN", new String[0]);
+        mGraph.addPathToMTree("root.vehicle.d1.s2", "DOUBLE", "GORILLA", new String[0]);
+        mGraph.addIndex("root.vehicle.d1.s2", IndexType.KvIndex);
+        mGraph.addAPTree("region");
+        mGraph.addPathToPTree("region.beijing");
+        mGraph.linkMNodeToPTree("region.beijing", "root.vehicle.d0");
+
+        MetadataSnapshot.write(mGraph, 3, snapshotFile);
+        MetadataSnapshot snapshot = MetadataSnapshot.read(snapshotFile);
+        MGraph loaded = snapshot.getMGraph();
+
+        assertEquals(3, snapshot.getCheckpointId());
+        assertEquals(mGraph.toString(), loaded.toString());
+        assertEquals(mGraph.getPTreeMap().get("region").getRoot().getChild("beijing").getLinkedMTreePathMap(),
+                loaded.getPTreeMap().get("region").getRoot().getChild("beijing").getLinkedMTreePathMap());
+
+        ColumnSchema s0 = loaded.getSchemaForOnePath("root.vehicle.d0.s0");
+        assertEquals(TSDataType.INT32, s0.geTsDataType());
+        assertEquals(TSEncoding.RLE, s0.getEncoding());
+        assertEquals("3", s0.getValueFromArgs("max_point_number"));
+        ColumnSchema s2 = loaded.getSchemaForOnePath("root.vehicle.d1.s2");
+        assertEquals(TSEncoding.GORILLA, s2.getEncoding());
+        assertTrue(s2.isHasIndex(IndexType.KvIndex));
+        assertEquals("root.vehicle.d1", loaded.getFileNameByPath("root.vehicle.d1.s2"));
+
+        // the schema maps of storage groups are rebuilt from their timeseries
+        MNode d0 = loaded.getNodeByPath("root.vehicle.d0");
+        assertTrue(d0.isStorageLevel());
+        assertEquals(2, d0.getSchemaMap().size());
+        assertEquals(Integer.valueOf(1), d0.getNumSchemaMap().get("s0"));
+        assertSame(s0, d0.getSchemaMap().get("s0"));
+
+        // leaves of the same name, data type and encoding share one schema
+        assertSame(loaded.getSchemaForOnePath("root.vehicle.d0.s1"), loaded.getSchemaForOnePath("root.vehicle.d1.s1"));
+
+        // equal names share one string
+        assertSame(loaded.getNodeByPath("root.vehicle.d0.s0").getName(),
+                loaded.getNodeByPath("root.vehicle.d1.s0").getName());
+    }
+}
@@ -0,0 +1,181 @@
+package cn.edu.tsinghua.iotdb.query;
+
+import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
+import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
+import cn.edu.tsinghua.iotdb.conf.directories.Directories;
+import cn.edu.tsinghua.iotdb.engine.filenode.FileNodeManager;
+import cn.edu.tsinghua.iotdb.jdbc.TsfileJDBCConfig;
+import cn.edu.tsinghua.iotdb.service.IoTDB;
+import cn.edu.tsinghua.iotdb.utils.EnvironmentUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Compact the small tsfiles of a storage group, then merge the overflow data written into the compacted files. All
+ * the data must be read back as before.
+ */
+public class IoTDBCompactionTest {
+    private static final String TIMESTAMP_STR = "Time";
+    private static final String STORAGE_GROUP = "root.vehicle";
+    private final String d0s0 = "root.vehicle.d0.s0";
+    private final String d0s1 = "root.vehicle.d0.s1";
+    private final String d1s0 = "root.vehicle.d1.s0";
+
+    private static String[] create_sql = new String[]{
+            "SET STORAGE GROUP TO root.vehicle",
+            "CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT32, ENCODING=RLE",
+            "CREATE TIMESERIES root.vehicle.d0.s1 WITH DATATYPE=INT64, ENCODING=RLE",
+            "CREATE TIMESERIES root.vehicle.d1.s0 WITH DATATYPE=INT32, ENCODING=RLE",
+    };
+
+    private static String[] overflow_sql = new String[]{
+            "insert into root.vehicle.d0(timestamp,s0) values(150,-150)",
+            "UPDATE root.vehicle SET d1.s0 = -1 WHERE time >= 250 and time <= 260",
+    };
+
+    private IoTDB daemon;
+    private TsfileDBConfig dbConfig = TsfileDBDescriptor.getInstance().getConfig();
+    private long overflowFileSizeThreshold;
+    private int compactionFanIn;
+
+    @Before
+    public void setUp() throws Exception {
+        overflowFileSizeThreshold = dbConfig.overflowFileSizeThreshold;
+        compactionFanIn = dbConfig.compactionFanIn;
+        dbConfig.overflowFileSizeThreshold = 0;
+        dbConfig.compactionFanIn = 4;
+        EnvironmentUtils.closeStatMonitor();
+        EnvironmentUtils.closeMemControl();
+        daemon = IoTDB.getInstance();
+        daemon.active();
+        EnvironmentUtils.envSetUp();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        daemon.stop();
+        Thread.sleep(5000);
+        EnvironmentUtils.cleanEnv();
+        dbConfig.overflowFileSizeThreshold = overflowFileSizeThreshold;
+        dbConfig.compactionFanIn = compactionFanIn;
+    }
+
+    @Test
+    public void test() throws Exception {
+        Thread.sleep(5000);
+        insertSQL();
+        Assert.assertEquals(5, getTsFileNum());
+        selectAllTest();
+
+        // the first 4 files are compacted into one
+        FileNodeManager.getInstance().compactAll();
+        Assert.assertEquals(2, getTsFileNum());
+        selectAllTest();
+        // 2 files are not enough to be compacted
+        FileNodeManager.getInstance().compactAll();
+        Assert.assertEquals(2, getTsFileNum());
+
+        executeSQL(new String[]{"merge"});
+        Thread.sleep(5000);
+        selectAllTest();
+    }
+
+    private int getTsFileNum() {
+        int num = 0;
+        for (String folder : Directories.getInstance().getAllTsFileFolders()) {
+            File[] files = new File(folder, STORAGE_GROUP).listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (!file.getName().endsWith(".restore")) {
+                    num++;
+                }
+            }
+        }
+        return num;
+    }
+
+    private void insertSQL() throws ClassNotFoundException, SQLException {
+        executeSQL(create_sql);
+        // five tsfiles: 100 ~ 199, 200 ~ 299, ..., 500 ~ 599, d1 is not in the second one
+        for (int start = 100; start < 600; start += 100) {
+            List<String> sqls = new ArrayList<>();
+            for (int time = start; time < start + 100; time++) {
+                sqls.add(String.format("insert into root.vehicle.d0(timestamp,s0,s1) values(%s,%s,%s)", time, time,
+                        time * 10));
+                if (start != 200) {
+                    sqls.add(String.format("insert into root.vehicle.d1(timestamp,s0) values(%s,%s)", time,
+                            time % 7));
+                }
+            }
+            sqls.add("flush");
+            executeSQL(sqls.toArray(new String[0]));
+        }
+        executeSQL(overflow_sql);
+    }
+
+    private void selectAllTest() throws ClassNotFoundException, SQLException {
+        Class.forName(TsfileJDBCConfig.JDBC_DRIVER_NAME);
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection("jdbc:tsfile://127.0.0.1:6667/", "root", "root");
+            Statement statement = connection.createStatement();
+            boolean hasResultSet = statement.execute("select * from root.vehicle");
+            Assert.assertTrue(hasResultSet);
+            ResultSet resultSet = statement.getResultSet();
+            int time = 100;
+            while (resultSet.next()) {
+                String d1Value;
+                if (time >= 200 && time < 300) {
+                    d1Value = "null";
+                } else {
+                    d1Value = String.valueOf(time % 7);
+                }
+                String expected = time + "," + (time == 150 ? -150 : time) + "," + (time * 10) + "," + d1Value;
+                String ans = resultSet.getString(TIMESTAMP_STR) + "," + resultSet.getString(d0s0) + ","
+                        + resultSet.getString(d0s1) + "," + resultSet.getString(d1s0);
+                Assert.assertEquals(expected, ans);
+                time++;
+            }
+            Assert.assertEquals(600, time);
+            statement.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    private void executeSQL(String[] sqls) throws ClassNotFoundException, SQLException {
+        Class.forName(TsfileJDBCConfig.JDBC_DRIVER_NAME);
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection("jdbc:tsfile://127.0.0.1:6667/", "root", "root");
+            Statement statement = connection.createStatement();
+            for (String sql : sqls) {
+                statement.execute(sql);
+            }
+            statement.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+}
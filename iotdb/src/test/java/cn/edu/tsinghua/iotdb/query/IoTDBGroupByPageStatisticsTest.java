@@ -0,0 +1,176 @@
+package cn.edu.tsinghua.iotdb.query;
+
+import cn.edu.tsinghua.iotdb.jdbc.TsfileJDBCConfig;
+import cn.edu.tsinghua.iotdb.service.IoTDB;
+import cn.edu.tsinghua.iotdb.utils.EnvironmentUtils;
+import cn.edu.tsinghua.tsfile.common.conf.TSFileConfig;
+import cn.edu.tsinghua.tsfile.common.conf.TSFileDescriptor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static cn.edu.tsinghua.iotdb.service.TestUtils.first;
+import static cn.edu.tsinghua.iotdb.service.TestUtils.last;
+import static cn.edu.tsinghua.iotdb.service.TestUtils.max_time;
+import static cn.edu.tsinghua.iotdb.service.TestUtils.max_value;
+import static cn.edu.tsinghua.iotdb.service.TestUtils.min_time;
+import static cn.edu.tsinghua.iotdb.service.TestUtils.min_value;
+import static org.junit.Assert.fail;
+
+/**
+ * The first, last, min_value, max_value, min_time and max_time of a group by query read the pages lying in one group
+ * from their statistics, their results must be the same as those calculated from all the points.
+ */
+public class IoTDBGroupByPageStatisticsTest {
+
+    private static final String TIMESTAMP_STR = "Time";
+    private static final String d0s0 = "root.vehicle.d0.s0";
+
+    private TSFileConfig tsFileConfig = TSFileDescriptor.getInstance().getConfig();
+    private int maxNumberOfPointsInPage;
+    private IoTDB daemon;
+
+    // all the points of d0s0
+    private TreeMap<Long, Integer> points = new TreeMap<>();
+
+    @Before
+    public void setUp() throws Exception {
+        EnvironmentUtils.closeStatMonitor();
+        EnvironmentUtils.closeMemControl();
+        maxNumberOfPointsInPage = tsFileConfig.maxNumberOfPointsInPage;
+        tsFileConfig.maxNumberOfPointsInPage = 10;
+        daemon = IoTDB.getInstance();
+        daemon.active();
+        EnvironmentUtils.envSetUp();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        daemon.stop();
+        Thread.sleep(5000);
+        tsFileConfig.maxNumberOfPointsInPage = maxNumberOfPointsInPage;
+        EnvironmentUtils.cleanEnv();
+    }
+
+    @Test
+    public void test() throws ClassNotFoundException, SQLException, InterruptedException {
+        Thread.sleep(5000);
+        insertSQL();
+
+        // every page of 10 points lies in one group
+        groupByTest(50, 0, new long[][]{{0, 1199}});
+        // the pages cross the groups
+        groupByTest(7, 3, new long[][]{{0, 1199}});
+        // the pages cross the intervals
+        groupByTest(50, 0, new long[][]{{0, 204}, {236, 1199}});
+    }
+
+    private void groupByTest(long unit, long origin, long[][] intervals) throws ClassNotFoundException, SQLException {
+        StringBuilder sql = new StringBuilder("select first(s0),last(s0),min_value(s0),max_value(s0),min_time(s0),"
+                + "max_time(s0) from root.vehicle.d0 group by(" + unit + "ms, " + origin);
+        for (long[] interval : intervals) {
+            sql.append(", [").append(interval[0]).append(",").append(interval[1]).append("]");
+        }
+        sql.append(")");
+
+        Class.forName(TsfileJDBCConfig.JDBC_DRIVER_NAME);
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection("jdbc:tsfile://127.0.0.1:6667/", "root", "root");
+            Statement statement = connection.createStatement();
+            boolean hasResultSet = statement.execute(sql.toString());
+            Assert.assertTrue(hasResultSet);
+            ResultSet resultSet = statement.getResultSet();
+            int cnt = 0;
+            while (resultSet.next()) {
+                long time = Long.parseLong(resultSet.getString(TIMESTAMP_STR));
+                String ans = resultSet.getString(first(d0s0)) + "," + resultSet.getString(last(d0s0)) + ","
+                        + resultSet.getString(min_value(d0s0)) + "," + resultSet.getString(max_value(d0s0)) + ","
+                        + resultSet.getString(min_time(d0s0)) + "," + resultSet.getString(max_time(d0s0));
+                long partitionEnd = origin + Math.floorDiv(time - origin, unit) * unit + unit - 1;
+                Assert.assertEquals("group at " + time, expected(time, partitionEnd, intervals), ans);
+                cnt++;
+            }
+            Assert.assertTrue(cnt > 1);
+            statement.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Calculate the aggregations of the points in [startTime, endTime] and the intervals.
+     */
+    private String expected(long startTime, long endTime, long[][] intervals) {
+        Long firstTime = null, lastTime = null;
+        int minValue = Integer.MAX_VALUE, maxValue = Integer.MIN_VALUE;
+        for (Map.Entry<Long, Integer> point : points.subMap(startTime, true, endTime, true).entrySet()) {
+            boolean inInterval = false;
+            for (long[] interval : intervals) {
+                inInterval |= interval[0] <= point.getKey() && point.getKey() <= interval[1];
+            }
+            if (!inInterval) {
+                continue;
+            }
+            if (firstTime == null) {
+                firstTime = point.getKey();
+            }
+            lastTime = point.getKey();
+            minValue = Math.min(minValue, point.getValue());
+            maxValue = Math.max(maxValue, point.getValue());
+        }
+        if (firstTime == null) {
+            return "null,null,null,null,null,null";
+        }
+        return points.get(firstTime) + "," + points.get(lastTime) + "," + minValue + "," + maxValue + ","
+                + firstTime + "," + lastTime;
+    }
+
+    private void insertSQL() throws ClassNotFoundException, SQLException {
+        Class.forName(TsfileJDBCConfig.JDBC_DRIVER_NAME);
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection("jdbc:tsfile://127.0.0.1:6667/", "root", "root");
+            Statement statement = connection.createStatement();
+            statement.execute("SET STORAGE GROUP TO root.vehicle");
+            statement.execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT32, ENCODING=RLE");
+
+            for (long time = 1; time < 1000; time++) {
+                insert(statement, time, (int) (time * 37 % 101));
+            }
+            statement.execute("flush");
+
+            // overflow data changing the flushed pages
+            insert(statement, 505, 1000);
+            insert(statement, 777, -1000);
+            // data in memory
+            for (long time = 1000; time < 1100; time++) {
+                insert(statement, time, (int) (time % 13));
+            }
+            statement.close();
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    private void insert(Statement statement, long time, int value) throws SQLException {
+        statement.execute(String.format("insert into root.vehicle.d0(timestamp,s0) values(%s,%s)", time, value));
+        points.put(time, value);
+    }
+}
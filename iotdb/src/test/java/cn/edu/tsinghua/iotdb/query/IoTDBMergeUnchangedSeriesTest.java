@@ -0,0 +1,142 @@
+package cn.edu.tsinghua.iotdb.query;
+
+import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
+import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
+import cn.edu.tsinghua.iotdb.jdbc.TsfileJDBCConfig;
+import cn.edu.tsinghua.iotdb.service.IoTDB;
+import cn.edu.tsinghua.iotdb.utils.EnvironmentUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Merge tsfiles of which only some series are changed by overflow. The unchanged series are copied into the new files
+ * without decoding, and all of them must be read back as before.
+ */
+public class IoTDBMergeUnchangedSeriesTest {
+    private static final String TIMESTAMP_STR = "Time";
+    private final String d0s0 = "root.vehicle.d0.s0";
+    private final String d0s1 = "root.vehicle.d0.s1";
+    private final String d1s0 = "root.vehicle.d1.s0";
+
+    private static String[] create_sql = new String[]{
+            "SET STORAGE GROUP TO root.vehicle",
+            "CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT32, ENCODING=RLE",
+            "CREATE TIMESERIES root.vehicle.d0.s1 WITH DATATYPE=INT64, ENCODING=RLE",
+            "CREATE TIMESERIES root.vehicle.d1.s0 WITH DATATYPE=INT32, ENCODING=RLE",
+    };
+
+    private static String[] overflow_sql = new String[]{
+            "insert into root.vehicle.d0(timestamp,s0) values(150,-150)",
+            "UPDATE root.vehicle SET d1.s0 = -1 WHERE time >= 250 and time <= 260",
+            "UPDATE root.vehicle SET d0.s1 = 0 WHERE time >= 110 and time <= 119",
+    };
+
+    private IoTDB daemon;
+    private TsfileDBConfig dbConfig = TsfileDBDescriptor.getInstance().getConfig();
+    private long overflowFileSizeThreshold;
+
+    @Before
+    public void setUp() throws Exception {
+        // merge even if the overflow data is small
+        overflowFileSizeThreshold = dbConfig.overflowFileSizeThreshold;
+        dbConfig.overflowFileSizeThreshold = 0;
+        EnvironmentUtils.closeStatMonitor();
+        EnvironmentUtils.closeMemControl();
+        daemon = IoTDB.getInstance();
+        daemon.active();
+        EnvironmentUtils.envSetUp();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        daemon.stop();
+        Thread.sleep(5000);
+        EnvironmentUtils.cleanEnv();
+        dbConfig.overflowFileSizeThreshold = overflowFileSizeThreshold;
+    }
+
+    @Test
+    public void test() throws ClassNotFoundException, SQLException, InterruptedException {
+        Thread.sleep(5000);
+        insertSQL();
+        selectAllTest();
+        executeSQL(new String[]{"merge"});
+        Thread.sleep(5000);
+        selectAllTest();
+    }
+
+    private void insertSQL() throws ClassNotFoundException, SQLException {
+        executeSQL(create_sql);
+        // two tsfiles: 100 ~ 199 and 200 ~ 299
+        for (int start = 100; start < 300; start += 100) {
+            List<String> sqls = new ArrayList<>();
+            for (int time = start; time < start + 100; time++) {
+                sqls.add(String.format("insert into root.vehicle.d0(timestamp,s0,s1) values(%s,%s,%s)", time, time,
+                        time * 10));
+                sqls.add(String.format("insert into root.vehicle.d1(timestamp,s0) values(%s,%s)", time, time % 7));
+            }
+            sqls.add("flush");
+            executeSQL(sqls.toArray(new String[0]));
+        }
+        executeSQL(overflow_sql);
+    }
+
+    private void selectAllTest() throws ClassNotFoundException, SQLException {
+        Class.forName(TsfileJDBCConfig.JDBC_DRIVER_NAME);
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection("jdbc:tsfile://127.0.0.1:6667/", "root", "root");
+            Statement statement = connection.createStatement();
+            boolean hasResultSet = statement.execute("select * from root.vehicle");
+            Assert.assertTrue(hasResultSet);
+            ResultSet resultSet = statement.getResultSet();
+            int time = 100;
+            while (resultSet.next()) {
+                String expected = time + "," + (time == 150 ? -150 : time) + ","
+                        + (time >= 110 && time <= 119 ? 0 : time * 10) + ","
+                        + (time >= 250 && time <= 260 ? -1 : time % 7);
+                String ans = resultSet.getString(TIMESTAMP_STR) + "," + resultSet.getString(d0s0) + ","
+                        + resultSet.getString(d0s1) + "," + resultSet.getString(d1s0);
+                Assert.assertEquals(expected, ans);
+                time++;
+            }
+            Assert.assertEquals(300, time);
+            statement.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    private void executeSQL(String[] sqls) throws ClassNotFoundException, SQLException {
+        Class.forName(TsfileJDBCConfig.JDBC_DRIVER_NAME);
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection("jdbc:tsfile://127.0.0.1:6667/", "root", "root");
+            Statement statement = connection.createStatement();
+            for (String sql : sqls) {
+                statement.execute(sql);
+            }
+            statement.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package cn.edu.tsinghua.iotdb.query;
+
+import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
+import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
+import cn.edu.tsinghua.iotdb.jdbc.TsfileJDBCConfig;
+import cn.edu.tsinghua.iotdb.service.IoTDB;
+import cn.edu.tsinghua.iotdb.utils.EnvironmentUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Merge the same data in two storage groups, one series at a time and then several series at a time on the series
+ * pool. Both storage groups must be read back the same, in the order of their series.
+ */
+public class IoTDBParallelMergeTest {
+    private static final int DEVICE_NUM = 4;
+    private static final int SENSOR_NUM = 6;
+
+    private IoTDB daemon;
+    private TsfileDBConfig dbConfig = TsfileDBDescriptor.getInstance().getConfig();
+    private long overflowFileSizeThreshold;
+    private int mergeConcurrentSeriesThreads;
+
+    @Before
+    public void setUp() throws Exception {
+        // merge even if the overflow data is small
+        overflowFileSizeThreshold = dbConfig.overflowFileSizeThreshold;
+        dbConfig.overflowFileSizeThreshold = 0;
+        mergeConcurrentSeriesThreads = dbConfig.mergeConcurrentSeriesThreads;
+        EnvironmentUtils.closeStatMonitor();
+        EnvironmentUtils.closeMemControl();
+        daemon = IoTDB.getInstance();
+        daemon.active();
+        EnvironmentUtils.envSetUp();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        daemon.stop();
+        Thread.sleep(5000);
+        EnvironmentUtils.cleanEnv();
+        dbConfig.overflowFileSizeThreshold = overflowFileSizeThreshold;
+        dbConfig.mergeConcurrentSeriesThreads = mergeConcurrentSeriesThreads;
+    }
+
+    @Test
+    public void test() throws ClassNotFoundException, SQLException, InterruptedException {
+        Thread.sleep(5000);
+        // at most one merged series is pending, so the series are merged one after another
+        dbConfig.mergeConcurrentSeriesThreads = 1;
+        insertSQL("root.serial");
+        executeSQL(new String[]{"merge"});
+        Thread.sleep(5000);
+        List<String> serialResult = selectAll("root.serial");
+
+        dbConfig.mergeConcurrentSeriesThreads = 4;
+        insertSQL("root.parallel");
+        executeSQL(new String[]{"merge"});
+        Thread.sleep(5000);
+        List<String> parallelResult = selectAll("root.parallel");
+
+        Assert.assertEquals(200, serialResult.size());
+        // the overflow insert of d0.s0, then the updates of d0.s0 and d0.s2
+        Assert.assertTrue(serialResult.get(50).startsWith("150,-1,151,152,"));
+        Assert.assertTrue(serialResult.get(155).startsWith("255,-2,256,-2,"));
+        Assert.assertEquals(serialResult, parallelResult);
+    }
+
+    private void insertSQL(String storageGroup) throws ClassNotFoundException, SQLException {
+        List<String> sqls = new ArrayList<>();
+        sqls.add("SET STORAGE GROUP TO " + storageGroup);
+        for (int device = 0; device < DEVICE_NUM; device++) {
+            for (int sensor = 0; sensor < SENSOR_NUM; sensor++) {
+                sqls.add(String.format("CREATE TIMESERIES %s.d%d.s%d WITH DATATYPE=INT64, ENCODING=RLE", storageGroup,
+                        device, sensor));
+            }
+        }
+        executeSQL(sqls.toArray(new String[0]));
+        // two tsfiles: 100 ~ 199 and 200 ~ 299
+        for (int start = 100; start < 300; start += 100) {
+            sqls.clear();
+            for (int time = start; time < start + 100; time++) {
+                for (int device = 0; device < DEVICE_NUM; device++) {
+                    StringBuilder sensors = new StringBuilder();
+                    StringBuilder values = new StringBuilder();
+                    for (int sensor = 0; sensor < SENSOR_NUM; sensor++) {
+                        sensors.append(",s").append(sensor);
+                        values.append(",").append(time * (device + 1) + sensor);
+                    }
+                    sqls.add(String.format("insert into %s.d%d(timestamp%s) values(%d%s)", storageGroup, device,
+                            sensors, time, values));
+                }
+            }
+            sqls.add("flush");
+            executeSQL(sqls.toArray(new String[0]));
+        }
+        // only the series of the even sensors of d0 are changed by overflow, the others are copied
+        sqls.clear();
+        sqls.add(String.format("insert into %s.d0(timestamp,s0) values(150,-1)", storageGroup));
+        for (int sensor = 0; sensor < SENSOR_NUM; sensor += 2) {
+            sqls.add(String.format("UPDATE %s SET d0.s%d = -2 WHERE time >= 250 and time <= 260", storageGroup,
+                    sensor));
+        }
+        executeSQL(sqls.toArray(new String[0]));
+    }
+
+    private List<String> selectAll(String storageGroup) throws ClassNotFoundException, SQLException {
+        Class.forName(TsfileJDBCConfig.JDBC_DRIVER_NAME);
+        List<String> rows = new ArrayList<>();
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection("jdbc:tsfile://127.0.0.1:6667/", "root", "root");
+            Statement statement = connection.createStatement();
+            boolean hasResultSet = statement.execute("select * from " + storageGroup);
+            Assert.assertTrue(hasResultSet);
+            ResultSet resultSet = statement.getResultSet();
+            int columnCount = resultSet.getMetaData().getColumnCount();
+            Assert.assertEquals(DEVICE_NUM * SENSOR_NUM + 1, columnCount);
+            while (resultSet.next()) {
+                StringBuilder row = new StringBuilder(resultSet.getString(1));
+                for (int i = 2; i <= columnCount; i++) {
+                    row.append(",").append(resultSet.getString(i));
+                }
+                rows.add(row.toString());
+            }
+            statement.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+        return rows;
+    }
+
+    private void executeSQL(String[] sqls) throws ClassNotFoundException, SQLException {
+        Class.forName(TsfileJDBCConfig.JDBC_DRIVER_NAME);
+        Connection connection = null;
+        try {
+            connection = DriverManager.getConnection("jdbc:tsfile://127.0.0.1:6667/", "root", "root");
+            Statement statement = connection.createStatement();
+            for (String sql : sqls) {
+                statement.execute(sql);
+            }
+            statement.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+}
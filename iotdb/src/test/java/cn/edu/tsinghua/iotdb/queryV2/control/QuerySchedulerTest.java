@@ -0,0 +1,295 @@
+package cn.edu.tsinghua.iotdb.queryV2.control;
+
+import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
+import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
+import cn.edu.tsinghua.iotdb.engine.memcontrol.BasicMemController;
+import cn.edu.tsinghua.iotdb.queryV2.engine.control.QueryJobManager;
+import cn.edu.tsinghua.iotdb.queryV2.engine.control.QueryScheduler;
+import cn.edu.tsinghua.tsfile.common.conf.TSFileDescriptor;
+import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.SeriesReader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class QuerySchedulerTest {
+
+    private QueryScheduler queryScheduler = QueryScheduler.getInstance();
+    private QueryJobManager queryJobManager = QueryJobManager.getInstance();
+    private TsfileDBConfig config = TsfileDBDescriptor.getInstance().getConfig();
+    private BasicMemController memController;
+    private int queryParallelism;
+    private int memControllerType;
+
+    @Before
+    public void setUp() {
+        queryParallelism = config.queryParallelism;
+        config.queryParallelism = 4;
+        // the record controller counts the reservations of the queries
+        memControllerType = config.memControllerType;
+        config.memControllerType = BasicMemController.CONTROLLER_TYPE.RECORD.ordinal();
+        memController = BasicMemController.getInstance();
+    }
+
+    @After
+    public void tearDown() {
+        config.queryParallelism = queryParallelism;
+        config.memControllerType = memControllerType;
+    }
+
+    @Test
+    public void testCreateInOrder() throws Exception {
+        List<Path> paths = createPaths(100);
+        queryJobManager.removeJobsOfCurrentThread();
+        long memUsage = memController.getTotalUsage();
+        Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        Map<Path, FakedSeriesReader> createdReaders = new ConcurrentHashMap<>();
+        LinkedHashMap<Path, SeriesReader> readers = queryScheduler.createSeriesReaders(paths, path -> {
+            threads.add(Thread.currentThread());
+            queryJobManager.addJobForOneQuery();
+            FakedSeriesReader reader = new FakedSeriesReader(path, 1000);
+            createdReaders.put(path, reader);
+            return reader;
+        });
+
+        Assert.assertEquals(paths, new ArrayList<>(readers.keySet()));
+        Assert.assertEquals(100, createdReaders.size());
+        for (FakedSeriesReader reader : createdReaders.values()) {
+            Assert.assertTrue(reader.prefetched);
+        }
+        Assert.assertTrue(threads.size() <= 4);
+        // at least a page is reserved for every series
+        Assert.assertTrue(memController.getTotalUsage() - memUsage >= 100L * TSFileDescriptor.getInstance().getConfig().pageSizeInByte);
+        // the jobs added by the pool threads are moved to the thread of the query
+        Set<Long> jobIds = queryJobManager.removeJobsOfCurrentThread();
+        Assert.assertEquals(100, jobIds.size());
+
+        for (SeriesReader reader : readers.values()) {
+            for (long time = 0; time < 1000; time++) {
+                Assert.assertTrue(reader.hasNext());
+                Assert.assertEquals(time, reader.next().getTimestamp());
+            }
+            Assert.assertFalse(reader.hasNext());
+        }
+        // the reservation of a series is freed once it is exhausted
+        Assert.assertEquals(memUsage, memController.getTotalUsage());
+        queryScheduler.closeSeriesReadersOfCurrentQuery();
+        for (FakedSeriesReader reader : createdReaders.values()) {
+            Assert.assertTrue(reader.closed);
+        }
+    }
+
+    @Test
+    public void testCloseBeforeExhausted() throws Exception {
+        long memUsage = memController.getTotalUsage();
+        Map<Path, FakedSeriesReader> createdReaders = new ConcurrentHashMap<>();
+        LinkedHashMap<Path, SeriesReader> readers = queryScheduler.createSeriesReaders(createPaths(100), path -> {
+            FakedSeriesReader reader = new FakedSeriesReader(path, 1000);
+            createdReaders.put(path, reader);
+            return reader;
+        });
+        for (SeriesReader reader : readers.values()) {
+            Assert.assertEquals(0, reader.next().getTimestamp());
+        }
+        // the query is admitted until it is closed
+        Assert.assertEquals(1, queryScheduler.getAdmittedQueryNum());
+        queryScheduler.closeSeriesReadersOfCurrentQuery();
+        Assert.assertEquals(0, queryScheduler.getAdmittedQueryNum());
+        queryJobManager.removeJobsOfCurrentThread();
+        for (FakedSeriesReader reader : createdReaders.values()) {
+            Assert.assertTrue(reader.closed);
+        }
+        Assert.assertEquals(memUsage, memController.getTotalUsage());
+    }
+
+    @Test
+    public void testSmallQueryInCurrentThread() throws Exception {
+        Thread currentThread = Thread.currentThread();
+        LinkedHashMap<Path, SeriesReader> readers = queryScheduler.createSeriesReaders(createPaths(2), path -> {
+            Assert.assertSame(currentThread, Thread.currentThread());
+            return new FakedSeriesReader(path, 10);
+        });
+        Assert.assertEquals(2, readers.size());
+        for (SeriesReader reader : readers.values()) {
+            Assert.assertFalse(((FakedSeriesReader) reader).prefetched);
+        }
+    }
+
+    @Test
+    public void testDangerousMemory() throws Exception {
+        Thread currentThread = Thread.currentThread();
+        long memUsage = memController.getTotalUsage();
+        memController.setWarningThreshold(0);
+        memController.setDangerouseThreshold(0);
+        try {
+            LinkedHashMap<Path, SeriesReader> readers = queryScheduler.createSeriesReaders(createPaths(100), path -> {
+                Assert.assertSame(currentThread, Thread.currentThread());
+                return new FakedSeriesReader(path, 10);
+            });
+            for (SeriesReader reader : readers.values()) {
+                Assert.assertFalse(((FakedSeriesReader) reader).prefetched);
+            }
+        } finally {
+            memController.setWarningThreshold(config.memThresholdWarning);
+            memController.setDangerouseThreshold(config.memThresholdDangerous);
+        }
+        Assert.assertEquals(memUsage, memController.getTotalUsage());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        long memUsage = memController.getTotalUsage();
+        List<FakedSeriesReader> createdReaders = Collections.synchronizedList(new ArrayList<>());
+        try {
+            queryScheduler.createSeriesReaders(createPaths(100), path -> {
+                if (path.getMeasurementToString().equals("s50")) {
+                    throw new IOException("failed to create " + path);
+                }
+                FakedSeriesReader reader = new FakedSeriesReader(path, 10);
+                createdReaders.add(reader);
+                return reader;
+            });
+            Assert.fail();
+        } catch (IOException e) {
+            // expected
+        } finally {
+            queryJobManager.removeJobsOfCurrentThread();
+        }
+        for (FakedSeriesReader reader : createdReaders) {
+            Assert.assertTrue(reader.closed);
+        }
+        Assert.assertEquals(memUsage, memController.getTotalUsage());
+    }
+
+    @Test
+    public void testTwoParallelQueries() throws Exception {
+        int queryNum = 2;
+        CountDownLatch created = new CountDownLatch(queryNum);
+        CountDownLatch consumed = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger[] maxPoolThreads = new AtomicInteger[queryNum];
+        Thread[] queries = new Thread[queryNum];
+        for (int i = 0; i < queryNum; i++) {
+            AtomicInteger poolThreads = new AtomicInteger();
+            maxPoolThreads[i] = new AtomicInteger();
+            AtomicInteger maxOfQuery = maxPoolThreads[i];
+            queries[i] = new Thread(() -> {
+                try {
+                    // every series has 8 batches, all of them prefetched at once
+                    LinkedHashMap<Path, SeriesReader> readers = queryScheduler.createSeriesReaders(createPaths(200),
+                            path -> new FakedSeriesReader(path, 2048, poolThreads, maxOfQuery));
+                    created.countDown();
+                    consumed.await();
+                    for (SeriesReader reader : readers.values()) {
+                        for (long time = 0; time < 2048; time++) {
+                            Assert.assertEquals(time, reader.next().getTimestamp());
+                        }
+                        Assert.assertFalse(reader.hasNext());
+                    }
+                    queryScheduler.closeSeriesReadersOfCurrentQuery();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    created.countDown();
+                } finally {
+                    queryJobManager.removeJobsOfCurrentThread();
+                }
+            });
+            queries[i].start();
+        }
+        created.await();
+        // the queries keep their admission while their readers are open
+        Assert.assertEquals(Math.min(queryNum, config.maxConcurrentParallelQuery),
+                queryScheduler.getAdmittedQueryNum());
+        consumed.countDown();
+        for (Thread query : queries) {
+            query.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        Assert.assertEquals(0, queryScheduler.getAdmittedQueryNum());
+        for (AtomicInteger max : maxPoolThreads) {
+            Assert.assertTrue(max.get() + " pool threads", max.get() <= config.queryParallelism);
+        }
+    }
+
+    private List<Path> createPaths(int num) {
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < num; i++) {
+            paths.add(new Path("root.vehicle.d0.s" + i));
+        }
+        return paths;
+    }
+
+    private static class FakedSeriesReader implements SeriesReader {
+        private Path path;
+        private int size;
+        private long time;
+        private volatile boolean prefetched;
+        private volatile boolean closed;
+        // the pool threads reading the series of the query at the same time, and their maximum
+        private AtomicInteger poolThreads;
+        private AtomicInteger maxPoolThreads;
+
+        private FakedSeriesReader(Path path, int size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        private FakedSeriesReader(Path path, int size, AtomicInteger poolThreads, AtomicInteger maxPoolThreads) {
+            this(path, size);
+            this.poolThreads = poolThreads;
+            this.maxPoolThreads = maxPoolThreads;
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            prefetched = true;
+            return time < size;
+        }
+
+        @Override
+        public TimeValuePair next() throws IOException {
+            if (poolThreads != null && Thread.currentThread() instanceof ForkJoinWorkerThread) {
+                maxPoolThreads.accumulateAndGet(poolThreads.incrementAndGet(), Math::max);
+                try {
+                    // make the batches read at the same time overlap
+                    if (time % 256 == 0) {
+                        Thread.sleep(1);
+                    }
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                } finally {
+                    poolThreads.decrementAndGet();
+                }
+            }
+            return new TimeValuePair(time++, new TsPrimitiveType.TsLong(time));
+        }
+
+        @Override
+        public void skipCurrentTimeValuePair() throws IOException {
+            time++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+        }
+    }
+}
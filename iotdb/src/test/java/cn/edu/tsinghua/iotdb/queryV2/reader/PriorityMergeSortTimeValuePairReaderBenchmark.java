@@ -0,0 +1,143 @@
+package cn.edu.tsinghua.iotdb.queryV2.reader;
+
+import cn.edu.tsinghua.iotdb.queryV2.engine.reader.PriorityMergeSortTimeValuePairReader;
+import cn.edu.tsinghua.iotdb.queryV2.engine.reader.PriorityTimeValuePairReader;
+import cn.edu.tsinghua.iotdb.queryV2.engine.reader.PriorityTimeValuePairReader.Priority;
+import cn.edu.tsinghua.iotdb.queryV2.reader.PriorityMergeSortTimeValuePairReaderTest.FakedPriorityTimeValuePairReader;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Compares the loser tree of {@link PriorityMergeSortTimeValuePairReader} with the former merge on a
+ * {@link PriorityQueue} of one element per point, for 2, 16 and 128 overlapping sources.
+ * Run it with the main method, it is not part of the unit tests.
+ */
+public class PriorityMergeSortTimeValuePairReaderBenchmark {
+
+    private static final int TOTAL_POINTS = 2_000_000;
+    private static final int WARM_UP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        for (int sourceNum : new int[]{2, 16, 128}) {
+            for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+                runLoserTree(sourceNum);
+                runPriorityQueue(sourceNum);
+            }
+            long loserTreeTime = 0;
+            long priorityQueueTime = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                loserTreeTime += runLoserTree(sourceNum);
+                priorityQueueTime += runPriorityQueue(sourceNum);
+            }
+            System.out.println(String.format("%d sources: loser tree %d ms, priority queue %d ms",
+                    sourceNum, loserTreeTime / ROUNDS / 1000000, priorityQueueTime / ROUNDS / 1000000));
+        }
+    }
+
+    private static long runLoserTree(int sourceNum) throws IOException {
+        List<FakedPriorityTimeValuePairReader> readers = createReaders(sourceNum);
+        long startTime = System.nanoTime();
+        PriorityMergeSortTimeValuePairReader<FakedPriorityTimeValuePairReader> reader =
+                new PriorityMergeSortTimeValuePairReader<>(readers);
+        TimeValuePair[] batch = new TimeValuePair[1024];
+        long checksum = 0;
+        int count;
+        while ((count = reader.nextBatch(batch)) > 0) {
+            for (int i = 0; i < count; i++) {
+                checksum += batch[i].getValue().getLong();
+            }
+        }
+        long elapsed = System.nanoTime() - startTime;
+        consume(checksum);
+        return elapsed;
+    }
+
+    private static long runPriorityQueue(int sourceNum) throws IOException {
+        List<FakedPriorityTimeValuePairReader> readers = createReaders(sourceNum);
+        long startTime = System.nanoTime();
+        PriorityQueueMergeReader reader = new PriorityQueueMergeReader(readers);
+        long checksum = 0;
+        while (reader.hasNext()) {
+            checksum += reader.next().getValue().getLong();
+        }
+        long elapsed = System.nanoTime() - startTime;
+        consume(checksum);
+        return elapsed;
+    }
+
+    /**
+     * The sources interleave and every tenth time is shared by all of them, so both the ordering and the priority
+     * matter.
+     */
+    private static List<FakedPriorityTimeValuePairReader> createReaders(int sourceNum) {
+        List<FakedPriorityTimeValuePairReader> readers = new ArrayList<>();
+        int size = TOTAL_POINTS / sourceNum;
+        for (int i = 0; i < sourceNum; i++) {
+            readers.add(new FakedPriorityTimeValuePairReader(i % 10, size, 10, 7, i));
+        }
+        return readers;
+    }
+
+    private static void consume(long checksum) {
+        if (checksum == Long.MIN_VALUE) {
+            System.out.println(checksum);
+        }
+    }
+
+    /**
+     * The merge before the loser tree, kept as the baseline.
+     */
+    private static class PriorityQueueMergeReader {
+        private List<? extends PriorityTimeValuePairReader> readerList;
+        private PriorityQueue<Element> heap = new PriorityQueue<>();
+
+        PriorityQueueMergeReader(List<? extends PriorityTimeValuePairReader> readerList) throws IOException {
+            this.readerList = readerList;
+            for (int i = 0; i < readerList.size(); i++) {
+                if (readerList.get(i).hasNext()) {
+                    heap.add(new Element(i, readerList.get(i).next(), readerList.get(i).getPriority()));
+                }
+            }
+        }
+
+        boolean hasNext() {
+            return heap.size() > 0;
+        }
+
+        TimeValuePair next() throws IOException {
+            Element top = heap.peek();
+            while (heap.size() > 0 && heap.peek().timeValuePair.getTimestamp() == top.timeValuePair.getTimestamp()) {
+                Element e = heap.poll();
+                PriorityTimeValuePairReader reader = readerList.get(e.index);
+                if (reader.hasNext()) {
+                    heap.add(new Element(e.index, reader.next(), reader.getPriority()));
+                }
+            }
+            return top.timeValuePair;
+        }
+    }
+
+    private static class Element implements Comparable<Element> {
+        int index;
+        TimeValuePair timeValuePair;
+        Priority priority;
+
+        Element(int index, TimeValuePair timeValuePair, Priority priority) {
+            this.index = index;
+            this.timeValuePair = timeValuePair;
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(Element o) {
+            return this.timeValuePair.getTimestamp() > o.timeValuePair.getTimestamp() ? 1 :
+                    this.timeValuePair.getTimestamp() < o.timeValuePair.getTimestamp() ? -1 :
+                            o.priority.compareTo(this.priority);
+        }
+    }
+}
@@ -13,6 +13,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
 
 public class PriorityMergeSortTimeValuePairReaderTest {
     @Test
@@ -41,6 +44,53 @@ public class PriorityMergeSortTimeValuePairReaderTest {
         Assert.assertEquals(180/5, cnt);
     }
 
+    @Test
+    public void testManySources() throws IOException {
+        Random random = new Random(1);
+        for (int sourceNum = 1; sourceNum <= 33; sourceNum += 4) {
+            // the expected point of each time is the one of the highest priority
+            TreeMap<Long, Long> expected = new TreeMap<>();
+            List<PriorityTimeValuePairReader> readers = new ArrayList<>();
+            for (int i = 0; i < sourceNum; i++) {
+                List<TimeValuePair> timeValuePairs = new ArrayList<>();
+                long time = random.nextInt(10);
+                for (int j = random.nextInt(50); j > 0; j--) {
+                    timeValuePairs.add(new TimeValuePair(time, TsPrimitiveType.getByType(TSDataType.INT64, (long) i)));
+                    expected.put(time, (long) i);
+                    time += 1 + random.nextInt(5);
+                }
+                readers.add(new FakedPriorityTimeValuePairReader(new FakedTimeValuePairReader(timeValuePairs),
+                        new PriorityTimeValuePairReader.Priority(i)));
+            }
+
+            PriorityMergeSortTimeValuePairReader reader = new PriorityMergeSortTimeValuePairReader(readers);
+            TimeValuePair[] batch = new TimeValuePair[7];
+            Iterator<Map.Entry<Long, Long>> iterator = expected.entrySet().iterator();
+            int count;
+            while ((count = reader.nextBatch(batch)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    Map.Entry<Long, Long> entry = iterator.next();
+                    Assert.assertEquals(entry.getKey().longValue(), batch[i].getTimestamp());
+                    Assert.assertEquals(entry.getValue().longValue(), batch[i].getValue().getLong());
+                }
+            }
+            Assert.assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void testSkipTo() throws IOException {
+        FakedPriorityTimeValuePairReader reader1 = new FakedPriorityTimeValuePairReader(100, 20, 5, 11, 1);
+        FakedPriorityTimeValuePairReader reader2 = new FakedPriorityTimeValuePairReader(150, 20, 5, 19, 2);
+        PriorityMergeSortTimeValuePairReader reader = new PriorityMergeSortTimeValuePairReader(reader1, reader2);
+        reader.skipTo(152);
+        TimeValuePair timeValuePair = reader.next();
+        Assert.assertEquals(155, timeValuePair.getTimestamp());
+        Assert.assertEquals(155 % 19, timeValuePair.getValue().getLong());
+        reader.skipTo(1000);
+        Assert.assertFalse(reader.hasNext());
+    }
+
     public static class FakedPriorityTimeValuePairReader extends PriorityTimeValuePairReader{
 
         public FakedPriorityTimeValuePairReader(TimeValuePairReader seriesReader, Priority priority) {
@@ -56,6 +106,10 @@ public class PriorityMergeSortTimeValuePairReaderTest {
         private Iterator<TimeValuePair> iterator;
 
 
+        public FakedTimeValuePairReader(List<TimeValuePair> timeValuePairs) {
+            iterator = timeValuePairs.iterator();
+        }
+
         public FakedTimeValuePairReader(long startTime, int size, int interval, int modValue){
             long time = startTime;
             List<TimeValuePair>  list = new ArrayList<>();
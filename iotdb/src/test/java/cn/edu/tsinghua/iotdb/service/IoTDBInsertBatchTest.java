@@ -0,0 +1,128 @@
+package cn.edu.tsinghua.iotdb.service;
+
+import cn.edu.tsinghua.iotdb.engine.filenode.FileNodeManager;
+import cn.edu.tsinghua.iotdb.jdbc.TsfileJDBCConfig;
+import cn.edu.tsinghua.iotdb.utils.EnvironmentUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.*;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IoTDBInsertBatchTest {
+
+    private static final String INSERT_SQL = "insert into root.vehicle.d0(timestamp,s0,s1,s2) values(?,?,?,?)";
+
+    private IoTDB deamon;
+
+    private boolean testFlag = TestUtils.testFlag;
+
+    @Before
+    public void setUp() throws Exception {
+        if (testFlag) {
+            EnvironmentUtils.closeStatMonitor();
+            EnvironmentUtils.closeMemControl();
+            deamon = IoTDB.getInstance();
+            deamon.active();
+            EnvironmentUtils.envSetUp();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (testFlag) {
+            deamon.stop();
+            Thread.sleep(5000);
+            EnvironmentUtils.cleanEnv();
+        }
+    }
+
+    @Test
+    public void test() throws Exception {
+        if (!testFlag) {
+            return;
+        }
+        Class.forName(TsfileJDBCConfig.JDBC_DRIVER_NAME);
+        try (Connection connection = DriverManager.getConnection("jdbc:tsfile://127.0.0.1:6667/", "root", "root")) {
+            Statement statement = connection.createStatement();
+            statement.execute("SET STORAGE GROUP TO root.vehicle");
+            statement.execute("CREATE TIMESERIES root.vehicle.d0.s0 WITH DATATYPE=INT32, ENCODING=RLE");
+            statement.execute("CREATE TIMESERIES root.vehicle.d0.s1 WITH DATATYPE=DOUBLE, ENCODING=RLE");
+            statement.execute("CREATE TIMESERIES root.vehicle.d0.s2 WITH DATATYPE=TEXT, ENCODING=PLAIN");
+            statement.close();
+
+            insertBatch(connection, 1, 100, 0);
+            // rows before the flushed data go to overflow, the others go to bufferwrite
+            FileNodeManager.getInstance().closeAll();
+            insertBatch(connection, 51, 150, 1000);
+
+            statement = connection.createStatement();
+            statement.execute("select s0,s1,s2 from root.vehicle.d0");
+            ResultSet resultSet = statement.getResultSet();
+            StringBuilder result = new StringBuilder();
+            int count = 0;
+            while (resultSet.next()) {
+                count++;
+                assertEquals(String.valueOf(count), resultSet.getString(1));
+                if (count == 10 || count == 60 || count == 120) {
+                    result.append(resultSet.getString(1)).append(',').append(resultSet.getString(2)).append(',')
+                            .append(resultSet.getString(3)).append(',').append(resultSet.getString(4)).append('\n');
+                }
+            }
+            assertEquals(150, count);
+            // overflowed rows of the second batch replace those of the first one
+            assertEquals("10,10,5.0,t10\n60,1060,530.0,t1060\n120,1120,560.0,t1120\n", result.toString());
+            resultSet.close();
+            statement.close();
+
+            // a value is widened to the type of its series as in SQL, but never narrowed
+            PreparedStatement widenedType = connection.prepareStatement(INSERT_SQL);
+            widenedType.setLong(1, 151);
+            widenedType.setInt(2, 151);
+            widenedType.setInt(3, 151);
+            widenedType.setString(4, "t151");
+            widenedType.addBatch();
+            widenedType.executeBatch();
+            widenedType.close();
+            statement = connection.createStatement();
+            statement.execute("select s1 from root.vehicle.d0 where time = 151");
+            resultSet = statement.getResultSet();
+            assertTrue(resultSet.next());
+            assertEquals("151.0", resultSet.getString(2));
+            resultSet.close();
+            statement.close();
+
+            PreparedStatement wrongType = connection.prepareStatement(INSERT_SQL);
+            wrongType.setLong(1, 200);
+            wrongType.setLong(2, 200);
+            wrongType.setDouble(3, 200);
+            wrongType.setString(4, "t200");
+            wrongType.addBatch();
+            try {
+                wrongType.executeBatch();
+                throw new AssertionError("Batch of a wrong type is inserted");
+            } catch (BatchUpdateException e) {
+                assertArrayEquals(new int[]{Statement.EXECUTE_FAILED}, e.getUpdateCounts());
+            }
+            wrongType.close();
+        }
+    }
+
+    private void insertBatch(Connection connection, int startTime, int endTime, int offset) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+        for (int time = startTime; time <= endTime; time++) {
+            statement.setLong(1, time);
+            statement.setInt(2, time + offset);
+            statement.setDouble(3, (time + offset) / 2.0);
+            statement.setString(4, "t" + (time + offset));
+            statement.addBatch();
+        }
+        int[] result = statement.executeBatch();
+        assertEquals(endTime - startTime + 1, result.length);
+        statement.close();
+    }
+}
@@ -0,0 +1,79 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.common.exception.cache.CacheException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentLRUCacheTest {
+
+    private AtomicInteger loadCount = new AtomicInteger();
+
+    private ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(160) {
+        @Override
+        public String loadObjectByKey(String key) throws CacheException {
+            loadCount.incrementAndGet();
+            return key + "_value";
+        }
+    };
+
+    @Test
+    public void testGetAndEvict() throws CacheException {
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals("k" + i + "_value", cache.get("k" + i));
+        }
+        // every segment holds 10 entries at most
+        Assert.assertTrue(cache.size() <= 160);
+        Assert.assertEquals(1000, loadCount.get());
+
+        // a recently used key stays while others are loaded
+        for (int i = 0; i < 1000; i++) {
+            cache.get("hot");
+            cache.get("cold" + i);
+        }
+        int count = loadCount.get();
+        cache.get("hot");
+        Assert.assertEquals(count, loadCount.get());
+    }
+
+    @Test
+    public void testInvalidate() throws CacheException {
+        cache.get("root.a.b");
+        cache.get("root.a.c");
+        cache.get("root.ab");
+        Assert.assertEquals(3, cache.size());
+
+        cache.invalidate("root.a.b");
+        Assert.assertEquals(2, cache.size());
+        cache.invalidateIf(key -> key.startsWith("root.a."));
+        Assert.assertEquals(1, cache.size());
+
+        int count = loadCount.get();
+        cache.get("root.ab");
+        Assert.assertEquals(count, loadCount.get());
+        cache.get("root.a.c");
+        Assert.assertEquals(count + 1, loadCount.get());
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testWeight() throws CacheException {
+        // 2 segments of 10 each
+        ConcurrentLRUCache<Integer, String> weightedCache = new ConcurrentLRUCache<>(20, 2, String::length);
+        Assert.assertEquals("aaaa", weightedCache.get(0, () -> "aaaa", String::length));
+        weightedCache.get(2, () -> "bbbb", String::length);
+        // 0 is used more recently than 2, which is evicted to make room for 4
+        weightedCache.get(0, () -> "", String::length);
+        weightedCache.get(4, () -> "cccc", String::length);
+        Assert.assertEquals(2, weightedCache.size());
+        Assert.assertEquals("aaaa", weightedCache.get(0, () -> "", String::length));
+        Assert.assertEquals("", weightedCache.get(2, () -> "", String::length));
+
+        // a value heavier than its segment is returned but not cached
+        Assert.assertEquals("ddddddddddd", weightedCache.get(1, () -> "ddddddddddd", String::length));
+        Assert.assertEquals("", weightedCache.get(1, () -> "", String::length));
+    }
+}
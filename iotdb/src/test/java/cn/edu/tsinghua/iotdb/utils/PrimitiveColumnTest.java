@@ -0,0 +1,94 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrimitiveColumnTest {
+
+    @Test
+    public void testIntColumn() {
+        // spans several blocks, the first ones grown by doubling and then the full ones
+        int count = 10000;
+        PrimitiveColumn column = new IntColumn();
+        Assert.assertEquals(0, column.size());
+        for (int i = 0; i < count; i++) {
+            column.putInt(i, i);
+            Assert.assertEquals(i + 1, column.size());
+        }
+
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals((long) i, column.getTimestamp(i));
+            Assert.assertEquals(i, column.getInt(i));
+        }
+    }
+
+    @Test
+    public void testAllType() {
+        int count = 1500;
+        PrimitiveColumn booleanColumn = PrimitiveColumnFactory.getByDataType(TSDataType.BOOLEAN);
+        PrimitiveColumn longColumn = PrimitiveColumnFactory.getByDataType(TSDataType.INT64);
+        PrimitiveColumn floatColumn = PrimitiveColumnFactory.getByDataType(TSDataType.FLOAT);
+        PrimitiveColumn doubleColumn = PrimitiveColumnFactory.getByDataType(TSDataType.DOUBLE);
+        PrimitiveColumn binaryColumn = PrimitiveColumnFactory.getByDataType(TSDataType.TEXT);
+        for (int i = 0; i < count; i++) {
+            booleanColumn.putBoolean(i, i % 2 == 0);
+            longColumn.putLong(i, i * 10L);
+            floatColumn.putFloat(i, i * 0.5f);
+            doubleColumn.putDouble(i, i * 0.25);
+            binaryColumn.putBinary(i, new Binary(String.valueOf(i)));
+        }
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i % 2 == 0, booleanColumn.getBoolean(i));
+            Assert.assertEquals(i * 10L, longColumn.getLong(i));
+            Assert.assertEquals(i * 0.5f, floatColumn.getFloat(i), 0.0f);
+            Assert.assertEquals(i * 0.25, doubleColumn.getDouble(i), 0.0);
+            Assert.assertEquals(String.valueOf(i), binaryColumn.getBinary(i).getStringValue());
+            Assert.assertEquals((long) i, binaryColumn.getTimestamp(i));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testWrongType() {
+        new LongColumn().putDouble(1, 1.0);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testOutOfBound() {
+        PrimitiveColumn column = new LongColumn();
+        column.putLong(1, 1);
+        column.getLong(1);
+    }
+
+    @Test
+    public void testMemSize() {
+        PrimitiveColumn column = new IntColumn();
+        column.putInt(0, 0);
+        long memSize = column.getMemSize();
+        // the first block of 8 slots is not full yet
+        for (int i = 1; i < 8; i++) {
+            column.putInt(i, i);
+        }
+        Assert.assertEquals(memSize, column.getMemSize());
+        // the first block is doubled, the unused slots are counted as well
+        column.putInt(8, 8);
+        memSize += MemUtils.getArraySize(16, 8) + MemUtils.getArraySize(16, 4)
+                - MemUtils.getArraySize(8, 8) - MemUtils.getArraySize(8, 4);
+        Assert.assertEquals(memSize, column.getMemSize());
+        for (int i = 9; i < 512; i++) {
+            column.putInt(i, i);
+        }
+        memSize = column.getMemSize();
+        // a full block is added
+        column.putInt(512, 512);
+        Assert.assertEquals(memSize + MemUtils.getArraySize(512, 8) + MemUtils.getArraySize(512, 4),
+                column.getMemSize());
+
+        PrimitiveColumn binaryColumn = new BinaryColumn();
+        memSize = binaryColumn.getMemSize();
+        Binary value = new Binary("value");
+        binaryColumn.putBinary(0, value);
+        Assert.assertEquals(memSize + MemUtils.getBinarySize(value), binaryColumn.getMemSize());
+    }
+}
@@ -0,0 +1,154 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class SortedColumnTest {
+
+    @Test
+    public void testSortAndDeduplicate() {
+        int count = 5000;
+        Random random = new Random(7);
+        PrimitiveColumn column = new LongColumn();
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            long time = random.nextInt(count / 2);
+            column.putLong(time, i);
+            expected.put(time, (long) i);
+        }
+
+        SortedColumn sortedColumn = column.getSortedColumn();
+        Assert.assertEquals(expected.size(), sortedColumn.size());
+        int index = 0;
+        for (long time : expected.keySet()) {
+            Assert.assertEquals(time, sortedColumn.getTimestamp(index));
+            Assert.assertEquals((long) expected.get(time), sortedColumn.getLong(index));
+            index++;
+        }
+        // the column itself keeps the arrival order
+        Assert.assertEquals(count, column.size());
+    }
+
+    @Test
+    public void testSortedInput() {
+        PrimitiveColumn column = new DoubleColumn();
+        for (int i = 0; i < 1000; i++) {
+            column.putDouble(i, i * 0.5);
+        }
+        column.putDouble(999, -1.0);
+
+        SortedColumn sortedColumn = column.getSortedColumn();
+        Assert.assertEquals(1000, sortedColumn.size());
+        for (int i = 0; i < 999; i++) {
+            Assert.assertEquals(i, sortedColumn.getTimestamp(i));
+            Assert.assertEquals(i * 0.5, sortedColumn.getDouble(i), 0.0);
+        }
+        Assert.assertEquals(-1.0, sortedColumn.getDouble(999), 0.0);
+    }
+
+    @Test
+    public void testDeduplicateAllTypes() {
+        TSDataType[] dataTypes = new TSDataType[]{TSDataType.BOOLEAN, TSDataType.INT32, TSDataType.INT64,
+                TSDataType.FLOAT, TSDataType.DOUBLE, TSDataType.TEXT};
+        for (TSDataType dataType : dataTypes) {
+            PrimitiveColumn column = PrimitiveColumnFactory.getByDataType(dataType);
+            // sorted input, every even timestamp is written twice
+            for (int i = 0; i < 100; i++) {
+                put(column, i, i);
+                if (i % 2 == 0) {
+                    put(column, i, i + 1);
+                }
+            }
+
+            SortedColumn sortedColumn = column.getSortedColumn();
+            Assert.assertEquals(100, sortedColumn.size());
+            for (int i = 0; i < 100; i++) {
+                int value = i % 2 == 0 ? i + 1 : i;
+                Assert.assertEquals(i, sortedColumn.getTimestamp(i));
+                switch (dataType) {
+                    case BOOLEAN:
+                        Assert.assertEquals(value % 2 == 0, sortedColumn.getBoolean(i));
+                        break;
+                    case INT32:
+                        Assert.assertEquals(value, sortedColumn.getInt(i));
+                        break;
+                    case INT64:
+                        Assert.assertEquals(value, sortedColumn.getLong(i));
+                        break;
+                    case FLOAT:
+                        Assert.assertEquals(value, sortedColumn.getFloat(i), 0.0f);
+                        break;
+                    case DOUBLE:
+                        Assert.assertEquals(value, sortedColumn.getDouble(i), 0.0);
+                        break;
+                    default:
+                        Assert.assertEquals(String.valueOf(value), sortedColumn.getBinary(i).getStringValue());
+                }
+            }
+        }
+    }
+
+    private void put(PrimitiveColumn column, long time, int value) {
+        switch (column.getDataType()) {
+            case BOOLEAN:
+                column.putBoolean(time, value % 2 == 0);
+                break;
+            case INT32:
+                column.putInt(time, value);
+                break;
+            case INT64:
+                column.putLong(time, value);
+                break;
+            case FLOAT:
+                column.putFloat(time, value);
+                break;
+            case DOUBLE:
+                column.putDouble(time, value);
+                break;
+            default:
+                column.putBinary(time, Binary.valueOf(String.valueOf(value)));
+        }
+    }
+
+    @Test
+    public void testText() {
+        PrimitiveColumn column = new BinaryColumn();
+        column.putBinary(3, Binary.valueOf("c"));
+        column.putBinary(1, Binary.valueOf("a"));
+        column.putBinary(2, Binary.valueOf("b"));
+        column.putBinary(1, Binary.valueOf("d"));
+
+        SortedColumn sortedColumn = column.getSortedColumn();
+        Assert.assertEquals(3, sortedColumn.size());
+        Assert.assertEquals(1, sortedColumn.getTimestamp(0));
+        Assert.assertEquals("d", sortedColumn.getBinary(0).getStringValue());
+        Assert.assertEquals("b", sortedColumn.getValue(1).getBinary().getStringValue());
+        Assert.assertEquals(3, sortedColumn.getTimestamp(2));
+    }
+
+    @Test
+    public void testConcat() {
+        PrimitiveColumn first = new IntColumn();
+        PrimitiveColumn second = new IntColumn();
+        for (int i = 0; i < 10; i++) {
+            first.putInt(9 - i, i);
+            second.putInt(10 + i, i);
+        }
+        List<SortedColumn> columns = new ArrayList<>(Arrays.asList(first.getSortedColumn(), second.getSortedColumn()));
+        SortedColumn sortedColumn = SortedColumn.concat(TSDataType.INT32, columns);
+        Assert.assertEquals(20, sortedColumn.size());
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(i, sortedColumn.getTimestamp(i));
+        }
+        Assert.assertEquals(9, sortedColumn.getInt(0));
+        Assert.assertTrue(SortedColumn.empty(TSDataType.INT32).isEmpty());
+    }
+}
@@ -0,0 +1,51 @@
+package cn.edu.tsinghua.iotdb.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucketRateLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testReserveDebt() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1000);
+        // the bucket starts empty, so 500 permits are paid in about half a second
+        long waitNanos = limiter.reserve(500);
+        Assert.assertTrue(waitNanos > 400 * MILLIS && waitNanos <= 500 * MILLIS);
+        // the next caller waits for the debt of the former one as well
+        waitNanos = limiter.reserve(500);
+        Assert.assertTrue(waitNanos > 900 * MILLIS && waitNanos <= 1000 * MILLIS);
+    }
+
+    @Test
+    public void testAcquire() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1000);
+        long start = System.nanoTime();
+        limiter.acquire(100);
+        Assert.assertTrue(System.nanoTime() - start >= 50 * MILLIS);
+    }
+
+    @Test
+    public void testUnlimited() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(0);
+        Assert.assertEquals(0, limiter.reserve(Long.MAX_VALUE / 2));
+        Assert.assertEquals(0, limiter.acquire(1 << 30));
+    }
+
+    @Test
+    public void testSetRate() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1000);
+        Assert.assertTrue(limiter.reserve(1000) > 0);
+        // removing the limit forgives the debt
+        limiter.setRate(-1);
+        Assert.assertEquals(-1, limiter.getRate(), 0);
+        Assert.assertEquals(0, limiter.reserve(1000));
+
+        limiter.setRate(10);
+        long waitNanos = limiter.reserve(5);
+        Assert.assertTrue(waitNanos > 400 * MILLIS && waitNanos <= 500 * MILLIS);
+    }
+}
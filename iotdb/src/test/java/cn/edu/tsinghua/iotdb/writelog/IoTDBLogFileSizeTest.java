@@ -5,13 +5,13 @@ import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
 import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
 import cn.edu.tsinghua.iotdb.jdbc.TsfileJDBCConfig;
 import cn.edu.tsinghua.iotdb.writelog.manager.MultiFileLogNodeManager;
-import cn.edu.tsinghua.iotdb.writelog.node.ExclusiveWriteLogNode;
 import cn.edu.tsinghua.iotdb.writelog.node.WriteLogNode;
 import cn.edu.tsinghua.iotdb.service.IoTDB;
 import cn.edu.tsinghua.iotdb.utils.EnvironmentUtils;
 import cn.edu.tsinghua.iotdb.utils.MemUtils;
 import cn.edu.tsinghua.tsfile.common.conf.TSFileConfig;
 import cn.edu.tsinghua.tsfile.common.conf.TSFileDescriptor;
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -95,9 +95,9 @@ public class IoTDBLogFileSizeTest {
                     String sql = String.format("INSERT INTO root.logFileTest.bufferwrite(timestamp,val) VALUES (%d, %d)", ++cnt, cnt);
                     statement.execute(sql);
                     WriteLogNode logNode = MultiFileLogNodeManager.getInstance().getNode("root.logFileTest.bufferwrite" + TsFileDBConstant.BUFFERWRITE_LOG_NODE_SUFFIX, null, null);
-                    File bufferWriteWALFile = new File(logNode.getLogDirectory() + File.separator + ExclusiveWriteLogNode.WAL_FILE_NAME);
-                    if(bufferWriteWALFile.exists() && bufferWriteWALFile.length() > maxLength[0])
-                        maxLength[0] = bufferWriteWALFile.length();
+                    File bufferWriteWALDir = new File(logNode.getLogDirectory());
+                    if(bufferWriteWALDir.exists() && FileUtils.sizeOfDirectory(bufferWriteWALDir) > maxLength[0])
+                        maxLength[0] = FileUtils.sizeOfDirectory(bufferWriteWALDir);
                 }
                 statement.close();
             } catch (Exception e) {
@@ -147,9 +147,9 @@ public class IoTDBLogFileSizeTest {
                     String sql = String.format("INSERT INTO root.logFileTest.overflow(timestamp,val) VALUES (%d, %d)", ++cnt, cnt);
                     statement.execute(sql);
                     WriteLogNode logNode = MultiFileLogNodeManager.getInstance().getNode("root.logFileTest.overflow" + TsFileDBConstant.OVERFLOW_LOG_NODE_SUFFIX, null, null);
-                    File WALFile = new File(logNode.getLogDirectory() + File.separator + ExclusiveWriteLogNode.WAL_FILE_NAME);
-                    if(WALFile.exists() && WALFile.length() > maxLength[0])
-                        maxLength[0] = WALFile.length();
+                    File WALDir = new File(logNode.getLogDirectory());
+                    if(WALDir.exists() && FileUtils.sizeOfDirectory(WALDir) > maxLength[0])
+                        maxLength[0] = FileUtils.sizeOfDirectory(WALDir);
                 }
                 statement.close();
             } catch (Exception e) {
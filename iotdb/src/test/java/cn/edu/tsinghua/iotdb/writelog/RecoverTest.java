@@ -8,6 +8,7 @@ import cn.edu.tsinghua.iotdb.metadata.MManager;
 import cn.edu.tsinghua.iotdb.writelog.recover.ExclusiveLogRecoverPerformer;
 import cn.edu.tsinghua.iotdb.writelog.recover.RecoverPerformer;
 import cn.edu.tsinghua.iotdb.writelog.replay.LogReplayer;
+import cn.edu.tsinghua.iotdb.writelog.io.MappedLogWriter;
 import cn.edu.tsinghua.iotdb.writelog.node.ExclusiveWriteLogNode;
 import cn.edu.tsinghua.iotdb.qp.physical.PhysicalPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.DeletePlan;
@@ -98,10 +99,11 @@ public class RecoverTest {
             // ensure all logs are replayed
             assertEquals(plansToCheck.size(), dummyLogReplayer.currPos);
 
-            // the log diretory should be empty now
+            // the log diretory should only hold free log segments now
             File logDir = new File(logNode.getLogDirectory());
-            File[] files = logDir.listFiles();
+            File[] files = logDir.listFiles((dir, name) -> !name.startsWith(MappedLogWriter.SEGMENT_PREFIX));
             assertTrue(files == null || files.length == 0);
+            assertTrue(MappedLogWriter.listUsedSegments(logDir).isEmpty());
         } finally {
             logNode.delete();
             tempRestore.delete();
@@ -186,10 +188,11 @@ public class RecoverTest {
             // ensure all logs are replayed
             assertEquals(plansToCheck.size(), dummyLogReplayer.currPos);
 
-            // the log diretory should be empty now
+            // the log diretory should only hold free log segments now
             File logDir = new File(logNode.getLogDirectory());
-            File[] files = logDir.listFiles();
+            File[] files = logDir.listFiles((dir, name) -> !name.startsWith(MappedLogWriter.SEGMENT_PREFIX));
             assertTrue(files == null || files.length == 0);
+            assertTrue(MappedLogWriter.listUsedSegments(logDir).isEmpty());
         } finally {
             logNode.delete();
             tempRestore.delete();
@@ -252,10 +255,11 @@ public class RecoverTest {
             logNode.recover();
             assertTrue(!fileNodeRecoverPerformer.called);
 
-            // the log diretory should be empty now
+            // the log diretory should only hold free log segments now
             File logDir = new File(logNode.getLogDirectory());
-            File[] files = logDir.listFiles();
+            File[] files = logDir.listFiles((dir, name) -> !name.startsWith(MappedLogWriter.SEGMENT_PREFIX));
             assertTrue(files == null || files.length == 0);
+            assertTrue(MappedLogWriter.listUsedSegments(logDir).isEmpty());
         } finally {
             logNode.delete();
             tempRestore.delete();
@@ -6,9 +6,11 @@ import cn.edu.tsinghua.iotdb.exception.MetadataArgsErrorException;
 import cn.edu.tsinghua.iotdb.exception.PathErrorException;
 import cn.edu.tsinghua.iotdb.exception.RecoverException;
 import cn.edu.tsinghua.iotdb.metadata.MManager;
+import cn.edu.tsinghua.iotdb.writelog.io.MappedLogWriter;
 import cn.edu.tsinghua.iotdb.writelog.manager.MultiFileLogNodeManager;
 import cn.edu.tsinghua.iotdb.writelog.manager.WriteLogNodeManager;
 import cn.edu.tsinghua.iotdb.writelog.node.WriteLogNode;
+import cn.edu.tsinghua.iotdb.writelog.recover.ExclusiveLogRecoverPerformer;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.DeletePlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.InsertPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.UpdatePlan;
@@ -22,8 +24,11 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertTrue;
 
 public class WriteLogNodeManagerTest {
@@ -64,11 +69,11 @@ public class WriteLogNodeManagerTest {
         logNode.write(updatePlan);
         logNode.write(deletePlan);
 
-        File walFile = new File(logNode.getLogDirectory() + File.separator + "wal");
-        assertTrue(!walFile.exists());
+        File logDirectory = new File(logNode.getLogDirectory());
+        assertTrue(MappedLogWriter.listUsedSegments(logDirectory).isEmpty());
 
         Thread.sleep(config.flushWalPeriodInMs + 1000);
-        assertTrue(walFile.exists());
+        assertTrue(!MappedLogWriter.listUsedSegments(logDirectory).isEmpty());
 
         logNode.delete();
         config.flushWalPeriodInMs = flushWalPeriod;
@@ -79,12 +84,15 @@ public class WriteLogNodeManagerTest {
 
     @Test
     public void testRecoverAll() throws IOException, RecoverException, MetadataArgsErrorException {
-        // this test create 5 log nodes and recover them
-        File tempRestore = File.createTempFile("managerTest", "restore");
-        File tempProcessorStore = File.createTempFile("managerTest", "processorStore");
-
+        // this test create 5 log nodes and recover them, the storage groups are recovered concurrently
         WriteLogNodeManager manager = MultiFileLogNodeManager.getInstance();
+        List<File> tempFiles = new ArrayList<>();
+        List<WriteLogNode> logNodes = new ArrayList<>();
         for(int i = 0; i < 5; i++) {
+            File tempRestore = File.createTempFile("managerTest", "restore");
+            File tempProcessorStore = File.createTempFile("managerTest", "processorStore");
+            tempFiles.add(tempRestore);
+            tempFiles.add(tempProcessorStore);
             String deviceName = "root.managerTest" + i;
             try {
                 MManager.getInstance().setStorageLevelToMTree(deviceName);
@@ -107,7 +115,16 @@ public class WriteLogNodeManagerTest {
 
             logNode.forceSync();
             logNode.close();
+            logNodes.add(logNode);
         }
+        long replayedLogCount = ExclusiveLogRecoverPerformer.getReplayedLogCount();
         manager.recover();
+        assertEquals(15, ExclusiveLogRecoverPerformer.getReplayedLogCount() - replayedLogCount);
+        for(WriteLogNode logNode : logNodes) {
+            assertTrue(MappedLogWriter.listUsedSegments(new File(logNode.getLogDirectory())).isEmpty());
+        }
+        for(File tempFile : tempFiles) {
+            tempFile.delete();
+        }
     }
 }
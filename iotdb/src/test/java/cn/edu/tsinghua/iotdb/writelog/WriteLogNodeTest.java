@@ -2,23 +2,27 @@ package cn.edu.tsinghua.iotdb.writelog;
 
 import cn.edu.tsinghua.iotdb.conf.TsfileDBConfig;
 import cn.edu.tsinghua.iotdb.conf.TsfileDBDescriptor;
-import cn.edu.tsinghua.iotdb.writelog.transfer.PhysicalPlanLogTransfer;
+import cn.edu.tsinghua.iotdb.writelog.io.MappedLogReader;
+import cn.edu.tsinghua.iotdb.writelog.io.MappedLogWriter;
 import cn.edu.tsinghua.iotdb.writelog.node.ExclusiveWriteLogNode;
 import cn.edu.tsinghua.iotdb.writelog.node.WriteLogNode;
+import cn.edu.tsinghua.iotdb.qp.physical.crud.BatchInsertPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.DeletePlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.InsertPlan;
 import cn.edu.tsinghua.iotdb.qp.physical.crud.UpdatePlan;
 import cn.edu.tsinghua.iotdb.utils.EnvironmentUtils;
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.Arrays;
-import java.util.zip.CRC32;
+import java.util.List;
 
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertTrue;
@@ -51,7 +55,6 @@ public class WriteLogNodeTest {
         tempRestore.getParentFile().mkdirs();
         tempRestore.createNewFile();
         tempProcessorStore.createNewFile();
-        CRC32 crc32 = new CRC32();
 
         WriteLogNode logNode = new ExclusiveWriteLogNode("root.logTestDevice", tempRestore.getPath(), tempProcessorStore.getPath());
 
@@ -66,48 +69,81 @@ public class WriteLogNodeTest {
 
         logNode.forceSync();
 
-        File walFile = new File(config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal");
-        assertTrue(walFile.exists());
-
-        RandomAccessFile raf = new RandomAccessFile(walFile, "r");
-        byte[] buffer = new byte[10 * 1024 * 1024];
-        int logSize = 0;
-        logSize = raf.readInt();
-        long checksum = raf.readLong();
-        raf.read(buffer, 0, logSize);
-        crc32.reset();
-        crc32.update(buffer, 0 , logSize);
-        assertEquals(checksum, crc32.getValue());
-        InsertPlan bwInsertPlan2 = (InsertPlan) PhysicalPlanLogTransfer.logToOperator(buffer);
+        List<File> segments = MappedLogWriter.listUsedSegments(new File(logNode.getLogDirectory()));
+        assertEquals(1, segments.size());
+
+        MappedLogReader reader = new MappedLogReader(segments.get(0));
+        assertTrue(reader.hasNext());
+        InsertPlan bwInsertPlan2 = (InsertPlan) reader.next();
         assertEquals(bwInsertPlan.getMeasurements(), bwInsertPlan2.getMeasurements());
         assertEquals(bwInsertPlan.getTime(), bwInsertPlan2.getTime());
         assertEquals(bwInsertPlan.getValues(), bwInsertPlan2.getValues());
         assertEquals(bwInsertPlan.getPaths(), bwInsertPlan2.getPaths());
         assertEquals(bwInsertPlan.getDeltaObject(), bwInsertPlan2.getDeltaObject());
 
-        logSize = raf.readInt();
-        checksum = raf.readLong();
-        raf.read(buffer, 0, logSize);
-        crc32.reset();
-        crc32.update(buffer, 0 , logSize);
-        assertEquals(checksum, crc32.getValue());
-        UpdatePlan updatePlan2 = (UpdatePlan) PhysicalPlanLogTransfer.logToOperator(buffer);
+        assertTrue(reader.hasNext());
+        UpdatePlan updatePlan2 = (UpdatePlan) reader.next();
         assertEquals(updatePlan.getPath(), updatePlan2.getPath());
         assertEquals(updatePlan.getIntervals(), updatePlan2.getIntervals());
         assertEquals(updatePlan.getValue(), updatePlan2.getValue());
         assertEquals(updatePlan.getPaths(), updatePlan2.getPaths());
 
-        logSize = raf.readInt();
-        checksum = raf.readLong();
-        raf.read(buffer, 0, logSize);
-        crc32.reset();
-        crc32.update(buffer, 0 , logSize);
-        assertEquals(checksum, crc32.getValue());
-        DeletePlan deletePlan2 = (DeletePlan) PhysicalPlanLogTransfer.logToOperator(buffer);
+        assertTrue(reader.hasNext());
+        DeletePlan deletePlan2 = (DeletePlan) reader.next();
         assertEquals(deletePlan.getDeleteTime(), deletePlan2.getDeleteTime());
         assertEquals(deletePlan.getPaths(), deletePlan2.getPaths());
+        assertTrue(!reader.hasNext());
+
+        reader.close();
+        logNode.delete();
+        tempRestore.delete();
+        tempProcessorStore.delete();
+        tempRestore.getParentFile().delete();
+    }
+
+    @Test
+    public void testBatchInsertLog() throws IOException {
+        // a batch insertion is written as one log holding all its rows
+        File tempRestore = new File("testtemp", "restore");
+        File tempProcessorStore = new File("testtemp", "processorStore");
+        tempRestore.getParentFile().mkdirs();
+        tempRestore.createNewFile();
+        tempProcessorStore.createNewFile();
+
+        WriteLogNode logNode = new ExclusiveWriteLogNode("root.logTestDevice", tempRestore.getPath(), tempProcessorStore.getPath());
+
+        BatchInsertPlan batchPlan = new BatchInsertPlan("root.logTestDevice",
+                new String[]{"s1", "s2", "s3", "s4", "s5", "s6"},
+                new TSDataType[]{TSDataType.BOOLEAN, TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT,
+                        TSDataType.DOUBLE, TSDataType.TEXT},
+                new long[]{100, 101, 102},
+                new Object[]{new boolean[]{true, false, true}, new int[]{1, 2, 3}, new long[]{4, 5, 6},
+                        new float[]{1.5f, 2.5f, 3.5f}, new double[]{4.5, 5.5, 6.5},
+                        new Binary[]{new Binary("a"), new Binary(""), new Binary("ccc")}});
+
+        logNode.write(batchPlan);
+        logNode.write(batchPlan.selectRows(new int[]{2, 0}));
+        logNode.forceSync();
 
-        raf.close();
+        List<File> segments = MappedLogWriter.listUsedSegments(new File(logNode.getLogDirectory()));
+        MappedLogReader reader = new MappedLogReader(segments.get(0));
+        assertTrue(reader.hasNext());
+        BatchInsertPlan batchPlan2 = (BatchInsertPlan) reader.next();
+        assertEquals(batchPlan.getPaths(), batchPlan2.getPaths());
+        assertTrue(Arrays.equals(batchPlan.getDataTypes(), batchPlan2.getDataTypes()));
+        assertTrue(Arrays.equals(batchPlan.getTimes(), batchPlan2.getTimes()));
+        for (int row = 0; row < batchPlan.getRowCount(); row++) {
+            assertEquals(batchPlan.getRecord(row).toString(), batchPlan2.getRecord(row).toString());
+        }
+
+        assertTrue(reader.hasNext());
+        BatchInsertPlan selected = (BatchInsertPlan) reader.next();
+        assertEquals(2, selected.getRowCount());
+        assertEquals(batchPlan.getRecord(2).toString(), selected.getRecord(0).toString());
+        assertEquals(batchPlan.getRecord(0).toString(), selected.getRecord(1).toString());
+        assertTrue(!reader.hasNext());
+
+        reader.close();
         logNode.delete();
         tempRestore.delete();
         tempProcessorStore.delete();
@@ -137,17 +173,20 @@ public class WriteLogNodeTest {
 
         logNode.forceSync();
 
-        File walFile = new File(config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal");
-        assertTrue(walFile.exists());
+        File logDirectory = new File(logNode.getLogDirectory());
+        assertEquals(1, MappedLogWriter.listUsedSegments(logDirectory).size());
 
         logNode.notifyStartFlush();
-        File oldWalFile = new File(config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal-old");
-        assertTrue(oldWalFile.exists());
-        assertTrue(oldWalFile.length() > 0);
+        // logs written during the flush go into a new segment
+        logNode.write(deletePlan);
+        logNode.forceSync();
+        assertEquals(2, MappedLogWriter.listUsedSegments(logDirectory).size());
 
         logNode.notifyEndFlush(null);
-        assertTrue(!oldWalFile.exists());
-        assertEquals(0, walFile.length());
+        List<File> segments = MappedLogWriter.listUsedSegments(logDirectory);
+        assertEquals(1, segments.size());
+        // the flushed segment is kept for reuse
+        assertEquals(2, logDirectory.list().length);
 
         logNode.delete();
         tempRestore.delete();
@@ -176,11 +215,11 @@ public class WriteLogNodeTest {
         logNode.write(bwInsertPlan);
         logNode.write(updatePlan);
 
-        File walFile = new File(config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal");
-        assertTrue(!walFile.exists());
+        File logDirectory = new File(logNode.getLogDirectory());
+        assertTrue(MappedLogWriter.listUsedSegments(logDirectory).isEmpty());
 
         logNode.write(deletePlan);
-        assertTrue(walFile.exists());
+        assertEquals(1, MappedLogWriter.listUsedSegments(logDirectory).size());
 
         logNode.delete();
         tempRestore.delete();
@@ -212,8 +251,7 @@ public class WriteLogNodeTest {
 
         logNode.forceSync();
 
-        File walFile = new File(config.walFolder + File.separator + "root.logTestDevice" + File.separator + "wal");
-        assertTrue(walFile.exists());
+        assertEquals(1, MappedLogWriter.listUsedSegments(new File(logNode.getLogDirectory())).size());
 
         assertTrue(new File(logNode.getLogDirectory()).exists());
         logNode.delete();
@@ -251,4 +289,124 @@ public class WriteLogNodeTest {
         tempProcessorStore.delete();
         tempRestore.getParentFile().delete();
     }
+
+    @Test
+    public void testFailedSync() throws IOException {
+        // the logs of a failed sync are kept and written by the next sync
+        File tempRestore = new File("testtemp", "restore");
+        File tempProcessorStore = new File("testtemp", "processorStore");
+        tempRestore.getParentFile().mkdirs();
+        tempRestore.createNewFile();
+        tempProcessorStore.createNewFile();
+
+        WriteLogNode logNode = new ExclusiveWriteLogNode("root.logTestDevice", tempRestore.getPath(), tempProcessorStore.getPath());
+        File logDirectory = new File(logNode.getLogDirectory());
+
+        logNode.write(new DeletePlan(10, new Path("root.logTestDevice.s1")));
+        logNode.forceSync();
+        // the next log needs a new segment, which can't be created while the directory is replaced by a file
+        logNode.notifyStartFlush();
+        FileUtils.deleteDirectory(logDirectory);
+        logDirectory.createNewFile();
+        logNode.write(new DeletePlan(20, new Path("root.logTestDevice.s1")));
+        boolean caught = false;
+        try {
+            logNode.forceSync();
+        } catch (IOException e) {
+            caught = true;
+        }
+        assertTrue(caught);
+
+        logDirectory.delete();
+        logDirectory.mkdirs();
+        logNode.write(new DeletePlan(30, new Path("root.logTestDevice.s1")));
+        logNode.forceSync();
+        List<File> segments = MappedLogWriter.listUsedSegments(logDirectory);
+        assertEquals(1, segments.size());
+        MappedLogReader reader = new MappedLogReader(segments.get(0));
+        assertTrue(reader.hasNext());
+        assertEquals(20, ((DeletePlan) reader.next()).getDeleteTime());
+        assertTrue(reader.hasNext());
+        assertEquals(30, ((DeletePlan) reader.next()).getDeleteTime());
+        assertTrue(!reader.hasNext());
+
+        reader.close();
+        logNode.delete();
+        tempRestore.delete();
+        tempProcessorStore.delete();
+        tempRestore.getParentFile().delete();
+    }
+
+    @Test
+    public void testSyncDurability() throws Exception {
+        // this test writes logs from several threads with sync durability, every log must be in the file once its
+        // writer returns from waitForSync()
+        String walDurability = config.walDurability;
+        config.walDurability = "sync";
+        File tempRestore = new File("testtemp", "restore");
+        File tempProcessorStore = new File("testtemp", "processorStore");
+        tempRestore.getParentFile().mkdirs();
+        tempRestore.createNewFile();
+        tempProcessorStore.createNewFile();
+
+        WriteLogNode logNode = new ExclusiveWriteLogNode("root.logTestDevice", tempRestore.getPath(), tempProcessorStore.getPath());
+        assertEquals(WalDurability.SYNC, ((ExclusiveWriteLogNode) logNode).getDurability());
+
+        int threadNum = 4;
+        int logNum = 100;
+        Thread[] threads = new Thread[threadNum];
+        IOException[] exceptions = new IOException[threadNum];
+        for (int i = 0; i < threadNum; i++) {
+            int threadIndex = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < logNum; j++) {
+                        LogPosition position = logNode.write(new DeletePlan(j, new Path("root.logTestDevice.s" + threadIndex)));
+                        logNode.waitForSync(position);
+                    }
+                } catch (IOException e) {
+                    exceptions[threadIndex] = e;
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (IOException exception : exceptions) {
+            assertEquals(null, exception);
+        }
+
+        int logCount = 0;
+        for (File segment : MappedLogWriter.listUsedSegments(new File(logNode.getLogDirectory()))) {
+            MappedLogReader reader = new MappedLogReader(segment);
+            while (reader.hasNext()) {
+                reader.next();
+                logCount++;
+            }
+            reader.close();
+        }
+        assertEquals(threadNum * logNum, logCount);
+
+        logNode.delete();
+        tempRestore.delete();
+        tempProcessorStore.delete();
+        config.walDurability = walDurability;
+        tempRestore.getParentFile().delete();
+    }
+
+    @Test
+    public void testDurabilityOverrides() {
+        String walDurability = config.walDurability;
+        String walDurabilityOverrides = config.walDurabilityOverrides;
+        config.walDurability = "periodic";
+        config.walDurabilityOverrides = "root.sg1:sync, root.sg2:ASYNC";
+
+        assertEquals(WalDurability.SYNC, WalDurability.getForFileNode(config, "root.sg1"));
+        assertEquals(WalDurability.ASYNC, WalDurability.getForFileNode(config, "root.sg2"));
+        assertEquals(WalDurability.PERIODIC, WalDurability.getForFileNode(config, "root.sg3"));
+
+        config.walDurability = walDurability;
+        config.walDurabilityOverrides = walDurabilityOverrides;
+    }
 }
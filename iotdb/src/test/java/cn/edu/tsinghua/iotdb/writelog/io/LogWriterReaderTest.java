@@ -9,7 +9,12 @@ import cn.edu.tsinghua.iotdb.writelog.io.LogWriter;
 import cn.edu.tsinghua.iotdb.writelog.transfer.PhysicalPlanCodec;
 import cn.edu.tsinghua.iotdb.writelog.transfer.PhysicalPlanLogTransfer;
 import cn.edu.tsinghua.iotdb.writelog.transfer.SystemLogOperator;
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
 import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.TSRecord;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.DoubleDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.IntDataPoint;
+import cn.edu.tsinghua.tsfile.timeseries.write.record.datapoint.StringDataPoint;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -33,8 +38,14 @@ public class LogWriterReaderTest {
         InsertPlan insertPlan2=new InsertPlan(2, "d1", 10L, Arrays.asList("s1", "s2"), Arrays.asList("1", "2"));
         UpdatePlan updatePlan=new UpdatePlan(8L, 11L, "3", new Path("root.d1.s1"));
         DeletePlan deletePlan=new DeletePlan(10L, new Path("root.d1.s1"));
+        TSRecord record=new TSRecord(12L, "d1");
+        record.addTuple(new IntDataPoint("s1", 1));
+        record.addTuple(new DoubleDataPoint("s2", 2.0));
+        record.addTuple(new StringDataPoint("s3", new Binary("3")));
+        InsertPlan typedInsertPlan=new InsertPlan(2, record);
         plans.add(insertPlan1);
         plans.add(insertPlan2);
+        plans.add(typedInsertPlan);
         plans.add(updatePlan);
         plans.add(deletePlan);
         for(PhysicalPlan plan:plans){
@@ -62,4 +73,12 @@ public class LogWriterReaderTest {
             new File(filePath).delete();
         }
     }
+
+    @Test
+    public void testTypedInsertValues() throws IOException {
+        InsertPlan plan = (InsertPlan) PhysicalPlanLogTransfer.logToOperator(logs.get(2));
+        assertEquals(3, plan.getDataPoints().size());
+        assertEquals(Arrays.asList("1", "2.0", "3"), plan.getValues());
+        assertEquals(plans.get(2), plan);
+    }
 }
@@ -0,0 +1,144 @@
+package cn.edu.tsinghua.iotdb.writelog.io;
+
+import cn.edu.tsinghua.iotdb.qp.physical.PhysicalPlan;
+import cn.edu.tsinghua.iotdb.qp.physical.crud.DeletePlan;
+import cn.edu.tsinghua.iotdb.writelog.transfer.PhysicalPlanLogTransfer;
+import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MappedLogWriterReaderTest {
+
+    private static String logDir = "mappedlogtest";
+    // small enough to hold only a few logs
+    private static int segmentSize = 256;
+
+    @Before
+    public void setUp() throws IOException {
+        FileUtils.deleteDirectory(new File(logDir));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(new File(logDir));
+    }
+
+    private byte[] log(long time) throws IOException {
+        return PhysicalPlanLogTransfer.operatorToLog(new DeletePlan(time, new Path("root.d1.s1")));
+    }
+
+    private List<Long> readAll() throws IOException {
+        List<Long> times = new ArrayList<>();
+        for (File segment : MappedLogWriter.listUsedSegments(new File(logDir))) {
+            MappedLogReader reader = new MappedLogReader(segment);
+            while (reader.hasNext()) {
+                PhysicalPlan plan = reader.next();
+                times.add(((DeletePlan) plan).getDeleteTime());
+            }
+            reader.close();
+        }
+        return times;
+    }
+
+    @Test
+    public void testRotate() throws IOException {
+        MappedLogWriter writer = new MappedLogWriter(logDir, segmentSize);
+        List<Long> expected = new ArrayList<>();
+        for (long i = 0; i < 20; i++) {
+            writer.write(Collections.singletonList(log(i)));
+            expected.add(i);
+        }
+        writer.close();
+
+        assertTrue(MappedLogWriter.listUsedSegments(new File(logDir)).size() > 1);
+        assertEquals(expected, readAll());
+    }
+
+    @Test
+    public void testRecycle() throws IOException {
+        MappedLogWriter writer = new MappedLogWriter(logDir, segmentSize);
+        for (long i = 0; i < 10; i++) {
+            writer.write(Collections.singletonList(log(i)));
+        }
+        writer.seal();
+        writer.write(Collections.singletonList(log(100)));
+        int segmentCount = new File(logDir).list().length;
+
+        writer.recycleSealed();
+        List<Long> expected = new ArrayList<>();
+        expected.add(100L);
+        assertEquals(expected, readAll());
+
+        // recycled segments are reused, and what they held before is never read again
+        for (long i = 200; i < 203; i++) {
+            writer.write(Collections.singletonList(log(i)));
+            expected.add(i);
+        }
+        writer.close();
+        assertEquals(expected, readAll());
+        assertTrue(new File(logDir).list().length <= segmentCount);
+
+        // sequence numbers keep increasing after the writer is reopened
+        MappedLogWriter.recycleAll(new File(logDir));
+        assertTrue(readAll().isEmpty());
+        writer = new MappedLogWriter(logDir, segmentSize);
+        writer.write(Collections.singletonList(log(300)));
+        writer.close();
+        assertEquals(Collections.singletonList(300L), readAll());
+    }
+
+    @Test
+    public void testRecycleInSealOrder() throws IOException {
+        // two flushes are pending, the end of the first one must keep the logs of the second
+        MappedLogWriter writer = new MappedLogWriter(logDir, segmentSize);
+        writer.write(Collections.singletonList(log(0)));
+        writer.seal();
+        writer.write(Collections.singletonList(log(1)));
+        writer.seal();
+        writer.write(Collections.singletonList(log(2)));
+
+        writer.recycleSealed();
+        List<Long> expected = new ArrayList<>();
+        expected.add(1L);
+        expected.add(2L);
+        assertEquals(expected, readAll());
+
+        writer.recycleSealed();
+        assertEquals(Collections.singletonList(2L), readAll());
+        writer.close();
+    }
+
+    @Test
+    public void testRecycleAfterClose() throws IOException {
+        // the flush ends after the writer is closed, its segments are still recycled
+        MappedLogWriter writer = new MappedLogWriter(logDir, segmentSize);
+        writer.write(Collections.singletonList(log(0)));
+        writer.seal();
+        writer.write(Collections.singletonList(log(1)));
+        writer.close();
+
+        writer.recycleSealed();
+        assertEquals(Collections.singletonList(1L), readAll());
+        writer.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testOverSized() throws IOException {
+        MappedLogWriter writer = new MappedLogWriter(logDir, 16);
+        try {
+            writer.write(Collections.singletonList(log(0)));
+        } finally {
+            writer.close();
+        }
+    }
+}
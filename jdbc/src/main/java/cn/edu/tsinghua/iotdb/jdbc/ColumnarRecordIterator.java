@@ -0,0 +1,97 @@
+package cn.edu.tsinghua.iotdb.jdbc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+
+import org.apache.thrift.TBaseHelper;
+import org.xerial.snappy.Snappy;
+
+import cn.edu.tsinghua.service.rpc.thrift.TSColumnarDataSet;
+import cn.edu.tsinghua.tsfile.common.exception.UnSupportedDataTypeException;
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.RowRecord;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType;
+
+/**
+ * Iterates the rows of a {@link TSColumnarDataSet}. The columns are decompressed once, and a row is only decoded
+ * into a RowRecord when it is reached.
+ */
+class ColumnarRecordIterator implements Iterator<RowRecord> {
+	private final int rowCount;
+	private final Path[] paths;
+	private final TSDataType[] dataTypes;
+	private final ByteBuffer timestamps;
+	private final byte[][] bitmaps;
+	private final ByteBuffer[] values;
+	private int row = 0;
+
+	ColumnarRecordIterator(TSColumnarDataSet dataSet) throws IOException {
+		boolean compressed = dataSet.isCompressed();
+		int columnNum = dataSet.getColumnsSize();
+		this.rowCount = dataSet.getRowCount();
+		this.paths = new Path[columnNum];
+		this.dataTypes = new TSDataType[columnNum];
+		this.bitmaps = new byte[columnNum][];
+		this.values = new ByteBuffer[columnNum];
+		this.timestamps = ByteBuffer.wrap(unpack(dataSet.getTimestamps(), compressed));
+		for (int i = 0; i < columnNum; i++) {
+			paths[i] = new Path(dataSet.getColumns().get(i));
+			dataTypes[i] = TSDataType.valueOf(dataSet.getDataTypes().get(i));
+			bitmaps[i] = unpack(TBaseHelper.byteBufferToByteArray(dataSet.getBitmaps().get(i)), compressed);
+			values[i] = ByteBuffer.wrap(unpack(TBaseHelper.byteBufferToByteArray(dataSet.getValues().get(i)), compressed));
+		}
+	}
+
+	private static byte[] unpack(byte[] bytes, boolean compressed) throws IOException {
+		return compressed ? Snappy.uncompress(bytes) : bytes;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return row < rowCount;
+	}
+
+	@Override
+	public RowRecord next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		RowRecord record = new RowRecord(timestamps.getLong());
+		record.setFields(new LinkedHashMap<Path, TsPrimitiveType>());
+		for (int i = 0; i < paths.length; i++) {
+			if ((bitmaps[i][row >> 3] & (1 << (row & 7))) == 0) {
+				record.getFields().put(paths[i], null);
+			} else {
+				record.getFields().put(paths[i], readValue(dataTypes[i], values[i]));
+			}
+		}
+		row++;
+		return record;
+	}
+
+	private static TsPrimitiveType readValue(TSDataType dataType, ByteBuffer buffer) {
+		switch (dataType) {
+		case BOOLEAN:
+			return new TsPrimitiveType.TsBoolean(buffer.get() != 0);
+		case INT32:
+			return new TsPrimitiveType.TsInt(buffer.getInt());
+		case INT64:
+			return new TsPrimitiveType.TsLong(buffer.getLong());
+		case FLOAT:
+			return new TsPrimitiveType.TsFloat(buffer.getFloat());
+		case DOUBLE:
+			return new TsPrimitiveType.TsDouble(buffer.getDouble());
+		case TEXT:
+			byte[] bytes = new byte[buffer.getInt()];
+			buffer.get(bytes);
+			return new TsPrimitiveType.TsBinary(new Binary(bytes));
+		default:
+			throw new UnSupportedDataTypeException(String.format("data type %s is not supported when convert data at client", dataType));
+		}
+	}
+}
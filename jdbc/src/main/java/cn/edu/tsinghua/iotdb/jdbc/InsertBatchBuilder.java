@@ -0,0 +1,185 @@
+package cn.edu.tsinghua.iotdb.jdbc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import cn.edu.tsinghua.service.rpc.thrift.TSInsertBatchReq;
+import cn.edu.tsinghua.service.rpc.thrift.TS_SessionHandle;
+import cn.edu.tsinghua.tsfile.common.utils.BytesUtils;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+
+/**
+ * Collects the rows of a prepared statement like
+ * <code>insert into root.d1(timestamp, s1, s2) values(?, ?, ?)</code> column by column, so that they can be sent in
+ * one {@link TSInsertBatchReq} instead of one SQL string per row. The data type of a column is given by the setter
+ * used for it in the first row, and must be the same in the following rows.
+ */
+class InsertBatchBuilder {
+	private static final Pattern INSERT_PATTERN = Pattern.compile(
+			"^\\s*insert\\s+into\\s+([^\\s(]+)\\s*\\(\\s*timestamp\\s*((?:,\\s*[^\\s,()]+\\s*)+)\\)\\s*values\\s*\\(\\s*\\?((?:\\s*,\\s*\\?)*)\\s*\\)\\s*;?\\s*$",
+			Pattern.CASE_INSENSITIVE);
+
+	private final String deviceId;
+	private final List<String> measurements;
+	private TSDataType[] dataTypes;
+	private ByteArrayOutputStream timeBytes = new ByteArrayOutputStream();
+	private DataOutputStream timeOutput = new DataOutputStream(timeBytes);
+	private ByteArrayOutputStream[] valueBytes;
+	private DataOutputStream[] valueOutputs;
+	private int rowCount = 0;
+
+	private InsertBatchBuilder(String deviceId, List<String> measurements) {
+		this.deviceId = deviceId;
+		this.measurements = measurements;
+	}
+
+	/**
+	 * @return a builder for sql, or null if sql is not an insertion whose timestamp and values are all parameters
+	 */
+	static InsertBatchBuilder parse(String sql) {
+		Matcher matcher = INSERT_PATTERN.matcher(sql);
+		if (!matcher.matches()) {
+			return null;
+		}
+		List<String> measurements = new ArrayList<>();
+		for (String measurement : matcher.group(2).split(",")) {
+			measurement = measurement.trim();
+			if (!measurement.isEmpty()) {
+				measurements.add(measurement);
+			}
+		}
+		int valueParameterNum = matcher.group(3).split(",", -1).length - 1;
+		if (valueParameterNum != measurements.size()) {
+			return null;
+		}
+		return new InsertBatchBuilder(matcher.group(1), measurements);
+	}
+
+	/**
+	 * add a row from the parameters of a prepared statement, the first parameter is the timestamp.
+	 */
+	void addRow(Map<Integer, Object> parameters) throws SQLException {
+		Object time = parameters.get(1);
+		if (!(time instanceof Long)) {
+			throw new SQLException("The timestamp of a batch insertion should be set by setLong or setTimestamp");
+		}
+		if (dataTypes == null) {
+			initColumns(parameters);
+		}
+		// check the whole row before writing any of it
+		for (int i = 0; i < dataTypes.length; i++) {
+			Object value = parameters.get(i + 2);
+			if (value == null) {
+				throw new SQLException("Parameter #" + (i + 2) + " is unset");
+			}
+			if (getDataType(value) != dataTypes[i]) {
+				throw new SQLException(String.format("Parameter #%d of a batch insertion should be %s, but is %s",
+						i + 2, dataTypes[i], value.getClass().getSimpleName()));
+			}
+		}
+		try {
+			timeOutput.writeLong((Long) time);
+			for (int i = 0; i < dataTypes.length; i++) {
+				writeValue(valueOutputs[i], dataTypes[i], parameters.get(i + 2));
+			}
+		} catch (IOException e) {
+			throw new SQLException(e);
+		}
+		rowCount++;
+	}
+
+	int getRowCount() {
+		return rowCount;
+	}
+
+	TSInsertBatchReq build(TS_SessionHandle sessionHandle) {
+		List<String> typeNames = new ArrayList<>(dataTypes.length);
+		List<ByteBuffer> values = new ArrayList<>(dataTypes.length);
+		for (int i = 0; i < dataTypes.length; i++) {
+			typeNames.add(dataTypes[i].name());
+			values.add(ByteBuffer.wrap(valueBytes[i].toByteArray()));
+		}
+		return new TSInsertBatchReq(sessionHandle, deviceId, measurements, typeNames,
+				ByteBuffer.wrap(timeBytes.toByteArray()), values, rowCount);
+	}
+
+	/**
+	 * remove all rows, the data types are given again by the first row added after.
+	 */
+	void clear() {
+		timeBytes.reset();
+		dataTypes = null;
+		valueBytes = null;
+		valueOutputs = null;
+		rowCount = 0;
+	}
+
+	private void initColumns(Map<Integer, Object> parameters) throws SQLException {
+		int columnNum = measurements.size();
+		TSDataType[] types = new TSDataType[columnNum];
+		for (int i = 0; i < columnNum; i++) {
+			Object value = parameters.get(i + 2);
+			if (value == null) {
+				throw new SQLException("Parameter #" + (i + 2) + " is unset");
+			}
+			types[i] = getDataType(value);
+		}
+		dataTypes = types;
+		valueBytes = new ByteArrayOutputStream[columnNum];
+		valueOutputs = new DataOutputStream[columnNum];
+		for (int i = 0; i < columnNum; i++) {
+			valueBytes[i] = new ByteArrayOutputStream();
+			valueOutputs[i] = new DataOutputStream(valueBytes[i]);
+		}
+	}
+
+	private static TSDataType getDataType(Object value) throws SQLException {
+		if (value instanceof Boolean) {
+			return TSDataType.BOOLEAN;
+		} else if (value instanceof Integer) {
+			return TSDataType.INT32;
+		} else if (value instanceof Long) {
+			return TSDataType.INT64;
+		} else if (value instanceof Float) {
+			return TSDataType.FLOAT;
+		} else if (value instanceof Double) {
+			return TSDataType.DOUBLE;
+		} else if (value instanceof String) {
+			return TSDataType.TEXT;
+		}
+		throw new SQLException("Unsupported parameter type " + value.getClass().getName());
+	}
+
+	private static void writeValue(DataOutputStream output, TSDataType dataType, Object value) throws IOException {
+		switch (dataType) {
+			case BOOLEAN:
+				output.writeByte((Boolean) value ? 1 : 0);
+				break;
+			case INT32:
+				output.writeInt((Integer) value);
+				break;
+			case INT64:
+				output.writeLong((Long) value);
+				break;
+			case FLOAT:
+				output.writeFloat((Float) value);
+				break;
+			case DOUBLE:
+				output.writeDouble((Double) value);
+				break;
+			default:
+				byte[] bytes = BytesUtils.StringToBytes((String) value);
+				output.writeInt(bytes.length);
+				output.write(bytes);
+				break;
+		}
+	}
+}
@@ -27,6 +27,14 @@ public class TsfileJDBCConfig {
 	public static final long RETRY_INTERVAL = 1000;
 	
 	public static int fetchSize = 10000;
+	/**
+	 * fetch query results in columns instead of rows
+	 */
+	public static boolean fetchInColumns = true;
+	/**
+	 * compress the query results fetched in columns with Snappy
+	 */
+	public static boolean compressFetchedResults = false;
 	public static int connectionTimeoutInMs = 0;
 
 	public static String JDBC_DRIVER_NAME = "cn.edu.tsinghua.iotdb.jdbc.TsfileDriver";
@@ -5,6 +5,7 @@ import java.io.Reader;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.sql.Array;
+import java.sql.BatchUpdateException;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Date;
@@ -25,9 +26,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.thrift.TException;
 import org.joda.time.DateTime;
 
+import cn.edu.tsinghua.service.rpc.thrift.TSExecuteBatchStatementResp;
 import cn.edu.tsinghua.service.rpc.thrift.TS_SessionHandle;
+import cn.edu.tsinghua.service.rpc.thrift.TS_StatusCode;
 import cn.edu.tsinghua.service.rpc.thrift.TSIService.Iface;
 
 public class TsfilePrepareStatement extends TsfileStatement implements PreparedStatement {
@@ -36,20 +40,124 @@ public class TsfilePrepareStatement extends TsfileStatement implements PreparedS
 	 * save the SQL parameters as (paramLoc,paramValue) pair
 	 */
 	private final Map<Integer, String> parameters=new HashMap<Integer, String>();
+	/**
+	 * save the typed SQL parameters as (paramLoc,paramValue) pair, used by batch insertion
+	 */
+	private final Map<Integer, Object> typedParameters = new HashMap<Integer, Object>();
+	/**
+	 * not null if sql is an insertion whose rows can be sent in columns without SQL
+	 */
+	private final InsertBatchBuilder insertBatchBuilder;
+	private int sqlBatchSize = 0;
+	private final TsfileConnection connection;
+	private Iface client;
+	private TS_SessionHandle sessionHandle;
 	
 	public TsfilePrepareStatement(TsfileConnection connection, Iface client, TS_SessionHandle sessionHandle, String sql) {
 		super(connection, client, sessionHandle);
 		this.sql = sql;
+		this.connection = connection;
+		this.client = client;
+		this.sessionHandle = sessionHandle;
+		this.insertBatchBuilder = InsertBatchBuilder.parse(sql);
 	}
 
+	/**
+	 * If the statement is like <code>insert into root.d1(timestamp, s1, s2) values(?, ?, ?)</code>, the rows are
+	 * collected in columns and inserted by one RPC in {@link #executeBatch()}, without being parsed as SQL by the
+	 * server. Otherwise the completed SQL is added to the batch. The rows in columns can't be mixed with SQL in one
+	 * batch, as the counts of the batch must be in the order the commands were added.
+	 */
 	@Override
 	public void addBatch() throws SQLException {
-		throw new SQLException("Method not supported");
+		if (insertBatchBuilder != null) {
+			if (sqlBatchSize > 0) {
+				throw new SQLException("Cannot add a row to a batch of SQL, execute or clear the batch first");
+			}
+			insertBatchBuilder.addRow(typedParameters);
+		} else {
+			addBatch(createCompleteSql(sql, parameters));
+		}
+	}
+
+	@Override
+	public void addBatch(String sql) throws SQLException {
+		if (insertBatchBuilder != null && insertBatchBuilder.getRowCount() > 0) {
+			throw new SQLException("Cannot add SQL to a batch of rows, execute or clear the batch first");
+		}
+		super.addBatch(sql);
+		sqlBatchSize++;
+	}
+
+	@Override
+	public void clearBatch() throws SQLException {
+		super.clearBatch();
+		sqlBatchSize = 0;
+		if (insertBatchBuilder != null) {
+			insertBatchBuilder.clear();
+		}
+	}
+
+	/**
+	 * Execute the rows in columns or the SQL of the batch, the batch is cleared even if it fails.
+	 */
+	@Override
+	public int[] executeBatch() throws SQLException {
+		try {
+			if (insertBatchBuilder != null && insertBatchBuilder.getRowCount() > 0) {
+				return executeInsertBatch();
+			}
+			return super.executeBatch();
+		} finally {
+			clearBatch();
+		}
+	}
+
+	private int[] executeInsertBatch() throws SQLException {
+		if (connection == null || connection.isClosed()) {
+			throw new SQLException("Cannot executeBatch after connection has been closed!");
+		}
+		try {
+			return executeInsertBatchRPC();
+		} catch (TException e) {
+			boolean flag = connection.reconnect();
+			this.client = connection.client;
+			this.sessionHandle = connection.sessionHandle;
+			if (flag) {
+				try {
+					return executeInsertBatchRPC();
+				} catch (TException e2) {
+					throw new SQLException("Fail to insert batch after reconnecting. please check server status");
+				}
+			} else {
+				throw new SQLException(
+						"Fail to reconnect to server when inserting batch. please check server status");
+			}
+		}
+	}
+
+	private int[] executeInsertBatchRPC() throws TException, SQLException {
+		TSExecuteBatchStatementResp execResp = client.insertBatch(insertBatchBuilder.build(sessionHandle));
+		int[] updateArray;
+		if (execResp.getResult() == null) {
+			updateArray = new int[0];
+		} else {
+			List<Integer> result = execResp.getResult();
+			updateArray = new int[result.size()];
+			for (int i = 0; i < updateArray.length; i++) {
+				updateArray[i] = result.get(i);
+			}
+		}
+		if (execResp.getStatus().statusCode != TS_StatusCode.SUCCESS_STATUS) {
+			throw new BatchUpdateException(execResp.getStatus().errorMessage, updateArray);
+		}
+		return updateArray;
 	}
 
 	@Override
 	public void clearParameters() throws SQLException {
 		this.parameters.clear();
+		this.typedParameters.clear();
 	}
 
 	@Override
@@ -135,6 +243,7 @@ public class TsfilePrepareStatement extends TsfileStatement implements PreparedS
 	@Override
 	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
 		this.parameters.put(parameterIndex,""+x);
+		this.typedParameters.put(parameterIndex, x);
 	}
 
 	@Override
@@ -190,21 +299,25 @@ public class TsfilePrepareStatement extends TsfileStatement implements PreparedS
 	@Override
 	public void setDouble(int parameterIndex, double x) throws SQLException {
 		this.parameters.put(parameterIndex,""+x);
+		this.typedParameters.put(parameterIndex, x);
 	}
 
 	@Override
 	public void setFloat(int parameterIndex, float x) throws SQLException {
 		this.parameters.put(parameterIndex,""+x);
+		this.typedParameters.put(parameterIndex, x);
 	}
 
 	@Override
 	public void setInt(int parameterIndex, int x) throws SQLException {
 		this.parameters.put(parameterIndex,""+x);
+		this.typedParameters.put(parameterIndex, x);
 	}
 
 	@Override
 	public void setLong(int parameterIndex, long x) throws SQLException {
 		this.parameters.put(parameterIndex,""+x);
+		this.typedParameters.put(parameterIndex, x);
 	}
 
 	@Override
@@ -301,6 +414,7 @@ public class TsfilePrepareStatement extends TsfileStatement implements PreparedS
 
 	@Override
 	public void setString(int parameterIndex, String x) throws SQLException {
+		this.typedParameters.put(parameterIndex, x);
 		x = x.replace("'", "\\'");
 		this.parameters.put(parameterIndex, "'" + x + "'");
 	}
@@ -319,6 +433,7 @@ public class TsfilePrepareStatement extends TsfileStatement implements PreparedS
 	public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
 		DateTime dt = new DateTime(x.getTime());
 		this.parameters.put(parameterIndex, dt.toString("yyyy-MM-dd HH:mm:ss.SSS"));
+		this.typedParameters.put(parameterIndex, x.getTime());
 	}
 
 	@Override
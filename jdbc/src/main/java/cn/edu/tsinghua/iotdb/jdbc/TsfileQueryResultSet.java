@@ -14,6 +14,7 @@ import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType;
 
 import org.apache.thrift.TException;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
@@ -661,12 +662,16 @@ public class TsfileQueryResultSet implements ResultSet {
 	private boolean nextWithoutConstraints() throws SQLException {
 		if ((recordItr == null || !recordItr.hasNext()) && !emptyResultSet) {
 			TSFetchResultsReq req = new TSFetchResultsReq(sql, fetchSize);
+			req.setColumnar(TsfileJDBCConfig.fetchInColumns);
+			req.setCompress(TsfileJDBCConfig.compressFetchedResults);
 
 			try {
 				TSFetchResultsResp resp = client.fetchResults(req);
 				Utils.verifySuccess(resp.getStatus());
 				if (!resp.hasResultSet) {
 					emptyResultSet = true;
+				} else if (resp.isSetColumnarDataSet()) {
+					recordItr = new ColumnarRecordIterator(resp.getColumnarDataSet());
 				} else {
 					TSQueryDataSet tsQueryDataSet = resp.getQueryDataSet();
 					List<RowRecord> records = Utils.convertRowRecords(tsQueryDataSet);
@@ -674,6 +679,8 @@ public class TsfileQueryResultSet implements ResultSet {
 				}
 			} catch (TException e) {
 				throw new SQLException("Cannot fetch result from server, because of network connection");
+			} catch (IOException e) {
+				throw new SQLException("Cannot decode result from server, because " + e.getMessage());
 			}
 
 		}
@@ -253,7 +253,8 @@ public class TsfileStatement implements Statement {
 
 	private int[] executeBatchSQL() throws TException, SQLException {
 		isCancelled = false;
-		TSExecuteBatchStatementReq execReq = new TSExecuteBatchStatementReq(sessionHandle, batchSQLList);
+		// a copy, as the batch is cleared after it is executed
+		TSExecuteBatchStatementReq execReq = new TSExecuteBatchStatementReq(sessionHandle, new ArrayList<>(batchSQLList));
 		TSExecuteBatchStatementResp execResp = client.executeBatchStatement(execReq);
 		if(execResp.getStatus().statusCode == TS_StatusCode.SUCCESS_STATUS){
 			if (execResp.getResult() == null) {
@@ -1,26 +1,34 @@
 package cn.edu.tsinghua.iotdb.jdbc;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.ByteBuffer;
 import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.thrift.TException;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import cn.edu.tsinghua.service.rpc.thrift.TSExecuteBatchStatementReq;
 import cn.edu.tsinghua.service.rpc.thrift.TSExecuteBatchStatementResp;
 import cn.edu.tsinghua.service.rpc.thrift.TSIService;
+import cn.edu.tsinghua.service.rpc.thrift.TSInsertBatchReq;
 import cn.edu.tsinghua.service.rpc.thrift.TS_SessionHandle;
 import cn.edu.tsinghua.service.rpc.thrift.TS_Status;
 import cn.edu.tsinghua.service.rpc.thrift.TS_StatusCode;
@@ -116,4 +124,92 @@ public class BatchTest {
 		}
 		fail();
 	}
+
+	@Test
+	public void testInsertBatchByPrepareStatement() throws SQLException, TException {
+		PreparedStatement statement = new TsfilePrepareStatement(connection, client, sessHandle,
+				"insert into root.ln.wf01.wt01(timestamp, status, temperature) values(?, ?, ?)");
+		resp = new TSExecuteBatchStatementResp(Status_SUCCESS);
+		resp.setResult(Arrays.asList(Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO));
+		ArgumentCaptor<TSInsertBatchReq> captor = ArgumentCaptor.forClass(TSInsertBatchReq.class);
+		when(client.insertBatch(captor.capture())).thenReturn(resp);
+
+		statement.setLong(1, 1509465600000L);
+		statement.setBoolean(2, true);
+		statement.setFloat(3, 25.957603f);
+		statement.addBatch();
+		statement.setLong(1, 1509465660000L);
+		statement.setBoolean(2, false);
+		statement.setFloat(3, 24.359503f);
+		statement.addBatch();
+		int[] result = statement.executeBatch();
+		assertArrayEquals(new int[] { Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO }, result);
+		verify(client, never()).executeBatchStatement(any(TSExecuteBatchStatementReq.class));
+
+		TSInsertBatchReq req = captor.getValue();
+		assertEquals("root.ln.wf01.wt01", req.getDeviceId());
+		assertEquals(Arrays.asList("status", "temperature"), req.getMeasurements());
+		assertEquals(Arrays.asList("BOOLEAN", "FLOAT"), req.getDataTypes());
+		assertEquals(2, req.getRowCount());
+		ByteBuffer timestamps = req.bufferForTimestamps();
+		assertEquals(1509465600000L, timestamps.getLong());
+		assertEquals(1509465660000L, timestamps.getLong());
+		ByteBuffer status = req.getValues().get(0);
+		assertEquals(1, status.get());
+		assertEquals(0, status.get());
+		ByteBuffer temperature = req.getValues().get(1);
+		assertEquals(25.957603f, temperature.getFloat(), 0);
+		assertEquals(24.359503f, temperature.getFloat(), 0);
+	}
+
+	@Test(expected = SQLException.class)
+	public void testInsertBatchWithChangedType() throws SQLException {
+		PreparedStatement statement = new TsfilePrepareStatement(connection, client, sessHandle,
+				"insert into root.ln.wf01.wt01(timestamp, temperature) values(?, ?)");
+		statement.setLong(1, 1509465600000L);
+		statement.setFloat(2, 25.957603f);
+		statement.addBatch();
+		statement.setLong(1, 1509465660000L);
+		statement.setDouble(2, 24.359503);
+		statement.addBatch();
+	}
+
+	@Test
+	public void testInsertBatchTypeAfterClear() throws SQLException, TException {
+		PreparedStatement statement = new TsfilePrepareStatement(connection, client, sessHandle,
+				"insert into root.ln.wf01.wt01(timestamp, temperature) values(?, ?)");
+		resp = new TSExecuteBatchStatementResp(Status_SUCCESS);
+		resp.setResult(Arrays.asList(Statement.SUCCESS_NO_INFO));
+		ArgumentCaptor<TSInsertBatchReq> captor = ArgumentCaptor.forClass(TSInsertBatchReq.class);
+		when(client.insertBatch(captor.capture())).thenReturn(resp);
+
+		statement.setLong(1, 1509465600000L);
+		statement.setFloat(2, 25.957603f);
+		statement.addBatch();
+		statement.clearBatch();
+		// the data types are given again by the first row after the batch is cleared
+		statement.setLong(1, 1509465660000L);
+		statement.setDouble(2, 24.359503);
+		statement.addBatch();
+		statement.executeBatch();
+		assertEquals(Arrays.asList("DOUBLE"), captor.getValue().getDataTypes());
+		assertEquals(24.359503, captor.getValue().getValues().get(0).getDouble(), 0);
+	}
+
+	@Test
+	public void testSQLBatchByPrepareStatement() throws SQLException, TException {
+		PreparedStatement statement = new TsfilePrepareStatement(connection, client, sessHandle,
+				"insert into root.ln.wf01.wt01(timestamp, status) values(?, true)");
+		resp = new TSExecuteBatchStatementResp(Status_SUCCESS);
+		resp.setResult(Arrays.asList(Statement.SUCCESS_NO_INFO));
+		ArgumentCaptor<TSExecuteBatchStatementReq> captor = ArgumentCaptor.forClass(TSExecuteBatchStatementReq.class);
+		when(client.executeBatchStatement(captor.capture())).thenReturn(resp);
+
+		statement.setLong(1, 1509465600000L);
+		statement.addBatch();
+		statement.executeBatch();
+		assertEquals(Arrays.asList("insert into root.ln.wf01.wt01(timestamp, status) values(1509465600000, true)"),
+				captor.getValue().getStatements());
+		verify(client, never()).insertBatch(any(TSInsertBatchReq.class));
+	}
 }
@@ -0,0 +1,73 @@
+package cn.edu.tsinghua.iotdb.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.xerial.snappy.Snappy;
+
+import cn.edu.tsinghua.service.rpc.thrift.TSColumnarDataSet;
+import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.RowRecord;
+
+public class ColumnarRecordIteratorTest {
+
+	private TSColumnarDataSet createDataSet(boolean compress) throws IOException {
+		// 3 rows, s0 is INT32 with a null in row 1, s1 is TEXT with a value in row 2 only
+		ByteBuffer timestamps = ByteBuffer.allocate(24).putLong(1).putLong(2).putLong(3);
+		ByteBuffer s0 = ByteBuffer.allocate(8).putInt(10).putInt(30);
+		ByteBuffer s1 = ByteBuffer.allocate(6).putInt(2).put("ab".getBytes());
+		List<ByteBuffer> bitmaps = new ArrayList<>();
+		bitmaps.add(pack(new byte[] { 0b101 }, compress));
+		bitmaps.add(pack(new byte[] { 0b100 }, compress));
+		List<ByteBuffer> values = new ArrayList<>();
+		values.add(pack(s0.array(), compress));
+		values.add(pack(s1.array(), compress));
+		return new TSColumnarDataSet(3, Arrays.asList("root.d0.s0", "root.d0.s1"), Arrays.asList("INT32", "TEXT"),
+				pack(timestamps.array(), compress), bitmaps, values, compress);
+	}
+
+	private ByteBuffer pack(byte[] bytes, boolean compress) throws IOException {
+		return ByteBuffer.wrap(compress ? Snappy.compress(bytes) : bytes);
+	}
+
+	private void check(TSColumnarDataSet dataSet) throws IOException {
+		ColumnarRecordIterator iterator = new ColumnarRecordIterator(dataSet);
+		Path s0 = new Path("root.d0.s0");
+		Path s1 = new Path("root.d0.s1");
+
+		RowRecord record = iterator.next();
+		assertEquals(1, record.getTimestamp());
+		assertEquals(10, record.getFields().get(s0).getInt());
+		assertNull(record.getFields().get(s1));
+
+		record = iterator.next();
+		assertEquals(2, record.getTimestamp());
+		assertNull(record.getFields().get(s0));
+		assertNull(record.getFields().get(s1));
+		assertEquals(2, record.getFields().size());
+
+		record = iterator.next();
+		assertEquals(3, record.getTimestamp());
+		assertEquals(30, record.getFields().get(s0).getInt());
+		assertEquals("ab", record.getFields().get(s1).getStringValue());
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testDecode() throws IOException {
+		check(createDataSet(false));
+	}
+
+	@Test
+	public void testDecodeCompressed() throws IOException {
+		check(createDataSet(true));
+	}
+}
@@ -8,9 +8,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import cn.edu.tsinghua.service.rpc.thrift.TSExecuteBatchStatementReq;
+import cn.edu.tsinghua.service.rpc.thrift.TSExecuteBatchStatementResp;
 import cn.edu.tsinghua.service.rpc.thrift.TSExecuteStatementReq;
 import cn.edu.tsinghua.service.rpc.thrift.TSExecuteStatementResp;
 import cn.edu.tsinghua.service.rpc.thrift.TSGetOperationStatusResp;
+import cn.edu.tsinghua.service.rpc.thrift.TSInsertBatchReq;
 import cn.edu.tsinghua.service.rpc.thrift.TSOperationHandle;
 import cn.edu.tsinghua.service.rpc.thrift.TS_SessionHandle;
 import cn.edu.tsinghua.service.rpc.thrift.TS_Status;
@@ -18,11 +21,14 @@ import cn.edu.tsinghua.service.rpc.thrift.TS_StatusCode;
 import cn.edu.tsinghua.service.rpc.thrift.TSIService.Iface;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.BatchUpdateException;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.Collections;
 
 public class TsFilePrepareStatementTest {
 
@@ -247,4 +253,69 @@ public class TsFilePrepareStatementTest {
 		verify(client).executeStatement(argument.capture());
 		assertEquals("INSERT INTO root.ln.wf01.wt01(timestamp,a,b,c,d,e,f) VALUES(2017-11-01 00:13:00.000,false,123,123234345,123.423,-1323.0,'abc')", argument.getValue().getStatement());
 	}
+
+	@SuppressWarnings("resource")
+	@Test
+	public void testMixedBatch() throws Exception {
+		String sql = "INSERT INTO root.ln.wf01.wt01(timestamp,a) VALUES(?,?)";
+		TsfilePrepareStatement rows = new TsfilePrepareStatement(connection, client, sessHandle, sql);
+		rows.setLong(1, 1);
+		rows.setInt(2, 1);
+		rows.addBatch();
+		try {
+			rows.addBatch("SET STORAGE GROUP TO root.ln");
+			fail();
+		} catch (SQLException e) {
+			// expected
+		}
+
+		TsfilePrepareStatement sqls = new TsfilePrepareStatement(connection, client, sessHandle, sql);
+		sqls.addBatch("SET STORAGE GROUP TO root.ln");
+		sqls.setLong(1, 1);
+		sqls.setInt(2, 1);
+		try {
+			sqls.addBatch();
+			fail();
+		} catch (SQLException e) {
+			// expected
+		}
+	}
+
+	@SuppressWarnings("resource")
+	@Test
+	public void testBatchClearedAfterFailure() throws Exception {
+		when(client.insertBatch(any(TSInsertBatchReq.class)))
+				.thenReturn(new TSExecuteBatchStatementResp(new TS_Status(TS_StatusCode.ERROR_STATUS)));
+		when(client.executeBatchStatement(any(TSExecuteBatchStatementReq.class)))
+				.thenReturn(new TSExecuteBatchStatementResp(new TS_Status(TS_StatusCode.ERROR_STATUS)))
+				.thenReturn(new TSExecuteBatchStatementResp(Status_SUCCESS));
+		String sql = "INSERT INTO root.ln.wf01.wt01(timestamp,a) VALUES(?,?)";
+		TsfilePrepareStatement ps = new TsfilePrepareStatement(connection, client, sessHandle, sql);
+		ps.setLong(1, 1);
+		ps.setInt(2, 1);
+		ps.addBatch();
+		try {
+			ps.executeBatch();
+			fail();
+		} catch (BatchUpdateException e) {
+			// expected
+		}
+		// the failed rows are dropped, so SQL can be added
+		ps.addBatch("SET STORAGE GROUP TO root.ln");
+		try {
+			ps.executeBatch();
+			fail();
+		} catch (BatchUpdateException e) {
+			// expected
+		}
+		ps.addBatch("CREATE TIMESERIES root.ln.wf01.wt01.a WITH DATATYPE=INT32, ENCODING=RLE");
+		ps.executeBatch();
+
+		ArgumentCaptor<TSExecuteBatchStatementReq> argument = ArgumentCaptor.forClass(TSExecuteBatchStatementReq.class);
+		verify(client, times(2)).executeBatchStatement(argument.capture());
+		assertEquals(Collections.singletonList("SET STORAGE GROUP TO root.ln"),
+				argument.getAllValues().get(0).getStatements());
+		assertEquals(Collections.singletonList("CREATE TIMESERIES root.ln.wf01.wt01.a WITH DATATYPE=INT32, ENCODING=RLE"),
+				argument.getAllValues().get(1).getStatements());
+	}
 }
@@ -129,6 +129,29 @@ struct TSExecuteBatchStatementReq{
   2: required list<string> statements
 }
 
+// InsertBatch()
+//
+// Insert rows of one device without parsing SQL. Values are sent column by column: timestamps holds rowCount
+// big-endian longs, and values holds one column per measurement, encoded according to its data type (BOOLEAN 1 byte,
+// INT32 and FLOAT 4 bytes, INT64 and DOUBLE 8 bytes, TEXT a 4-byte length followed by the UTF-8 bytes).
+struct TSInsertBatchReq{
+  // The session to execute the insertion against
+  1: required TS_SessionHandle sessionHandle
+
+  2: required string deviceId
+
+  3: required list<string> measurements
+
+  // TSDataType names, one for each measurement
+  4: required list<string> dataTypes
+
+  5: required binary timestamps
+
+  6: required list<binary> values
+
+  7: required i32 rowCount
+}
+
 
 struct TSGetOperationStatusReq {
   // Session to run this request against
@@ -184,15 +207,35 @@ struct TSQueryDataSet{
 	1: required list<TSRowRecord> records
 }
 
+// A block of rows in columns. Column i is named columns[i], bit r of bitmaps[i] (bit r%8 of byte r/8) is set if row r
+// has a value in it, and values[i] holds the values of these rows only, encoded according to dataTypes[i] (BOOLEAN 1
+// byte, INT32 and FLOAT 4 bytes, INT64 and DOUBLE 8 bytes, TEXT a 4-byte length followed by the bytes). timestamps
+// holds rowCount big-endian longs. If compressed is true, timestamps, bitmaps and values are each Snappy-compressed.
+struct TSColumnarDataSet{
+	1: required i32 rowCount
+	2: required list<string> columns
+	// TSDataType names, any type for a column without value
+	3: required list<string> dataTypes
+	4: required binary timestamps
+	5: required list<binary> bitmaps
+	6: required list<binary> values
+	7: required bool compressed
+}
+
 struct TSFetchResultsReq{
 	1: required string statement
 	2: required i32 fetch_size
+	// return the rows in a TSColumnarDataSet instead of a TSQueryDataSet
+	3: optional bool columnar
+	// compress the TSColumnarDataSet
+	4: optional bool compress
 }
 
 struct TSFetchResultsResp{
 	1: required TS_Status status
 	2: required bool hasResultSet
 	3: optional TSQueryDataSet queryDataSet
+	4: optional TSColumnarDataSet columnarDataSet
 }
 
 struct TSFetchMetadataResp{
@@ -243,6 +286,8 @@ service TSIService {
 
 	TSExecuteBatchStatementResp executeBatchStatement(1:TSExecuteBatchStatementReq req);
 
+	TSExecuteBatchStatementResp insertBatch(1:TSInsertBatchReq req);
+
 	TSExecuteStatementResp executeQueryStatement(1:TSExecuteStatementReq req);
 
 	TSExecuteStatementResp executeUpdateStatement(1:TSExecuteStatementReq req);
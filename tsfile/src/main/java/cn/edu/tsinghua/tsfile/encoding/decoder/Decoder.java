@@ -80,5 +80,74 @@ public abstract class Decoder {
         throw new TSFileDecodingException("Method readBigDecimal is not supproted by Decoder");
     }
 
+    /**
+     * Decode at most {@code length} values into {@code values} starting from {@code offset}. The decoders override the
+     * batch methods of their data types to decode a whole pack at a time.
+     *
+     * @return the number of decoded values, which is less than {@code length} only if the stream is used up
+     */
+    public int readInts(InputStream in, int[] values, int offset, int length) throws IOException {
+        int count = 0;
+        while (count < length && hasNext(in)) {
+            values[offset + count++] = readInt(in);
+        }
+        return count;
+    }
+
+    /**
+     * @see #readInts(InputStream, int[], int, int)
+     */
+    public int readLongs(InputStream in, long[] values, int offset, int length) throws IOException {
+        int count = 0;
+        while (count < length && hasNext(in)) {
+            values[offset + count++] = readLong(in);
+        }
+        return count;
+    }
+
+    /**
+     * @see #readInts(InputStream, int[], int, int)
+     */
+    public int readFloats(InputStream in, float[] values, int offset, int length) throws IOException {
+        int count = 0;
+        while (count < length && hasNext(in)) {
+            values[offset + count++] = readFloat(in);
+        }
+        return count;
+    }
+
+    /**
+     * @see #readInts(InputStream, int[], int, int)
+     */
+    public int readDoubles(InputStream in, double[] values, int offset, int length) throws IOException {
+        int count = 0;
+        while (count < length && hasNext(in)) {
+            values[offset + count++] = readDouble(in);
+        }
+        return count;
+    }
+
+    /**
+     * @see #readInts(InputStream, int[], int, int)
+     */
+    public int readBooleans(InputStream in, boolean[] values, int offset, int length) throws IOException {
+        int count = 0;
+        while (count < length && hasNext(in)) {
+            values[offset + count++] = readBoolean(in);
+        }
+        return count;
+    }
+
+    /**
+     * @see #readInts(InputStream, int[], int, int)
+     */
+    public int readBinaries(InputStream in, Binary[] values, int offset, int length) throws IOException {
+        int count = 0;
+        while (count < length && hasNext(in)) {
+            values[offset + count++] = readBinary(in);
+        }
+        return count;
+    }
+
     public abstract boolean hasNext(InputStream in) throws IOException;
 }
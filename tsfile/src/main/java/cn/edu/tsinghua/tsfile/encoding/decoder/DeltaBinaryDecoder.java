@@ -134,6 +134,28 @@ public abstract class DeltaBinaryDecoder extends Decoder {
             }
         }
 
+        /**
+         * copy the decoded values of the current pack at once
+         */
+        @Override
+        public int readInts(InputStream in, int[] values, int offset, int length) throws IOException {
+            int count = 0;
+            while (count < length) {
+                if (nextReadIndex == readIntTotalCount) {
+                    if (in.available() <= 0) {
+                        break;
+                    }
+                    values[offset + count++] = loadIntBatch(in);
+                    continue;
+                }
+                int num = Math.min(length - count, readIntTotalCount - nextReadIndex);
+                System.arraycopy(data, nextReadIndex, values, offset + count, num);
+                nextReadIndex += num;
+                count += num;
+            }
+            return count;
+        }
+
         @Override
         protected void readHeader(InputStream in) throws IOException {
             minDeltaBase = BytesUtils.readInt(in);
@@ -220,6 +242,28 @@ public abstract class DeltaBinaryDecoder extends Decoder {
             }
         }
 
+        /**
+         * copy the decoded values of the current pack at once
+         */
+        @Override
+        public int readLongs(InputStream in, long[] values, int offset, int length) throws IOException {
+            int count = 0;
+            while (count < length) {
+                if (nextReadIndex == readIntTotalCount) {
+                    if (in.available() <= 0) {
+                        break;
+                    }
+                    values[offset + count++] = loadIntBatch(in);
+                    continue;
+                }
+                int num = Math.min(length - count, readIntTotalCount - nextReadIndex);
+                System.arraycopy(data, nextReadIndex, values, offset + count, num);
+                nextReadIndex += num;
+                count += num;
+            }
+            return count;
+        }
+
         @Override
         protected void readHeader(InputStream in) throws IOException {
             minDeltaBase = BytesUtils.readLong(in);
@@ -79,6 +79,34 @@ public class FloatDecoder extends Decoder {
         return result;
     }
 
+    @Override
+    public int readFloats(InputStream in, float[] values, int offset, int length) throws IOException {
+        if (!hasNext(in)) {
+            return 0;
+        }
+        readMaxPointValue(in);
+        int[] intValues = new int[length];
+        int count = decoder.readInts(in, intValues, 0, length);
+        for (int i = 0; i < count; i++) {
+            values[offset + i] = (float) (intValues[i] / maxPointValue);
+        }
+        return count;
+    }
+
+    @Override
+    public int readDoubles(InputStream in, double[] values, int offset, int length) throws IOException {
+        if (!hasNext(in)) {
+            return 0;
+        }
+        readMaxPointValue(in);
+        long[] longValues = new long[length];
+        int count = decoder.readLongs(in, longValues, 0, length);
+        for (int i = 0; i < count; i++) {
+            values[offset + i] = longValues[i] / maxPointValue;
+        }
+        return count;
+    }
+
     private void readMaxPointValue(InputStream in) {
         try {
             if (!isMaxPointNumberRead) {
@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 /**
  * Decoder for long value using rle or bit-packing
@@ -79,6 +80,39 @@ public class LongRleDecoder extends RleDecoder {
         return result;
     }
 
+    /**
+     * fill a whole rle run or copy a whole bit-packed buffer at once
+     */
+    @Override
+    public int readLongs(InputStream in, long[] values, int offset, int length) throws IOException {
+        int count = 0;
+        while (count < length && hasNext(in)) {
+            if (!isLengthAndBitWidthReaded) {
+                readLengthAndBitWidth(in);
+            }
+            if (currentCount == 0) {
+                readNext();
+            }
+            int num = Math.min(length - count, currentCount);
+            switch (mode) {
+                case RLE:
+                    Arrays.fill(values, offset + count, offset + count + num, currentValue);
+                    break;
+                case BIT_PACKED:
+                    System.arraycopy(currentBuffer, bitPackingNum - currentCount, values, offset + count, num);
+                    break;
+                default:
+                    throw new TSFileDecodingException(String.format("tsfile-encoding LongRleDecoder: not a valid mode %s", mode));
+            }
+            currentCount -= num;
+            count += num;
+            if (!hasNextPackage()) {
+                isLengthAndBitWidthReaded = false;
+            }
+        }
+        return count;
+    }
+
     @Override
     protected void initPacker() {
         packer = new LongPacker(bitWidth);
@@ -10,6 +10,8 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * @author Zhang Jinrui
@@ -114,6 +116,67 @@ public class PlainDecoder extends Decoder {
         return new Binary(buf);
     }
 
+    @Override
+    public int readInts(InputStream in, int[] values, int offset, int length) throws IOException {
+        if (endianType != EndianType.LITTLE_ENDIAN) {
+            return super.readInts(in, values, offset, length);
+        }
+        ByteBuffer buffer = readBytes(in, length, 4);
+        int count = buffer.remaining() / 4;
+        buffer.asIntBuffer().get(values, offset, count);
+        return count;
+    }
+
+    @Override
+    public int readLongs(InputStream in, long[] values, int offset, int length) throws IOException {
+        if (endianType != EndianType.LITTLE_ENDIAN) {
+            return super.readLongs(in, values, offset, length);
+        }
+        ByteBuffer buffer = readBytes(in, length, 8);
+        int count = buffer.remaining() / 8;
+        buffer.asLongBuffer().get(values, offset, count);
+        return count;
+    }
+
+    @Override
+    public int readFloats(InputStream in, float[] values, int offset, int length) throws IOException {
+        if (endianType != EndianType.LITTLE_ENDIAN) {
+            return super.readFloats(in, values, offset, length);
+        }
+        ByteBuffer buffer = readBytes(in, length, 4);
+        int count = buffer.remaining() / 4;
+        buffer.asFloatBuffer().get(values, offset, count);
+        return count;
+    }
+
+    @Override
+    public int readDoubles(InputStream in, double[] values, int offset, int length) throws IOException {
+        if (endianType != EndianType.LITTLE_ENDIAN) {
+            return super.readDoubles(in, values, offset, length);
+        }
+        ByteBuffer buffer = readBytes(in, length, 8);
+        int count = buffer.remaining() / 8;
+        buffer.asDoubleBuffer().get(values, offset, count);
+        return count;
+    }
+
+    /**
+     * read the bytes of at most {@code length} values of {@code valueSize} bytes at once
+     */
+    private ByteBuffer readBytes(InputStream in, int length, int valueSize) throws IOException {
+        int size = (int) Math.min((long) length * valueSize, in.available() / valueSize * valueSize);
+        byte[] bytes = new byte[size];
+        int readSize = 0;
+        while (readSize < size) {
+            int n = in.read(bytes, readSize, size - readSize);
+            if (n < 0) {
+                break;
+            }
+            readSize += n;
+        }
+        return ByteBuffer.wrap(bytes, 0, readSize - readSize % valueSize).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
     @Override
     public boolean hasNext(InputStream in) throws IOException {
         return in.available() > 0;
@@ -0,0 +1,163 @@
+package cn.edu.tsinghua.tsfile.timeseries.filterV2.basic;
+
+import cn.edu.tsinghua.tsfile.common.exception.filter.UnSupportFilterDataTypeException;
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.common.utils.BytesUtils;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.visitor.impl.PrimitiveFilterVisitor;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.BatchData;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * A {@link Filter} compiled for the series of one data type by {@link PrimitiveFilterVisitor}, the points and the
+ * digests are tested on primitive values, without boxing them or visiting the filter tree.
+ * </p>
+ * The values are compared as long for INT32, INT64, ENUMS and BOOLEAN (false is 0 and true is 1), as double for FLOAT
+ * and DOUBLE, and as {@link Binary} for TEXT.
+ */
+public abstract class PrimitiveFilter {
+
+    protected final TSDataType dataType;
+
+    protected PrimitiveFilter(TSDataType dataType) {
+        this.dataType = dataType;
+    }
+
+    public TSDataType getDataType() {
+        return dataType;
+    }
+
+    public abstract boolean satisfy(long time, long value);
+
+    public abstract boolean satisfy(long time, double value);
+
+    public abstract boolean satisfy(long time, Binary value);
+
+    /**
+     * @return false if no point with the time in [minTime, maxTime] and the value in [minValue, maxValue] is satisfied
+     */
+    public abstract boolean satisfyDigest(long minTime, long maxTime, long minValue, long maxValue);
+
+    public abstract boolean satisfyDigest(long minTime, long maxTime, double minValue, double maxValue);
+
+    public abstract boolean satisfyDigest(long minTime, long maxTime, Binary minValue, Binary maxValue);
+
+    /**
+     * Test a digest whose min and max values are serialized as in the page headers and the chunk metadata.
+     */
+    public boolean satisfyDigest(long minTime, long maxTime, ByteBuffer minValue, ByteBuffer maxValue) {
+        switch (dataType) {
+            case BOOLEAN:
+                return satisfyDigest(minTime, maxTime, toLong(BytesUtils.bytesToBool(minValue.array())),
+                        toLong(BytesUtils.bytesToBool(maxValue.array())));
+            case INT32:
+            case ENUMS:
+                return satisfyDigest(minTime, maxTime, BytesUtils.bytesToInt(minValue.array()),
+                        BytesUtils.bytesToInt(maxValue.array()));
+            case INT64:
+                return satisfyDigest(minTime, maxTime, BytesUtils.bytesToLong(minValue.array()),
+                        BytesUtils.bytesToLong(maxValue.array()));
+            case FLOAT:
+                return satisfyDigest(minTime, maxTime, BytesUtils.bytesToFloat(minValue.array()),
+                        BytesUtils.bytesToFloat(maxValue.array()));
+            case DOUBLE:
+                return satisfyDigest(minTime, maxTime, BytesUtils.bytesToDouble(minValue.array()),
+                        BytesUtils.bytesToDouble(maxValue.array()));
+            case TEXT:
+                return satisfyDigest(minTime, maxTime, new Binary(BytesUtils.bytesToString(minValue.array())),
+                        new Binary(BytesUtils.bytesToString(maxValue.array())));
+            default:
+                throw new UnSupportFilterDataTypeException("PrimitiveFilter unsupported datatype : " + dataType);
+        }
+    }
+
+    public boolean satisfy(TimeValuePair timeValuePair) {
+        long time = timeValuePair.getTimestamp();
+        TsPrimitiveType value = timeValuePair.getValue();
+        switch (dataType) {
+            case BOOLEAN:
+                return satisfy(time, toLong(value.getBoolean()));
+            case INT32:
+            case ENUMS:
+                return satisfy(time, (long) value.getInt());
+            case INT64:
+                return satisfy(time, value.getLong());
+            case FLOAT:
+                return satisfy(time, (double) value.getFloat());
+            case DOUBLE:
+                return satisfy(time, value.getDouble());
+            case TEXT:
+                return satisfy(time, value.getBinary());
+            default:
+                throw new UnSupportFilterDataTypeException("PrimitiveFilter unsupported datatype : " + dataType);
+        }
+    }
+
+    /**
+     * Test all the points of the batch at once.
+     *
+     * @param selection set to whether the point at the same index is satisfied, at least as long as the batch
+     * @return the number of the satisfied points
+     */
+    public int select(BatchData batchData, boolean[] selection) {
+        long[] timestamps = batchData.getTimestamps();
+        int length = batchData.length();
+        int count = 0;
+        switch (dataType) {
+            case BOOLEAN:
+                boolean[] booleanValues = batchData.getBooleanValues();
+                for (int i = 0; i < length; i++) {
+                    selection[i] = satisfy(timestamps[i], toLong(booleanValues[i]));
+                    count += selection[i] ? 1 : 0;
+                }
+                break;
+            case INT32:
+            case ENUMS:
+                int[] intValues = batchData.getIntValues();
+                for (int i = 0; i < length; i++) {
+                    selection[i] = satisfy(timestamps[i], (long) intValues[i]);
+                    count += selection[i] ? 1 : 0;
+                }
+                break;
+            case INT64:
+                long[] longValues = batchData.getLongValues();
+                for (int i = 0; i < length; i++) {
+                    selection[i] = satisfy(timestamps[i], longValues[i]);
+                    count += selection[i] ? 1 : 0;
+                }
+                break;
+            case FLOAT:
+                float[] floatValues = batchData.getFloatValues();
+                for (int i = 0; i < length; i++) {
+                    selection[i] = satisfy(timestamps[i], (double) floatValues[i]);
+                    count += selection[i] ? 1 : 0;
+                }
+                break;
+            case DOUBLE:
+                double[] doubleValues = batchData.getDoubleValues();
+                for (int i = 0; i < length; i++) {
+                    selection[i] = satisfy(timestamps[i], doubleValues[i]);
+                    count += selection[i] ? 1 : 0;
+                }
+                break;
+            case TEXT:
+                Binary[] binaryValues = batchData.getBinaryValues();
+                for (int i = 0; i < length; i++) {
+                    selection[i] = satisfy(timestamps[i], binaryValues[i]);
+                    count += selection[i] ? 1 : 0;
+                }
+                break;
+            default:
+                throw new UnSupportFilterDataTypeException("PrimitiveFilter unsupported datatype : " + dataType);
+        }
+        return count;
+    }
+
+    private static long toLong(boolean value) {
+        return value ? 1 : 0;
+    }
+}
@@ -0,0 +1,405 @@
+package cn.edu.tsinghua.tsfile.timeseries.filterV2.visitor.impl;
+
+import cn.edu.tsinghua.tsfile.common.exception.filter.UnSupportFilterDataTypeException;
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.basic.Filter;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.basic.PrimitiveFilter;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.basic.UnaryFilter;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.factory.FilterType;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.operator.*;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.visitor.AbstractFilterVisitor;
+
+/**
+ * Compiles a {@link Filter} into a {@link PrimitiveFilter} for the series of one data type. The filter is visited
+ * once, the constants of the value filters are converted to the primitive type the values are compared as.
+ */
+public class PrimitiveFilterVisitor implements AbstractFilterVisitor<PrimitiveFilter> {
+
+    private TSDataType dataType;
+
+    public PrimitiveFilterVisitor(TSDataType dataType) {
+        this.dataType = dataType;
+    }
+
+    public PrimitiveFilter compile(Filter<?> filter) {
+        return filter.accept(this);
+    }
+
+    @Override
+    public <T extends Comparable<T>> PrimitiveFilter visit(Eq<T> eq) {
+        return comparison(CompareOperator.EQ, eq);
+    }
+
+    @Override
+    public <T extends Comparable<T>> PrimitiveFilter visit(NotEq<T> notEq) {
+        return comparison(CompareOperator.NOT_EQ, notEq);
+    }
+
+    @Override
+    public <T extends Comparable<T>> PrimitiveFilter visit(LtEq<T> ltEq) {
+        return comparison(CompareOperator.LT_EQ, ltEq);
+    }
+
+    @Override
+    public <T extends Comparable<T>> PrimitiveFilter visit(GtEq<T> gtEq) {
+        return comparison(CompareOperator.GT_EQ, gtEq);
+    }
+
+    @Override
+    public <T extends Comparable<T>> PrimitiveFilter visit(Gt<T> gt) {
+        return comparison(CompareOperator.GT, gt);
+    }
+
+    @Override
+    public <T extends Comparable<T>> PrimitiveFilter visit(Lt<T> lt) {
+        return comparison(CompareOperator.LT, lt);
+    }
+
+    @Override
+    public <T extends Comparable<T>> PrimitiveFilter visit(Not<T> not) {
+        return new NotFilter(dataType, compile(not.getFilterExpression()));
+    }
+
+    @Override
+    public <T extends Comparable<T>> PrimitiveFilter visit(And<T> and) {
+        return new AndFilter(dataType, compile(and.getLeft()), compile(and.getRight()));
+    }
+
+    @Override
+    public <T extends Comparable<T>> PrimitiveFilter visit(Or<T> or) {
+        return new OrFilter(dataType, compile(or.getLeft()), compile(or.getRight()));
+    }
+
+    @Override
+    public <T extends Comparable<T>> PrimitiveFilter visit(NoRestriction<T> noFilter) {
+        return new NoRestrictionFilter(dataType);
+    }
+
+    private PrimitiveFilter comparison(CompareOperator operator, UnaryFilter<?> unaryFilter) {
+        Object value = unaryFilter.getValue();
+        if (unaryFilter.getFilterType() == FilterType.TIME_FILTER) {
+            return new TimeComparison(dataType, operator, ((Number) value).longValue());
+        }
+        switch (dataType) {
+            case BOOLEAN:
+                return new ValueComparison(dataType, operator, (Boolean) value ? 1 : 0, 0, null);
+            case INT32:
+            case INT64:
+            case ENUMS:
+                return new ValueComparison(dataType, operator, ((Number) value).longValue(), 0, null);
+            case FLOAT:
+            case DOUBLE:
+                return new ValueComparison(dataType, operator, 0, ((Number) value).doubleValue(), null);
+            case TEXT:
+                return new ValueComparison(dataType, operator, 0, 0, (Binary) value);
+            default:
+                throw new UnSupportFilterDataTypeException("PrimitiveFilter unsupported datatype : " + dataType);
+        }
+    }
+
+    /**
+     * Tells from the sign of value.compareTo(constant) whether the value is satisfied, and from the signs of
+     * min.compareTo(constant) and max.compareTo(constant) whether a value in [min, max] may be satisfied.
+     */
+    private enum CompareOperator {
+        EQ, NOT_EQ, LT, LT_EQ, GT, GT_EQ;
+
+        boolean satisfy(int compareResult) {
+            switch (this) {
+                case EQ:
+                    return compareResult == 0;
+                case NOT_EQ:
+                    return compareResult != 0;
+                case LT:
+                    return compareResult < 0;
+                case LT_EQ:
+                    return compareResult <= 0;
+                case GT:
+                    return compareResult > 0;
+                default:
+                    return compareResult >= 0;
+            }
+        }
+
+        boolean satisfyDigest(int minCompareResult, int maxCompareResult) {
+            switch (this) {
+                case EQ:
+                    return minCompareResult <= 0 && maxCompareResult >= 0;
+                case NOT_EQ:
+                    return minCompareResult != 0 || maxCompareResult != 0;
+                case LT:
+                    return minCompareResult < 0;
+                case LT_EQ:
+                    return minCompareResult <= 0;
+                case GT:
+                    return maxCompareResult > 0;
+                default:
+                    return maxCompareResult >= 0;
+            }
+        }
+    }
+
+    private static class TimeComparison extends PrimitiveFilter {
+
+        private final CompareOperator operator;
+        private final long constant;
+
+        TimeComparison(TSDataType dataType, CompareOperator operator, long constant) {
+            super(dataType);
+            this.operator = operator;
+            this.constant = constant;
+        }
+
+        @Override
+        public boolean satisfy(long time, long value) {
+            return operator.satisfy(Long.compare(time, constant));
+        }
+
+        @Override
+        public boolean satisfy(long time, double value) {
+            return operator.satisfy(Long.compare(time, constant));
+        }
+
+        @Override
+        public boolean satisfy(long time, Binary value) {
+            return operator.satisfy(Long.compare(time, constant));
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, long minValue, long maxValue) {
+            return operator.satisfyDigest(Long.compare(minTime, constant), Long.compare(maxTime, constant));
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, double minValue, double maxValue) {
+            return operator.satisfyDigest(Long.compare(minTime, constant), Long.compare(maxTime, constant));
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, Binary minValue, Binary maxValue) {
+            return operator.satisfyDigest(Long.compare(minTime, constant), Long.compare(maxTime, constant));
+        }
+    }
+
+    /**
+     * Only the constant of the type the values are compared as is used.
+     */
+    private static class ValueComparison extends PrimitiveFilter {
+
+        private final CompareOperator operator;
+        private final long longConstant;
+        private final double doubleConstant;
+        private final Binary binaryConstant;
+
+        ValueComparison(TSDataType dataType, CompareOperator operator, long longConstant, double doubleConstant,
+                        Binary binaryConstant) {
+            super(dataType);
+            this.operator = operator;
+            this.longConstant = longConstant;
+            this.doubleConstant = doubleConstant;
+            this.binaryConstant = binaryConstant;
+        }
+
+        @Override
+        public boolean satisfy(long time, long value) {
+            return operator.satisfy(Long.compare(value, longConstant));
+        }
+
+        @Override
+        public boolean satisfy(long time, double value) {
+            return operator.satisfy(Double.compare(value, doubleConstant));
+        }
+
+        @Override
+        public boolean satisfy(long time, Binary value) {
+            return operator.satisfy(value.compareTo(binaryConstant));
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, long minValue, long maxValue) {
+            return operator.satisfyDigest(Long.compare(minValue, longConstant), Long.compare(maxValue, longConstant));
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, double minValue, double maxValue) {
+            return operator.satisfyDigest(Double.compare(minValue, doubleConstant),
+                    Double.compare(maxValue, doubleConstant));
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, Binary minValue, Binary maxValue) {
+            return operator.satisfyDigest(minValue.compareTo(binaryConstant), maxValue.compareTo(binaryConstant));
+        }
+    }
+
+    private static class AndFilter extends PrimitiveFilter {
+
+        private final PrimitiveFilter left;
+        private final PrimitiveFilter right;
+
+        AndFilter(TSDataType dataType, PrimitiveFilter left, PrimitiveFilter right) {
+            super(dataType);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean satisfy(long time, long value) {
+            return left.satisfy(time, value) && right.satisfy(time, value);
+        }
+
+        @Override
+        public boolean satisfy(long time, double value) {
+            return left.satisfy(time, value) && right.satisfy(time, value);
+        }
+
+        @Override
+        public boolean satisfy(long time, Binary value) {
+            return left.satisfy(time, value) && right.satisfy(time, value);
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, long minValue, long maxValue) {
+            return left.satisfyDigest(minTime, maxTime, minValue, maxValue)
+                    && right.satisfyDigest(minTime, maxTime, minValue, maxValue);
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, double minValue, double maxValue) {
+            return left.satisfyDigest(minTime, maxTime, minValue, maxValue)
+                    && right.satisfyDigest(minTime, maxTime, minValue, maxValue);
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, Binary minValue, Binary maxValue) {
+            return left.satisfyDigest(minTime, maxTime, minValue, maxValue)
+                    && right.satisfyDigest(minTime, maxTime, minValue, maxValue);
+        }
+    }
+
+    private static class OrFilter extends PrimitiveFilter {
+
+        private final PrimitiveFilter left;
+        private final PrimitiveFilter right;
+
+        OrFilter(TSDataType dataType, PrimitiveFilter left, PrimitiveFilter right) {
+            super(dataType);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean satisfy(long time, long value) {
+            return left.satisfy(time, value) || right.satisfy(time, value);
+        }
+
+        @Override
+        public boolean satisfy(long time, double value) {
+            return left.satisfy(time, value) || right.satisfy(time, value);
+        }
+
+        @Override
+        public boolean satisfy(long time, Binary value) {
+            return left.satisfy(time, value) || right.satisfy(time, value);
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, long minValue, long maxValue) {
+            return left.satisfyDigest(minTime, maxTime, minValue, maxValue)
+                    || right.satisfyDigest(minTime, maxTime, minValue, maxValue);
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, double minValue, double maxValue) {
+            return left.satisfyDigest(minTime, maxTime, minValue, maxValue)
+                    || right.satisfyDigest(minTime, maxTime, minValue, maxValue);
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, Binary minValue, Binary maxValue) {
+            return left.satisfyDigest(minTime, maxTime, minValue, maxValue)
+                    || right.satisfyDigest(minTime, maxTime, minValue, maxValue);
+        }
+    }
+
+    /**
+     * A digest satisfying the inner filter may still have points not satisfying it, so the digests are never pruned.
+     */
+    private static class NotFilter extends PrimitiveFilter {
+
+        private final PrimitiveFilter filter;
+
+        NotFilter(TSDataType dataType, PrimitiveFilter filter) {
+            super(dataType);
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean satisfy(long time, long value) {
+            return !filter.satisfy(time, value);
+        }
+
+        @Override
+        public boolean satisfy(long time, double value) {
+            return !filter.satisfy(time, value);
+        }
+
+        @Override
+        public boolean satisfy(long time, Binary value) {
+            return !filter.satisfy(time, value);
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, long minValue, long maxValue) {
+            return true;
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, double minValue, double maxValue) {
+            return true;
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, Binary minValue, Binary maxValue) {
+            return true;
+        }
+    }
+
+    private static class NoRestrictionFilter extends PrimitiveFilter {
+
+        NoRestrictionFilter(TSDataType dataType) {
+            super(dataType);
+        }
+
+        @Override
+        public boolean satisfy(long time, long value) {
+            return true;
+        }
+
+        @Override
+        public boolean satisfy(long time, double value) {
+            return true;
+        }
+
+        @Override
+        public boolean satisfy(long time, Binary value) {
+            return true;
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, long minValue, long maxValue) {
+            return true;
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, double minValue, double maxValue) {
+            return true;
+        }
+
+        @Override
+        public boolean satisfyDigest(long minTime, long maxTime, Binary minValue, Binary maxValue) {
+            return true;
+        }
+    }
+}
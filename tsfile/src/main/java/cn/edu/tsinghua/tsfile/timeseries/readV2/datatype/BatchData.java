@@ -0,0 +1,282 @@
+package cn.edu.tsinghua.tsfile.timeseries.readV2.datatype;
+
+import cn.edu.tsinghua.tsfile.common.exception.UnSupportedDataTypeException;
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType.*;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A batch of points of one series, the timestamps and the values are kept in primitive arrays rather than one
+ * {@link TimeValuePair} per point. The values of INT32 and ENUMS are both kept as int.
+ * </p>
+ * A batch is read like an iterator:
+ * <pre>
+ * while (batchData.hasNext()) {
+ *     long time = batchData.currentTime();
+ *     int value = batchData.getInt();
+ *     batchData.next();
+ * }
+ * </pre>
+ */
+public class BatchData {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private TSDataType dataType;
+    private int length;
+    private int index;
+
+    private long[] timestamps;
+    private boolean[] booleanValues;
+    private int[] intValues;
+    private long[] longValues;
+    private float[] floatValues;
+    private double[] doubleValues;
+    private Binary[] binaryValues;
+
+    public BatchData(TSDataType dataType) {
+        this(dataType, DEFAULT_CAPACITY);
+    }
+
+    public BatchData(TSDataType dataType, int capacity) {
+        this.dataType = dataType;
+        this.length = 0;
+        this.index = 0;
+        this.timestamps = new long[capacity];
+        switch (dataType) {
+            case BOOLEAN:
+                booleanValues = new boolean[capacity];
+                break;
+            case INT32:
+            case ENUMS:
+                intValues = new int[capacity];
+                break;
+            case INT64:
+                longValues = new long[capacity];
+                break;
+            case FLOAT:
+                floatValues = new float[capacity];
+                break;
+            case DOUBLE:
+                doubleValues = new double[capacity];
+                break;
+            case TEXT:
+                binaryValues = new Binary[capacity];
+                break;
+            default:
+                throw new UnSupportedDataTypeException("Unsupported data type :" + dataType);
+        }
+    }
+
+    public TSDataType getDataType() {
+        return dataType;
+    }
+
+    /**
+     * @return the number of points in this batch
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Only the points before the length are valid, used after filling the arrays directly.
+     */
+    public void setLength(int length) {
+        this.length = length;
+    }
+
+    public boolean hasNext() {
+        return index < length;
+    }
+
+    public void next() {
+        index++;
+    }
+
+    /**
+     * The index of the current point in the arrays, the points before it are consumed or skipped.
+     */
+    public int getCurIdx() {
+        return index;
+    }
+
+    /**
+     * Move to the first point whose time is not less than the timestamp, the timestamps of a batch are ascending.
+     */
+    public void skipTo(long timestamp) {
+        if (index >= length || timestamps[index] >= timestamp) {
+            return;
+        }
+        int low = index + 1;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        index = low;
+    }
+
+    public long currentTime() {
+        return timestamps[index];
+    }
+
+    public boolean getBoolean() {
+        return booleanValues[index];
+    }
+
+    public int getInt() {
+        return intValues[index];
+    }
+
+    public long getLong() {
+        return longValues[index];
+    }
+
+    public float getFloat() {
+        return floatValues[index];
+    }
+
+    public double getDouble() {
+        return doubleValues[index];
+    }
+
+    public Binary getBinary() {
+        return binaryValues[index];
+    }
+
+    public TsPrimitiveType currentValue() {
+        switch (dataType) {
+            case BOOLEAN:
+                return new TsBoolean(booleanValues[index]);
+            case INT32:
+            case ENUMS:
+                return new TsInt(intValues[index]);
+            case INT64:
+                return new TsLong(longValues[index]);
+            case FLOAT:
+                return new TsFloat(floatValues[index]);
+            case DOUBLE:
+                return new TsDouble(doubleValues[index]);
+            case TEXT:
+                return new TsBinary(binaryValues[index]);
+            default:
+                throw new UnSupportedDataTypeException("Unsupported data type :" + dataType);
+        }
+    }
+
+    public TimeValuePair currentTimeValuePair() {
+        return new TimeValuePair(timestamps[index], currentValue());
+    }
+
+    /**
+     * Append the current point of another batch of the same data type.
+     */
+    public void putCurrentPoint(BatchData batchData) {
+        putPoint(batchData, batchData.index);
+    }
+
+    /**
+     * Append the point at the index of another batch of the same data type.
+     */
+    public void putPoint(BatchData batchData, int index) {
+        ensureCapacity(length + 1);
+        timestamps[length] = batchData.timestamps[index];
+        switch (dataType) {
+            case BOOLEAN:
+                booleanValues[length] = batchData.booleanValues[index];
+                break;
+            case INT32:
+            case ENUMS:
+                intValues[length] = batchData.intValues[index];
+                break;
+            case INT64:
+                longValues[length] = batchData.longValues[index];
+                break;
+            case FLOAT:
+                floatValues[length] = batchData.floatValues[index];
+                break;
+            case DOUBLE:
+                doubleValues[length] = batchData.doubleValues[index];
+                break;
+            case TEXT:
+                binaryValues[length] = batchData.binaryValues[index];
+                break;
+            default:
+                throw new UnSupportedDataTypeException("Unsupported data type :" + dataType);
+        }
+        length++;
+    }
+
+    /**
+     * Make the arrays hold at least capacity points, the points in them are kept.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= timestamps.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, timestamps.length * 2);
+        timestamps = Arrays.copyOf(timestamps, newCapacity);
+        switch (dataType) {
+            case BOOLEAN:
+                booleanValues = Arrays.copyOf(booleanValues, newCapacity);
+                break;
+            case INT32:
+            case ENUMS:
+                intValues = Arrays.copyOf(intValues, newCapacity);
+                break;
+            case INT64:
+                longValues = Arrays.copyOf(longValues, newCapacity);
+                break;
+            case FLOAT:
+                floatValues = Arrays.copyOf(floatValues, newCapacity);
+                break;
+            case DOUBLE:
+                doubleValues = Arrays.copyOf(doubleValues, newCapacity);
+                break;
+            case TEXT:
+                binaryValues = Arrays.copyOf(binaryValues, newCapacity);
+                break;
+            default:
+                throw new UnSupportedDataTypeException("Unsupported data type :" + dataType);
+        }
+    }
+
+    /**
+     * The arrays below are used to fill the batch at once, they may be replaced by {@link #ensureCapacity(int)}.
+     */
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public boolean[] getBooleanValues() {
+        return booleanValues;
+    }
+
+    public int[] getIntValues() {
+        return intValues;
+    }
+
+    public long[] getLongValues() {
+        return longValues;
+    }
+
+    public float[] getFloatValues() {
+        return floatValues;
+    }
+
+    public double[] getDoubleValues() {
+        return doubleValues;
+    }
+
+    public Binary[] getBinaryValues() {
+        return binaryValues;
+    }
+}
@@ -4,6 +4,8 @@ import java.io.IOException;
 
 /**
  * Created by zhangjinrui on 2017/12/26.
+ * The child behind the other one skips to the timestamp of the other one, so a sparse series lets a dense series
+ * skip its chunks and pages.
  */
 public class AndNode implements Node {
 
@@ -33,12 +35,14 @@ public class AndNode implements Node {
                     this.cachedValue = leftValue;
                     return true;
                 } else if (leftValue > rightValue) {
+                    rightChild.skipTo(leftValue);
                     if (rightChild.hasNext()) {
                         rightValue = rightChild.next();
                     } else {
                         return false;
                     }
                 } else { //leftValue < rightValue
+                    leftChild.skipTo(rightValue);
                     if (leftChild.hasNext()) {
                         leftValue = leftChild.next();
                     } else {
@@ -65,6 +69,18 @@ public class AndNode implements Node {
         return -1;
     }
 
+    @Override
+    public void skipTo(long timestamp) throws IOException {
+        if (hasCachedValue) {
+            if (cachedValue >= timestamp) {
+                return;
+            }
+            hasCachedValue = false;
+        }
+        leftChild.skipTo(timestamp);
+        rightChild.skipTo(timestamp);
+    }
+
     @Override
     public NodeType getType() {
         return NodeType.AND;
@@ -11,20 +11,50 @@ public class LeafNode implements Node {
 
     private SeriesReader seriesReader;
 
+    private boolean hasCachedTime;
+    private long cachedTime;
+
     public LeafNode(SeriesReader seriesReader) {
         this.seriesReader = seriesReader;
+        this.hasCachedTime = false;
     }
 
     @Override
     public boolean hasNext() throws IOException {
-        return seriesReader.hasNext();
+        return hasCachedTime || seriesReader.hasNext();
     }
 
     @Override
     public long next() throws IOException {
+        if (hasCachedTime) {
+            hasCachedTime = false;
+            return cachedTime;
+        }
         return seriesReader.next().getTimestamp();
     }
 
+    /**
+     * The reader skips what it could, and the points it still returns before the timestamp are dropped here.
+     */
+    @Override
+    public void skipTo(long timestamp) throws IOException {
+        if (hasCachedTime) {
+            if (cachedTime >= timestamp) {
+                return;
+            }
+            hasCachedTime = false;
+        }
+        seriesReader.skipTo(timestamp);
+        while (seriesReader.hasNext()) {
+            long time = seriesReader.next().getTimestamp();
+            if (time >= timestamp) {
+                hasCachedTime = true;
+                cachedTime = time;
+                return;
+            }
+        }
+    }
+
     @Override
     public NodeType getType() {
         return NodeType.LEAF;
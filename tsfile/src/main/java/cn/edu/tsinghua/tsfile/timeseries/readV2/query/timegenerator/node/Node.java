@@ -11,5 +11,10 @@ public interface Node {
 
     long next() throws IOException;
 
+    /**
+     * Skip the timestamps less than the given one, the following {@link #next()} never returns them.
+     */
+    void skipTo(long timestamp) throws IOException;
+
     NodeType getType();
 }
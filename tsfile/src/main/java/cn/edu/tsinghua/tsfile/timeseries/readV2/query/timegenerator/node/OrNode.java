@@ -78,6 +78,18 @@ public class OrNode implements Node {
         return -1;
     }
 
+    @Override
+    public void skipTo(long timestamp) throws IOException {
+        if (hasCachedLeftValue && cachedLeftValue < timestamp) {
+            hasCachedLeftValue = false;
+        }
+        if (hasCachedRightValue && cachedRightValue < timestamp) {
+            hasCachedRightValue = false;
+        }
+        leftChild.skipTo(timestamp);
+        rightChild.skipTo(timestamp);
+    }
+
     @Override
     public NodeType getType() {
         return NodeType.OR;
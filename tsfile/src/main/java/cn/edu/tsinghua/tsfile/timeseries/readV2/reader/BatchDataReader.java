@@ -0,0 +1,19 @@
+package cn.edu.tsinghua.tsfile.timeseries.readV2.reader;
+
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.BatchData;
+
+import java.io.IOException;
+
+/**
+ * Reads the points of a series batch by batch, e.g. one page at a time, which saves the per point calls and objects
+ * of {@link TimeValuePairReader}. A returned batch is not empty, its points are the ones from its current position,
+ * read by {@link BatchData#hasNext()} and {@link BatchData#next()}.
+ */
+public interface BatchDataReader {
+
+    boolean hasNextBatch() throws IOException;
+
+    BatchData nextBatch() throws IOException;
+
+    void close() throws IOException;
+}
@@ -15,6 +15,14 @@ public interface TimeValuePairReader{
 
     void skipCurrentTimeValuePair() throws IOException;
 
+    /**
+     * Skip the points whose time is less than the timestamp if the reader could do it cheaply, e.g. by the min and max
+     * time of the chunks and the pages. It is only a hint, the reader may still return some skipped points, so the
+     * callers should check the time of the returned points. The default implementation skips nothing.
+     */
+    default void skipTo(long timestamp) throws IOException {
+    }
+
     void close() throws IOException;
 }
 
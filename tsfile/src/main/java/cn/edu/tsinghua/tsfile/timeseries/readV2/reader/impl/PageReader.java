@@ -4,9 +4,9 @@ import cn.edu.tsinghua.tsfile.common.exception.UnSupportedDataTypeException;
 import cn.edu.tsinghua.tsfile.common.utils.ReadWriteStreamUtils;
 import cn.edu.tsinghua.tsfile.encoding.decoder.Decoder;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.BatchData;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
-import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType;
-import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType.*;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.BatchDataReader;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.TimeValuePairReader;
 
 import java.io.ByteArrayInputStream;
@@ -14,23 +14,28 @@ import java.io.IOException;
 import java.io.InputStream;
 
 /**
+ * Reads the points of a page. The whole page is decoded into a {@link BatchData} at the first call, so the decoders
+ * decode their packs at once. The page could be read either point by point or as one batch.
+ *
  * @author Jinrui Zhang
  */
-public class PageReader implements TimeValuePairReader {
+public class PageReader implements TimeValuePairReader, BatchDataReader {
+
+    private static final int INITIAL_BATCH_CAPACITY = 1024;
 
     private TSDataType dataType;
     private Decoder valueDecoder;
     private Decoder timeDecoder;
     private InputStream timestampInputStream;
     private InputStream valueInputStream;
-    private boolean hasOneCachedTimeValuePair;
-    private TimeValuePair cachedTimeValuePair;
+    private BatchData batchData;
+    private boolean batchReturned;
 
     public PageReader(InputStream pageContent, TSDataType dataType, Decoder valueDecoder, Decoder timeDecoder) throws IOException {
         this.dataType = dataType;
         this.valueDecoder = valueDecoder;
         this.timeDecoder = timeDecoder;
-        hasOneCachedTimeValuePair = false;
+        this.batchReturned = false;
         splitInputStreamToTimeStampAndValue(pageContent);
     }
 
@@ -48,63 +53,103 @@ public class PageReader implements TimeValuePairReader {
 
     @Override
     public boolean hasNext() throws IOException {
-        if (hasOneCachedTimeValuePair) {
-            return true;
-        }
-        if (timeDecoder.hasNext(timestampInputStream) && valueDecoder.hasNext(valueInputStream)) {
-            cacheOneTimeValuePair();
-            this.hasOneCachedTimeValuePair = true;
-            return true;
-        }
-        return false;
+        return !batchReturned && getBatchData().hasNext();
     }
 
     @Override
     public TimeValuePair next() throws IOException {
         if (hasNext()) {
-            this.hasOneCachedTimeValuePair = false;
-            return cachedTimeValuePair;
+            TimeValuePair timeValuePair = batchData.currentTimeValuePair();
+            batchData.next();
+            return timeValuePair;
         } else {
             throw new IOException("No more TimeValuePair in current page");
         }
     }
 
-    private void cacheOneTimeValuePair() {
-        long timestamp = timeDecoder.readLong(timestampInputStream);
-        TsPrimitiveType value = readOneValue();
-        this.cachedTimeValuePair = new TimeValuePair(timestamp, value);
-    }
-
     @Override
     public void skipCurrentTimeValuePair() throws IOException {
         next();
     }
 
+    /**
+     * Skip the points before the timestamp by a binary search on the decoded timestamps.
+     */
+    @Override
+    public void skipTo(long timestamp) throws IOException {
+        if (!batchReturned) {
+            getBatchData().skipTo(timestamp);
+        }
+    }
+
+    @Override
+    public boolean hasNextBatch() throws IOException {
+        return hasNext();
+    }
+
+    /**
+     * @return the points of the page which are not read by {@link #next()}
+     */
+    @Override
+    public BatchData nextBatch() throws IOException {
+        if (hasNextBatch()) {
+            batchReturned = true;
+            return batchData;
+        } else {
+            throw new IOException("No more batch in current page");
+        }
+    }
+
     @Override
     public void close() throws IOException {
         timestampInputStream.close();
         valueInputStream.close();
     }
 
-    private TsPrimitiveType readOneValue() {
+    private BatchData getBatchData() throws IOException {
+        if (batchData == null) {
+            batchData = decodePage();
+        }
+        return batchData;
+    }
+
+    private BatchData decodePage() throws IOException {
+        BatchData data = new BatchData(dataType, INITIAL_BATCH_CAPACITY);
+        int count = 0;
+        while (true) {
+            long[] timestamps = data.getTimestamps();
+            count += timeDecoder.readLongs(timestampInputStream, timestamps, count, timestamps.length - count);
+            if (count < timestamps.length) {
+                break;
+            }
+            data.ensureCapacity(count * 2);
+        }
+
+        int valueCount;
         switch (dataType) {
             case BOOLEAN:
-                return new TsBoolean(valueDecoder.readBoolean(valueInputStream));
+                valueCount = valueDecoder.readBooleans(valueInputStream, data.getBooleanValues(), 0, count);
+                break;
             case INT32:
-                return new TsInt(valueDecoder.readInt(valueInputStream));
+            case ENUMS:
+                valueCount = valueDecoder.readInts(valueInputStream, data.getIntValues(), 0, count);
+                break;
             case INT64:
-                return new TsLong(valueDecoder.readLong(valueInputStream));
+                valueCount = valueDecoder.readLongs(valueInputStream, data.getLongValues(), 0, count);
+                break;
             case FLOAT:
-                return new TsFloat(valueDecoder.readFloat(valueInputStream));
+                valueCount = valueDecoder.readFloats(valueInputStream, data.getFloatValues(), 0, count);
+                break;
             case DOUBLE:
-                return new TsDouble(valueDecoder.readDouble(valueInputStream));
+                valueCount = valueDecoder.readDoubles(valueInputStream, data.getDoubleValues(), 0, count);
+                break;
             case TEXT:
-                return new TsBinary(valueDecoder.readBinary(valueInputStream));
-            case ENUMS:
-                return new TsInt(valueDecoder.readInt(valueInputStream));
-            default:
+                valueCount = valueDecoder.readBinaries(valueInputStream, data.getBinaryValues(), 0, count);
                 break;
+            default:
+                throw new UnSupportedDataTypeException("Unsupported data type :" + dataType);
         }
-        throw new UnSupportedDataTypeException("Unsupported data type :" + dataType);
+        data.setLength(valueCount);
+        return data;
     }
 }
@@ -7,7 +7,9 @@ import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
 import cn.edu.tsinghua.tsfile.file.utils.ReadWriteThriftFormatUtils;
 import cn.edu.tsinghua.tsfile.format.Encoding;
 import cn.edu.tsinghua.tsfile.format.PageHeader;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.BatchData;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.BatchDataReader;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.TimeValuePairReader;
 
 import java.io.ByteArrayInputStream;
@@ -15,9 +17,12 @@ import java.io.IOException;
 import java.io.InputStream;
 
 /**
+ * Reads the satisfied points of a series chunk, either point by point or page by page with {@link #nextBatch()}.
+ * The two ways should not be mixed.
+ *
  * @author Jinrui Zhang
  */
-public abstract class SeriesChunkReader implements TimeValuePairReader {
+public abstract class SeriesChunkReader implements TimeValuePairReader, BatchDataReader {
 
     protected TSDataType dataType;
     private InputStream seriesChunkInputStream;
@@ -29,6 +34,10 @@ public abstract class SeriesChunkReader implements TimeValuePairReader {
     protected boolean hasCachedTimeValuePair;
     protected TimeValuePair cachedTimeValuePair;
     private long maxTombstoneTime;
+    private boolean hasCachedBatchData;
+    private BatchData cachedBatchData;
+    private boolean[] selection = new boolean[0];
+    private long skipToTime = Long.MIN_VALUE;
 
 
     public SeriesChunkReader(InputStream seriesChunkInputStream, TSDataType dataType, CompressionTypeName compressionTypeName) {
@@ -75,15 +84,83 @@ public abstract class SeriesChunkReader implements TimeValuePairReader {
         throw new IOException("No more timeValuePair in current MemSeriesChunk");
     }
 
+    @Override
+    public boolean hasNextBatch() throws IOException {
+        if (hasCachedBatchData) {
+            return true;
+        }
+        while (true) {
+            if (!pageReaderInitialized) {
+                if (!constructPageReaderIfNextSatisfiedPageExists()) {
+                    return false;
+                }
+                pageReaderInitialized = true;
+            }
+            if (pageReader.hasNextBatch()) {
+                BatchData pageData = pageReader.nextBatch();
+                if (selectsAllPoints()) {
+                    // the deleted and the skipped points are the first ones of the page, they are skipped without
+                    // copying the page
+                    pageData.skipTo(skipToTime);
+                    if (maxTombstoneTime < Long.MAX_VALUE) {
+                        pageData.skipTo(maxTombstoneTime + 1);
+                    }
+                    if (pageData.hasNext()) {
+                        hasCachedBatchData = true;
+                        cachedBatchData = pageData;
+                        return true;
+                    }
+                    pageReaderInitialized = false;
+                    continue;
+                }
+                if (selection.length < pageData.length()) {
+                    selection = new boolean[pageData.length()];
+                }
+                // the points before it are skipped, the selection is indexed by the position in the page
+                int start = pageData.getCurIdx();
+                int satisfiedCount = selectBatchData(pageData, selection);
+                BatchData satisfiedData = new BatchData(dataType, Math.max(satisfiedCount, 1));
+                long[] timestamps = pageData.getTimestamps();
+                for (int i = start; i < pageData.length(); i++) {
+                    if (selection[i] && timestamps[i] > maxTombstoneTime && timestamps[i] >= skipToTime) {
+                        satisfiedData.putPoint(pageData, i);
+                    }
+                }
+                if (satisfiedData.length() > 0) {
+                    hasCachedBatchData = true;
+                    cachedBatchData = satisfiedData;
+                    return true;
+                }
+            }
+            pageReaderInitialized = false;
+        }
+    }
+
+    /**
+     * @return the satisfied points of the next page which has some
+     */
+    @Override
+    public BatchData nextBatch() throws IOException {
+        if (hasNextBatch()) {
+            hasCachedBatchData = false;
+            return cachedBatchData;
+        }
+        throw new IOException("No more batch in current MemSeriesChunk");
+    }
+
     private boolean constructPageReaderIfNextSatisfiedPageExists() throws IOException {
         boolean gotNextPageReader = false;
         while (hasNextPageInStream() && !gotNextPageReader) {
             PageHeader pageHeader = getNextPageHeader();
-            if (pageSatisfied(pageHeader)) {
+            // the pages before the skipped time are not decompressed
+            if (pageHeader.getData_page_header().getMax_timestamp() >= skipToTime && pageSatisfied(pageHeader)) {
                 Decoder valueDecoder = Decoder.getDecoderByType(pageHeader.getData_page_header().getEncoding(), dataType);
                 //TODO: How to get defaultTimeDecoder by TSConfig rather than hard code here ?
                 Decoder defaultTimeDecoder = Decoder.getDecoderByType(defaultTimestampEncoding, TSDataType.INT64);
                 pageReader = constructPageReaderForNextPage(pageHeader.getCompressed_page_size(), valueDecoder, defaultTimeDecoder);
+                if (pageHeader.getData_page_header().getMin_timestamp() < skipToTime) {
+                    pageReader.skipTo(skipToTime);
+                }
                 gotNextPageReader = true;
             } else {
                 skipBytesInStreamByLength(pageHeader.getCompressed_page_size());
@@ -104,6 +181,41 @@ public abstract class SeriesChunkReader implements TimeValuePairReader {
 
     public abstract boolean timeValuePairSatisfied(TimeValuePair timeValuePair);
 
+    /**
+     * Whether all the points of the pages are satisfied but the deleted ones, then {@link #nextBatch()} returns the
+     * decoded pages without copying the satisfied points.
+     */
+    protected boolean selectsAllPoints() {
+        return false;
+    }
+
+    /**
+     * Whether the current point of the batch is satisfied, the subclasses may override it to test the point without
+     * creating a {@link TimeValuePair}.
+     */
+    protected boolean batchDataSatisfied(BatchData batchData) {
+        return timeValuePairSatisfied(batchData.currentTimeValuePair());
+    }
+
+    /**
+     * Test all the points of a page at once, the subclasses may override it to test them on the primitive arrays.
+     *
+     * @param selection set to whether the point at the same index of the batch is satisfied, from its current index
+     *                  on at least, at least as long as the batch
+     * @return the number of the satisfied points
+     */
+    protected int selectBatchData(BatchData batchData, boolean[] selection) {
+        int count = 0;
+        for (int i = batchData.getCurIdx(); batchData.hasNext(); i++) {
+            selection[i] = batchDataSatisfied(batchData);
+            if (selection[i]) {
+                count++;
+            }
+            batchData.next();
+        }
+        return count;
+    }
+
     private void skipBytesInStreamByLength(long length) throws IOException {
         seriesChunkInputStream.skip(length);
     }
@@ -125,6 +237,28 @@ public abstract class SeriesChunkReader implements TimeValuePairReader {
         return ReadWriteThriftFormatUtils.readPageHeader(seriesChunkInputStream);
     }
 
+    /**
+     * Skip the points before the timestamp, the pages whose max time is less than it are skipped without being
+     * decompressed, and the points in a page are skipped by a binary search.
+     */
+    @Override
+    public void skipTo(long timestamp) throws IOException {
+        if (timestamp <= skipToTime) {
+            return;
+        }
+        skipToTime = timestamp;
+        if (hasCachedTimeValuePair && cachedTimeValuePair.getTimestamp() < timestamp) {
+            hasCachedTimeValuePair = false;
+        }
+        if (hasCachedBatchData) {
+            cachedBatchData.skipTo(timestamp);
+            hasCachedBatchData = cachedBatchData.hasNext();
+        }
+        if (pageReaderInitialized) {
+            pageReader.skipTo(timestamp);
+        }
+    }
+
     @Override
     public void skipCurrentTimeValuePair() {
 
@@ -37,11 +37,9 @@ public class SeriesChunkReaderByTimestampImpl extends SeriesChunkReader implemen
         return timeValuePair.getTimestamp() >= currentTimestamp && timeValuePair.getTimestamp() > getMaxTombstoneTime();
     }
     
-    public void setCurrentTimestamp(long currentTimestamp) {
+    public void setCurrentTimestamp(long currentTimestamp) throws IOException {
         this.currentTimestamp = currentTimestamp;
-        if(hasCachedTimeValuePair && cachedTimeValuePair.getTimestamp() < currentTimestamp){
-            hasCachedTimeValuePair = false;
-        }
+        skipTo(currentTimestamp);
     }
 
     @Override
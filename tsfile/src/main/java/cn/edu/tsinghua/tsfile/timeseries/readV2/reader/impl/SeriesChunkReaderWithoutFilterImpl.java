@@ -25,4 +25,9 @@ public class SeriesChunkReaderWithoutFilterImpl extends SeriesChunkReader {
     public boolean timeValuePairSatisfied(TimeValuePair timeValuePair) {
         return timeValuePair.getTimestamp() > getMaxTombstoneTime();
     }
+
+    @Override
+    protected boolean selectsAllPoints() {
+        return true;
+    }
 }
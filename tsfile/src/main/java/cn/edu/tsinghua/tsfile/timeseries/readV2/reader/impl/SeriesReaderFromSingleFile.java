@@ -6,7 +6,9 @@ import cn.edu.tsinghua.tsfile.timeseries.readV2.common.EncodedSeriesChunkDescrip
 import cn.edu.tsinghua.tsfile.timeseries.readV2.controller.MetadataQuerierByFileImpl;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.controller.SeriesChunkLoader;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.controller.SeriesChunkLoaderImpl;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.BatchData;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.BatchDataReader;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.SeriesReader;
 
 import java.io.IOException;
@@ -15,7 +17,7 @@ import java.util.List;
 /**
  * Created by zhangjinrui on 2017/12/25.
  */
-public abstract class SeriesReaderFromSingleFile implements SeriesReader {
+public abstract class SeriesReaderFromSingleFile implements SeriesReader, BatchDataReader {
 
     protected SeriesChunkLoader seriesChunkLoader;
     protected List<EncodedSeriesChunkDescriptor> encodedSeriesChunkDescriptorList;
@@ -25,6 +27,9 @@ public abstract class SeriesReaderFromSingleFile implements SeriesReader {
     protected int currentReadSeriesChunkIndex;
 
     protected ITsRandomAccessFileReader randomAccessFileReader;
+    protected long skipToTime = Long.MIN_VALUE;
+    // the batch read by hasNext() and next()
+    private BatchData currentBatch;
 
     public SeriesReaderFromSingleFile(ITsRandomAccessFileReader randomAccessFileReader, Path path) throws IOException {
         this.randomAccessFileReader = randomAccessFileReader;
@@ -52,22 +57,73 @@ public abstract class SeriesReaderFromSingleFile implements SeriesReader {
         this.seriesChunkReaderInitialized = false;
     }
 
+    /**
+     * The points are read page by page through {@link #nextBatch()}, so the pages are filtered at once.
+     */
     @Override
     public boolean hasNext() throws IOException {
-        if (seriesChunkReaderInitialized && seriesChunkReader.hasNext()) {
+        if (currentBatch != null && currentBatch.hasNext()) {
+            return true;
+        }
+        if (hasNextBatch()) {
+            currentBatch = nextBatch();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public TimeValuePair next() throws IOException {
+        if (hasNext()) {
+            TimeValuePair timeValuePair = currentBatch.currentTimeValuePair();
+            currentBatch.next();
+            return timeValuePair;
+        }
+        throw new IOException("No more timeValuePair in current file");
+    }
+
+    @Override
+    public void skipCurrentTimeValuePair() throws IOException {
+        next();
+    }
+
+    /**
+     * Skip the points before the timestamp, the chunks whose max time is less than it are not loaded.
+     */
+    @Override
+    public void skipTo(long timestamp) throws IOException {
+        if (timestamp <= skipToTime) {
+            return;
+        }
+        skipToTime = timestamp;
+        if (currentBatch != null) {
+            currentBatch.skipTo(timestamp);
+        }
+        if (seriesChunkReaderInitialized) {
+            seriesChunkReader.skipTo(timestamp);
+        }
+    }
+
+    @Override
+    public boolean hasNextBatch() throws IOException {
+        if (seriesChunkReaderInitialized && seriesChunkReader.hasNextBatch()) {
             return true;
         }
         while ((currentReadSeriesChunkIndex + 1) < encodedSeriesChunkDescriptorList.size()) {
             if (!seriesChunkReaderInitialized) {
                 EncodedSeriesChunkDescriptor encodedSeriesChunkDescriptor = encodedSeriesChunkDescriptorList.get(++currentReadSeriesChunkIndex);
-                if (seriesChunkSatisfied(encodedSeriesChunkDescriptor)) {
+                if (encodedSeriesChunkDescriptor.getMaxTimestamp() >= skipToTime
+                        && seriesChunkSatisfied(encodedSeriesChunkDescriptor)) {
                     initSeriesChunkReader(encodedSeriesChunkDescriptor);
+                    if (encodedSeriesChunkDescriptor.getMinTimestamp() < skipToTime) {
+                        seriesChunkReader.skipTo(skipToTime);
+                    }
                     seriesChunkReaderInitialized = true;
                 } else {
                     continue;
                 }
             }
-            if (seriesChunkReader.hasNext()) {
+            if (seriesChunkReader.hasNextBatch()) {
                 return true;
             } else {
                 seriesChunkReaderInitialized = false;
@@ -77,13 +133,8 @@ public abstract class SeriesReaderFromSingleFile implements SeriesReader {
     }
 
     @Override
-    public TimeValuePair next() throws IOException {
-        return seriesChunkReader.next();
-    }
-
-    @Override
-    public void skipCurrentTimeValuePair() throws IOException {
-        next();
+    public BatchData nextBatch() throws IOException {
+        return seriesChunkReader.nextBatch();
     }
 
     protected abstract void initSeriesChunkReader(EncodedSeriesChunkDescriptor encodedSeriesChunkDescriptor) throws IOException;
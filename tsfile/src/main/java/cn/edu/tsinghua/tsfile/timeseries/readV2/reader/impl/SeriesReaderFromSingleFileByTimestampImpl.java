@@ -54,11 +54,11 @@ public class SeriesReaderFromSingleFileByTimestampImpl extends SeriesReaderFromS
             if (!seriesChunkReaderInitialized) {
                 EncodedSeriesChunkDescriptor encodedSeriesChunkDescriptor = encodedSeriesChunkDescriptorList.get(nextSeriesChunkIndex);
                 //maxTime >= currentTime
+                nextSeriesChunkIndex++;
                 if (seriesChunkSatisfied(encodedSeriesChunkDescriptor)) {
                     initSeriesChunkReader(encodedSeriesChunkDescriptor);
                     ((SeriesChunkReaderByTimestampImpl) seriesChunkReader).setCurrentTimestamp(currentTimestamp);
                     seriesChunkReaderInitialized = true;
-                    nextSeriesChunkIndex++;
                 } else {
                     //maxTime < currentTime, skip this seriesChunk
                     continue;
@@ -82,6 +82,17 @@ public class SeriesReaderFromSingleFileByTimestampImpl extends SeriesReaderFromS
         return seriesChunkReader.next();
     }
 
+    @Override
+    public void skipTo(long timestamp) throws IOException {
+        if (timestamp <= currentTimestamp) {
+            return;
+        }
+        currentTimestamp = timestamp;
+        if (hasCacheLastTimeValuePair && cachedTimeValuePair.getTimestamp() < timestamp) {
+            hasCacheLastTimeValuePair = false;
+        }
+    }
+
     /**
      * @param timestamp
      * @return If there is no TimeValuePair whose timestamp equals to given timestamp, then return null.
@@ -2,9 +2,9 @@ package cn.edu.tsinghua.tsfile.timeseries.readV2.reader.impl;
 
 import cn.edu.tsinghua.tsfile.common.constant.StatisticConstant;
 import cn.edu.tsinghua.tsfile.common.utils.ITsRandomAccessFileReader;
-import cn.edu.tsinghua.tsfile.timeseries.filter.utils.DigestForFilter;
 import cn.edu.tsinghua.tsfile.timeseries.filterV2.basic.Filter;
-import cn.edu.tsinghua.tsfile.timeseries.filterV2.visitor.impl.DigestFilterVisitor;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.basic.PrimitiveFilter;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.visitor.impl.PrimitiveFilterVisitor;
 import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.common.EncodedSeriesChunkDescriptor;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.common.SeriesChunk;
@@ -19,27 +19,24 @@ import java.util.List;
 public class SeriesReaderFromSingleFileWithFilterImpl extends SeriesReaderFromSingleFile {
 
     private Filter<?> filter;
-    private DigestFilterVisitor digestFilterVisitor;
+    private PrimitiveFilter primitiveFilter;
 
     public SeriesReaderFromSingleFileWithFilterImpl(SeriesChunkLoader seriesChunkLoader
             , List<EncodedSeriesChunkDescriptor> encodedSeriesChunkDescriptorList, Filter<?> filter) {
         super(seriesChunkLoader, encodedSeriesChunkDescriptorList);
         this.filter = filter;
-        this.digestFilterVisitor = new DigestFilterVisitor();
     }
 
     public SeriesReaderFromSingleFileWithFilterImpl(ITsRandomAccessFileReader randomAccessFileReader, SeriesChunkLoader seriesChunkLoader,
                                                     List<EncodedSeriesChunkDescriptor> encodedSeriesChunkDescriptorList, Filter<?> filter) {
         super(randomAccessFileReader, seriesChunkLoader, encodedSeriesChunkDescriptorList);
         this.filter = filter;
-        this.digestFilterVisitor = new DigestFilterVisitor();
     }
 
     public SeriesReaderFromSingleFileWithFilterImpl(ITsRandomAccessFileReader randomAccessFileReader
             , Path path, Filter<?> filter) throws IOException {
         super(randomAccessFileReader, path);
         this.filter = filter;
-        this.digestFilterVisitor = new DigestFilterVisitor();
     }
 
     protected void initSeriesChunkReader(EncodedSeriesChunkDescriptor encodedSeriesChunkDescriptor) throws IOException {
@@ -53,13 +50,13 @@ public class SeriesReaderFromSingleFileWithFilterImpl extends SeriesReaderFromSi
 
     @Override
     protected boolean seriesChunkSatisfied(EncodedSeriesChunkDescriptor encodedSeriesChunkDescriptor) {
-        DigestForFilter timeDigest = new DigestForFilter(encodedSeriesChunkDescriptor.getMinTimestamp(),
-                encodedSeriesChunkDescriptor.getMaxTimestamp());
-        //TODO: Using ByteBuffer as min/max is best
-        DigestForFilter valueDigest = new DigestForFilter(
+        // the chunks of a series share the data type, so the filter is compiled once
+        if (primitiveFilter == null) {
+            primitiveFilter = new PrimitiveFilterVisitor(encodedSeriesChunkDescriptor.getDataType()).compile(filter);
+        }
+        return primitiveFilter.satisfyDigest(encodedSeriesChunkDescriptor.getMinTimestamp(),
+                encodedSeriesChunkDescriptor.getMaxTimestamp(),
                 encodedSeriesChunkDescriptor.getValueDigest().getStatistics().get(StatisticConstant.MIN_VALUE),
-                encodedSeriesChunkDescriptor.getValueDigest().getStatistics().get(StatisticConstant.MAX_VALUE),
-                encodedSeriesChunkDescriptor.getDataType());
-        return digestFilterVisitor.satisfy(timeDigest, valueDigest, filter);
+                encodedSeriesChunkDescriptor.getValueDigest().getStatistics().get(StatisticConstant.MAX_VALUE));
     }
 }
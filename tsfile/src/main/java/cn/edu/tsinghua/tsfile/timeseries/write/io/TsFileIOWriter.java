@@ -193,6 +193,31 @@ public class TsFileIOWriter {
 		currentChunkMetaData.setVInTimeSeriesChunkMetaData(v);
 	}
 
+	/**
+	 * write a time series chunk which is already encoded and compressed, e.g. a chunk read from another TsFile. The
+	 * chunk is added to the current row group with a copy of its metadata, only the offset is changed.
+	 *
+	 * @param chunkMetaData
+	 *            - metadata of the chunk in the file it is read from
+	 * @param chunk
+	 *            - bytes of the whole chunk
+	 * @throws IOException
+	 *             if I/O error occurs
+	 */
+	public void writeSeriesChunk(TimeSeriesChunkMetaData chunkMetaData, byte[] chunk) throws IOException {
+		LOG.debug("write series chunk:{}", chunkMetaData);
+		TimeSeriesChunkMetaData copy = new TimeSeriesChunkMetaData(
+				chunkMetaData.getProperties().getMeasurementUID(), chunkMetaData.getProperties().getTsChunkType(),
+				out.getPos(), chunkMetaData.getProperties().getCompression());
+		copy.setTInTimeSeriesChunkMetaData(chunkMetaData.getTInTimeSeriesChunkMetaData());
+		copy.setVInTimeSeriesChunkMetaData(chunkMetaData.getVInTimeSeriesChunkMetaData());
+		copy.setJsonMetaData(chunkMetaData.getJsonMetaData());
+		copy.setTotalByteSize(chunk.length);
+		copy.setNumRows(chunkMetaData.getNumRows());
+		out.write(chunk);
+		currentRowGroupMetaData.addTimeSeriesChunkMetaData(copy);
+	}
+
 	public void endSeries(long size, long totalValueCount) {
 		LOG.debug("end series:{},totalvalue:{}", currentChunkMetaData, totalValueCount);
 		currentChunkMetaData.setTotalByteSize(size);
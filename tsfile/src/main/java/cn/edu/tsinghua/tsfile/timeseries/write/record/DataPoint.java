@@ -121,4 +121,37 @@ public abstract class DataPoint {
     public void setBigDecimal(BigDecimal value) {
         throw new UnsupportedOperationException("set BigDecimal not support in DataPoint");
     }
+
+    public int getInteger() {
+        throw typeMismatch(TSDataType.INT32);
+    }
+
+    public long getLong() {
+        throw typeMismatch(TSDataType.INT64);
+    }
+
+    public boolean getBoolean() {
+        throw typeMismatch(TSDataType.BOOLEAN);
+    }
+
+    public float getFloat() {
+        throw typeMismatch(TSDataType.FLOAT);
+    }
+
+    public double getDouble() {
+        throw typeMismatch(TSDataType.DOUBLE);
+    }
+
+    public Binary getBinary() {
+        throw typeMismatch(TSDataType.TEXT);
+    }
+
+    /**
+     * the typed getters are only overridden by the data point of their data type, reading a value as another data
+     * type is a bug of the caller rather than a conversion.
+     */
+    private UnSupportedDataTypeException typeMismatch(TSDataType expected) {
+        return new UnSupportedDataTypeException(String.format("get %s value of %s data point %s", expected, type,
+                measurementId));
+    }
 }
@@ -41,4 +41,9 @@ public class BooleanDataPoint extends DataPoint {
     public void setBoolean(boolean value) {
         this.value = value;
     }
+
+    @Override
+    public boolean getBoolean() {
+        return value;
+    }
 }
@@ -41,4 +41,9 @@ public class DoubleDataPoint extends DataPoint {
     public void setDouble(double value) {
         this.value = value;
     }
+
+    @Override
+    public double getDouble() {
+        return value;
+    }
 }
@@ -42,4 +42,9 @@ public class FloatDataPoint extends DataPoint {
     public void setFloat(float value) {
         this.value = value;
     }
+
+    @Override
+    public float getFloat() {
+        return value;
+    }
 }
@@ -42,4 +42,9 @@ public class IntDataPoint extends DataPoint {
     public void setInteger(int value) {
         this.value = value;
     }
+
+    @Override
+    public int getInteger() {
+        return value;
+    }
 }
@@ -42,4 +42,9 @@ public class LongDataPoint extends DataPoint {
     public void setLong(long value) {
         this.value = value;
     }
+
+    @Override
+    public long getLong() {
+        return value;
+    }
 }
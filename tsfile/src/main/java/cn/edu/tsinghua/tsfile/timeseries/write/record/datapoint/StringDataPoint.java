@@ -43,4 +43,9 @@ public class StringDataPoint extends DataPoint {
     public void setString(Binary value) {
         this.value = value;
     }
+
+    @Override
+    public Binary getBinary() {
+        return value;
+    }
 }
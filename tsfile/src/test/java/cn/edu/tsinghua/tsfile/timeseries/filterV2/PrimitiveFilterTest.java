@@ -0,0 +1,125 @@
+package cn.edu.tsinghua.tsfile.timeseries.filterV2;
+
+import cn.edu.tsinghua.tsfile.common.utils.Binary;
+import cn.edu.tsinghua.tsfile.common.utils.BytesUtils;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.basic.Filter;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.basic.PrimitiveFilter;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.factory.FilterFactory;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.visitor.impl.PrimitiveFilterVisitor;
+import cn.edu.tsinghua.tsfile.timeseries.filterV2.visitor.impl.TimeValuePairFilterVisitorImpl;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.BatchData;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TsPrimitiveType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+public class PrimitiveFilterTest {
+
+    private TimeValuePairFilterVisitorImpl timeValuePairFilterVisitor = new TimeValuePairFilterVisitorImpl();
+
+    @Test
+    public void testDouble() {
+        List<Filter<?>> filters = Arrays.asList(ValueFilter.eq(1.5), ValueFilter.notEq(1.5), ValueFilter.lt(1.5),
+                ValueFilter.ltEq(1.5), ValueFilter.gt(1.5), ValueFilter.gtEq(1.5),
+                FilterFactory.and(TimeFilter.gtEq(3L), ValueFilter.lt(2.0)),
+                FilterFactory.or(TimeFilter.lt(2L), ValueFilter.gt(2.0)),
+                FilterFactory.not(ValueFilter.gt(0.0)));
+        for (Filter<?> filter : filters) {
+            PrimitiveFilter primitiveFilter = new PrimitiveFilterVisitor(TSDataType.DOUBLE).compile(filter);
+            BatchData batchData = new BatchData(TSDataType.DOUBLE);
+            for (int i = 0; i < 10; i++) {
+                TimeValuePair timeValuePair = new TimeValuePair(i, new TsPrimitiveType.TsDouble(i * 0.5 - 1));
+                Assert.assertEquals(filter + " at " + i, timeValuePairFilterVisitor.satisfy(timeValuePair, filter),
+                        primitiveFilter.satisfy(timeValuePair));
+                batchData.ensureCapacity(i + 1);
+                batchData.getTimestamps()[i] = i;
+                batchData.getDoubleValues()[i] = i * 0.5 - 1;
+            }
+            batchData.setLength(10);
+            checkSelection(filter, primitiveFilter, batchData);
+        }
+    }
+
+    @Test
+    public void testIntAndLong() {
+        List<Filter<?>> filters = Arrays.asList(ValueFilter.eq(5), ValueFilter.notEq(5), ValueFilter.lt(5),
+                ValueFilter.gtEq(5), FilterFactory.and(TimeFilter.gt(2L), ValueFilter.ltEq(7)));
+        for (Filter<?> filter : filters) {
+            PrimitiveFilter primitiveFilter = new PrimitiveFilterVisitor(TSDataType.INT32).compile(filter);
+            BatchData batchData = new BatchData(TSDataType.INT32, 10);
+            for (int i = 0; i < 10; i++) {
+                TimeValuePair timeValuePair = new TimeValuePair(i, new TsPrimitiveType.TsInt(i));
+                Assert.assertEquals(filter + " at " + i, timeValuePairFilterVisitor.satisfy(timeValuePair, filter),
+                        primitiveFilter.satisfy(timeValuePair));
+                batchData.getTimestamps()[i] = i;
+                batchData.getIntValues()[i] = i;
+            }
+            batchData.setLength(10);
+            checkSelection(filter, primitiveFilter, batchData);
+        }
+
+        Filter<Long> longFilter = ValueFilter.gt(Long.MAX_VALUE - 1);
+        PrimitiveFilter primitiveFilter = new PrimitiveFilterVisitor(TSDataType.INT64).compile(longFilter);
+        Assert.assertTrue(primitiveFilter.satisfy(new TimeValuePair(1, new TsPrimitiveType.TsLong(Long.MAX_VALUE))));
+        Assert.assertFalse(primitiveFilter.satisfy(new TimeValuePair(1,
+                new TsPrimitiveType.TsLong(Long.MAX_VALUE - 1))));
+    }
+
+    @Test
+    public void testBooleanAndText() {
+        PrimitiveFilter booleanFilter = new PrimitiveFilterVisitor(TSDataType.BOOLEAN).compile(ValueFilter.eq(true));
+        Assert.assertTrue(booleanFilter.satisfy(new TimeValuePair(1, new TsPrimitiveType.TsBoolean(true))));
+        Assert.assertFalse(booleanFilter.satisfy(new TimeValuePair(1, new TsPrimitiveType.TsBoolean(false))));
+
+        PrimitiveFilter textFilter = new PrimitiveFilterVisitor(TSDataType.TEXT)
+                .compile(ValueFilter.gt(new Binary("test1")));
+        Assert.assertTrue(textFilter.satisfy(new TimeValuePair(1, new TsPrimitiveType.TsBinary(new Binary("test2")))));
+        Assert.assertFalse(textFilter.satisfy(new TimeValuePair(1, new TsPrimitiveType.TsBinary(new Binary("test0")))));
+        Assert.assertFalse(textFilter.satisfyDigest(0, 10, bytes(BytesUtils.StringToBytes("a")),
+                bytes(BytesUtils.StringToBytes("test0"))));
+    }
+
+    @Test
+    public void testDigest() {
+        PrimitiveFilter filter = new PrimitiveFilterVisitor(TSDataType.FLOAT)
+                .compile(FilterFactory.and(TimeFilter.gtEq(100L), ValueFilter.gt(0.5f)));
+        Assert.assertTrue(filter.satisfyDigest(0, 100, bytes(BytesUtils.floatToBytes(0.1f)),
+                bytes(BytesUtils.floatToBytes(0.6f))));
+        // the time does not overlap
+        Assert.assertFalse(filter.satisfyDigest(0, 99, bytes(BytesUtils.floatToBytes(0.1f)),
+                bytes(BytesUtils.floatToBytes(0.6f))));
+        // the values are all too small
+        Assert.assertFalse(filter.satisfyDigest(0, 100, bytes(BytesUtils.floatToBytes(0.1f)),
+                bytes(BytesUtils.floatToBytes(0.5f))));
+
+        PrimitiveFilter notEq = new PrimitiveFilterVisitor(TSDataType.INT64).compile(ValueFilter.notEq(3L));
+        Assert.assertTrue(notEq.satisfyDigest(0, 10, 1L, 5L));
+        Assert.assertFalse(notEq.satisfyDigest(0, 10, 3L, 3L));
+
+        // a page satisfying the inner filter may still have points satisfying the not filter
+        PrimitiveFilter not = new PrimitiveFilterVisitor(TSDataType.INT64).compile(FilterFactory.not(TimeFilter.lt(100L)));
+        Assert.assertTrue(not.satisfyDigest(0, 200, 1L, 5L));
+    }
+
+    private void checkSelection(Filter<?> filter, PrimitiveFilter primitiveFilter, BatchData batchData) {
+        boolean[] selection = new boolean[batchData.length()];
+        int count = primitiveFilter.select(batchData, selection);
+        int expectedCount = 0;
+        for (int i = 0; batchData.hasNext(); i++) {
+            boolean satisfied = timeValuePairFilterVisitor.satisfy(batchData.currentTimeValuePair(), filter);
+            Assert.assertEquals(filter + " at " + i, satisfied, selection[i]);
+            expectedCount += satisfied ? 1 : 0;
+            batchData.next();
+        }
+        Assert.assertEquals(expectedCount, count);
+    }
+
+    private ByteBuffer bytes(byte[] bytes) {
+        return ByteBuffer.wrap(bytes);
+    }
+}
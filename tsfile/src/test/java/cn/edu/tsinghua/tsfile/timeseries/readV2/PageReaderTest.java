@@ -5,6 +5,8 @@ import cn.edu.tsinghua.tsfile.encoding.common.EndianType;
 import cn.edu.tsinghua.tsfile.encoding.decoder.*;
 import cn.edu.tsinghua.tsfile.encoding.encoder.*;
 import cn.edu.tsinghua.tsfile.file.metadata.enums.TSDataType;
+import cn.edu.tsinghua.tsfile.file.metadata.enums.TSEncoding;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.BatchData;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.impl.PageReader;
 import cn.edu.tsinghua.tsfile.timeseries.write.series.ValueWriter;
@@ -14,6 +16,7 @@ import org.junit.Test;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.function.Supplier;
 
 /**
  * Created by zhangjinrui on 2017/12/21.
@@ -26,7 +29,7 @@ public class PageReaderTest {
     public void testLong() {
 
         LoopWriteReadTest test = new LoopWriteReadTest("Test INT64", new LongRleEncoder(EndianType.BIG_ENDIAN),
-                new LongRleDecoder(EndianType.BIG_ENDIAN), TSDataType.INT64, POINTS_COUNT_IN_ONE_PAGE) {
+                () -> new LongRleDecoder(EndianType.BIG_ENDIAN), TSDataType.INT64, POINTS_COUNT_IN_ONE_PAGE) {
             @Override
             public Object generateValueByIndex(int i) {
                 return Long.valueOf(Long.MAX_VALUE - i);
@@ -35,10 +38,57 @@ public class PageReaderTest {
         test.test();
     }
 
+    @Test
+    public void testLongDelta() {
+        LoopWriteReadTest test = new LoopWriteReadTest("Test INT64 TS_2DIFF", new DeltaBinaryEncoder.LongDeltaEncoder(),
+                () -> new DeltaBinaryDecoder.LongDeltaDecoder(), TSDataType.INT64, POINTS_COUNT_IN_ONE_PAGE) {
+            @Override
+            public Object generateValueByIndex(int i) {
+                return Long.valueOf(i * 7 % 1003);
+            }
+        };
+        test.test();
+    }
+
+    @Test
+    public void testPlain() {
+        LoopWriteReadTest test = new LoopWriteReadTest("Test INT32 PLAIN",
+                new PlainEncoder(EndianType.LITTLE_ENDIAN, TSDataType.INT32, 0),
+                () -> new PlainDecoder(EndianType.LITTLE_ENDIAN), TSDataType.INT32, POINTS_COUNT_IN_ONE_PAGE) {
+            @Override
+            public Object generateValueByIndex(int i) {
+                return Integer.valueOf(Integer.MIN_VALUE + i * 3);
+            }
+        };
+        test.test();
+
+        LoopWriteReadTest test2 = new LoopWriteReadTest("Test DOUBLE PLAIN",
+                new PlainEncoder(EndianType.LITTLE_ENDIAN, TSDataType.DOUBLE, 0),
+                () -> new PlainDecoder(EndianType.LITTLE_ENDIAN), TSDataType.DOUBLE, POINTS_COUNT_IN_ONE_PAGE) {
+            @Override
+            public Object generateValueByIndex(int i) {
+                return Double.valueOf(i) / 7;
+            }
+        };
+        test2.test();
+    }
+
+    @Test
+    public void testFloatRle() {
+        LoopWriteReadTest test = new LoopWriteReadTest("Test FLOAT RLE", new FloatEncoder(TSEncoding.RLE, TSDataType.FLOAT, 2),
+                () -> new FloatDecoder(TSEncoding.RLE, TSDataType.FLOAT), TSDataType.FLOAT, POINTS_COUNT_IN_ONE_PAGE) {
+            @Override
+            public Object generateValueByIndex(int i) {
+                return Float.valueOf(i % 100);
+            }
+        };
+        test.test();
+    }
+
     @Test
     public void testBoolean() {
         LoopWriteReadTest test = new LoopWriteReadTest("Test Boolean", new IntRleEncoder(EndianType.BIG_ENDIAN),
-                new IntRleDecoder(EndianType.BIG_ENDIAN), TSDataType.BOOLEAN, POINTS_COUNT_IN_ONE_PAGE) {
+                () -> new IntRleDecoder(EndianType.BIG_ENDIAN), TSDataType.BOOLEAN, POINTS_COUNT_IN_ONE_PAGE) {
             @Override
             public Object generateValueByIndex(int i) {
                 return i % 3 == 0 ? true : false;
@@ -50,7 +100,7 @@ public class PageReaderTest {
     @Test
     public void testInt() {
         LoopWriteReadTest test = new LoopWriteReadTest("Test INT32", new IntRleEncoder(EndianType.BIG_ENDIAN),
-                new IntRleDecoder(EndianType.BIG_ENDIAN), TSDataType.INT32, POINTS_COUNT_IN_ONE_PAGE) {
+                () -> new IntRleDecoder(EndianType.BIG_ENDIAN), TSDataType.INT32, POINTS_COUNT_IN_ONE_PAGE) {
             @Override
             public Object generateValueByIndex(int i) {
                 return Integer.valueOf(i);
@@ -62,7 +112,7 @@ public class PageReaderTest {
     @Test
     public void testFloat() {
         LoopWriteReadTest test = new LoopWriteReadTest("Test FLOAT", new SinglePrecisionEncoder(),
-                new SinglePrecisionDecoder(), TSDataType.FLOAT, POINTS_COUNT_IN_ONE_PAGE) {
+                () -> new SinglePrecisionDecoder(), TSDataType.FLOAT, POINTS_COUNT_IN_ONE_PAGE) {
             @Override
             public Object generateValueByIndex(int i) {
                 return Float.valueOf(i) / 10 - Float.valueOf(i) / 100;
@@ -71,7 +121,7 @@ public class PageReaderTest {
         test.test();
 
         LoopWriteReadTest test2 = new LoopWriteReadTest("Test FLOAT", new SinglePrecisionEncoder(),
-                new SinglePrecisionDecoder(), TSDataType.FLOAT, POINTS_COUNT_IN_ONE_PAGE) {
+                () -> new SinglePrecisionDecoder(), TSDataType.FLOAT, POINTS_COUNT_IN_ONE_PAGE) {
             @Override
             public Object generateValueByIndex(int i) {
                 return Float.valueOf(i) / 100 - Float.valueOf(i) / 10;
@@ -83,7 +133,7 @@ public class PageReaderTest {
     @Test
     public void testDouble() {
         LoopWriteReadTest test = new LoopWriteReadTest("Test Double", new DoublePrecisionEncoder(),
-                new DoublePrecisionDecoder(), TSDataType.DOUBLE, POINTS_COUNT_IN_ONE_PAGE) {
+                () -> new DoublePrecisionDecoder(), TSDataType.DOUBLE, POINTS_COUNT_IN_ONE_PAGE) {
             @Override
             public Object generateValueByIndex(int i) {
                 return Double.valueOf(i) / 10 - Double.valueOf(i) / 100;
@@ -92,7 +142,7 @@ public class PageReaderTest {
         test.test();
 
         LoopWriteReadTest test2 = new LoopWriteReadTest("Test Double", new DoublePrecisionEncoder(),
-                new DoublePrecisionDecoder(), TSDataType.DOUBLE, POINTS_COUNT_IN_ONE_PAGE) {
+                () -> new DoublePrecisionDecoder(), TSDataType.DOUBLE, POINTS_COUNT_IN_ONE_PAGE) {
             @Override
             public Object generateValueByIndex(int i) {
                 return Double.valueOf(i) / 1000 - Double.valueOf(i) / 100;
@@ -105,7 +155,7 @@ public class PageReaderTest {
     public void testBinary() {
         LoopWriteReadTest test = new LoopWriteReadTest("Test Double",
                 new PlainEncoder(EndianType.LITTLE_ENDIAN, TSDataType.TEXT, 1000),
-                new PlainDecoder(EndianType.LITTLE_ENDIAN),
+                () -> new PlainDecoder(EndianType.LITTLE_ENDIAN),
                 TSDataType.TEXT,
                 POINTS_COUNT_IN_ONE_PAGE) {
             @Override
@@ -118,16 +168,16 @@ public class PageReaderTest {
 
     private abstract static class LoopWriteReadTest {
         private Encoder encoder;
-        private Decoder decoder;
+        private Supplier<Decoder> decoderSupplier;
         private TSDataType dataType;
         private ValueWriter valueWriter;
         private String name;
         private int count;
 
-        public LoopWriteReadTest(String name, Encoder encoder, Decoder decoder, TSDataType dataType, int count) {
+        public LoopWriteReadTest(String name, Encoder encoder, Supplier<Decoder> decoderSupplier, TSDataType dataType, int count) {
             this.name = name;
             this.encoder = encoder;
-            this.decoder = decoder;
+            this.decoderSupplier = decoderSupplier;
             this.dataType = dataType;
             this.count = count;
         }
@@ -139,8 +189,9 @@ public class PageReaderTest {
                 valueWriter.setValueEncoder(this.encoder);
                 writeData();
 
-                InputStream page = new ByteArrayInputStream(valueWriter.getBytes().toByteArray());
-                PageReader pageReader = new PageReader(page, dataType, decoder, new DeltaBinaryDecoder.LongDeltaDecoder());
+                byte[] pageBytes = valueWriter.getBytes().toByteArray();
+                InputStream page = new ByteArrayInputStream(pageBytes);
+                PageReader pageReader = new PageReader(page, dataType, decoderSupplier.get(), new DeltaBinaryDecoder.LongDeltaDecoder());
 
                 int index = 0;
                 long startTimestamp = System.currentTimeMillis();
@@ -154,6 +205,22 @@ public class PageReaderTest {
                 System.out.println("TestName: [" + name + "]\n\tTSDataType: " + dataType +
                         "\tRead-Count:" + count + "\tTime-used:" + (endTimestamp - startTimestamp) + "ms");
                 Assert.assertEquals(count, index);
+
+                // read the page again as one batch
+                page = new ByteArrayInputStream(pageBytes);
+                pageReader = new PageReader(page, dataType, decoderSupplier.get(), new DeltaBinaryDecoder.LongDeltaDecoder());
+                Assert.assertTrue(pageReader.hasNextBatch());
+                BatchData batchData = pageReader.nextBatch();
+                Assert.assertFalse(pageReader.hasNextBatch());
+                Assert.assertEquals(count, batchData.length());
+                index = 0;
+                while (batchData.hasNext()) {
+                    Assert.assertEquals(index, batchData.currentTime());
+                    Assert.assertEquals(generateValueByIndex(index), batchData.currentValue().getValue());
+                    batchData.next();
+                    index++;
+                }
+                Assert.assertEquals(count, index);
             } catch (IOException e) {
                 e.printStackTrace();
                 Assert.fail("Fail when executing test: [" + name + "]");
@@ -12,8 +12,10 @@ import cn.edu.tsinghua.tsfile.timeseries.read.support.Path;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.common.EncodedSeriesChunkDescriptor;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.controller.MetadataQuerierByFileImpl;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.controller.SeriesChunkLoaderImpl;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.BatchData;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.datatype.TimeValuePair;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.SeriesReader;
+import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.impl.SeriesChunkReaderByTimestampImpl;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.impl.SeriesReaderFromSingleFileWithFilterImpl;
 import cn.edu.tsinghua.tsfile.timeseries.readV2.reader.impl.SeriesReaderFromSingleFileWithoutFilterImpl;
 import cn.edu.tsinghua.tsfile.timeseries.write.exception.WriteProcessException;
@@ -107,4 +109,67 @@ public class SeriesReaderTest {
         System.out.println("SeriesReadWithFilterTest. [Time used]: " + (endTimestamp - startTimestamp) +
                 " ms. [Read Count]: " + count);
     }
+
+    @Test
+    public void readWithTombstoneTest() throws IOException {
+        SeriesChunkLoaderImpl seriesChunkLoader = new SeriesChunkLoaderImpl(randomAccessFileReader);
+        List<EncodedSeriesChunkDescriptor> encodedSeriesChunkDescriptorList = metadataQuerierByFile.getSeriesChunkDescriptorList(new Path("d1.s1"));
+        long startTime = TsFileGeneratorForTest.START_TIMESTAMP;
+        for (EncodedSeriesChunkDescriptor encodedSeriesChunkDescriptor : encodedSeriesChunkDescriptorList) {
+            encodedSeriesChunkDescriptor.setMaxTombstoneTime(startTime + 99);
+        }
+        SeriesReader seriesReader = new SeriesReaderFromSingleFileWithoutFilterImpl(seriesChunkLoader, encodedSeriesChunkDescriptorList);
+
+        // the deleted points are skipped in the pages returned without being copied
+        long aimedTimestamp = startTime + 100;
+        while (seriesReader.hasNext()) {
+            Assert.assertEquals(aimedTimestamp++, seriesReader.next().getTimestamp());
+        }
+        Assert.assertEquals(startTime + rowCount, aimedTimestamp);
+    }
+
+    @Test
+    public void skipToTest() throws IOException {
+        SeriesChunkLoaderImpl seriesChunkLoader = new SeriesChunkLoaderImpl(randomAccessFileReader);
+        List<EncodedSeriesChunkDescriptor> encodedSeriesChunkDescriptorList = metadataQuerierByFile.getSeriesChunkDescriptorList(new Path("d1.s1"));
+        SeriesReader seriesReader = new SeriesReaderFromSingleFileWithoutFilterImpl(seriesChunkLoader, encodedSeriesChunkDescriptorList);
+
+        long startTime = TsFileGeneratorForTest.START_TIMESTAMP;
+        long[] skippedTimes = new long[]{startTime + 10, startTime + 500000, startTime + 500001, startTime + 999999};
+        Assert.assertTrue(seriesReader.hasNext());
+        Assert.assertEquals(startTime, seriesReader.next().getTimestamp());
+        for (long skippedTime : skippedTimes) {
+            seriesReader.skipTo(skippedTime);
+            Assert.assertTrue(seriesReader.hasNext());
+            Assert.assertEquals(skippedTime, seriesReader.next().getTimestamp());
+        }
+        // skipping backwards does nothing
+        seriesReader.skipTo(startTime);
+        Assert.assertFalse(seriesReader.hasNext());
+
+        seriesReader = new SeriesReaderFromSingleFileWithoutFilterImpl(seriesChunkLoader, encodedSeriesChunkDescriptorList);
+        seriesReader.skipTo(startTime + rowCount);
+        Assert.assertFalse(seriesReader.hasNext());
+    }
+
+    @Test
+    public void readBatchByTimestampAfterSkipTest() throws IOException {
+        SeriesChunkLoaderImpl seriesChunkLoader = new SeriesChunkLoaderImpl(randomAccessFileReader);
+        EncodedSeriesChunkDescriptor descriptor = metadataQuerierByFile.getSeriesChunkDescriptorList(new Path("d1.s1")).get(0);
+        SeriesChunkReaderByTimestampImpl seriesChunkReader = new SeriesChunkReaderByTimestampImpl(
+                seriesChunkLoader.getMemSeriesChunk(descriptor).getSeriesChunkBodyStream(), descriptor.getDataType(),
+                descriptor.getCompressionTypeName());
+
+        // the points of a page skipped before selecting the batch must not shift the selection
+        long aimedTimestamp = TsFileGeneratorForTest.START_TIMESTAMP + 15;
+        seriesChunkReader.setCurrentTimestamp(aimedTimestamp);
+        while (seriesChunkReader.hasNextBatch()) {
+            BatchData batchData = seriesChunkReader.nextBatch();
+            while (batchData.hasNext()) {
+                Assert.assertEquals(aimedTimestamp++, batchData.currentTime());
+                batchData.next();
+            }
+        }
+        Assert.assertEquals(descriptor.getMaxTimestamp() + 1, aimedTimestamp);
+    }
 }
@@ -73,17 +73,64 @@ public class NodeTest {
         Assert.assertEquals(ret.length, index);
     }
 
+    @Test
+    public void testSkipTo() throws IOException {
+        // a sparse series joined with a dense series which could skip
+        long[] sparse = new long[]{100, 5000, 9999};
+        long[] dense = new long[10000];
+        for (int i = 0; i < dense.length; i++) {
+            dense[i] = i;
+        }
+        FakedSeriesReader denseReader = new FakedSeriesReader(dense, true);
+        Node andNode = new AndNode(new LeafNode(new FakedSeriesReader(sparse)), new LeafNode(denseReader));
+        int index = 0;
+        while (andNode.hasNext()) {
+            Assert.assertEquals(sparse[index++], andNode.next());
+        }
+        Assert.assertEquals(sparse.length, index);
+        Assert.assertTrue(denseReader.readCount < 10);
+
+        // the reader skips nothing, the leaf node drops the points itself
+        Node leafNode = new LeafNode(new FakedSeriesReader(dense));
+        leafNode.skipTo(5000);
+        Assert.assertEquals(5000, leafNode.next());
+        leafNode.skipTo(4000);
+        Assert.assertEquals(5001, leafNode.next());
+
+        Node orNode = new OrNode(new LeafNode(new FakedSeriesReader(sparse)),
+                new LeafNode(new FakedSeriesReader(new long[]{1, 200, 6000}, true)));
+        Assert.assertEquals(1, orNode.next());
+        orNode.skipTo(5000);
+        Assert.assertEquals(5000, orNode.next());
+        Assert.assertEquals(6000, orNode.next());
+        Assert.assertEquals(9999, orNode.next());
+        Assert.assertFalse(orNode.hasNext());
+    }
 
     private static class FakedSeriesReader implements SeriesReader {
 
         private long[] timestamps;
         private int index;
+        private boolean canSkip;
+        private int readCount;
 
         public FakedSeriesReader(long[] timestamps) {
+            this(timestamps, false);
+        }
+
+        public FakedSeriesReader(long[] timestamps, boolean canSkip) {
             this.timestamps = timestamps;
+            this.canSkip = canSkip;
             index = 0;
         }
 
+        @Override
+        public void skipTo(long timestamp) throws IOException {
+            while (canSkip && index < timestamps.length && timestamps[index] < timestamp) {
+                index++;
+            }
+        }
+
         @Override
         public boolean hasNext() throws IOException {
             return index < timestamps.length;
@@ -91,6 +138,7 @@ public class NodeTest {
 
         @Override
         public TimeValuePair next() throws IOException {
+            readCount++;
             return new TimeValuePair(timestamps[index++], new TsPrimitiveType.TsLong(1L));
         }
 